@@ -0,0 +1,96 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.adapter.in.web.dto.InvoiceItemDto;
+import com.teatown.software.invoice.adapter.out.pdf.CompanyLogoCache;
+import com.teatown.software.invoice.adapter.out.pdf.InvoiceLabelRegistry;
+import com.teatown.software.invoice.adapter.out.pdf.OpenPdfInvoiceGenerator;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the objects under benchmark the same way the application wires them, with invoices of a given size.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    static ResourceBundleMessageSource messageSource() {
+        final var messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasenames("messages");
+        return messageSource;
+    }
+
+    static OpenPdfInvoiceGenerator generator() {
+        final var properties = new InvoicePdfProperties();
+        final var labelRegistry = new InvoiceLabelRegistry(messageSource(), properties);
+        final var logoCache = new CompanyLogoCache(properties, new DefaultResourceLoader());
+        return new OpenPdfInvoiceGenerator(properties, labelRegistry, logoCache);
+    }
+
+    static Invoice invoice(final int itemCount) {
+        final List<InvoiceItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            final var quantity = BigDecimal.valueOf(1 + i % 8, 1).add(BigDecimal.ONE);
+            final var unitPrice = new BigDecimal("95.50");
+            items.add(InvoiceItem.builder()
+                    .description("Consulting, work package " + (i + 1))
+                    .quantity(quantity)
+                    .unit("h")
+                    .unitPriceEuro(unitPrice)
+                    .totalPrice(quantity.multiply(unitPrice))
+                    .build());
+        }
+        final BigDecimal net = items.stream().map(InvoiceItem::totalPrice).reduce(BigDecimal.ZERO, BigDecimal::add);
+        final var vatRate = new BigDecimal("0.20");
+        final Invoice template = TestFixtures.minimalInvoice();
+        return Invoice.builder()
+                .invoiceDate(template.invoiceDate())
+                .invoiceNumber(template.invoiceNumber())
+                .deliveryDate(template.deliveryDate())
+                .dueDate(template.dueDate())
+                .items(items)
+                .totalNetPrice(net)
+                .vatRate(vatRate)
+                .vatAbsolute(net.multiply(vatRate))
+                .totalGrossPrice(net.add(net.multiply(vatRate)))
+                .companyDetails(template.companyDetails())
+                .customer(template.customer())
+                .reverseCharge(false)
+                .build();
+    }
+
+    static CreateInvoiceRequestDto request(final int itemCount) {
+        final CreateInvoiceRequestDto template = TestFixtures.createInvoiceRequestDto();
+        final InvoiceItemDto item = TestFixtures.invoiceItemDto();
+        final List<InvoiceItemDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new InvoiceItemDto(item.description() + " " + (i + 1), item.quantity(), item.unit(),
+                    item.unitPriceEuro(), item.totalPrice()));
+        }
+        final BigDecimal net = item.totalPrice().multiply(BigDecimal.valueOf(itemCount));
+        return new CreateInvoiceRequestDto(
+                template.invoiceDate(),
+                template.invoiceNumber(),
+                template.deliveryDate(),
+                template.dueDate(),
+                items,
+                net,
+                template.vatRate(),
+                net.multiply(template.vatRate()),
+                net.add(net.multiply(template.vatRate())),
+                template.finalNotes(),
+                template.companyDetails(),
+                template.customer(),
+                template.reverseCharge()
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.out.pdf.InvoiceLabelRegistry;
+import com.teatown.software.invoice.adapter.out.pdf.InvoiceLabels;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.MessageSource;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Label resolution for one invoice: the former per-cell {@link MessageSource} lookups (including the
+ * {@code MessageFormat} run for the VAT label) against reading the precompiled {@link InvoiceLabels} snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InvoiceLabelsBenchmark {
+
+    private static final String[] CODES = {
+            "invoice.pdf.invoiceNo", "invoice.pdf.invoiceDate", "invoice.pdf.deliveryDate", "invoice.pdf.dueDate",
+            "invoice.pdf.yourCustomerNo", "invoice.pdf.yourVatId", "invoice.pdf.yourContact",
+            "invoice.pdf.positionDescription", "invoice.pdf.pos", "invoice.pdf.description", "invoice.pdf.qty",
+            "invoice.pdf.unit", "invoice.pdf.unitPrice", "invoice.pdf.total", "invoice.pdf.netTotal",
+            "invoice.pdf.totalGross", "invoice.pdf.phone", "invoice.pdf.email", "invoice.pdf.placeOfJurisdiction",
+            "invoice.pdf.companyId", "invoice.pdf.ceoDirector", "invoice.pdf.vatId", "invoice.pdf.bank",
+            "invoice.pdf.accountOwner", "invoice.pdf.iban"
+    };
+
+    @Param({"en", "es"})
+    public String lang;
+
+    private MessageSource messageSource;
+    private InvoiceLabelRegistry registry;
+    private Locale locale;
+
+    @Setup
+    public void setUp() {
+        messageSource = BenchmarkFixtures.messageSource();
+        registry = new InvoiceLabelRegistry(messageSource, new InvoicePdfProperties());
+        locale = Locale.of(lang);
+    }
+
+    @Benchmark
+    public void messageSourceLookups(final Blackhole bh) {
+        for (final String code : CODES) {
+            bh.consume(messageSource.getMessage(code, null, locale));
+        }
+        bh.consume(messageSource.getMessage("invoice.pdf.vat", new Object[]{"20"}, locale));
+    }
+
+    @Benchmark
+    public void labelSnapshot(final Blackhole bh) {
+        final InvoiceLabels labels = registry.labels(locale);
+        bh.consume(labels.invoiceNo());
+        bh.consume(labels.invoiceDate());
+        bh.consume(labels.deliveryDate());
+        bh.consume(labels.dueDate());
+        bh.consume(labels.yourCustomerNo());
+        bh.consume(labels.yourVatId());
+        bh.consume(labels.yourContact());
+        bh.consume(labels.positionDescription());
+        bh.consume(labels.pos());
+        bh.consume(labels.description());
+        bh.consume(labels.qty());
+        bh.consume(labels.unit());
+        bh.consume(labels.unitPrice());
+        bh.consume(labels.total());
+        bh.consume(labels.netTotal());
+        bh.consume(labels.totalGross());
+        bh.consume(labels.phone());
+        bh.consume(labels.email());
+        bh.consume(labels.placeOfJurisdiction());
+        bh.consume(labels.companyId());
+        bh.consume(labels.ceoDirector());
+        bh.consume(labels.vatId());
+        bh.consume(labels.bank());
+        bh.consume(labels.accountOwner());
+        bh.consume(labels.iban());
+        bh.consume(labels.vat("20"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.out.archive.SegmentedInvoiceArchive;
+import com.teatown.software.invoice.adapter.out.numbering.FileInvoiceNumberReservations;
+import com.teatown.software.invoice.application.service.InvoiceNumberService;
+import com.teatown.software.invoice.configuration.InvoiceArchiveProperties;
+import com.teatown.software.invoice.configuration.InvoiceNumberingProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice number allocation as done for every invoice created without a number: {@link InvoiceNumberService#issue}
+ * from 1, 4 and 16 threads, including the forced write of the reservation file at every block boundary and the
+ * fingerprint kept for duplicate detection, checked against an empty archive. A block size of 1 shows the cost of reserving every number on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceNumberBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int blockSize;
+
+    private Path directory;
+    private SegmentedInvoiceArchive archive;
+    private InvoiceNumberService service;
+    private Invoice invoice;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("invoice-number-benchmark");
+        final var properties = new InvoiceNumberingProperties();
+        properties.setFile(directory.resolve("invoice-numbers.properties"));
+        properties.setBlockSize(blockSize);
+        final var archiveProperties = new InvoiceArchiveProperties();
+        archiveProperties.setDirectory(directory.resolve("archive"));
+        archive = new SegmentedInvoiceArchive(JsonMapper.builder().build(), archiveProperties);
+        service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        invoice = BenchmarkFixtures.invoice(5).withInvoiceNumber(null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        archive.close();
+        try (var files = Files.walk(directory)) {
+            for (final Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Invoice oneThread() {
+        return service.issue(invoice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Invoice fourThreads() {
+        return service.issue(invoice);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Invoice sixteenThreads() {
+        return service.issue(invoice);
+    }
+}
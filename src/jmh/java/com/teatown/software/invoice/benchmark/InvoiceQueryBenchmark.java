@@ -0,0 +1,119 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.out.archive.InvoiceQueryIndex;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoicePage;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoiceQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing archived invoices: one page of 50 from an {@link InvoiceQueryIndex} over {@code invoiceCount} invoices
+ * spread over five years and 10,000 customers, a quarter of them reverse charge. {@link Mode#SampleTime} reports the
+ * latency percentiles; the target is a p99 in single-digit milliseconds at 10M invoices. The 64,000 latest invoices
+ * are added one by one, so part of them is still unsorted as it would be in a running service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class InvoiceQueryBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2021, 1, 1);
+    private static final int DAYS = 5 * 365;
+    private static final int CUSTOMERS = 10_000;
+    private static final int ADDED_ONE_BY_ONE = 64_000;
+    private static final int PAGE = 50;
+
+    @Param({"1000000", "10000000"})
+    public int invoiceCount;
+
+    private final String[] customers = new String[CUSTOMERS];
+    private InvoiceQueryIndex index;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers[i] = "C-" + i;
+        }
+        index = new InvoiceQueryIndex();
+        final var random = new SplittableRandom(42);
+        final int bulk = invoiceCount - ADDED_ONE_BY_ONE;
+        final List<InvoiceQueryIndex.Entry> entries = new ArrayList<>(bulk);
+        for (int i = 0; i < bulk; i++) {
+            entries.add(entry(random, i, invoiceCount));
+        }
+        index.addAll(entries);
+        for (int i = bulk; i < invoiceCount; i++) {
+            index.add(entry(random, i, invoiceCount));
+        }
+    }
+
+    @Benchmark
+    public InvoicePage byCustomer() {
+        return index.query(query(randomCustomer(), null, null, null, null, null));
+    }
+
+    @Benchmark
+    public InvoicePage byInvoiceDateMonth() {
+        final LocalDate from = randomDay();
+        return index.query(query(null, from, from.plusMonths(1), null, null, null));
+    }
+
+    @Benchmark
+    public InvoicePage byDueDateWeekAndReverseCharge() {
+        final LocalDate from = randomDay();
+        return index.query(query(null, null, null, from, from.plusDays(6), true));
+    }
+
+    @Benchmark
+    public InvoicePage byCustomerAndInvoiceDateYear() {
+        final LocalDate from = randomDay();
+        return index.query(query(randomCustomer(), from, from.plusYears(1), null, null, false));
+    }
+
+    @Benchmark
+    public InvoicePage byDueDateHalfYear() {
+        // a wide due date range, the worst case: every match is ranked
+        final LocalDate from = randomDay();
+        return index.query(query(null, null, null, from, from.plusMonths(6), null));
+    }
+
+    private static InvoiceQuery query(final String customerNumber, final LocalDate invoiceDateFrom,
+                                      final LocalDate invoiceDateTo, final LocalDate dueDateFrom,
+                                      final LocalDate dueDateTo, final Boolean reverseCharge) {
+        return new InvoiceQuery(customerNumber, invoiceDateFrom, invoiceDateTo, dueDateFrom, dueDateTo, reverseCharge,
+                null, PAGE);
+    }
+
+    private String randomCustomer() {
+        return customers[ThreadLocalRandom.current().nextInt(CUSTOMERS)];
+    }
+
+    private static LocalDate randomDay() {
+        return START.plusDays(ThreadLocalRandom.current().nextInt(DAYS));
+    }
+
+    private InvoiceQueryIndex.Entry entry(final SplittableRandom random, final int i, final int count) {
+        final LocalDate invoiceDate = START.plusDays((long) i * DAYS / count);
+        return new InvoiceQueryIndex.Entry("INV-" + i, i, invoiceDate, invoiceDate.plusDays(14 + random.nextInt(31)),
+                customers[random.nextInt(CUSTOMERS)], random.nextInt(4) == 0);
+    }
+}
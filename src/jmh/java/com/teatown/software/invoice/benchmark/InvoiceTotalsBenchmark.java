@@ -0,0 +1,82 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.domain.InvoiceTotals;
+import com.teatown.software.invoice.domain.InvoiceTotalsCalculator;
+import com.teatown.software.invoice.domain.RoundingPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line totals, net, VAT and gross of an invoice: {@code BigDecimal} arithmetic per line (as the mapper used to do it)
+ * against {@link InvoiceTotalsCalculator}. Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InvoiceTotalsBenchmark {
+
+    private static final BigDecimal VAT_RATE = new BigDecimal("0.19");
+
+    @Param({"50", "5000"})
+    public int itemCount;
+
+    @Param({"PER_LINE", "PER_INVOICE"})
+    public RoundingPolicy.Granularity rounding;
+
+    private InvoiceTotalsCalculator calculator;
+    private BigDecimal[] quantities;
+    private BigDecimal[] unitPrices;
+
+    @Setup
+    public void setUp() {
+        calculator = new InvoiceTotalsCalculator(new RoundingPolicy(rounding, RoundingMode.HALF_UP));
+        quantities = new BigDecimal[itemCount];
+        unitPrices = new BigDecimal[itemCount];
+        final var random = new Random(42);
+        for (int i = 0; i < itemCount; i++) {
+            quantities[i] = BigDecimal.valueOf(random.nextInt(400) + 1, random.nextInt(3));
+            unitPrices[i] = BigDecimal.valueOf(random.nextInt(500_000), 2);
+        }
+    }
+
+    @Benchmark
+    public InvoiceTotals bigDecimal() {
+        BigDecimal net = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal lineTotal = quantities[i].multiply(unitPrices[i]);
+            if (rounding == RoundingPolicy.Granularity.PER_LINE) {
+                lineTotal = lineTotal.setScale(InvoiceTotalsCalculator.CENTS, RoundingMode.HALF_UP);
+            }
+            net = net.add(lineTotal);
+        }
+        net = net.setScale(InvoiceTotalsCalculator.CENTS, RoundingMode.HALF_UP);
+        final BigDecimal vat = net.multiply(VAT_RATE).setScale(InvoiceTotalsCalculator.CENTS, RoundingMode.HALF_UP);
+        return new InvoiceTotals(net, vat, net.add(vat));
+    }
+
+    @Benchmark
+    public InvoiceTotals calculator() {
+        final InvoiceTotalsCalculator.Sum sum = calculator.sum();
+        for (int i = 0; i < itemCount; i++) {
+            sum.add(quantities[i], unitPrices[i], null);
+        }
+        return sum.totals(VAT_RATE);
+    }
+}
@@ -0,0 +1,98 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.teatown.software.invoice.adapter.out.pdf.CellStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the items table: the former per-value {@link PdfPCell} construction (a cell with a 0.5 border and
+ * padding 4, immediately overwritten, then copied by {@link PdfPTable#addCell(PdfPCell)}) against {@link CellStyle}.
+ * Only the table is built, not laid out, so the result isolates the per-cell work. Run with {@code -prof gc} and
+ * divide {@code gc.alloc.rate.norm} by {@code itemCount} for the bytes allocated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ItemsTableBenchmark {
+
+    private static final float[] WIDTHS = {8, 40, 8, 10, 12, 12};
+
+    @Param({"100", "1000", "5000"})
+    public int itemCount;
+
+    private final Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private final CellStyle textLeft = CellStyle.left(normalFont, CellStyle.Border.NONE);
+    private final CellStyle textRight = CellStyle.right(normalFont, CellStyle.Border.NONE);
+    private String[] positions;
+
+    @Setup
+    public void setUp() {
+        positions = new String[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            positions[i] = String.valueOf(i + 1);
+        }
+    }
+
+    @Benchmark
+    public PdfPTable constructedCells() {
+        final var table = new PdfPTable(WIDTHS);
+        for (int i = 0; i < itemCount; i++) {
+            table.addCell(legacyCell(positions[i], false));
+            table.addCell(legacyCell("Consulting services", false));
+            table.addCell(legacyCell("8", true));
+            table.addCell(legacyCell("h", true));
+            table.addCell(legacyCell("120.00 €", true));
+            table.addCell(legacyCell("960.00 €", true));
+        }
+        return table;
+    }
+
+    @Benchmark
+    public PdfPTable cellStyles() {
+        final var table = new PdfPTable(WIDTHS);
+        for (int i = 0; i < itemCount; i++) {
+            textLeft.add(table, positions[i]);
+            textLeft.add(table, "Consulting services");
+            textRight.add(table, "8");
+            textRight.add(table, "h");
+            textRight.add(table, "120.00 €");
+            textRight.add(table, "960.00 €");
+        }
+        return table;
+    }
+
+    /**
+     * The former {@code cellWithoutBorder} and {@code cellRightWithoutBorder} helpers.
+     */
+    private PdfPCell legacyCell(final String text, final boolean right) {
+        final var cell = new PdfPCell(new Phrase(text, normalFont));
+        cell.setBorderWidth(0.5f);
+        cell.setPadding(4);
+        if (right) {
+            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        }
+        cell.setBorderWidth(0f);
+        cell.setPadding(2);
+        return cell;
+    }
+}
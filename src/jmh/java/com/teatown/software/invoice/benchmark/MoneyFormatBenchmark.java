@@ -0,0 +1,75 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.out.pdf.MoneyFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting the values of a 1000-line items table (quantity, unit price, line total): the former
+ * {@code String.format("%.2f €")} and {@code stripTrailingZeros().toPlainString()} against {@link MoneyFormatter}.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoneyFormatBenchmark {
+
+    private static final int LINES = 1000;
+
+    @Param({"en", "es"})
+    public String lang;
+
+    private Locale locale;
+    private final BigDecimal[] quantities = new BigDecimal[LINES];
+    private final BigDecimal[] unitPrices = new BigDecimal[LINES];
+    private final BigDecimal[] totals = new BigDecimal[LINES];
+
+    @Setup
+    public void setUp() {
+        locale = Locale.of(lang);
+        final var random = new Random(42);
+        for (int i = 0; i < LINES; i++) {
+            quantities[i] = BigDecimal.valueOf(random.nextInt(400) + 1, random.nextInt(2));
+            unitPrices[i] = BigDecimal.valueOf(random.nextInt(500_000), 2);
+            totals[i] = quantities[i].multiply(unitPrices[i]);
+        }
+    }
+
+    @Benchmark
+    public void stringFormat(final Blackhole bh) {
+        for (int i = 0; i < LINES; i++) {
+            bh.consume(quantities[i].stripTrailingZeros().toPlainString());
+            bh.consume(String.format("%.2f €", unitPrices[i]));
+            bh.consume(String.format("%.2f €", totals[i]));
+        }
+    }
+
+    @Benchmark
+    public void moneyFormatter(final Blackhole bh) {
+        final MoneyFormatter format = MoneyFormatter.of(locale, RoundingMode.HALF_UP);
+        for (int i = 0; i < LINES; i++) {
+            bh.consume(format.decimal(quantities[i]));
+            bh.consume(format.money(unitPrices[i]));
+            bh.consume(format.money(totals[i]));
+        }
+    }
+}
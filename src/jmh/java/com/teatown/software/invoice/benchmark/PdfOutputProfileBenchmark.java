@@ -0,0 +1,71 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.out.pdf.OpenPdfInvoiceGenerator;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
+import com.teatown.software.invoice.domain.Invoice;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render time against output size of every {@link PdfOutputProfile}. Besides the time per render, the benchmark
+ * reports {@code pdfBytes}, the size of the rendered PDF, as a secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PdfOutputProfileBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int itemCount;
+
+    @Param({"FAST", "BALANCED", "SMALLEST"})
+    public PdfOutputProfile profile;
+
+    private OpenPdfInvoiceGenerator generator;
+    private Invoice invoice;
+
+    /**
+     * Size of the last rendered PDF, reported next to the render time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+
+        public long pdfBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pdfBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        generator = BenchmarkFixtures.generator();
+        invoice = BenchmarkFixtures.invoice(itemCount);
+    }
+
+    @Benchmark
+    public byte[] generate(final OutputSize size) {
+        final byte[] pdf = generator.generate(invoice, Locale.ENGLISH, profile);
+        size.pdfBytes = pdf.length;
+        return pdf;
+    }
+}
@@ -0,0 +1,65 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.out.pdf.OpenPdfInvoiceGenerator;
+import com.teatown.software.invoice.domain.Invoice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link OpenPdfInvoiceGenerator#generate} by invoice size and language.
+ * Run with {@code -prof gc} (the default of the benchmark profile) to also get the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PdfRenderBenchmark {
+
+    @Param({"1", "50", "500", "5000"})
+    public int itemCount;
+
+    @Param({"en", "es"})
+    public String lang;
+
+    private OpenPdfInvoiceGenerator generator;
+    private Invoice invoice;
+    private Locale locale;
+
+    @Setup
+    public void setUp() {
+        generator = BenchmarkFixtures.generator();
+        invoice = BenchmarkFixtures.invoice(itemCount);
+        locale = Locale.of(lang);
+    }
+
+    /**
+     * Rendering only: the PDF is streamed into a discarding stream.
+     */
+    @Benchmark
+    public void generateToStream() {
+        generator.generate(invoice, locale, OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Rendering plus the in-memory copy of the byte-array API.
+     */
+    @Benchmark
+    public byte[] generateToByteArray() {
+        return generator.generate(invoice, locale);
+    }
+}
@@ -0,0 +1,57 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.adapter.in.web.InvoiceRequestMapper;
+import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the inbound path before rendering: JSON deserialization of the request and DTO-to-domain mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RequestMappingBenchmark {
+
+    @Param({"1", "50", "500", "5000"})
+    public int itemCount;
+
+    private final InvoiceRequestMapper mapper = new InvoiceRequestMapper(new InvoiceTotalsProperties());
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private CreateInvoiceRequestDto request;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        request = BenchmarkFixtures.request(itemCount);
+        json = jsonMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public CreateInvoiceRequestDto deserializeRequest() {
+        return jsonMapper.readValue(json, CreateInvoiceRequestDto.class);
+    }
+
+    @Benchmark
+    public Invoice mapToDomain() {
+        return mapper.toDomain(request);
+    }
+}
@@ -0,0 +1,93 @@
+package com.teatown.software.invoice.benchmark;
+
+import com.teatown.software.invoice.application.security.SecurityConfig;
+import com.teatown.software.invoice.configuration.InvoiceSecurityProperties;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the security filter chain per request, without the controller behind it: the {@code FilterChainProxy} built
+ * by {@link SecurityConfig} authenticating one of 1,000 principals from the {@code user} header. A principal cache
+ * time to live of {@code 0s} resolves the principal from the store on every request, as before the cache; the rate
+ * limit is set high enough never to reject, so only its bookkeeping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityChainBenchmark {
+
+    private static final int PRINCIPALS = 1000;
+
+    @Param({"0s", "5m"})
+    public String principalCacheTtl;
+
+    @Param({"false", "true"})
+    public boolean rateLimit;
+
+    private final String[] principals = new String[PRINCIPALS];
+    private AnnotationConfigWebApplicationContext context;
+    private Filter securityChain;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < PRINCIPALS; i++) {
+            principals[i] = "client-" + i;
+        }
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "invoice.security.principal-cache-ttl", principalCacheTtl,
+                "invoice.security.rate-limit-enabled", rateLimit,
+                "invoice.security.rate-limit-per-second", 1e12)));
+        context.register(SecurityProperties.class, SecurityConfig.class);
+        context.refresh();
+        securityChain = context.getBean("springSecurityFilterChain", Filter.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws ServletException, IOException {
+        final var request = new MockHttpServletRequest("GET", "/api/v1/invoices");
+        request.addHeader("user", principals[ThreadLocalRandom.current().nextInt(PRINCIPALS)]);
+        final var response = new MockHttpServletResponse();
+        securityChain.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(InvoiceSecurityProperties.class)
+    static class SecurityProperties {
+    }
+}
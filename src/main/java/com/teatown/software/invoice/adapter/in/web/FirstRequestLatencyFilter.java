@@ -0,0 +1,65 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the first API request the application serves, from entering the filter chain until the handler returned,
+ * and reports it as {@code application.first.request.time} next to Spring Boot's {@code application.started.time}
+ * and {@code application.ready.time}. Comparing it with the latency of later requests shows whether the startup
+ * {@link InvoiceWarmUp} covered the request path.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FirstRequestLatencyFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(FirstRequestLatencyFilter.class);
+
+    private final AtomicBoolean seen = new AtomicBoolean();
+    private volatile long firstRequestNanos;
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return seen.get() || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        if (!seen.compareAndSet(false, true)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            firstRequestNanos = System.nanoTime() - start;
+            log.info("First request {} {} took {} ms", request.getMethod(), request.getRequestURI(),
+                    TimeUnit.NANOSECONDS.toMillis(firstRequestNanos));
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        TimeGauge.builder("application.first.request.time", this, TimeUnit.NANOSECONDS,
+                        filter -> filter.firstRequestNanos)
+                .description("Time the first API request took; 0 until it was served")
+                .register(registry);
+    }
+}
@@ -1,10 +1,18 @@
 package com.teatown.software.invoice.adapter.in.web;
 
+import com.teatown.software.invoice.application.exception.ArchivedInvoiceNotFoundException;
+import com.teatown.software.invoice.application.exception.DuplicateInvoiceNumberException;
+import com.teatown.software.invoice.application.exception.InvoiceJobNotFoundException;
+import com.teatown.software.invoice.application.exception.InvoiceJobNotReadyException;
+import com.teatown.software.invoice.application.exception.InvoiceJobQueueFullException;
 import com.teatown.software.invoice.application.exception.InvoicePdfException;
+import com.teatown.software.invoice.application.exception.RenderCapacityExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -32,6 +40,26 @@ public class GlobalExceptionHandler {
         return problem;
     }
 
+    @ExceptionHandler(InvalidInvoiceRequestException.class)
+    public ProblemDetail handleInvalidInvoiceRequest(final InvalidInvoiceRequestException ex) {
+        if (log.isDebugEnabled()) {
+            log.debug("Invoice request rejected: {}", ex.getMessage());
+        }
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problem.setTitle("Invalid Request");
+        return problem;
+    }
+
+    @ExceptionHandler(InvoiceRequestTooLargeException.class)
+    public ProblemDetail handleInvoiceRequestTooLarge(final InvoiceRequestTooLargeException ex) {
+        if (log.isDebugEnabled()) {
+            log.debug("Invoice request rejected: {}", ex.getMessage());
+        }
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONTENT_TOO_LARGE, ex.getMessage());
+        problem.setTitle("Request Too Large");
+        return problem;
+    }
+
     @ExceptionHandler(InvoicePdfException.class)
     public ProblemDetail handleInvoicePdf(final InvoicePdfException ex) {
         log.error("Invoice PDF generation failed", ex);
@@ -39,4 +67,72 @@ public class GlobalExceptionHandler {
         problem.setTitle("PDF Generation Error");
         return problem;
     }
+
+    @ExceptionHandler(InvalidBatchRequestException.class)
+    public ProblemDetail handleInvalidBatch(final InvalidBatchRequestException ex) {
+        if (log.isDebugEnabled()) {
+            log.debug("Batch request rejected: {}", ex.getMessage());
+        }
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+        problem.setTitle("Invalid Request");
+        return problem;
+    }
+
+    @ExceptionHandler(InvoiceJobNotFoundException.class)
+    public ProblemDetail handleInvoiceJobNotFound(final InvoiceJobNotFoundException ex) {
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+        problem.setTitle("Invoice Job Not Found");
+        return problem;
+    }
+
+    @ExceptionHandler(ArchivedInvoiceNotFoundException.class)
+    public ProblemDetail handleArchivedInvoiceNotFound(final ArchivedInvoiceNotFoundException ex) {
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+        problem.setTitle("Invoice Not Found");
+        return problem;
+    }
+
+    @ExceptionHandler(InvoiceJobNotReadyException.class)
+    public ProblemDetail handleInvoiceJobNotReady(final InvoiceJobNotReadyException ex) {
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+        problem.setTitle("Invoice Job Not Ready");
+        return problem;
+    }
+
+    @ExceptionHandler(DuplicateInvoiceNumberException.class)
+    public ProblemDetail handleDuplicateInvoiceNumber(final DuplicateInvoiceNumberException ex) {
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+        problem.setTitle("Duplicate Invoice Number");
+        return problem;
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ProblemDetail handleIdempotencyKeyReused(final IdempotencyKeyReusedException ex) {
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_CONTENT, ex.getMessage());
+        problem.setTitle("Idempotency Key Reused");
+        return problem;
+    }
+
+    @ExceptionHandler(InvoiceJobQueueFullException.class)
+    public ResponseEntity<ProblemDetail> handleInvoiceJobQueueFull(final InvoiceJobQueueFullException ex) {
+        log.warn("Invoice job rejected: {}", ex.getMessage());
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problem.setTitle("Service Unavailable");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(problem);
+    }
+
+    @ExceptionHandler(RenderCapacityExceededException.class)
+    public ResponseEntity<ProblemDetail> handleRenderCapacityExceeded(final RenderCapacityExceededException ex) {
+        if (log.isDebugEnabled()) {
+            log.debug("Render rejected: {}", ex.getMessage());
+        }
+        final var problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE,
+                "All render slots are busy, please retry later.");
+        problem.setTitle("Service Unavailable");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(problem);
+    }
 }
@@ -0,0 +1,11 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+/**
+ * Thrown when an {@code Idempotency-Key} is sent again with a different request than the one it was first used for.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException() {
+        super("The Idempotency-Key was already used for a different request");
+    }
+}
@@ -0,0 +1,211 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.configuration.InvoiceIdempotencyProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Responses of {@code POST /invoices} stored under the client's {@code Idempotency-Key}, so a retried request is
+ * answered without mapping and rendering the invoice again.
+ *
+ * <p>The first request with a key does the work; requests with the same key that arrive while it is running wait for
+ * the same {@link CompletableFuture} instead of rendering in parallel. A failed request stores nothing, so it can be
+ * retried. Successful responses are kept for {@code invoice.idempotency.ttl}, bounded by
+ * {@code invoice.idempotency.max-entries} and {@code max-bytes}; the oldest are evicted first. Because every response
+ * is kept equally long, the completion order is also the expiry order, and a single queue serves both.</p>
+ */
+@Component
+public class IdempotentResponses implements MeterBinder {
+
+    /**
+     * What is replayed for a request: the invoice number, the entity tag and the PDF.
+     */
+    public record StoredResponse(String invoiceNumber, String eTag, byte[] pdf) {
+    }
+
+    /** Rough per-entry overhead (map node, entry, future, queue node) added to the key and PDF size. */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Stored> stored = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger storedCount = new AtomicInteger();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @Autowired
+    public IdempotentResponses(final InvoiceIdempotencyProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    IdempotentResponses(final InvoiceIdempotencyProperties properties, final Clock clock) {
+        this.enabled = properties.isEnabled();
+        this.ttlMillis = properties.getTtl().toMillis();
+        this.maxEntries = properties.getMaxEntries();
+        this.maxBytes = properties.getMaxBytes().toBytes();
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the response stored under the given key, waits for the request that is producing it, or produces it
+     * with {@code work} and stores it.
+     *
+     * @param fingerprint a SHA-256 hash of the request the key is used for, so another request cannot collide with it
+     * @throws IdempotencyKeyReusedException if the key is stored or in flight for a request with another fingerprint
+     */
+    public StoredResponse execute(final String key, final String fingerprint, final Supplier<StoredResponse> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        purge();
+        while (true) {
+            final var mine = new Entry(fingerprint);
+            final Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                return run(key, mine, work);
+            }
+            if (existing.expiresAt <= clock.millis()) {
+                // counted as expired once purge() drops it from the queue
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException();
+            }
+            if (existing.future.isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+            }
+            return join(existing.future);
+        }
+    }
+
+    private StoredResponse run(final String key, final Entry entry, final Supplier<StoredResponse> work) {
+        executions.increment();
+        final StoredResponse response;
+        try {
+            response = work.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        final long bytes = ENTRY_OVERHEAD + 2L * key.length() + response.pdf().length;
+        if (bytes > maxBytes) {
+            entries.remove(key, entry);
+        } else {
+            entry.expiresAt = clock.millis() + ttlMillis;
+            storedCount.incrementAndGet();
+            storedBytes.addAndGet(bytes);
+            stored.add(new Stored(key, entry, bytes));
+        }
+        entry.future.complete(response);
+        purge();
+        return response;
+    }
+
+    /**
+     * Drops expired responses, then the oldest ones while the store is over its bounds.
+     */
+    private void purge() {
+        final long now = clock.millis();
+        Stored oldest;
+        while ((oldest = stored.peek()) != null) {
+            final boolean isExpired = oldest.entry.expiresAt <= now;
+            if (!isExpired && storedCount.get() <= maxEntries && storedBytes.get() <= maxBytes) {
+                return;
+            }
+            if (stored.remove(oldest)) {
+                entries.remove(oldest.key, oldest.entry);
+                storedCount.decrementAndGet();
+                storedBytes.addAndGet(-oldest.bytes);
+                (isExpired ? expired : evicted).increment();
+            }
+        }
+    }
+
+    private static StoredResponse join(final CompletableFuture<StoredResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    int size() {
+        return storedCount.get();
+    }
+
+    long bytes() {
+        return storedBytes.get();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("invoice.idempotency.executions", executions, LongAdder::sum)
+                .description("Number of requests with an Idempotency-Key that were processed")
+                .register(registry);
+        FunctionCounter.builder("invoice.idempotency.hits", hits, LongAdder::sum)
+                .description("Number of requests answered with a stored response")
+                .register(registry);
+        FunctionCounter.builder("invoice.idempotency.coalesced", coalesced, LongAdder::sum)
+                .description("Number of requests that waited for an identical request in flight")
+                .register(registry);
+        FunctionCounter.builder("invoice.idempotency.expired", expired, LongAdder::sum)
+                .description("Number of stored responses dropped after their time to live")
+                .register(registry);
+        FunctionCounter.builder("invoice.idempotency.evicted", evicted, LongAdder::sum)
+                .description("Number of stored responses evicted to stay within the bounds")
+                .register(registry);
+        Gauge.builder("invoice.idempotency.entries", storedCount, AtomicInteger::get)
+                .description("Number of stored responses")
+                .register(registry);
+        Gauge.builder("invoice.idempotency.bytes", storedBytes, AtomicLong::get)
+                .description("Approximate size of the stored responses")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(final String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private record Stored(String key, Entry entry, long bytes) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+/**
+ * Thrown when a batch request as a whole cannot be accepted (e.g. it is empty or too large).
+ * Problems with individual items are reported per item instead.
+ */
+public class InvalidBatchRequestException extends RuntimeException {
+
+    public InvalidBatchRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+/**
+ * Thrown when an invoice request that is read without binding it to a DTO first (see
+ * {@link StreamingInvoiceRequestReader}) is malformed or fails validation, when a request names an unknown output
+ * profile, or when an invoice query has an invalid limit or cursor.
+ */
+public class InvalidInvoiceRequestException extends RuntimeException {
+
+    public InvalidInvoiceRequestException(String message) {
+        super(message);
+    }
+}
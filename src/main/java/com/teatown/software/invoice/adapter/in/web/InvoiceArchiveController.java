@@ -0,0 +1,131 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.dto.ArchivedInvoiceDto;
+import com.teatown.software.invoice.adapter.in.web.dto.ArchivedInvoicePageDto;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedInvoice;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedPdf;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoicePage;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoiceQuery;
+import com.teatown.software.invoice.application.service.InvoiceArchiveService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Inbound adapter: REST API for archived invoices.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class InvoiceArchiveController {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 1000;
+    private static final String INVOICES_PATH = "/api/v1/invoices/";
+
+    private final InvoiceArchiveService archiveService;
+
+    public InvoiceArchiveController(final InvoiceArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Lists archived invoices by customer number, invoice date range, due date range and reverse charge, ordered by
+     * invoice date. Every parameter is optional; date ranges are inclusive.
+     *
+     * <p>A page holds up to {@code limit} invoices. If there are more, {@code next} is set: pass it as {@code after}
+     * to get the next page. Cursors stay valid while invoices are added, which then show up on a later page if they
+     * sort after the cursor.</p>
+     */
+    @GetMapping(value = "/invoices", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ArchivedInvoicePageDto findInvoices(
+            @RequestParam(name = "customerNumber", required = false) final String customerNumber,
+            @RequestParam(name = "invoiceDateFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate invoiceDateFrom,
+            @RequestParam(name = "invoiceDateTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate invoiceDateTo,
+            @RequestParam(name = "dueDateFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate dueDateFrom,
+            @RequestParam(name = "dueDateTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate dueDateTo,
+            @RequestParam(name = "reverseCharge", required = false) final Boolean reverseCharge,
+            @RequestParam(name = "after", required = false) final String after,
+            @RequestParam(name = "limit", defaultValue = "" + DEFAULT_LIMIT) final int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidInvoiceRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        final InvoicePage page = archiveService.find(new InvoiceQuery(customerNumber, invoiceDateFrom, invoiceDateTo,
+                dueDateFrom, dueDateTo, reverseCharge, parseCursor(after), limit));
+        return new ArchivedInvoicePageDto(
+                page.invoices().stream().map(InvoiceArchiveController::toDto).toList(),
+                page.next() == null ? null : Long.toHexString(page.next()));
+    }
+
+    /**
+     * Returns the PDF archived when the invoice was created, byte for byte, without rendering it again. Without
+     * {@code contentHash}, that is the original PDF of the invoice number; with it, the rendering with that content
+     * hash (another language or output profile).
+     *
+     * <p>The {@code ETag} is the content hash the PDF was archived with, the same one {@code POST /invoices}
+     * returned; a request whose {@code If-None-Match} matches it is answered with {@code 304 Not Modified}.</p>
+     */
+    @GetMapping(value = "/invoices/{invoiceNumber}", produces = "application/pdf")
+    public ResponseEntity<StreamingResponseBody> getInvoice(
+            @PathVariable final String invoiceNumber,
+            @RequestParam(required = false) final String contentHash,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        final ArchivedPdf pdf = archiveService.open(invoiceNumber, contentHash);
+        final var eTag = "\"" + pdf.contentHash() + "\"";
+        if (InvoiceController.matchesAny(ifNoneMatch) || InvoiceController.matches(ifNoneMatch, eTag)) {
+            pdf.close();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        final StreamingResponseBody body = out -> {
+            try (pdf) {
+                pdf.transferTo(out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .lastModified(pdf.archivedAt())
+                .header(HttpHeaders.CONTENT_DISPOSITION, InvoiceController.contentDisposition(pdf.invoiceNumber()))
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(pdf.size())
+                .body(body);
+    }
+
+    private static Long parseCursor(final String after) {
+        if (after == null || after.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseUnsignedLong(after, 16);
+        } catch (NumberFormatException e) {
+            throw new InvalidInvoiceRequestException("Invalid cursor: " + after);
+        }
+    }
+
+    private static ArchivedInvoiceDto toDto(final ArchivedInvoice invoice) {
+        return new ArchivedInvoiceDto(
+                invoice.invoiceNumber(),
+                invoice.invoiceDate(),
+                invoice.dueDate(),
+                invoice.customerNumber(),
+                invoice.reverseCharge(),
+                INVOICES_PATH + UriUtils.encodePathSegment(invoice.invoiceNumber(), StandardCharsets.UTF_8));
+    }
+}
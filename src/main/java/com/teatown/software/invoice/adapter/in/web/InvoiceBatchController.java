@@ -0,0 +1,152 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.application.service.CreateInvoiceBatchService;
+import com.teatown.software.invoice.configuration.InvoiceBatchProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Inbound adapter: REST API for bulk invoice creation.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class InvoiceBatchController {
+
+    static final String MANIFEST_ENTRY = "manifest.csv";
+
+    private final CreateInvoiceBatchService batchService;
+    private final InvoiceRequestMapper requestMapper;
+    private final Validator validator;
+    private final InvoiceLocaleResolver localeResolver;
+    private final int maxSize;
+
+    public InvoiceBatchController(final CreateInvoiceBatchService batchService,
+                                  final InvoiceRequestMapper requestMapper,
+                                  final Validator validator,
+                                  final InvoiceLocaleResolver localeResolver,
+                                  final InvoiceBatchProperties properties) {
+        this.batchService = batchService;
+        this.requestMapper = requestMapper;
+        this.validator = validator;
+        this.localeResolver = localeResolver;
+        this.maxSize = properties.getMaxSize();
+    }
+
+    /**
+     * Creates PDFs for a list of invoices and streams them back as a ZIP archive. Every item is validated and
+     * rendered on its own, so an invalid item or a failed render is reported in the archive instead of failing the
+     * whole batch: successful items become {@code <index>-invoice-<number>.pdf}, failed ones
+     * {@code <index>-error.txt}, and {@code manifest.csv} lists the outcome of every item. Entries appear in
+     * completion order. Language resolution is the same as for {@code POST /invoices}.
+     */
+    @PostMapping(value = "/invoices/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> createInvoices(
+            @RequestBody final List<CreateInvoiceRequestDto> requests,
+            @RequestParam(name = "lang", required = false) final String langParam,
+            @RequestHeader(value = "Accept-Language", required = false) final String acceptLanguage) {
+        if (requests.isEmpty()) {
+            throw new InvalidBatchRequestException("At least one invoice is required");
+        }
+        if (requests.size() > maxSize) {
+            throw new InvalidBatchRequestException("A batch must not contain more than " + maxSize + " invoices");
+        }
+
+        final var locale = localeResolver.resolve(langParam, acceptLanguage);
+        final List<Supplier<Invoice>> invoices = requests.stream()
+                .<Supplier<Invoice>>map(request -> () -> validateAndMap(request))
+                .toList();
+
+        final StreamingResponseBody body = out -> writeZip(invoices, locale, out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"invoices.zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    private Invoice validateAndMap(final CreateInvoiceRequestDto request) {
+        final Set<ConstraintViolation<CreateInvoiceRequestDto>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            final String errors = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            throw new IllegalArgumentException("Validation failed: " + errors);
+        }
+        return requestMapper.toDomain(request);
+    }
+
+    private void writeZip(final List<Supplier<Invoice>> invoices, final Locale locale, final OutputStream out) throws IOException {
+        final var zip = new ZipOutputStream(out);
+        final List<String> manifest = new ArrayList<>();
+        manifest.add("index,invoiceNumber,status,entry,error");
+
+        try {
+            batchService.createInvoicePdfs(invoices, locale, result -> {
+                final String entry;
+                final byte[] content;
+                if (result.success()) {
+                    entry = "%03d-invoice-%s.pdf".formatted(result.index(), sanitize(result.invoiceNumber()));
+                    content = result.pdf();
+                } else {
+                    entry = "%03d-error.txt".formatted(result.index());
+                    content = result.error().getBytes(StandardCharsets.UTF_8);
+                }
+                manifest.add(String.join(",",
+                        String.valueOf(result.index()),
+                        csv(result.invoiceNumber()),
+                        result.success() ? "OK" : "FAILED",
+                        csv(entry),
+                        csv(result.error())));
+                try {
+                    writeEntry(zip, entry, content);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writeEntry(zip, MANIFEST_ENTRY, (String.join("\n", manifest) + "\n").getBytes(StandardCharsets.UTF_8));
+        zip.finish();
+        zip.flush();
+    }
+
+    private static void writeEntry(final ZipOutputStream zip, final String name, final byte[] content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static String sanitize(final String invoiceNumber) {
+        return invoiceNumber.replaceAll("[^a-zA-Z0-9.-]", "_");
+    }
+
+    private static String csv(final String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"").replace('\n', ' ') + "\"";
+    }
+}
@@ -1,14 +1,23 @@
 package com.teatown.software.invoice.adapter.in.web;
 
+import com.teatown.software.invoice.adapter.in.web.IdempotentResponses.StoredResponse;
 import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
 import com.teatown.software.invoice.application.service.CreateInvoiceService;
+import com.teatown.software.invoice.application.service.InvoiceNumberService;
+import com.teatown.software.invoice.application.service.InvoiceRenderRequest;
+import com.teatown.software.invoice.application.service.SpooledInvoicePdf;
+import com.teatown.software.invoice.domain.InvoiceContentHash;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Locale;
+import java.io.InputStream;
+import java.security.Principal;
 
 /**
  * Inbound adapter: REST API for invoice creation.
@@ -17,48 +26,223 @@ import java.util.Locale;
 @RequestMapping("/api/v1")
 public class InvoiceController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final CreateInvoiceService createInvoiceService;
     private final InvoiceRequestMapper requestMapper;
+    private final StreamingInvoiceRequestReader requestReader;
+    private final InvoiceLocaleResolver localeResolver;
+    private final IdempotentResponses idempotentResponses;
 
-    public InvoiceController(final CreateInvoiceService createInvoiceService, final InvoiceRequestMapper requestMapper) {
+    public InvoiceController(final CreateInvoiceService createInvoiceService, final InvoiceRequestMapper requestMapper,
+                             final StreamingInvoiceRequestReader requestReader,
+                             final InvoiceLocaleResolver localeResolver,
+                             final IdempotentResponses idempotentResponses) {
         this.createInvoiceService = createInvoiceService;
         this.requestMapper = requestMapper;
+        this.requestReader = requestReader;
+        this.localeResolver = localeResolver;
+        this.idempotentResponses = idempotentResponses;
     }
 
     /**
-     * Creates an invoice PDF. Language for labels is taken from the {@code Accept-Language} header
-     * or the {@code lang} query parameter (e.g. {@code en}, {@code es}). Defaults to English.
+     * Creates an invoice PDF. Language for labels is taken from the {@code lang} query parameter (e.g. {@code en},
+     * {@code es}) or the {@code Accept-Language} header, see {@link InvoiceLocaleResolver}. Defaults to English.
+     *
+     * <p>The {@code profile} query parameter ({@code fast}, {@code balanced} or {@code smallest}) picks the
+     * {@link PdfOutputProfile}, trading render time for size; without it the configured default is used.</p>
+     *
+     * <p>The response carries a strong {@code ETag} derived from the invoice content. A request with an
+     * {@code invoiceNumber} whose {@code If-None-Match} lists it is answered with {@code 304 Not Modified} without
+     * rendering: the endpoint is treated like a safe render query here, where RFC 9110 would answer a POST with
+     * {@code 412}. An {@code If-None-Match: *} is answered with {@code 412 Precondition Failed} as RFC 9110
+     * prescribes.</p>
+     *
+     * <p>Without an {@code invoiceNumber} the server allocates one once the render is admitted, see
+     * {@link InvoiceNumberService}, so a request answered with {@code 503} uses none up; such a request never matches
+     * an {@code If-None-Match}, since its number is new. A number that was issued for a different invoice is answered
+     * with {@code 409 Conflict}.</p>
+     *
+     * <p>With an {@code Idempotency-Key} header, a retry of the request (same caller, key, body, language and
+     * profile) is answered with the stored response of the first one, including its allocated invoice number, and
+     * waits for it if it is still running, see {@link IdempotentResponses}. Reusing a key for a different request is
+     * answered with {@code 422 Unprocessable Content}.</p>
      */
     @PostMapping(value = "/invoices", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/pdf")
     public ResponseEntity<byte[]> createInvoice(
             @Valid @RequestBody final CreateInvoiceRequestDto request,
             @RequestParam(name = "lang", required = false) final String langParam,
-            @RequestHeader(value = "Accept-Language", required = false) final String acceptLanguage) {
-        final var locale = resolveLocale(langParam, acceptLanguage);
+            @RequestParam(name = "profile", required = false) final String profileParam,
+            @RequestHeader(value = "Accept-Language", required = false) final String acceptLanguage,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) final String idempotencyKey,
+            final Principal principal) {
+        if (matchesAny(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        final var locale = localeResolver.resolve(langParam, acceptLanguage);
+        final var profile = resolveProfile(profileParam);
         final var invoice = requestMapper.toDomain(request);
-        final var pdf = createInvoiceService.createInvoicePdf(invoice, locale);
+        final var renderRequest = InvoiceRenderRequest.of(invoice, locale).withProfile(profile);
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new InvalidInvoiceRequestException("Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH
+                        + " characters long");
+            }
+            final String key = (principal == null ? "" : principal.getName()) + '\n' + idempotencyKey;
+            final var stored = idempotentResponses.execute(key, fingerprint(renderRequest),
+                    () -> render(renderRequest));
+            if (matches(ifNoneMatch, stored.eTag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(stored.eTag()).build();
+            }
+            return pdfResponse(stored.invoiceNumber(), stored.eTag(), stored.pdf());
+        }
+        if (ifNoneMatch != null && invoice.invoiceNumber() != null) {
+            final var eTag = eTag(createInvoiceService.contentHash(renderRequest));
+            if (matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
+        final var rendered = createInvoiceService.createInvoicePdf(renderRequest);
+
+        return pdfResponse(rendered.invoice().invoiceNumber(), eTag(rendered.contentHash()), rendered.pdf());
+    }
+
+    /**
+     * Tells idempotent requests apart by what the client sent: the invoice, the language and the profile. Unlike the
+     * content hash it leaves out the label and logo versions, so a retry after a label or logo change still replays
+     * the stored response instead of being taken for a different request.
+     */
+    private static String fingerprint(final InvoiceRenderRequest request) {
+        return InvoiceContentHash.of(request.invoice(), request.locale(),
+                request.profile() == null ? "" : request.profile().name());
+    }
 
-        final var filename = "invoice-" + invoice.invoiceNumber().replaceAll("[^a-zA-Z0-9.-]", "_") + ".pdf";
+    private StoredResponse render(final InvoiceRenderRequest request) {
+        final var rendered = createInvoiceService.createInvoicePdf(request);
+        return new StoredResponse(rendered.invoice().invoiceNumber(), eTag(rendered.contentHash()), rendered.pdf());
+    }
 
+    private static ResponseEntity<byte[]> pdfResponse(final String invoiceNumber, final String eTag, final byte[] pdf) {
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .eTag(eTag)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(invoiceNumber))
                 .contentType(MediaType.APPLICATION_PDF)
                 .contentLength(pdf.length)
                 .body(pdf);
     }
 
-    private static Locale resolveLocale(final String langParam, final String acceptLanguage) {
-        final String lang = langParam != null && !langParam.isBlank()
-                ? langParam.trim().split("[_-]")[0].toLowerCase()
-                : parseFirstLanguage(acceptLanguage);
-        return "es".equals(lang) ? Locale.of("es") : Locale.ENGLISH;
+    /**
+     * Creates an invoice PDF without holding it in memory, for large multi-page invoices. Language and profile
+     * resolution are the same as for {@code POST /invoices}.
+     *
+     * <p>The PDF is rendered into a temporary file and sent once it is complete, so memory per request stays constant
+     * regardless of the document size, and a slow client does not hold a render slot while it reads. A rendering
+     * failure is answered with a problem-detail body. The response carries the same {@code ETag} as the one of
+     * {@code POST /invoices} for the same request.</p>
+     */
+    @PostMapping(value = "/invoices/stream", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/pdf")
+    public ResponseEntity<StreamingResponseBody> streamInvoice(
+            @Valid @RequestBody final CreateInvoiceRequestDto request,
+            @RequestParam(name = "lang", required = false) final String langParam,
+            @RequestParam(name = "profile", required = false) final String profileParam,
+            @RequestHeader(value = "Accept-Language", required = false) final String acceptLanguage) {
+        final var locale = localeResolver.resolve(langParam, acceptLanguage);
+        final var profile = resolveProfile(profileParam);
+        return spooledResponse(createInvoiceService.spoolInvoicePdf(
+                InvoiceRenderRequest.of(requestMapper.toDomain(request), locale).withProfile(profile)));
     }
 
-    private static String parseFirstLanguage(final String acceptLanguage) {
-        if (acceptLanguage == null || acceptLanguage.isBlank()) {
-            return "en";
+    /**
+     * Creates an invoice PDF for a request with very many items like {@code POST /invoices/stream}. The body is not
+     * bound to a DTO in one go but read with a streaming parser (see {@link StreamingInvoiceRequestReader}), so the
+     * item list is never held in memory as a whole. The request is validated completely before rendering starts, so
+     * validation errors are still answered with a problem-detail body.
+     */
+    @PostMapping(value = "/invoices/large", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/pdf")
+    public ResponseEntity<StreamingResponseBody> createLargeInvoice(
+            final InputStream requestBody,
+            @RequestParam(name = "lang", required = false) final String langParam,
+            @RequestParam(name = "profile", required = false) final String profileParam,
+            @RequestHeader(value = "Accept-Language", required = false) final String acceptLanguage) {
+        final var locale = localeResolver.resolve(langParam, acceptLanguage);
+        final var profile = resolveProfile(profileParam);
+        try (StreamedInvoiceRequest request = requestReader.read(requestBody)) {
+            return spooledResponse(createInvoiceService.spoolInvoicePdf(
+                    InvoiceRenderRequest.of(request.invoice(), locale)
+                            .withItems(request.items())
+                            .withProfile(profile)));
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> spooledResponse(final SpooledInvoicePdf pdf) {
+        final long size;
+        try {
+            size = pdf.size();
+        } catch (RuntimeException e) {
+            pdf.close();
+            throw e;
+        }
+        final StreamingResponseBody body = out -> {
+            try (pdf) {
+                pdf.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(pdf.invoice().invoiceNumber()))
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(size)
+                .eTag(eTag(pdf.contentHash()))
+                .body(body);
+    }
+
+    private static String eTag(final String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
+    /**
+     * Returns whether the list of entity tags in {@code If-None-Match} contains the given one, compared weakly as per
+     * RFC 9110. {@code *} is not a match here, see {@link #matchesAny(String)}.
+     */
+    static boolean matches(final String ifNoneMatch, final String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (final String candidate : ifNoneMatch.split(",")) {
+            final String tag = candidate.trim();
+            if (tag.equals(eTag) || (tag.startsWith("W/") && tag.substring(2).equals(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether {@code If-None-Match} is {@code *}, which matches any current representation.
+     */
+    static boolean matchesAny(final String ifNoneMatch) {
+        return ifNoneMatch != null && ifNoneMatch.trim().equals("*");
+    }
+
+    static String contentDisposition(final String invoiceNumber) {
+        final var filename = "invoice-" + invoiceNumber.replaceAll("[^a-zA-Z0-9.-]", "_") + ".pdf";
+        return "attachment; filename=\"" + filename + "\"";
+    }
+
+    /**
+     * Returns the output profile named by the {@code profile} query parameter, or {@code null} for the default.
+     */
+    static PdfOutputProfile resolveProfile(final String profileParam) {
+        if (profileParam == null || profileParam.isBlank()) {
+            return null;
+        }
+        try {
+            return PdfOutputProfile.of(profileParam);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInvoiceRequestException("Unknown output profile '" + profileParam
+                    + "', expected one of fast, balanced, smallest");
         }
-        final String first = acceptLanguage.split(",")[0].trim().split("[_-]")[0].toLowerCase();
-        return first.isBlank() ? "en" : first;
     }
 }
@@ -0,0 +1,93 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.adapter.in.web.dto.InvoiceJobResponseDto;
+import com.teatown.software.invoice.application.service.InvoiceJobService;
+import com.teatown.software.invoice.application.service.InvoiceNumberService;
+import com.teatown.software.invoice.domain.InvoiceJob;
+import com.teatown.software.invoice.domain.InvoiceJobStatus;
+import jakarta.validation.Valid;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Inbound adapter: REST API for asynchronous invoice creation.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class InvoiceJobController {
+
+    private static final String JOBS_PATH = "/api/v1/invoice-jobs/";
+
+    private final InvoiceJobService invoiceJobService;
+    private final InvoiceRequestMapper requestMapper;
+    private final InvoiceLocaleResolver localeResolver;
+    private final InvoiceNumberService invoiceNumberService;
+
+    public InvoiceJobController(final InvoiceJobService invoiceJobService, final InvoiceRequestMapper requestMapper,
+                                final InvoiceLocaleResolver localeResolver,
+                                final InvoiceNumberService invoiceNumberService) {
+        this.invoiceJobService = invoiceJobService;
+        this.requestMapper = requestMapper;
+        this.localeResolver = localeResolver;
+        this.invoiceNumberService = invoiceNumberService;
+    }
+
+    /**
+     * Queues an invoice for rendering and returns {@code 202 Accepted} with the job, whose URL is in the
+     * {@code Location} header. Language resolution is the same as for {@code POST /invoices}.
+     */
+    @PostMapping(value = "/invoice-jobs", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<InvoiceJobResponseDto> submitInvoiceJob(
+            @Valid @RequestBody final CreateInvoiceRequestDto request,
+            @RequestParam(name = "lang", required = false) final String langParam,
+            @RequestHeader(value = "Accept-Language", required = false) final String acceptLanguage) {
+        final var locale = localeResolver.resolve(langParam, acceptLanguage);
+        final var invoice = requestMapper.toDomain(request);
+        // a number the client chose is checked right away; the server allocates one only when the job runs
+        invoiceNumberService.claim(invoice);
+        final var job = invoiceJobService.submit(invoice, locale);
+
+        return ResponseEntity.accepted()
+                .location(URI.create(JOBS_PATH + job.id()))
+                .body(toDto(job));
+    }
+
+    /**
+     * Returns the status of a job. Once it is {@code DONE}, {@code pdfUrl} points to the rendered PDF.
+     */
+    @GetMapping(value = "/invoice-jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public InvoiceJobResponseDto getInvoiceJob(@PathVariable final String id) {
+        return toDto(invoiceJobService.job(id));
+    }
+
+    /**
+     * Returns the PDF of a finished job.
+     */
+    @GetMapping(value = "/invoice-jobs/{id}/pdf", produces = "application/pdf")
+    public ResponseEntity<InputStreamResource> getInvoiceJobPdf(@PathVariable final String id) {
+        final var job = invoiceJobService.job(id);
+        final var pdf = invoiceJobService.openPdf(id);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, InvoiceController.contentDisposition(job.invoiceNumber()))
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new InputStreamResource(pdf));
+    }
+
+    private static InvoiceJobResponseDto toDto(final InvoiceJob job) {
+        return new InvoiceJobResponseDto(
+                job.id(),
+                job.status(),
+                job.invoiceNumber(),
+                job.submittedAt(),
+                job.finishedAt(),
+                job.error(),
+                job.status() == InvoiceJobStatus.DONE ? JOBS_PATH + job.id() + "/pdf" : null);
+    }
+}
@@ -0,0 +1,140 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the locale of the PDF labels from the {@code lang} query parameter or the {@code Accept-Language} header,
+ * among {@code invoice.pdf.supported-locales}. The first supported locale is the default.
+ *
+ * <p>The header is parsed as per RFC 9110: a comma-separated list of language ranges, each with an optional
+ * {@code q} weight (default 1, 0 meaning "not acceptable"). The supported language with the highest weight wins; on
+ * a tie, the one listed first. {@code *} stands for the default. Parsing is a single scan over the header without
+ * regular expressions, and clients send the same few headers over and over, so results are cached per header value
+ * up to {@value #MAX_CACHED_HEADERS} distinct headers of at most {@value #MAX_CACHED_HEADER_LENGTH} characters.</p>
+ */
+@Component
+public class InvoiceLocaleResolver {
+
+    static final int MAX_CACHED_HEADERS = 1024;
+    static final int MAX_CACHED_HEADER_LENGTH = 256;
+
+    private final Locale defaultLocale;
+    private final Map<String, Locale> byLanguage;
+    private final Map<String, Locale> byHeader = new ConcurrentHashMap<>();
+
+    public InvoiceLocaleResolver(final InvoicePdfProperties properties) {
+        final List<Locale> supported = List.copyOf(properties.getSupportedLocales());
+        this.defaultLocale = supported.getFirst();
+        this.byLanguage = supported.stream()
+                .collect(Collectors.toUnmodifiableMap(Locale::getLanguage, locale -> locale, (first, other) -> first));
+    }
+
+    /**
+     * Returns the supported locale named by the query parameter if present, otherwise the best match of the header.
+     */
+    public Locale resolve(final String langParam, final String acceptLanguage) {
+        if (langParam != null && !langParam.isBlank()) {
+            final Locale locale = supported(langParam, 0, langParam.length());
+            return locale != null ? locale : defaultLocale;
+        }
+        if (acceptLanguage == null || acceptLanguage.isBlank()) {
+            return defaultLocale;
+        }
+        final Locale cached = byHeader.get(acceptLanguage);
+        if (cached != null) {
+            return cached;
+        }
+        final Locale locale = parse(acceptLanguage);
+        if (acceptLanguage.length() <= MAX_CACHED_HEADER_LENGTH && byHeader.size() < MAX_CACHED_HEADERS) {
+            byHeader.put(acceptLanguage, locale);
+        }
+        return locale;
+    }
+
+    int cachedHeaders() {
+        return byHeader.size();
+    }
+
+    private Locale parse(final String header) {
+        Locale best = null;
+        double bestWeight = 0;
+        int start = 0;
+        while (start < header.length()) {
+            int end = header.indexOf(',', start);
+            if (end < 0) {
+                end = header.length();
+            }
+            final int semicolon = header.indexOf(';', start);
+            final int tagEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+            final double weight = tagEnd < end ? weight(header, tagEnd + 1, end) : 1;
+            if (weight > bestWeight) {
+                final Locale locale = isWildcard(header, start, tagEnd) ? defaultLocale : supported(header, start, tagEnd);
+                if (locale != null) {
+                    best = locale;
+                    bestWeight = weight;
+                }
+            }
+            start = end + 1;
+        }
+        return best != null ? best : defaultLocale;
+    }
+
+    /**
+     * Returns the supported locale whose language is the primary subtag of the language tag in the given range.
+     */
+    private Locale supported(final String value, final int from, final int to) {
+        int start = from;
+        int end = to;
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c == '-' || c == '_' || Character.isWhitespace(c)) {
+                end = i;
+                break;
+            }
+        }
+        if (start == end) {
+            return null;
+        }
+        return byLanguage.get(value.substring(start, end).toLowerCase(Locale.ROOT));
+    }
+
+    private static boolean isWildcard(final String value, final int from, final int to) {
+        final String tag = value.substring(from, to).strip();
+        return tag.equals("*");
+    }
+
+    /**
+     * Returns the {@code q} weight among the parameters in the given range, 1 if there is none, 0 if it is malformed.
+     */
+    private static double weight(final String value, final int from, final int to) {
+        int start = from;
+        while (start < to) {
+            int end = value.indexOf(';', start);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            final String parameter = value.substring(start, end).strip();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    final double weight = Double.parseDouble(parameter.substring(2));
+                    return weight >= 0 && weight <= 1 ? weight : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+            start = end + 1;
+        }
+        return 1;
+    }
+}
@@ -1,37 +1,80 @@
 package com.teatown.software.invoice.adapter.in.web;
 
 import com.teatown.software.invoice.adapter.in.web.dto.*;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
 import com.teatown.software.invoice.domain.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Maps HTTP request DTOs to domain objects.
+ *
+ * <p>Line totals, net, VAT and gross are computed from the items by the {@link InvoiceTotalsCalculator}, in the same
+ * pass that maps them. Totals supplied by the client (a value other than zero) are reconciled against the computed
+ * ones; on a difference the request is rejected or the computed totals are used, as
+ * {@code invoice.totals.on-mismatch} prescribes.</p>
  */
 @Component
 public class InvoiceRequestMapper {
 
+    private static final Logger log = LoggerFactory.getLogger(InvoiceRequestMapper.class);
+
+    private final InvoiceTotalsCalculator totalsCalculator;
+    private final InvoiceTotalsProperties.Mismatch onMismatch;
+
+    public InvoiceRequestMapper(final InvoiceTotalsProperties properties) {
+        this.totalsCalculator = new InvoiceTotalsCalculator(properties.roundingPolicy());
+        this.onMismatch = properties.getOnMismatch();
+    }
+
+    /**
+     * @throws InvalidInvoiceRequestException if supplied totals differ from the computed ones and mismatches are
+     *                                        rejected
+     */
     public Invoice toDomain(final CreateInvoiceRequestDto dto) {
-        final List<InvoiceItem> domainItems = toDomainItems(dto.invoiceItems());
-
-        final BigDecimal totalNetPrice;
-        if (dto.totalNetPrice().compareTo(BigDecimal.ZERO) > 0) {
-            totalNetPrice = dto.totalNetPrice();
-        } else {
-            totalNetPrice = domainItems.stream()
-                    .map(InvoiceItem::totalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        final InvoiceTotalsCalculator.Sum sum = totalsCalculator.sum();
+        final List<InvoiceItem> domainItems = new ArrayList<>(dto.invoiceItems().size());
+        for (final InvoiceItemDto item : dto.invoiceItems()) {
+            domainItems.add(toDomainItem(item, sum.add(item.quantity(), item.unitPriceEuro(), item.totalPrice())));
         }
+        return toDomain(dto, domainItems, sum);
+    }
+
+    /**
+     * Starts summing items that are streamed separately: pass every item to {@link InvoiceTotalsCalculator.Sum#add},
+     * then map the request with {@link #toDomainWithoutItems} and the items with {@link #toDomainItem}.
+     */
+    public InvoiceTotalsCalculator.Sum sumItems() {
+        return totalsCalculator.sum();
+    }
+
+    /**
+     * Maps a request whose items are streamed separately. The returned invoice has no items; its totals are computed
+     * from the given sum of the items and reconciled like those of {@link #toDomain(CreateInvoiceRequestDto)}.
+     *
+     * @throws InvalidInvoiceRequestException if supplied totals differ from the computed ones and mismatches are
+     *                                        rejected
+     */
+    public Invoice toDomainWithoutItems(final CreateInvoiceRequestDto dto, final InvoiceTotalsCalculator.Sum items) {
+        return toDomain(dto, List.of(), items);
+    }
 
-        final BigDecimal vatAbsolute = dto.vatAbsolute().compareTo(BigDecimal.ZERO) > 0
-                ? dto.vatAbsolute()
-                : dto.vatRate().multiply(totalNetPrice);
+    /**
+     * Maps a single item, computing its line total.
+     */
+    public InvoiceItem toDomainItem(final InvoiceItemDto dto) {
+        return toDomainItem(dto, totalsCalculator.lineTotal(dto.quantity(), dto.unitPriceEuro()));
+    }
 
-        final BigDecimal totalGrossPrice = dto.totalGrossPrice().compareTo(BigDecimal.ZERO) > 0
-               ? dto.totalGrossPrice()
-               : totalNetPrice.add(vatAbsolute);
+    private Invoice toDomain(final CreateInvoiceRequestDto dto, final List<InvoiceItem> domainItems,
+                             final InvoiceTotalsCalculator.Sum sum) {
+        final InvoiceTotals totals = sum.totals(dto.vatRate());
+        reconcile(dto, sum, totals);
 
         return Invoice.builder()
                 .invoiceDate(dto.invoiceDate())
@@ -39,10 +82,10 @@ public class InvoiceRequestMapper {
                 .deliveryDate(dto.deliveryDate())
                 .dueDate(dto.dueDate())
                 .items(domainItems)
-                .totalNetPrice(totalNetPrice)
+                .totalNetPrice(totals.net())
                 .vatRate(dto.vatRate())
-                .vatAbsolute(vatAbsolute)
-                .totalGrossPrice(totalGrossPrice)
+                .vatAbsolute(totals.vat())
+                .totalGrossPrice(totals.gross())
                 .finalNotes(dto.finalNotes())
                 .companyDetails(toDomainCompanyDetails(dto.companyDetails()))
                 .customer(toDomainCustomer(dto.customer()))
@@ -50,23 +93,46 @@ public class InvoiceRequestMapper {
                 .build();
     }
 
-    private List<InvoiceItem> toDomainItems(final List<InvoiceItemDto> items) {
-        return items.stream()
-                .map(this::toDomainItem)
-                .toList();
+    private void reconcile(final CreateInvoiceRequestDto dto, final InvoiceTotalsCalculator.Sum sum,
+                           final InvoiceTotals totals) {
+        final List<TotalsDiscrepancy> discrepancies = new ArrayList<>(sum.lineDiscrepancies());
+        discrepancies.addAll(totals.reconcile(dto.totalNetPrice(), dto.vatAbsolute(), dto.totalGrossPrice()));
+        if (discrepancies.isEmpty()) {
+            return;
+        }
+        final var message = new StringBuilder("Totals do not match the items: ");
+        for (int i = 0; i < discrepancies.size(); i++) {
+            final TotalsDiscrepancy discrepancy = discrepancies.get(i);
+            message.append(i == 0 ? "" : "; ")
+                    .append(field(discrepancy)).append(": supplied ").append(discrepancy.supplied().toPlainString())
+                    .append(", computed ").append(discrepancy.computed().toPlainString());
+        }
+        final int omitted = sum.lineDiscrepancyCount() - sum.lineDiscrepancies().size();
+        if (omitted > 0) {
+            message.append(" (and ").append(omitted).append(" more line totals)");
+        }
+        if (onMismatch == InvoiceTotalsProperties.Mismatch.REJECT) {
+            throw new InvalidInvoiceRequestException(message.toString());
+        }
+        log.warn("Invoice {}: using computed totals. {}", dto.invoiceNumber(), message);
+    }
+
+    private static String field(final TotalsDiscrepancy discrepancy) {
+        return switch (discrepancy.total()) {
+            case LINE -> "invoiceItems[" + discrepancy.line() + "].totalPrice";
+            case NET -> "totalNetPrice";
+            case VAT -> "vatAbsolute";
+            case GROSS -> "totalGrossPrice";
+        };
     }
 
-    private InvoiceItem toDomainItem(final InvoiceItemDto dto) {
+    private InvoiceItem toDomainItem(final InvoiceItemDto dto, final BigDecimal totalPrice) {
         return InvoiceItem.builder()
                 .description(dto.description())
                 .quantity(dto.quantity())
                 .unit(dto.unit())
                 .unitPriceEuro(dto.unitPriceEuro())
-                .totalPrice(
-                        dto.totalPrice().compareTo(BigDecimal.ZERO) > 0
-                        ? dto.totalPrice()
-                        : dto.quantity().multiply(dto.unitPriceEuro())
-                )
+                .totalPrice(totalPrice)
                 .build();
     }
 
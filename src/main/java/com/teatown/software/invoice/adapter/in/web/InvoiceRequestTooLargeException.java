@@ -0,0 +1,12 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+/**
+ * Thrown when an invoice request read by the {@link StreamingInvoiceRequestReader} has more items, or spools more
+ * bytes, than configured.
+ */
+public class InvoiceRequestTooLargeException extends RuntimeException {
+
+    public InvoiceRequestTooLargeException(String message) {
+        super(message);
+    }
+}
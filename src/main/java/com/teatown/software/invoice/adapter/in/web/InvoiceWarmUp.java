@@ -0,0 +1,180 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.dto.*;
+import com.teatown.software.invoice.application.service.CreateInvoiceService;
+import com.teatown.software.invoice.application.service.InvoiceRenderRequest;
+import com.teatown.software.invoice.application.service.RenderPriority;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import com.teatown.software.invoice.configuration.InvoiceWarmUpProperties;
+import com.teatown.software.invoice.domain.InvoiceItemUnit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders synthetic invoices in every supported locale before the application reports ready, so the first real
+ * request does not pay for lazy initialization: OpenPDF font metrics and encodings, the Jackson and Bean Validation
+ * metadata of {@link CreateInvoiceRequestDto}, the label snapshots, and a cold JIT.
+ *
+ * <p>Spring Boot flips the readiness state to {@code ACCEPTING_TRAFFIC} only after all {@link ApplicationRunner}s
+ * have returned, so a readiness probe keeps traffic away until the warm-up is done. Every iteration takes the same
+ * path as {@code POST /invoices}: JSON deserialization, validation, mapping, content hash and render; the first one
+ * also reads the body like {@code POST /invoices/large}. PDFs are discarded and not cached.</p>
+ *
+ * <p>Metrics: {@code invoice.warmup.duration} is the time the warm-up took, {@code invoice.warmup.render.first} and
+ * {@code invoice.warmup.render.last} the time of the first (cold) and last iteration. A failing warm-up is logged and
+ * does not prevent startup.</p>
+ *
+ * <p>With {@code invoice.warm-up.exit}, the application exits right after the warm-up. That is meant for training
+ * runs that record a CDS archive or AOT cache, which then contains everything the render path loads.</p>
+ */
+@Component
+public class InvoiceWarmUp implements ApplicationRunner, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceWarmUp.class);
+
+    private final JsonMapper jsonMapper;
+    private final Validator validator;
+    private final InvoiceRequestMapper requestMapper;
+    private final StreamingInvoiceRequestReader requestReader;
+    private final CreateInvoiceService createInvoiceService;
+    private final InvoiceWarmUpProperties properties;
+    private final List<Locale> locales;
+    private final ApplicationContext context;
+
+    private volatile long durationNanos;
+    private volatile long firstRenderNanos;
+    private volatile long lastRenderNanos;
+
+    public InvoiceWarmUp(final JsonMapper jsonMapper, final Validator validator,
+                         final InvoiceRequestMapper requestMapper, final StreamingInvoiceRequestReader requestReader,
+                         final CreateInvoiceService createInvoiceService, final InvoiceWarmUpProperties properties,
+                         final InvoicePdfProperties pdfProperties, final ApplicationContext context) {
+        this.jsonMapper = jsonMapper;
+        this.validator = validator;
+        this.requestMapper = requestMapper;
+        this.requestReader = requestReader;
+        this.createInvoiceService = createInvoiceService;
+        this.properties = properties;
+        this.locales = List.copyOf(pdfProperties.getSupportedLocales());
+        this.context = context;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (properties.isEnabled()) {
+            warmUp();
+        }
+        if (properties.isExit()) {
+            log.info("Exiting after warm-up (invoice.warm-up.exit)");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * Runs the configured number of iterations, each rendering the synthetic invoice once per supported locale.
+     */
+    void warmUp() {
+        final long start = System.nanoTime();
+        try {
+            final byte[] body = jsonMapper.writeValueAsBytes(request(properties.getItemCount()));
+            for (int i = 0; i < properties.getIterations(); i++) {
+                final long iterationStart = System.nanoTime();
+                for (final Locale locale : locales) {
+                    render(body, locale, i == 0);
+                }
+                final long iteration = System.nanoTime() - iterationStart;
+                if (i == 0) {
+                    firstRenderNanos = iteration;
+                }
+                lastRenderNanos = iteration;
+            }
+            durationNanos = System.nanoTime() - start;
+            log.info("Warm-up rendered {} invoices in {} in {} ms (first iteration {} ms, last {} ms)",
+                    properties.getIterations() * locales.size(), locales, millis(durationNanos),
+                    millis(firstRenderNanos), millis(lastRenderNanos));
+        } catch (RuntimeException e) {
+            durationNanos = System.nanoTime() - start;
+            log.warn("Warm-up failed after {} ms, the first requests may be slow", millis(durationNanos), e);
+        }
+    }
+
+    private void render(final byte[] body, final Locale locale, final boolean streamed) {
+        final var request = jsonMapper.readValue(body, CreateInvoiceRequestDto.class);
+        if (!validator.validate(request).isEmpty()) {
+            throw new IllegalStateException("Synthetic warm-up invoice is invalid");
+        }
+        final var invoice = requestMapper.toDomain(request);
+        final var renderRequest = InvoiceRenderRequest.of(invoice, locale).withPriority(RenderPriority.BACKGROUND)
+                .withoutArchiving();
+        createInvoiceService.contentHash(renderRequest);
+        createInvoiceService.spoolInvoicePdf(renderRequest).close();
+        if (streamed) {
+            try (StreamedInvoiceRequest large = requestReader.read(new ByteArrayInputStream(body))) {
+                createInvoiceService.spoolInvoicePdf(InvoiceRenderRequest.of(large.invoice(), locale)
+                        .withItems(large.items())
+                        .withPriority(RenderPriority.BACKGROUND)
+                        .withoutArchiving()).close();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        TimeGauge.builder("invoice.warmup.duration", this, TimeUnit.NANOSECONDS, warmUp -> warmUp.durationNanos)
+                .description("Time the startup warm-up took")
+                .register(registry);
+        TimeGauge.builder("invoice.warmup.render.first", this, TimeUnit.NANOSECONDS,
+                        warmUp -> warmUp.firstRenderNanos)
+                .description("Time the first warm-up iteration took, one invoice per supported locale")
+                .register(registry);
+        TimeGauge.builder("invoice.warmup.render.last", this, TimeUnit.NANOSECONDS, warmUp -> warmUp.lastRenderNanos)
+                .description("Time the last warm-up iteration took, one invoice per supported locale")
+                .register(registry);
+    }
+
+    long durationNanos() {
+        return durationNanos;
+    }
+
+    private static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * A valid request with the given number of items and every optional field set, so that all regions of the PDF
+     * are laid out.
+     */
+    static CreateInvoiceRequestDto request(final int itemCount) {
+        final var address = new AddressDto("Warm-up Street 1", "10115", "Berlin", "DE");
+        final var company = new CompanyDetailsDto("Warm-up GmbH", address, "+49 30 000000", "warm-up@example.com",
+                "Berlin", "HRB 0", "Warm-up", new BankAccountDto("Bank", "Warm-up GmbH", "DE00000000000000000000",
+                "XXXXDEXXXXX"), "DE000000000");
+        final var customer = new CustomerDto("Warm-up Customer AG", "C-0", "DE000000001", "Warm-up", address);
+        final List<InvoiceItemDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new InvoiceItemDto("Warm-up item " + (i + 1), BigDecimal.valueOf(i % 8 + 1, 1),
+                    InvoiceItemUnit.HOURS, new BigDecimal("95.50"), BigDecimal.ZERO));
+        }
+        final var date = LocalDate.of(2025, 1, 1);
+        return new CreateInvoiceRequestDto(date, "WARM-UP", date, date.plusDays(30), items, BigDecimal.ZERO,
+                new BigDecimal("0.19"), BigDecimal.ZERO, BigDecimal.ZERO, "Warm-up", company, customer, false);
+    }
+}
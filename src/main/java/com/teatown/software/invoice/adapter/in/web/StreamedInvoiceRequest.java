@@ -0,0 +1,92 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.dto.InvoiceItemDto;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * A validated invoice request read by {@link StreamingInvoiceRequestReader}: the mapped invoice without its items,
+ * and the items spooled to a temporary file. Closing the request deletes the file.
+ */
+public final class StreamedInvoiceRequest implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamedInvoiceRequest.class);
+
+    private final Invoice invoice;
+    private final int itemCount;
+    private final Path spool;
+    private final ObjectReader itemReader;
+    private final InvoiceRequestMapper requestMapper;
+    private MappingIterator<InvoiceItemDto> reading;
+
+    StreamedInvoiceRequest(final Invoice invoice, final int itemCount, final Path spool,
+                           final ObjectReader itemReader, final InvoiceRequestMapper requestMapper) {
+        this.invoice = invoice;
+        this.itemCount = itemCount;
+        this.spool = spool;
+        this.itemReader = itemReader;
+        this.requestMapper = requestMapper;
+    }
+
+    /**
+     * Returns the invoice; its item list is empty, its totals take the items into account.
+     */
+    public Invoice invoice() {
+        return invoice;
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Returns the mapped items in request order, reading them from the spool file as they are pulled. Can be called
+     * once.
+     */
+    public Iterator<InvoiceItem> items() {
+        if (reading != null) {
+            throw new IllegalStateException("The items of invoice " + invoice.invoiceNumber() + " were already read");
+        }
+        reading = itemReader.readValues(spool);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return reading.hasNext();
+            }
+
+            @Override
+            public InvoiceItem next() {
+                return requestMapper.toDomainItem(reading.next());
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (reading != null) {
+            reading.close();
+        }
+        delete(spool);
+    }
+
+    Path spoolFile() {
+        return spool;
+    }
+
+    static void delete(final Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            log.warn("Cannot delete spooled invoice items {}", spool, e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.adapter.in.web.dto.InvoiceItemDto;
+import com.teatown.software.invoice.configuration.InvoiceLargeRequestProperties;
+import com.teatown.software.invoice.domain.InvoiceTotalsCalculator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonEncoding;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads a {@link CreateInvoiceRequestDto} JSON body with the streaming parser instead of binding it in one go, for
+ * requests with very many items.
+ *
+ * <p>The body is read once: the top-level fields are collected (they are few and small), while the items are bound,
+ * validated and added to the totals one at a time and spooled to a temporary file as compact JSON. Only then is the
+ * request as a whole validated, because clients commonly send fields that the header validation needs (totals,
+ * reverse charge) after the items. The resulting {@link StreamedInvoiceRequest} reads the items back one at a time
+ * while the PDF is rendered, so the item list never exists on the heap as a whole.</p>
+ *
+ * <p>Validation is the same as for a {@code @Valid} request body, including {@link ReverseChargeValidation} and the
+ * per-item constraints, reported as {@code invoiceItems[<index>].<field>}. Item validation stops at the first
+ * invalid item. Failures are thrown as {@link InvalidInvoiceRequestException}.</p>
+ *
+ * <p>A request with more than {@code invoice.large-requests.max-items} items, or whose spooled items exceed
+ * {@code invoice.large-requests.max-spool-size}, is rejected with {@link InvoiceRequestTooLargeException} as soon as
+ * the limit is crossed, so one request cannot fill the temporary directory.</p>
+ */
+@Component
+public class StreamingInvoiceRequestReader {
+
+    static final String ITEMS_FIELD = "invoiceItems";
+
+    private final JsonMapper jsonMapper;
+    private final ObjectReader fieldReader;
+    private final ObjectReader itemReader;
+    private final ObjectWriter itemWriter;
+    private final Validator validator;
+    private final InvoiceRequestMapper requestMapper;
+    private final int maxItems;
+    private final long maxSpoolBytes;
+
+    public StreamingInvoiceRequestReader(final JsonMapper jsonMapper, final Validator validator,
+                                         final InvoiceRequestMapper requestMapper,
+                                         final InvoiceLargeRequestProperties properties) {
+        this.jsonMapper = jsonMapper;
+        // values are bound in the middle of the body, so tokens after them are expected
+        this.fieldReader = jsonMapper.reader().without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.itemReader = jsonMapper.readerFor(InvoiceItemDto.class)
+                .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.itemWriter = jsonMapper.writerFor(InvoiceItemDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.validator = validator;
+        this.requestMapper = requestMapper;
+        this.maxItems = properties.getMaxItems();
+        this.maxSpoolBytes = properties.getMaxSpoolSize().toBytes();
+    }
+
+    /**
+     * Reads and validates the request. The caller must close the returned request, which deletes the spooled items.
+     *
+     * @throws InvalidInvoiceRequestException if the body is malformed or the request is invalid
+     * @throws InvoiceRequestTooLargeException if the request has too many items
+     */
+    public StreamedInvoiceRequest read(final InputStream body) {
+        final Path spool;
+        try {
+            spool = Files.createTempFile("invoice-items-", ".json");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spool file for invoice items", e);
+        }
+        try {
+            return read(body, spool);
+        } catch (RuntimeException e) {
+            StreamedInvoiceRequest.delete(spool);
+            throw e;
+        }
+    }
+
+    private StreamedInvoiceRequest read(final InputStream body, final Path spool) {
+        final ObjectNode header = jsonMapper.createObjectNode();
+        final var items = new ItemScan(requestMapper.sumItems());
+        try (JsonParser parser = jsonMapper.createParser(body);
+             CountingOutputStream spooled = new CountingOutputStream(Files.newOutputStream(spool));
+             JsonGenerator generator = jsonMapper.createGenerator(spooled, JsonEncoding.UTF8)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidInvoiceRequestException("Malformed request body: expected a JSON object");
+            }
+            generator.writeStartArray();
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                final String field = parser.currentName();
+                parser.nextToken();
+                if (ITEMS_FIELD.equals(field)) {
+                    scanItems(parser, generator, spooled, items);
+                } else {
+                    header.set(field, fieldReader.readTree(parser));
+                }
+            }
+            generator.writeEndArray();
+        } catch (JacksonException e) {
+            throw new InvalidInvoiceRequestException("Malformed request body: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spool invoice items to " + spool, e);
+        }
+
+        final CreateInvoiceRequestDto request;
+        try {
+            request = jsonMapper.treeToValue(header, CreateInvoiceRequestDto.class);
+        } catch (JacksonException e) {
+            throw new InvalidInvoiceRequestException("Malformed request body: " + e.getOriginalMessage());
+        }
+        validate(request, items);
+        return new StreamedInvoiceRequest(requestMapper.toDomainWithoutItems(request, items.sum), items.count,
+                spool, itemReader, requestMapper);
+    }
+
+    private void scanItems(final JsonParser parser, final JsonGenerator spool, final CountingOutputStream spooled,
+                           final ItemScan items) {
+        if (items.present) {
+            throw new InvalidInvoiceRequestException("Malformed request body: duplicate field '" + ITEMS_FIELD + "'");
+        }
+        items.present = true;
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new InvalidInvoiceRequestException("Malformed request body: '" + ITEMS_FIELD + "' must be an array");
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (items.count == maxItems) {
+                throw new InvoiceRequestTooLargeException("An invoice must not have more than " + maxItems + " items");
+            }
+            final int index = items.count++;
+            if (!items.violations.isEmpty()) {
+                parser.skipChildren();
+                continue;
+            }
+            final InvoiceItemDto item = itemReader.readValue(parser);
+            if (item == null) {
+                items.violations.add(ITEMS_FIELD + "[" + index + "]: must not be null");
+                continue;
+            }
+            final Set<ConstraintViolation<InvoiceItemDto>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                violations.stream()
+                        .map(v -> ITEMS_FIELD + "[" + index + "]." + v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .forEach(items.violations::add);
+                continue;
+            }
+            items.sum.add(item.quantity(), item.unitPriceEuro(), item.totalPrice());
+            itemWriter.writeValue(spool, item);
+            // lags behind by at most the generator's buffer
+            if (spooled.count > maxSpoolBytes) {
+                throw new InvoiceRequestTooLargeException("The invoice items must not take more than " + maxSpoolBytes
+                        + " bytes");
+            }
+        }
+    }
+
+    private void validate(final CreateInvoiceRequestDto request, final ItemScan items) {
+        final List<String> errors = new ArrayList<>();
+        for (final ConstraintViolation<CreateInvoiceRequestDto> violation : validator.validate(request)) {
+            final String field = violation.getPropertyPath().toString();
+            // only field errors are reported, as for a @Valid request body; the items are not part of the DTO, so
+            // @NotEmpty on them holds if the body had any
+            if (!field.isEmpty() && (items.count == 0 || !ITEMS_FIELD.equals(field))) {
+                errors.add(field + ": " + violation.getMessage());
+            }
+        }
+        errors.sort(null);
+        errors.addAll(items.violations);
+        if (!errors.isEmpty()) {
+            throw new InvalidInvoiceRequestException("Validation failed: " + String.join("; ", errors));
+        }
+    }
+
+    /**
+     * Counts the bytes written to the spool file.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * What was learned about the items while reading them.
+     */
+    private static final class ItemScan {
+        private final InvoiceTotalsCalculator.Sum sum;
+        private boolean present;
+        private int count;
+        private final List<String> violations = new ArrayList<>();
+
+        private ItemScan(final InvoiceTotalsCalculator.Sum sum) {
+            this.sum = sum;
+        }
+    }
+}
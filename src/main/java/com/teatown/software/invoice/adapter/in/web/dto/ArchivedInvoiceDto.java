@@ -0,0 +1,12 @@
+package com.teatown.software.invoice.adapter.in.web.dto;
+
+import java.time.LocalDate;
+
+public record ArchivedInvoiceDto(
+        String invoiceNumber,
+        LocalDate invoiceDate,
+        LocalDate dueDate,
+        String customerNumber,
+        boolean reverseCharge,
+        String pdfUrl
+) {}
@@ -0,0 +1,8 @@
+package com.teatown.software.invoice.adapter.in.web.dto;
+
+import java.util.List;
+
+public record ArchivedInvoicePageDto(
+        List<ArchivedInvoiceDto> invoices,
+        String next
+) {}
@@ -12,7 +12,7 @@ import java.util.List;
 public record CreateInvoiceRequestDto(
         @NotNull(message = "Invoice date is required")
         LocalDate invoiceDate,
-        @NotBlank(message = "Invoice number is required")
+        @Pattern(regexp = ".*\\S.*", message = "Invoice number must not be blank")
         String invoiceNumber,
         @NotNull(message = "Delivery date is required")
         LocalDate deliveryDate,
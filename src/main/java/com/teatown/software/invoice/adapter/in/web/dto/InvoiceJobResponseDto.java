@@ -0,0 +1,15 @@
+package com.teatown.software.invoice.adapter.in.web.dto;
+
+import com.teatown.software.invoice.domain.InvoiceJobStatus;
+
+import java.time.Instant;
+
+public record InvoiceJobResponseDto(
+        String id,
+        InvoiceJobStatus status,
+        String invoiceNumber,
+        Instant submittedAt,
+        Instant finishedAt,
+        String error,
+        String pdfUrl
+) {}
@@ -0,0 +1,309 @@
+package com.teatown.software.invoice.adapter.out.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One append-only segment file of the invoice archive: a sequence of records, each holding one PDF with its invoice.
+ *
+ * <p>Record layout (big-endian):</p>
+ * <pre>
+ *  0  int      magic
+ *  4  int      CRC32C of bytes 8 to the end of the record
+ *  8  long     archived at, epoch milliseconds
+ * 16  byte[32] SHA-256 content hash
+ * 48  short    length of the invoice number
+ * 50  int      length of the invoice JSON
+ * 54  int      length of the PDF
+ * 58  invoice number (UTF-8), invoice JSON, PDF
+ * </pre>
+ *
+ * <p>Reads are positional and may run concurrently with each other and with an append; appends are serialised by
+ * the archive. Records are never rewritten or removed, so a reader needs no coordination with writers.</p>
+ */
+final class ArchiveSegment {
+
+    static final String PREFIX = "invoices-";
+    static final String SUFFIX = ".seg";
+
+    static final int MAGIC = 0x494E5641;
+    static final int HEADER_LENGTH = 58;
+    static final int HASH_LENGTH = 32;
+    private static final int CHECKSUMMED_FROM = 8;
+    private static final int VERIFY_CHUNK = 64 * 1024;
+
+    private final long id;
+    private final Path file;
+    private final FileChannel channel;
+    private volatile long size;
+
+    private ArchiveSegment(final long id, final Path file, final FileChannel channel) throws IOException {
+        this.id = id;
+        this.file = file;
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    static ArchiveSegment open(final Path directory, final long id) throws IOException {
+        final Path file = directory.resolve(fileName(id));
+        return new ArchiveSegment(id, file, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    static String fileName(final long id) {
+        return PREFIX + "%010d".formatted(id) + SUFFIX;
+    }
+
+    /**
+     * Returns the id encoded in the given segment file name, or -1 if it is not a segment file.
+     */
+    static long id(final Path file) {
+        final String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name, PREFIX.length(), name.length() - SUFFIX.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    long id() {
+        return id;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Encodes a record. The returned buffers are written in order.
+     */
+    static ByteBuffer[] record(final long archivedAt, final byte[] contentHash, final byte[] invoiceNumber,
+                               final byte[] invoice, final byte[] pdf) {
+        final ByteBuffer header = header(archivedAt, contentHash, invoiceNumber, invoice, pdf.length);
+        final CRC32C crc = checksum(header, invoiceNumber, invoice);
+        crc.update(pdf);
+        header.putInt(4, (int) crc.getValue()).flip();
+        return new ByteBuffer[]{header, ByteBuffer.wrap(invoiceNumber), ByteBuffer.wrap(invoice), ByteBuffer.wrap(pdf)};
+    }
+
+    /**
+     * Encodes a record whose PDF is the whole given file, reading it once for the checksum. The returned buffers are
+     * written in order, followed by the file, see {@link #append(ByteBuffer[], FileChannel)}.
+     */
+    static ByteBuffer[] record(final long archivedAt, final byte[] contentHash, final byte[] invoiceNumber,
+                               final byte[] invoice, final FileChannel pdf) throws IOException {
+        final long pdfLength = pdf.size();
+        if (pdfLength > Integer.MAX_VALUE) {
+            throw new IOException("PDF of " + pdfLength + " bytes is too large to archive");
+        }
+        final ByteBuffer header = header(archivedAt, contentHash, invoiceNumber, invoice, (int) pdfLength);
+        final CRC32C crc = checksum(header, invoiceNumber, invoice);
+        final ByteBuffer chunk = ByteBuffer.allocate(VERIFY_CHUNK);
+        long position = 0;
+        while (position < pdfLength) {
+            chunk.clear();
+            final int read = pdf.read(chunk, position);
+            if (read < 0) {
+                throw new IOException("PDF file ended after " + position + " of " + pdfLength + " bytes");
+            }
+            crc.update(chunk.flip());
+            position += read;
+        }
+        header.putInt(4, (int) crc.getValue()).flip();
+        return new ByteBuffer[]{header, ByteBuffer.wrap(invoiceNumber), ByteBuffer.wrap(invoice)};
+    }
+
+    private static ByteBuffer header(final long archivedAt, final byte[] contentHash, final byte[] invoiceNumber,
+                                     final byte[] invoice, final int pdfLength) {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                .putInt(MAGIC)
+                .putInt(0)
+                .putLong(archivedAt)
+                .put(contentHash)
+                .putShort((short) invoiceNumber.length)
+                .putInt(invoice.length)
+                .putInt(pdfLength);
+    }
+
+    private static CRC32C checksum(final ByteBuffer header, final byte[] invoiceNumber, final byte[] invoice) {
+        final var crc = new CRC32C();
+        crc.update(header.array(), CHECKSUMMED_FROM, HEADER_LENGTH - CHECKSUMMED_FROM);
+        crc.update(invoiceNumber);
+        crc.update(invoice);
+        return crc;
+    }
+
+    /**
+     * Appends the given record and forces it to disk. Returns its position.
+     */
+    long append(final ByteBuffer[] record) throws IOException {
+        final long position = size;
+        long remaining = 0;
+        for (final ByteBuffer buffer : record) {
+            remaining += buffer.remaining();
+        }
+        channel.position(position);
+        while (remaining > 0) {
+            remaining -= channel.write(record);
+        }
+        channel.force(false);
+        size = channel.position();
+        return position;
+    }
+
+    /**
+     * Appends the given record head followed by the whole PDF file, which is copied without passing it through the
+     * heap, and forces it to disk. Returns its position.
+     */
+    long append(final ByteBuffer[] head, final FileChannel pdf) throws IOException {
+        final long position = size;
+        long remaining = 0;
+        for (final ByteBuffer buffer : head) {
+            remaining += buffer.remaining();
+        }
+        channel.position(position);
+        while (remaining > 0) {
+            remaining -= channel.write(head);
+        }
+        final long pdfLength = pdf.size();
+        // transferFrom reads from the current position of the source
+        pdf.position(0);
+        long copied = 0;
+        while (copied < pdfLength) {
+            final long transferred = channel.transferFrom(pdf, channel.position() + copied, pdfLength - copied);
+            if (transferred == 0) {
+                throw new IOException("PDF file ended after " + copied + " of " + pdfLength + " bytes");
+            }
+            copied += transferred;
+        }
+        channel.force(false);
+        size = channel.position() + copied;
+        return position;
+    }
+
+    /**
+     * Reads the header of the record at the given position, or returns {@code null} if there is no complete record
+     * there (end of segment, torn write or garbage).
+     */
+    Header header(final long position) throws IOException {
+        final long end = size;
+        if (position + HEADER_LENGTH > end) {
+            return null;
+        }
+        final ByteBuffer header = read(position, HEADER_LENGTH);
+        if (header.getInt(0) != MAGIC) {
+            return null;
+        }
+        final byte[] contentHash = new byte[HASH_LENGTH];
+        header.get(16, contentHash);
+        final int numberLength = Short.toUnsignedInt(header.getShort(48));
+        final int invoiceLength = header.getInt(50);
+        final int pdfLength = header.getInt(54);
+        if (invoiceLength < 0 || pdfLength < 0
+                || position + HEADER_LENGTH + numberLength + invoiceLength + pdfLength > end) {
+            return null;
+        }
+        final String invoiceNumber = StandardCharsets.UTF_8.decode(read(position + HEADER_LENGTH, numberLength))
+                .toString();
+        return new Header(position, header.getInt(4), header.getLong(8), contentHash, invoiceNumber, numberLength,
+                invoiceLength, pdfLength);
+    }
+
+    /**
+     * Returns the invoice JSON of the given record.
+     */
+    byte[] invoice(final Header record) throws IOException {
+        return read(record.invoicePosition(), record.invoiceLength()).array();
+    }
+
+    /**
+     * Returns whether the checksum of the given record matches its content.
+     */
+    boolean verify(final Header record) throws IOException {
+        final var crc = new CRC32C();
+        final ByteBuffer chunk = ByteBuffer.allocate(VERIFY_CHUNK);
+        long position = record.position() + CHECKSUMMED_FROM;
+        final long end = record.position() + record.length();
+        while (position < end) {
+            chunk.clear().limit((int) Math.min(VERIFY_CHUNK, end - position));
+            final int read = channel.read(chunk, position);
+            if (read < 0) {
+                return false;
+            }
+            crc.update(chunk.flip());
+            position += read;
+        }
+        return (int) crc.getValue() == record.checksum();
+    }
+
+    /**
+     * Writes the PDF of the given record to the target. A file or socket target is written by the kernel without
+     * copying the PDF into the heap.
+     */
+    void transferPdf(final Header record, final WritableByteChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < record.pdfLength()) {
+            transferred += channel.transferTo(record.pdfPosition() + transferred, record.pdfLength() - transferred,
+                    target);
+        }
+    }
+
+    /**
+     * Cuts off everything from the given position, e.g. a torn last record.
+     */
+    void truncate(final long position) throws IOException {
+        channel.truncate(position);
+        channel.force(true);
+        size = position;
+    }
+
+    void force() throws IOException {
+        channel.force(true);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer read(final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * The header of a record and where its parts are.
+     */
+    record Header(long position, int checksum, long archivedAt, byte[] contentHash, String invoiceNumber,
+                  int numberLength, int invoiceLength, int pdfLength) {
+
+        long length() {
+            return (long) HEADER_LENGTH + numberLength + invoiceLength + pdfLength;
+        }
+
+        long invoicePosition() {
+            return position + HEADER_LENGTH + numberLength;
+        }
+
+        long pdfPosition() {
+            return invoicePosition() + invoiceLength;
+        }
+    }
+}
@@ -0,0 +1,565 @@
+package com.teatown.software.invoice.adapter.out.archive;
+
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedInvoice;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoicePage;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoiceQuery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Secondary indexes over the archived invoices: by invoice date, due date and customer number.
+ *
+ * <p>Every indexed invoice is a row; its fields are kept in primitive columns (dates as epoch days, the customer
+ * number interned to an {@code int} id). Each index is a sorted {@code long[]} of {@code key << 32 | row}, so a range
+ * of keys is found by binary search and its rows are read off without touching an object. Rows added since the
+ * indexes were last sorted are scanned linearly; once they make up more than 1/64 of the sorted rows, they are merged
+ * in on a background thread, so adding a row only appends it to the columns. A superseded row is only flagged as removed, which keeps row numbers, and thereby page cursors, stable.</p>
+ *
+ * <p>A query walks the most selective index that applies and checks the remaining conditions against the columns.
+ * Results are ordered by invoice date, then row, which is the order of the invoice date index itself: a query on
+ * the invoice date alone stops as soon as the page is full.</p>
+ *
+ * <p>Writers are serialised; queries and the merge run lock-free against the published columns and indexes.</p>
+ */
+public final class InvoiceQueryIndex {
+
+    static final int MIN_UNSORTED = 4096;
+
+    private static final int SNAPSHOT_MAGIC = 0x494E5651;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final byte REVERSE_CHARGE = 1;
+    private static final byte REMOVED = 2;
+
+    private final Map<String, Integer> customerIds = new ConcurrentHashMap<>();
+    private volatile String[] customerNumbers = new String[64];
+    private volatile Columns columns = new Columns(1024);
+    private volatile Sorted sorted = Sorted.EMPTY;
+    private volatile int count;
+    private int removed;
+    private long modifications;
+    private final Executor merger;
+    private final AtomicBoolean merging = new AtomicBoolean();
+
+    public InvoiceQueryIndex() {
+        this(task -> Thread.ofPlatform().name("invoice-query-merge").daemon().start(task));
+    }
+
+    /**
+     * Creates an index whose merges run on the given executor.
+     */
+    InvoiceQueryIndex(final Executor merger) {
+        this.merger = merger;
+    }
+
+    /**
+     * Adds a row and returns its number. The indexes are not rebuilt here: once enough rows are unsorted, a merge is
+     * started in the background.
+     */
+    public synchronized int add(final Entry entry) {
+        final int row = count;
+        append(entry, row);
+        count = row + 1;
+        modifications++;
+        final int sortedRows = sorted.rows();
+        if (count - sortedRows >= Math.max(MIN_UNSORTED, sortedRows >> 6) && merging.compareAndSet(false, true)) {
+            merger.execute(this::merge);
+        }
+        return row;
+    }
+
+    /**
+     * Adds the given rows, in order, and sorts the indexes from scratch on all cores. Returns the number of the
+     * first row.
+     */
+    public synchronized int addAll(final List<Entry> entries) {
+        final int first = count;
+        for (int i = 0; i < entries.size(); i++) {
+            append(entries.get(i), first + i);
+        }
+        count = first + entries.size();
+        modifications += entries.size();
+        sort();
+        return first;
+    }
+
+    /**
+     * Flags the given row as removed; it no longer matches any query.
+     */
+    public synchronized void remove(final int row) {
+        final Columns c = columns;
+        if ((c.flags[row] & REMOVED) == 0) {
+            c.flags[row] |= REMOVED;
+            removed++;
+            modifications++;
+        }
+    }
+
+    /**
+     * Returns the invoices matching the given query, ordered by invoice date.
+     */
+    public InvoicePage query(final InvoiceQuery query) {
+        final Sorted s = sorted;
+        final int n = count;
+        final Columns c = columns;
+        final String[] customers = customerNumbers;
+
+        final var filter = new Filter(query);
+        if (query.customerNumber() != null && filter.customer < 0) {
+            return new InvoicePage(List.of(), null);
+        }
+        final long after = query.after() == null ? Long.MIN_VALUE : query.after();
+        final var top = new TopKeys(query.limit() + 1);
+
+        for (int row = s.rows(); row < n; row++) {
+            if (filter.matches(c, row)) {
+                top.offer(key(c.invoiceDays[row], row), after);
+            }
+        }
+
+        final long[] byInvoiceDay = s.byInvoiceDay();
+        int from = lowerBound(byInvoiceDay, 0, byInvoiceDay.length, (long) filter.invoiceFrom << 32);
+        int to = upperBound(byInvoiceDay, filter.invoiceTo);
+        long[] driver = byInvoiceDay;
+        if (filter.customer >= 0) {
+            final long[] byCustomer = s.byCustomer();
+            final int start = lowerBound(byCustomer, 0, byCustomer.length, (long) filter.customer << 32);
+            final int end = upperBound(byCustomer, filter.customer);
+            if (end - start < to - from) {
+                driver = byCustomer;
+                from = start;
+                to = end;
+            }
+        }
+        if (filter.dueFrom != Integer.MIN_VALUE || filter.dueTo != Integer.MAX_VALUE) {
+            final long[] byDueDay = s.byDueDay();
+            final int start = lowerBound(byDueDay, 0, byDueDay.length, (long) filter.dueFrom << 32);
+            final int end = upperBound(byDueDay, filter.dueTo);
+            if (end - start < to - from) {
+                driver = byDueDay;
+                from = start;
+                to = end;
+            }
+        }
+
+        if (driver == byInvoiceDay) {
+            // already in result order: skip to the cursor and stop once nothing smaller can come
+            if (after != Long.MIN_VALUE) {
+                from = Math.max(from, after == Long.MAX_VALUE ? to : lowerBound(driver, from, to, after + 1));
+            }
+            for (int i = from; i < to && !top.isSaturatedBelow(driver[i]); i++) {
+                if (filter.matches(c, (int) driver[i])) {
+                    top.offer(driver[i], after);
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                final int row = (int) driver[i];
+                // a row that would not make it onto the page is rejected before the filter touches more columns
+                final long key = key(c.invoiceDays[row], row);
+                if (key > after && !top.isSaturatedBelow(key) && filter.matches(c, row)) {
+                    top.offer(key, after);
+                }
+            }
+        }
+
+        final long[] keys = top.sorted();
+        final int size = Math.min(keys.length, query.limit());
+        final List<ArchivedInvoice> invoices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final int row = (int) keys[i];
+            invoices.add(new ArchivedInvoice(c.numbers[row], LocalDate.ofEpochDay(c.invoiceDays[row]),
+                    LocalDate.ofEpochDay(c.dueDays[row]), customers[c.customers[row]],
+                    (c.flags[row] & REVERSE_CHARGE) != 0));
+        }
+        return new InvoicePage(invoices, keys.length > size ? keys[size - 1] : null);
+    }
+
+    /**
+     * Returns the number of rows, removed ones included.
+     */
+    public int rowCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of rows that have not been removed.
+     */
+    public synchronized int size() {
+        return count - removed;
+    }
+
+    String invoiceNumber(final int row) {
+        return columns.numbers[row];
+    }
+
+    /**
+     * Returns the version the row was added with. The archive uses the leading bytes of the content hash, so a row
+     * loaded from a snapshot can be matched to the record it was read from.
+     */
+    long version(final int row) {
+        return columns.versions[row];
+    }
+
+    boolean isRemoved(final int row) {
+        return (columns.flags[row] & REMOVED) != 0;
+    }
+
+    int unsortedRows() {
+        return count - sorted.rows();
+    }
+
+    synchronized long modifications() {
+        return modifications;
+    }
+
+    /**
+     * Writes all rows to the given file, replacing it atomically. Queries and writers are not blocked; rows added
+     * while the snapshot is written may or may not be part of it.
+     */
+    void save(final Path file) throws IOException {
+        final int n = count;
+        final Columns c = columns;
+        final int customerCount = customerIds.size();
+        final String[] customers = customerNumbers;
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(customerCount);
+            for (int i = 0; i < customerCount; i++) {
+                out.writeUTF(customers[i]);
+            }
+            out.writeInt(n);
+            for (int row = 0; row < n; row++) {
+                out.writeUTF(c.numbers[row]);
+                out.writeLong(c.versions[row]);
+                out.writeInt(c.invoiceDays[row]);
+                out.writeInt(c.dueDays[row]);
+                out.writeInt(c.customers[row]);
+                out.writeByte(c.flags[row]);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #save(Path)} and sorts its indexes.
+     */
+    static InvoiceQueryIndex load(final Path file) throws IOException {
+        final var index = new InvoiceQueryIndex();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not an invoice query index snapshot: " + file);
+            }
+            final int customerCount = in.readInt();
+            final String[] customers = new String[Math.max(64, customerCount)];
+            for (int i = 0; i < customerCount; i++) {
+                customers[i] = in.readUTF();
+                index.customerIds.put(customers[i], i);
+            }
+            index.customerNumbers = customers;
+            final int n = in.readInt();
+            final var c = new Columns(Math.max(1024, n));
+            for (int row = 0; row < n; row++) {
+                c.numbers[row] = in.readUTF();
+                c.versions[row] = in.readLong();
+                c.invoiceDays[row] = in.readInt();
+                c.dueDays[row] = in.readInt();
+                c.customers[row] = in.readInt();
+                c.flags[row] = in.readByte();
+                if ((c.flags[row] & REMOVED) != 0) {
+                    index.removed++;
+                }
+            }
+            index.columns = c;
+            index.count = n;
+        }
+        index.sort();
+        return index;
+    }
+
+    private void append(final Entry entry, final int row) {
+        Columns c = columns;
+        if (row == c.numbers.length) {
+            c = c.grow();
+            columns = c;
+        }
+        c.numbers[row] = entry.invoiceNumber();
+        c.versions[row] = entry.version();
+        c.invoiceDays[row] = (int) entry.invoiceDate().toEpochDay();
+        c.dueDays[row] = (int) entry.dueDate().toEpochDay();
+        c.customers[row] = intern(entry.customerNumber());
+        c.flags[row] = entry.reverseCharge() ? REVERSE_CHARGE : 0;
+    }
+
+    private int intern(final String customerNumber) {
+        final Integer known = customerIds.get(customerNumber);
+        if (known != null) {
+            return known;
+        }
+        final int id = customerIds.size();
+        String[] customers = customerNumbers;
+        if (id == customers.length) {
+            customers = Arrays.copyOf(customers, id * 2);
+        }
+        customers[id] = customerNumber;
+        customerNumbers = customers;
+        customerIds.put(customerNumber, id);
+        return id;
+    }
+
+    /**
+     * Sorts all rows into fresh indexes, in parallel.
+     */
+    private void sort() {
+        final Columns c = columns;
+        final int n = count;
+        final long[] byInvoiceDay = new long[n];
+        final long[] byDueDay = new long[n];
+        final long[] byCustomer = new long[n];
+        Arrays.parallelSetAll(byInvoiceDay, row -> key(c.invoiceDays[row], row));
+        Arrays.parallelSetAll(byDueDay, row -> key(c.dueDays[row], row));
+        Arrays.parallelSetAll(byCustomer, row -> key(c.customers[row], row));
+        Arrays.parallelSort(byInvoiceDay);
+        Arrays.parallelSort(byDueDay);
+        Arrays.parallelSort(byCustomer);
+        sorted = new Sorted(byInvoiceDay, byDueDay, byCustomer, n);
+    }
+
+    /**
+     * Sorts the rows that are unsorted now and merges them into the indexes. Writers are only held up while the
+     * result is published.
+     */
+    private void merge() {
+        try {
+            final Sorted s = sorted;
+            final int n = count;
+            final Columns c = columns;
+            final int from = s.rows();
+            final long[] invoiceDays = new long[n - from];
+            final long[] dueDays = new long[n - from];
+            final long[] customers = new long[n - from];
+            for (int row = from; row < n; row++) {
+                invoiceDays[row - from] = key(c.invoiceDays[row], row);
+                dueDays[row - from] = key(c.dueDays[row], row);
+                customers[row - from] = key(c.customers[row], row);
+            }
+            final var merged = new Sorted(merge(s.byInvoiceDay(), invoiceDays), merge(s.byDueDay(), dueDays),
+                    merge(s.byCustomer(), customers), n);
+            synchronized (this) {
+                // addAll() may have sorted everything from scratch in the meantime
+                if (sorted == s) {
+                    sorted = merged;
+                }
+            }
+        } finally {
+            merging.set(false);
+        }
+    }
+
+    private static long[] merge(final long[] sortedKeys, final long[] keys) {
+        Arrays.sort(keys);
+        final long[] merged = new long[sortedKeys.length + keys.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < sortedKeys.length && j < keys.length) {
+            merged[k++] = sortedKeys[i] <= keys[j] ? sortedKeys[i++] : keys[j++];
+        }
+        System.arraycopy(sortedKeys, i, merged, k, sortedKeys.length - i);
+        System.arraycopy(keys, j, merged, k + sortedKeys.length - i, keys.length - j);
+        return merged;
+    }
+
+    static long key(final int value, final int row) {
+        return (long) value << 32 | Integer.toUnsignedLong(row);
+    }
+
+    /**
+     * Returns the index of the first key at least {@code key} in the given range.
+     */
+    private static int lowerBound(final long[] keys, int from, int to, final long key) {
+        while (from < to) {
+            final int mid = (from + to) >>> 1;
+            if (keys[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the index of the first key whose value is above the given one.
+     */
+    private static int upperBound(final long[] keys, final int value) {
+        return value == Integer.MAX_VALUE ? keys.length
+                : lowerBound(keys, 0, keys.length, (long) (value + 1) << 32);
+    }
+
+    /**
+     * One row to add.
+     *
+     * @param version identifies the source of the row, see {@link #version(int)}
+     */
+    public record Entry(String invoiceNumber, long version, LocalDate invoiceDate, LocalDate dueDate,
+                        String customerNumber, boolean reverseCharge) {
+    }
+
+    /**
+     * The row fields, one array per field. Rows below {@link #count} are complete and, except for the removed flag,
+     * never change; a full set of arrays is replaced by larger copies.
+     */
+    private static final class Columns {
+
+        final String[] numbers;
+        final long[] versions;
+        final int[] invoiceDays;
+        final int[] dueDays;
+        final int[] customers;
+        final byte[] flags;
+
+        Columns(final int capacity) {
+            numbers = new String[capacity];
+            versions = new long[capacity];
+            invoiceDays = new int[capacity];
+            dueDays = new int[capacity];
+            customers = new int[capacity];
+            flags = new byte[capacity];
+        }
+
+        private Columns(final Columns columns, final int capacity) {
+            numbers = Arrays.copyOf(columns.numbers, capacity);
+            versions = Arrays.copyOf(columns.versions, capacity);
+            invoiceDays = Arrays.copyOf(columns.invoiceDays, capacity);
+            dueDays = Arrays.copyOf(columns.dueDays, capacity);
+            customers = Arrays.copyOf(columns.customers, capacity);
+            flags = Arrays.copyOf(columns.flags, capacity);
+        }
+
+        Columns grow() {
+            return new Columns(this, numbers.length + (numbers.length >> 1));
+        }
+    }
+
+    /**
+     * The sorted indexes, covering rows below {@code rows}.
+     */
+    private record Sorted(long[] byInvoiceDay, long[] byDueDay, long[] byCustomer, int rows) {
+
+        static final Sorted EMPTY = new Sorted(new long[0], new long[0], new long[0], 0);
+    }
+
+    /**
+     * A query with its dates as epoch days and its customer number as id (-1 if not queried, -2 if unknown).
+     */
+    private final class Filter {
+
+        final int customer;
+        final int invoiceFrom;
+        final int invoiceTo;
+        final int dueFrom;
+        final int dueTo;
+        final Boolean reverseCharge;
+
+        Filter(final InvoiceQuery query) {
+            customer = query.customerNumber() == null ? -1 : customerIds.getOrDefault(query.customerNumber(), -2);
+            invoiceFrom = from(query.invoiceDateFrom());
+            invoiceTo = to(query.invoiceDateTo());
+            dueFrom = from(query.dueDateFrom());
+            dueTo = to(query.dueDateTo());
+            reverseCharge = query.reverseCharge();
+        }
+
+        boolean matches(final Columns c, final int row) {
+            final byte flags = c.flags[row];
+            return (flags & REMOVED) == 0
+                    && (customer < 0 || c.customers[row] == customer)
+                    && c.invoiceDays[row] >= invoiceFrom && c.invoiceDays[row] <= invoiceTo
+                    && c.dueDays[row] >= dueFrom && c.dueDays[row] <= dueTo
+                    && (reverseCharge == null || reverseCharge == ((flags & REVERSE_CHARGE) != 0));
+        }
+
+        private static int from(final LocalDate date) {
+            return date == null ? Integer.MIN_VALUE : (int) date.toEpochDay();
+        }
+
+        private static int to(final LocalDate date) {
+            return date == null ? Integer.MAX_VALUE : (int) date.toEpochDay();
+        }
+    }
+
+    /**
+     * The smallest keys offered, up to a capacity: a bounded max-heap, so a page costs {@code log(page size)} per
+     * match instead of sorting every match.
+     */
+    private static final class TopKeys {
+
+        private final long[] heap;
+        private int size;
+
+        TopKeys(final int capacity) {
+            heap = new long[capacity];
+        }
+
+        void offer(final long key, final long after) {
+            if (key <= after) {
+                return;
+            }
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) >>> 1] < key) {
+                    heap[i] = heap[(i - 1) >>> 1];
+                    i = (i - 1) >>> 1;
+                }
+                heap[i] = key;
+            } else if (key < heap[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && heap[child + 1] > heap[child]) {
+                        child++;
+                    }
+                    if (heap[child] <= key) {
+                        break;
+                    }
+                    heap[i] = heap[child];
+                    i = child;
+                }
+                heap[i] = key;
+            }
+        }
+
+        /**
+         * Returns whether the heap is full and the given key, and every larger one, would not make it in.
+         */
+        boolean isSaturatedBelow(final long key) {
+            return size == heap.length && key >= heap[0];
+        }
+
+        long[] sorted() {
+            final long[] keys = Arrays.copyOf(heap, size);
+            Arrays.sort(keys);
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+package com.teatown.software.invoice.adapter.out.archive;
+
+import com.teatown.software.invoice.application.port.InvoiceArchivePort;
+import com.teatown.software.invoice.configuration.InvoiceArchiveProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound adapter: archives invoice PDFs in append-only {@link ArchiveSegment segment files} in
+ * {@code invoice.archive.directory}.
+ *
+ * <p>Every PDF is appended with its invoice as JSON to the active segment and forced to disk before the call returns;
+ * once the segment exceeds {@code invoice.archive.segment-size}, a new one is started. Records are never replaced or
+ * removed: an invoice number keeps one record per content hash, the first being the original. An in-memory index
+ * maps each invoice number to the positions of its records and is rebuilt by scanning the segments on startup, where
+ * a torn record at the end of the last segment is cut off.</p>
+ *
+ * <p>Whether a rendering is already archived is decided in memory, by the {@link #version(byte[]) version} of its
+ * content hash, before the append lock is taken: serving a cached PDF again costs a map lookup, not a disk read under
+ * the lock.</p>
+ *
+ * <p>PDFs are read with {@link java.nio.channels.FileChannel#transferTo positional transfers}, so a download never
+ * holds the PDF in the heap and never blocks an append. PDFs rendered into a file are appended with
+ * {@link java.nio.channels.FileChannel#transferFrom transfers} from that file. Every
+ * {@code invoice.archive.maintenance-interval}, the checksums of one sealed segment are verified, round robin, so bit
+ * rot is noticed before anybody asks for the invoice.</p>
+ *
+ * <p>Invoices are listed through an {@link InvoiceQueryIndex}, one row per invoice number with the invoice of its
+ * original record. It is saved to {@value #QUERY_INDEX_FILE} on every maintenance run that finds it changed and on
+ * shutdown; on startup, each row of the saved index is matched to the original record of its invoice number by
+ * content hash, and only the records without a match have their invoice read again, in parallel. Deleting the file
+ * rebuilds the whole index.</p>
+ */
+@Component
+public class SegmentedInvoiceArchive implements InvoiceArchivePort, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedInvoiceArchive.class);
+
+    static final String QUERY_INDEX_FILE = "invoices.idx";
+
+    private final JsonMapper jsonMapper;
+    private final Clock clock;
+    private final Path directory;
+    private final long segmentSize;
+
+    private final Map<String, Records> index = new ConcurrentHashMap<>();
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final InvoiceQueryIndex queries;
+    private final Object queryIndexFileLock = new Object();
+    private ArchiveSegment active;
+    private int nextScrub;
+    private long savedQueryIndexModifications = -1;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder corruptRecords = new LongAdder();
+
+    @Autowired
+    public SegmentedInvoiceArchive(final JsonMapper jsonMapper, final InvoiceArchiveProperties properties) {
+        this(jsonMapper, properties, Clock.systemUTC());
+    }
+
+    SegmentedInvoiceArchive(final JsonMapper jsonMapper, final InvoiceArchiveProperties properties, final Clock clock) {
+        this.jsonMapper = jsonMapper;
+        this.clock = clock;
+        this.directory = properties.getDirectory();
+        this.segmentSize = properties.getSegmentSize().toBytes();
+        try {
+            Files.createDirectories(directory);
+            recover();
+            queries = openQueryIndex();
+            saveQueryIndex();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open invoice archive " + directory, e);
+        }
+    }
+
+    @Override
+    public void archive(final Invoice invoice, final String contentHash, final byte[] pdf) {
+        final byte[] hash = HexFormat.of().parseHex(contentHash);
+        if (isArchived(invoice.invoiceNumber(), version(hash))) {
+            return;
+        }
+        final byte[] number = invoice.invoiceNumber().getBytes(StandardCharsets.UTF_8);
+        final byte[] json = jsonMapper.writeValueAsBytes(invoice);
+        final var record = ArchiveSegment.record(clock.millis(), hash, number, json, pdf);
+        final long length = ArchiveSegment.HEADER_LENGTH + number.length + json.length + pdf.length;
+        synchronized (this) {
+            if (isArchived(invoice.invoiceNumber(), version(hash))) {
+                return;
+            }
+            try {
+                final ArchiveSegment segment = segmentFor(length);
+                add(invoice, new Location(segment, segment.append(record), length, version(hash)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot archive invoice " + invoice.invoiceNumber(), e);
+            }
+        }
+    }
+
+    @Override
+    public void archive(final Invoice invoice, final String contentHash, final Path pdf) {
+        final byte[] hash = HexFormat.of().parseHex(contentHash);
+        if (isArchived(invoice.invoiceNumber(), version(hash))) {
+            return;
+        }
+        final byte[] number = invoice.invoiceNumber().getBytes(StandardCharsets.UTF_8);
+        final byte[] json = jsonMapper.writeValueAsBytes(invoice);
+        try (FileChannel file = FileChannel.open(pdf, StandardOpenOption.READ)) {
+            // the checksum is computed outside the lock, the file is only read again to append it
+            final var head = ArchiveSegment.record(clock.millis(), hash, number, json, file);
+            final long length = ArchiveSegment.HEADER_LENGTH + number.length + json.length + file.size();
+            synchronized (this) {
+                if (isArchived(invoice.invoiceNumber(), version(hash))) {
+                    return;
+                }
+                final ArchiveSegment segment = segmentFor(length);
+                add(invoice, new Location(segment, segment.append(head, file), length, version(hash)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot archive invoice " + invoice.invoiceNumber(), e);
+        }
+    }
+
+    @Override
+    public Optional<ArchivedPdf> open(final String invoiceNumber) {
+        final Records records = index.get(invoiceNumber);
+        return records == null ? Optional.empty() : Optional.of(open(invoiceNumber, records.original()));
+    }
+
+    @Override
+    public Optional<ArchivedPdf> open(final String invoiceNumber, final String contentHash) {
+        final byte[] hash;
+        try {
+            hash = HexFormat.of().parseHex(contentHash);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        final Records records = index.get(invoiceNumber);
+        final Location location = records == null || hash.length != ArchiveSegment.HASH_LENGTH ? null
+                : records.find(version(hash));
+        if (location == null) {
+            return Optional.empty();
+        }
+        final SegmentPdf pdf = open(invoiceNumber, location);
+        return Arrays.equals(hash, pdf.header.contentHash()) ? Optional.of(pdf) : Optional.empty();
+    }
+
+    @Override
+    public boolean contains(final String invoiceNumber) {
+        return index.containsKey(invoiceNumber);
+    }
+
+    @Override
+    public Optional<Invoice> invoice(final String invoiceNumber) {
+        final Records records = index.get(invoiceNumber);
+        if (records == null) {
+            return Optional.empty();
+        }
+        final Location original = records.original();
+        try {
+            final byte[] invoice = original.segment().invoice(header(invoiceNumber, original));
+            return Optional.of(jsonMapper.readValue(invoice, Invoice.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archived invoice " + invoiceNumber, e);
+        }
+    }
+
+    private SegmentPdf open(final String invoiceNumber, final Location location) {
+        return new SegmentPdf(location.segment(), header(invoiceNumber, location));
+    }
+
+    private ArchiveSegment.Header header(final String invoiceNumber, final Location location) {
+        final ArchiveSegment.Header header;
+        try {
+            header = location.segment().header(location.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archived invoice " + invoiceNumber, e);
+        }
+        if (header == null) {
+            throw new IllegalStateException("No archive record at position " + location.position() + " of "
+                    + location.segment().file());
+        }
+        return header;
+    }
+
+    @Override
+    public InvoicePage find(final InvoiceQuery query) {
+        return queries.query(query);
+    }
+
+    /**
+     * Verifies the checksums of the next sealed segment and saves the query index if it has changed.
+     */
+    @Scheduled(
+            initialDelayString = "${invoice.archive.maintenance-interval:10m}",
+            fixedDelayString = "${invoice.archive.maintenance-interval:10m}")
+    public void maintain() {
+        final List<ArchiveSegment> sealed = sealedSegments();
+        if (!sealed.isEmpty()) {
+            final ArchiveSegment segment = sealed.get(nextScrub++ % sealed.size());
+            try {
+                scrub(segment);
+            } catch (IOException e) {
+                log.warn("Failed to verify archive segment {}", segment.file(), e);
+            }
+        }
+        saveQueryIndex();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        saveQueryIndex();
+        for (final ArchiveSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    int invoiceCount() {
+        return index.size();
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    long bytes() {
+        return segments.stream().mapToLong(ArchiveSegment::size).sum();
+    }
+
+    long corruptRecordCount() {
+        return corruptRecords.sum();
+    }
+
+    InvoiceQueryIndex queryIndex() {
+        return queries;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("invoice.archive.invoices", this, SegmentedInvoiceArchive::invoiceCount)
+                .description("Number of archived invoices")
+                .register(registry);
+        Gauge.builder("invoice.archive.segments", this, SegmentedInvoiceArchive::segmentCount)
+                .description("Number of archive segment files")
+                .register(registry);
+        Gauge.builder("invoice.archive.bytes", this, SegmentedInvoiceArchive::bytes)
+                .description("Size of all archive segment files")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("invoice.archive.appends", appends, LongAdder::sum)
+                .description("Number of PDFs appended to the archive")
+                .register(registry);
+        FunctionCounter.builder("invoice.archive.corrupt.records", corruptRecords, LongAdder::sum)
+                .description("Number of archive records whose checksum did not match")
+                .register(registry);
+        Gauge.builder("invoice.archive.index.unsorted", queries, InvoiceQueryIndex::unsortedRows)
+                .description("Number of query index rows not yet merged into the sorted indexes")
+                .register(registry);
+    }
+
+    /**
+     * Opens all segments in order and indexes their records, the first record per invoice number being its original.
+     */
+    private void recover() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (var stream = Files.newDirectoryStream(directory, ArchiveSegment.PREFIX + "*" + ArchiveSegment.SUFFIX)) {
+            stream.forEach(file -> {
+                if (ArchiveSegment.id(file) >= 0) {
+                    files.add(file);
+                }
+            });
+        }
+        files.sort(Comparator.comparingLong(ArchiveSegment::id));
+        for (int i = 0; i < files.size(); i++) {
+            final ArchiveSegment segment = ArchiveSegment.open(directory, ArchiveSegment.id(files.get(i)));
+            segments.add(segment);
+            index(segment, i == files.size() - 1);
+        }
+        active = segments.isEmpty() ? newSegment(1) : segments.getLast();
+        if (!index.isEmpty()) {
+            log.info("Opened invoice archive {} with {} invoices in {} segments", directory, index.size(),
+                    segments.size());
+        }
+    }
+
+    private void index(final ArchiveSegment segment, final boolean last) throws IOException {
+        long position = 0;
+        ArchiveSegment.Header header;
+        while ((header = segment.header(position)) != null) {
+            // only the last segment can end in an unfinished append
+            if (last && !segment.verify(header)) {
+                break;
+            }
+            final var location = new Location(segment, position, header.length(), version(header.contentHash()));
+            index.merge(header.invoiceNumber(), new Records(List.of(location), -1),
+                    (records, ignored) -> records.find(location.version()) == null ? records.with(location) : records);
+            position += header.length();
+        }
+        if (position < segment.size()) {
+            if (last) {
+                log.warn("Cutting off {} bytes of an unfinished record at the end of archive segment {}",
+                        segment.size() - position, segment.file());
+                segment.truncate(position);
+            } else {
+                corruptRecords.increment();
+                log.error("Archive segment {} is unreadable from position {}, records after it are not indexed",
+                        segment.file(), position);
+            }
+        }
+    }
+
+    /**
+     * Loads the saved query index, drops the rows that are not the original record of their invoice number and adds
+     * the originals that have no row yet.
+     */
+    private InvoiceQueryIndex openQueryIndex() {
+        final Path file = directory.resolve(QUERY_INDEX_FILE);
+        InvoiceQueryIndex loaded = new InvoiceQueryIndex();
+        if (Files.exists(file)) {
+            try {
+                loaded = InvoiceQueryIndex.load(file);
+                savedQueryIndexModifications = 0;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot read invoice query index {}, rebuilding it", file, e);
+            }
+        }
+        for (int row = 0; row < loaded.rowCount(); row++) {
+            if (loaded.isRemoved(row)) {
+                continue;
+            }
+            final String invoiceNumber = loaded.invoiceNumber(row);
+            final Records records = index.get(invoiceNumber);
+            if (records != null && records.row() < 0 && records.original().version() == loaded.version(row)) {
+                index.put(invoiceNumber, records.withRow(row));
+            } else {
+                loaded.remove(row);
+            }
+        }
+
+        final List<InvoiceQueryIndex.Entry> entries = index.values().parallelStream()
+                .filter(records -> records.row() < 0)
+                .map(records -> readEntry(records.original()))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(InvoiceQueryIndex.Entry::invoiceDate)
+                        .thenComparing(InvoiceQueryIndex.Entry::invoiceNumber))
+                .toList();
+        if (!entries.isEmpty()) {
+            final int first = loaded.addAll(entries);
+            for (int i = 0; i < entries.size(); i++) {
+                final int row = first + i;
+                index.computeIfPresent(entries.get(i).invoiceNumber(), (number, records) -> records.withRow(row));
+            }
+            log.info("Indexed {} archived invoices for queries", entries.size());
+        }
+        return loaded;
+    }
+
+    /**
+     * Reads the invoice of the given record, or returns {@code null} if it cannot be read.
+     */
+    private InvoiceQueryIndex.Entry readEntry(final Location location) {
+        try {
+            final ArchiveSegment.Header header = location.segment().header(location.position());
+            final Invoice invoice = jsonMapper.readValue(location.segment().invoice(header), Invoice.class);
+            return entry(invoice, location.version());
+        } catch (IOException | RuntimeException e) {
+            corruptRecords.increment();
+            log.error("Cannot read the invoice archived at position {} of {}, it is not listed",
+                    location.position(), location.segment().file(), e);
+            return null;
+        }
+    }
+
+    private void saveQueryIndex() {
+        synchronized (queryIndexFileLock) {
+            final long modifications = queries.modifications();
+            if (modifications == savedQueryIndexModifications) {
+                return;
+            }
+            try {
+                queries.save(directory.resolve(QUERY_INDEX_FILE));
+                savedQueryIndexModifications = modifications;
+            } catch (IOException e) {
+                log.warn("Failed to save invoice query index to {}", directory, e);
+            }
+        }
+    }
+
+    private static InvoiceQueryIndex.Entry entry(final Invoice invoice, final long version) {
+        return new InvoiceQueryIndex.Entry(invoice.invoiceNumber(), version, invoice.invoiceDate(),
+                invoice.dueDate(), invoice.customer().customerNumber(), Boolean.TRUE.equals(invoice.reverseCharge()));
+    }
+
+    /**
+     * The leading eight bytes of a content hash, enough to tell two records of one invoice number apart.
+     */
+    private static long version(final byte[] contentHash) {
+        return ByteBuffer.wrap(contentHash).getLong();
+    }
+
+    private boolean isArchived(final String invoiceNumber, final long version) {
+        final Records records = index.get(invoiceNumber);
+        return records != null && records.find(version) != null;
+    }
+
+    /**
+     * Indexes a record just appended; the first record of an invoice number is also added to the query index.
+     */
+    private void add(final Invoice invoice, final Location location) {
+        appends.increment();
+        final Records records = index.get(invoice.invoiceNumber());
+        if (records == null) {
+            final int row = queries.add(entry(invoice, location.version()));
+            index.put(invoice.invoiceNumber(), new Records(List.of(location), row));
+        } else {
+            index.put(invoice.invoiceNumber(), records.with(location));
+        }
+    }
+
+    /**
+     * Returns the segment to append a record of the given length to, starting a new one if the active one is full.
+     */
+    private ArchiveSegment segmentFor(final long length) throws IOException {
+        if (active.size() > 0 && active.size() + length > segmentSize) {
+            active.force();
+            active = newSegment(active.id() + 1);
+        }
+        return active;
+    }
+
+    private ArchiveSegment newSegment(final long id) throws IOException {
+        final ArchiveSegment segment = ArchiveSegment.open(directory, id);
+        segments.add(segment);
+        return segment;
+    }
+
+    private synchronized List<ArchiveSegment> sealedSegments() {
+        return segments.stream().filter(segment -> segment != active).toList();
+    }
+
+    private void scrub(final ArchiveSegment segment) throws IOException {
+        long position = 0;
+        ArchiveSegment.Header header;
+        while ((header = segment.header(position)) != null) {
+            if (!segment.verify(header)) {
+                corruptRecords.increment();
+                log.error("Archived invoice {} in segment {} fails its checksum", header.invoiceNumber(),
+                        segment.file());
+            }
+            position += header.length();
+        }
+    }
+
+    /**
+     * Where a record is, and the leading bytes of its content hash.
+     */
+    private record Location(ArchiveSegment segment, long position, long length, long version) {
+    }
+
+    /**
+     * The records of one invoice number, the original first, and the row of the original in the query index (-1
+     * while it has none). Replaced as a whole, so it can be read without the lock.
+     */
+    private record Records(List<Location> locations, int row) {
+
+        Location original() {
+            return locations.getFirst();
+        }
+
+        Location find(final long version) {
+            for (final Location location : locations) {
+                if (location.version() == version) {
+                    return location;
+                }
+            }
+            return null;
+        }
+
+        Records with(final Location location) {
+            final List<Location> added = new ArrayList<>(locations.size() + 1);
+            added.addAll(locations);
+            added.add(location);
+            return new Records(List.copyOf(added), row);
+        }
+
+        Records withRow(final int row) {
+            return new Records(locations, row);
+        }
+    }
+
+    /**
+     * A PDF read from a segment. Segments are never deleted while the archive is open, so closing it releases nothing.
+     */
+    private static final class SegmentPdf implements ArchivedPdf {
+
+        private final ArchiveSegment segment;
+        private final ArchiveSegment.Header header;
+
+        private SegmentPdf(final ArchiveSegment segment, final ArchiveSegment.Header header) {
+            this.segment = segment;
+            this.header = header;
+        }
+
+        @Override
+        public String invoiceNumber() {
+            return header.invoiceNumber();
+        }
+
+        @Override
+        public String contentHash() {
+            return HexFormat.of().formatHex(header.contentHash());
+        }
+
+        @Override
+        public Instant archivedAt() {
+            return Instant.ofEpochMilli(header.archivedAt());
+        }
+
+        @Override
+        public long size() {
+            return header.pdfLength();
+        }
+
+        @Override
+        public void transferTo(final OutputStream out) {
+            try {
+                segment.transferPdf(header, Channels.newChannel(out));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archived invoice " + header.invoiceNumber(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
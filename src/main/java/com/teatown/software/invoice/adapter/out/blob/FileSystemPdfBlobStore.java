@@ -0,0 +1,95 @@
+package com.teatown.software.invoice.adapter.out.blob;
+
+import com.teatown.software.invoice.application.port.PdfBlobStorePort;
+import com.teatown.software.invoice.configuration.InvoiceJobProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Outbound adapter: stores rendered PDFs as files in {@code <invoice.jobs.directory>/blobs}.
+ *
+ * <p>Blobs are written to a temporary file and moved into place atomically, so readers never see a partial PDF.</p>
+ */
+@Component
+public class FileSystemPdfBlobStore implements PdfBlobStorePort {
+
+    private static final Pattern VALID_ID = Pattern.compile("[a-zA-Z0-9-]+");
+
+    private final Path directory;
+
+    public FileSystemPdfBlobStore(final InvoiceJobProperties properties) {
+        this.directory = properties.getDirectory().resolve("blobs");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create PDF blob directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void write(final String id, final Consumer<OutputStream> content) {
+        final Path target = file(id);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, id, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                content.accept(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot store PDF blob " + id, e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> open(final String id) {
+        try {
+            return Optional.of(Files.newInputStream(file(id)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read PDF blob " + id, e);
+        }
+    }
+
+    @Override
+    public void delete(final String id) {
+        try {
+            Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete PDF blob " + id, e);
+        }
+    }
+
+    private Path file(final String id) {
+        if (!VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid blob id: " + id);
+        }
+        return directory.resolve(id + ".pdf");
+    }
+
+    private static void deleteQuietly(final Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // best effort; a leftover temporary file does not affect stored blobs
+        }
+    }
+}
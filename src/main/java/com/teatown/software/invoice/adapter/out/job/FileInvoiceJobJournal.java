@@ -0,0 +1,174 @@
+package com.teatown.software.invoice.adapter.out.job;
+
+import com.teatown.software.invoice.application.port.InvoiceJobJournalPort;
+import com.teatown.software.invoice.configuration.InvoiceJobProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbound adapter: append-only journal of invoice jobs in {@code <invoice.jobs.directory>/journal.jsonl}.
+ *
+ * <p>Every change is appended as one JSON line and forced to disk before the call returns. Replaying the journal
+ * folds the lines into the latest state per job; a torn last line (crash mid-write) is skipped. The file is compacted
+ * to one line per live job on startup and whenever it has grown well beyond the number of live jobs.</p>
+ */
+@Component
+public class FileInvoiceJobJournal implements InvoiceJobJournalPort {
+
+    private static final Logger log = LoggerFactory.getLogger(FileInvoiceJobJournal.class);
+
+    static final String JOURNAL_FILE = "journal.jsonl";
+    private static final int COMPACTION_SLACK = 1000;
+
+    private final JsonMapper jsonMapper;
+    private final Path journal;
+
+    private FileChannel channel;
+    private long lines;
+    private long liveJobs;
+
+    public FileInvoiceJobJournal(final JsonMapper jsonMapper, final InvoiceJobProperties properties) {
+        this.jsonMapper = jsonMapper;
+        this.journal = properties.getDirectory().resolve(JOURNAL_FILE);
+        try {
+            Files.createDirectories(properties.getDirectory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create invoice job directory " + properties.getDirectory(), e);
+        }
+        compact();
+    }
+
+    @Override
+    public synchronized void submitted(final InvoiceJob job, final Invoice invoice) {
+        append(new Entry(Op.SUBMITTED, job.id(), job, invoice));
+        liveJobs++;
+    }
+
+    @Override
+    public synchronized void updated(final InvoiceJob job) {
+        append(new Entry(Op.UPDATED, job.id(), job, null));
+    }
+
+    @Override
+    public synchronized void removed(final String jobId) {
+        append(new Entry(Op.REMOVED, jobId, null, null));
+        liveJobs--;
+        if (lines > 2 * liveJobs + COMPACTION_SLACK) {
+            compact();
+        }
+    }
+
+    @Override
+    public synchronized List<JournaledJob> replay() {
+        return List.copyOf(fold().values());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Rewrites the journal with one entry per live job and reopens it for appending.
+     */
+    private synchronized void compact() {
+        try {
+            final Map<String, JournaledJob> jobs = fold();
+            if (channel != null) {
+                channel.close();
+            }
+            final Path temp = Files.createTempFile(journal.getParent(), JOURNAL_FILE, ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (final JournaledJob job : jobs.values()) {
+                    out.write(ByteBuffer.wrap(line(new Entry(Op.SUBMITTED, job.job().id(), job.job(), job.invoice()))));
+                }
+                out.force(true);
+            }
+            Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            lines = jobs.size();
+            liveJobs = jobs.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact invoice job journal " + journal, e);
+        }
+    }
+
+    private Map<String, JournaledJob> fold() {
+        final Map<String, JournaledJob> jobs = new LinkedHashMap<>();
+        if (!Files.exists(journal)) {
+            return jobs;
+        }
+        final List<String> content;
+        try {
+            content = Files.readAllLines(journal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read invoice job journal " + journal, e);
+        }
+        for (final String line : content) {
+            if (line.isBlank()) {
+                continue;
+            }
+            final Entry entry;
+            try {
+                entry = jsonMapper.readValue(line, Entry.class);
+            } catch (JacksonException e) {
+                log.warn("Skipping unreadable invoice job journal entry in {}", journal, e);
+                continue;
+            }
+            switch (entry.op()) {
+                case SUBMITTED -> jobs.put(entry.jobId(), new JournaledJob(entry.job(), entry.invoice()));
+                case UPDATED -> jobs.computeIfPresent(entry.jobId(), (id, previous) ->
+                        new JournaledJob(entry.job(), entry.job().status().finished() ? null : previous.invoice()));
+                case REMOVED -> jobs.remove(entry.jobId());
+            }
+        }
+        return jobs;
+    }
+
+    private void append(final Entry entry) {
+        try {
+            channel.write(ByteBuffer.wrap(line(entry)));
+            channel.force(false);
+            lines++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write invoice job journal " + journal, e);
+        }
+    }
+
+    private byte[] line(final Entry entry) {
+        final byte[] json = jsonMapper.writeValueAsBytes(entry);
+        final byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    enum Op {
+        SUBMITTED,
+        UPDATED,
+        REMOVED
+    }
+
+    record Entry(Op op, String jobId, InvoiceJob job, Invoice invoice) {
+    }
+}
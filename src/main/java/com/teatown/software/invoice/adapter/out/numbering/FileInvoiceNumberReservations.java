@@ -0,0 +1,85 @@
+package com.teatown.software.invoice.adapter.out.numbering;
+
+import com.teatown.software.invoice.application.port.InvoiceNumberReservationPort;
+import com.teatown.software.invoice.configuration.InvoiceNumberingProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outbound adapter: keeps the invoice number high-water marks in {@code invoice.numbering.file}, one
+ * {@code <sequence>=<next>} line per sequence.
+ *
+ * <p>Every reservation rewrites the (small) file to a temporary file, forces it to disk and moves it over the old one
+ * atomically, so a crash leaves either the old or the new marks, never a torn file.</p>
+ */
+@Component
+public class FileInvoiceNumberReservations implements InvoiceNumberReservationPort {
+
+    private final Path file;
+    private final Map<String, Long> marks = new TreeMap<>();
+
+    public FileInvoiceNumberReservations(final InvoiceNumberingProperties properties) {
+        this.file = properties.getFile();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            if (Files.exists(file)) {
+                for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    final int separator = line.lastIndexOf('=');
+                    if (separator > 0) {
+                        marks.put(line.substring(0, separator), Long.parseLong(line.substring(separator + 1).trim()));
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Cannot read invoice number reservations " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized long next(final String sequence) {
+        return marks.getOrDefault(sequence, 1L);
+    }
+
+    @Override
+    public synchronized void reserve(final String sequence, final long next) {
+        final Long previous = marks.put(sequence, next);
+        try {
+            write();
+        } catch (IOException e) {
+            if (previous == null) {
+                marks.remove(sequence);
+            } else {
+                marks.put(sequence, previous);
+            }
+            throw new UncheckedIOException("Cannot reserve invoice numbers in " + file, e);
+        }
+    }
+
+    private void write() throws IOException {
+        final var content = new StringBuilder();
+        marks.forEach((sequence, next) -> content.append(sequence).append('=').append(next).append('\n'));
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = StandardCharsets.UTF_8.encode(content.toString());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
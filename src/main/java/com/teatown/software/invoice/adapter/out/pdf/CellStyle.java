@@ -0,0 +1,115 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPCellEvent;
+import com.lowagie.text.pdf.PdfPTable;
+
+/**
+ * Immutable, precomputed look of a table cell: font, horizontal alignment, borders and padding.
+ *
+ * <p>{@link #add(PdfPTable, String)} applies the style to the default cell of the table and adds the value as a
+ * {@link Phrase}, so the table creates exactly one cell per value; building a cell first would create it twice,
+ * because {@link PdfPTable#addCell(PdfPCell)} copies the given cell. The blank phrase is created once per style and
+ * shared by all tables. Styles are created once per generator and shared across renders.</p>
+ */
+public final class CellStyle {
+
+    private static final float BORDER_WIDTH = 0.5f;
+
+    private final Font font;
+    private final int horizontalAlignment;
+    private final float padding;
+    private final Rectangle borders;
+    private final Phrase blank;
+
+    private CellStyle(final Font font, final int horizontalAlignment, final float padding, final Border border) {
+        this.font = font;
+        this.horizontalAlignment = horizontalAlignment;
+        this.padding = padding;
+        this.borders = border.prototype();
+        this.blank = new Phrase(" ", font);
+    }
+
+    public static CellStyle left(final Font font, final Border border) {
+        return new CellStyle(font, Element.ALIGN_LEFT, border.padding, border);
+    }
+
+    public static CellStyle right(final Font font, final Border border) {
+        return new CellStyle(font, Element.ALIGN_RIGHT, border.padding, border);
+    }
+
+    /**
+     * Adds the text as the next cell of the table.
+     */
+    public void add(final PdfPTable table, final String text) {
+        applyTo(table.getDefaultCell());
+        table.addCell(new Phrase(text, font));
+    }
+
+    /**
+     * Adds an empty cell (a single space, so the row keeps the line height of the font).
+     */
+    public void addBlank(final PdfPTable table) {
+        applyTo(table.getDefaultCell());
+        table.addCell(blank);
+    }
+
+    /**
+     * Adds the text as a cell spanning the given number of columns.
+     */
+    public void add(final PdfPTable table, final String text, final int colspan) {
+        final PdfPCell cell = table.getDefaultCell();
+        applyTo(cell);
+        cell.setColspan(colspan);
+        table.addCell(new Phrase(text, font));
+        cell.setColspan(1);
+    }
+
+    /**
+     * Adds the text as the next cell of the table, with the given event called when the cell is laid out.
+     */
+    public void add(final PdfPTable table, final String text, final PdfPCellEvent event) {
+        final PdfPCell cell = table.getDefaultCell();
+        applyTo(cell);
+        cell.setCellEvent(event);
+        table.addCell(new Phrase(text, font));
+        cell.setCellEvent(null);
+    }
+
+    private void applyTo(final PdfPCell cell) {
+        cell.cloneNonPositionParameters(borders);
+        cell.setPadding(padding);
+        cell.setHorizontalAlignment(horizontalAlignment);
+    }
+
+    public enum Border {
+        /** No border, padding 2. */
+        NONE(2f),
+        /** Top side only, padding 2. */
+        TOP(2f),
+        /** Bottom side only, padding 2. */
+        BOTTOM(2f);
+
+        private final float padding;
+
+        Border(final float padding) {
+            this.padding = padding;
+        }
+
+        private Rectangle prototype() {
+            final var rectangle = new Rectangle(0, 0);
+            rectangle.setBorder(Rectangle.BOX);
+            rectangle.setBorderWidth(0f);
+            if (this == TOP) {
+                rectangle.setBorderWidthTop(BORDER_WIDTH);
+            } else if (this == BOTTOM) {
+                rectangle.setBorderWidthBottom(BORDER_WIDTH);
+            }
+            return rectangle;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.lowagie.text.BadElementException;
+import com.lowagie.text.Image;
+import com.lowagie.text.Jpeg;
+import com.teatown.software.invoice.application.exception.InvoicePdfException;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the company logo decoded and pre-scaled in memory, so that rendering an invoice never touches the filesystem.
+ *
+ * <p>The logo is loaded once from {@code invoice.pdf.logo-location} (classpath or file) when the bean is created.
+ * A scheduled check compares the last-modified timestamp of the source and atomically swaps in a freshly decoded
+ * snapshot when the file changed. Renders receive a shallow copy of the cached image that shares the raw JPEG bytes.</p>
+ *
+ * <p>Output profiles that ask for a lower resolution get the logo downsampled and re-encoded once per snapshot and
+ * resolution; a supplied image that is already small enough is used as it is.</p>
+ *
+ * <p>Metrics: {@code invoice.pdf.logo.loads} counts reads of the source, {@code invoice.pdf.logo.renders} counts
+ * logos handed out to renders. Loads staying flat while renders grow proves there is no per-render file access.</p>
+ */
+@Component
+public class CompanyLogoCache implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CompanyLogoCache.class);
+
+    static final float MAX_WIDTH = 110f;
+    static final float MAX_HEIGHT = 100.64f;
+
+    private final Resource resource;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder renders = new LongAdder();
+
+    private volatile Snapshot current;
+
+    public CompanyLogoCache(final InvoicePdfProperties properties, final ResourceLoader resourceLoader) {
+        this.resource = resourceLoader.getResource(properties.getLogoLocation());
+        this.current = load();
+    }
+
+    /**
+     * Returns a render-private copy of the cached logo. The copy shares the immutable raw image data with the cache,
+     * so callers may position it freely without affecting concurrent renders.
+     */
+    public Image logo() {
+        renders.increment();
+        return Image.getInstance(current.image());
+    }
+
+    /**
+     * Returns a render-private copy of the cached logo, re-encoded as JPEG with the given quality (0-1) at no more than
+     * the given resolution at its printed size. A resolution of 0 or less returns the logo as supplied.
+     */
+    public Image logo(final int resolutionDpi, final float jpegQuality) {
+        if (resolutionDpi <= 0) {
+            return logo();
+        }
+        renders.increment();
+        final Snapshot snapshot = current;
+        return Image.getInstance(snapshot.resampled().computeIfAbsent(new Resampling(resolutionDpi, jpegQuality),
+                resampling -> resample(snapshot, resampling)));
+    }
+
+    /**
+     * Reloads the logo if its source was modified since the last load. A broken replacement file is logged and the
+     * previous snapshot stays in place.
+     */
+    @Scheduled(
+            initialDelayString = "${invoice.pdf.logo-reload-interval:30s}",
+            fixedDelayString = "${invoice.pdf.logo-reload-interval:30s}")
+    public void reloadIfModified() {
+        final long lastModified = lastModified();
+        if (lastModified == current.lastModified()) {
+            return;
+        }
+        try {
+            current = load();
+            log.info("Reloaded company logo from {}", resource);
+        } catch (InvoicePdfException e) {
+            log.warn("Failed to reload company logo from {}, keeping the previous one", resource, e);
+        }
+    }
+
+    /**
+     * Returns a number that changes whenever a different logo is swapped in.
+     */
+    long version() {
+        return current.lastModified();
+    }
+
+    long loadCount() {
+        return loads.sum();
+    }
+
+    long renderCount() {
+        return renders.sum();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("invoice.pdf.logo.loads", loads, LongAdder::sum)
+                .description("Number of times the company logo was read from its source")
+                .register(registry);
+        FunctionCounter.builder("invoice.pdf.logo.renders", renders, LongAdder::sum)
+                .description("Number of company logos served from the in-memory cache")
+                .register(registry);
+    }
+
+    private Snapshot load() {
+        final long lastModified = lastModified();
+        try (final InputStream in = resource.getInputStream()) {
+            final byte[] data = in.readAllBytes();
+            final var jpeg = new Jpeg(data);
+            jpeg.scaleToFit(MAX_WIDTH, MAX_HEIGHT);
+            loads.increment();
+            return new Snapshot(jpeg, data, lastModified, new ConcurrentHashMap<>());
+        } catch (IOException | BadElementException e) {
+            throw new InvoicePdfException("Failed to load company logo from " + resource, e);
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Downsamples the logo of the given snapshot to the requested resolution at its printed size and re-encodes it.
+     * Falls back to the supplied logo if that is not larger, or if the result would not be smaller.
+     */
+    private Image resample(final Snapshot snapshot, final Resampling resampling) {
+        final Image logo = snapshot.image();
+        final int width = Math.max(1, Math.round(logo.getScaledWidth() / 72f * resampling.dpi()));
+        final int height = Math.max(1, Math.round(logo.getScaledHeight() / 72f * resampling.dpi()));
+        if (width >= logo.getWidth()) {
+            return logo;
+        }
+        try {
+            final BufferedImage source = ImageIO.read(new ByteArrayInputStream(snapshot.data()));
+            final var target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            final Graphics2D graphics = target.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(source.getScaledInstance(width, height, java.awt.Image.SCALE_AREA_AVERAGING),
+                        0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+            final byte[] encoded = encodeJpeg(target, resampling.quality());
+            if (encoded.length >= snapshot.data().length) {
+                return logo;
+            }
+            final var jpeg = new Jpeg(encoded);
+            jpeg.scaleToFit(MAX_WIDTH, MAX_HEIGHT);
+            log.debug("Re-encoded company logo at {} dpi: {} -> {} bytes", resampling.dpi(), snapshot.data().length,
+                    encoded.length);
+            return jpeg;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to re-encode company logo at {} dpi, using it as supplied", resampling.dpi(), e);
+            return logo;
+        }
+    }
+
+    private static byte[] encodeJpeg(final BufferedImage image, final float quality) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        final ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        final var out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param image        the logo as supplied, scaled to fit
+     * @param data         the raw JPEG bytes
+     * @param lastModified last-modified timestamp of the source
+     * @param resampled    re-encoded variants of the logo, created on first use
+     */
+    private record Snapshot(Image image, byte[] data, long lastModified, Map<Resampling, Image> resampled) {
+    }
+
+    private record Resampling(int dpi, float quality) {
+    }
+}
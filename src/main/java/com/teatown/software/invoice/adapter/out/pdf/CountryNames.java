@@ -0,0 +1,51 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Display names of all ISO 3166 country codes in every supported locale, taken from the JDK's locale data once at
+ * startup, so a render looks the name up in a table instead of a hand-written switch per language.
+ *
+ * <p>Unknown locales fall back to the first supported locale, unknown country codes are printed as they are.</p>
+ */
+final class CountryNames {
+
+    private final Map<String, Map<String, String>> namesByLanguage;
+    private final Map<String, String> defaultNames;
+
+    CountryNames(final Collection<Locale> supportedLocales) {
+        final List<Locale> locales = List.copyOf(supportedLocales);
+        final String[] codes = Locale.getISOCountries();
+        final Map<String, Map<String, String>> byLanguage = new HashMap<>();
+        for (final Locale locale : locales) {
+            byLanguage.computeIfAbsent(locale.getLanguage(), language -> {
+                final Map<String, String> names = HashMap.newHashMap(codes.length);
+                for (final String code : codes) {
+                    names.put(code, Locale.of("", code).getDisplayCountry(locale));
+                }
+                return Map.copyOf(names);
+            });
+        }
+        this.namesByLanguage = Map.copyOf(byLanguage);
+        this.defaultNames = namesByLanguage.get(locales.getFirst().getLanguage());
+    }
+
+    /**
+     * Returns the name of the country with the given ISO 3166 alpha-2 code in the language of the given locale.
+     */
+    String name(final String countryCode, final Locale locale) {
+        if (countryCode == null) {
+            return "";
+        }
+        final Map<String, String> names = namesByLanguage.getOrDefault(locale.getLanguage(), defaultNames);
+        final String name = names.get(countryCode);
+        if (name != null) {
+            return name;
+        }
+        return names.getOrDefault(countryCode.toUpperCase(Locale.ROOT), countryCode);
+    }
+}
@@ -0,0 +1,84 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.lowagie.text.pdf.PdfEncryption;
+import com.lowagie.text.pdf.PdfObject;
+import com.teatown.software.invoice.domain.InvoiceItem;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * File identifier (trailer {@code /ID}) of an invoice PDF, derived from its content instead of the clock and the free
+ * memory as OpenPDF does by default, so that the same invoice always renders to the same bytes.
+ *
+ * <p>The identifier is the first 16 bytes of a SHA-256 over the content hash of the invoice and every item pulled
+ * through {@link #track}, which covers items that are streamed instead of held by the invoice.</p>
+ */
+final class DocumentId {
+
+    private static final int LENGTH = 16;
+
+    private final MessageDigest digest;
+
+    DocumentId(final String contentHash) {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        put(contentHash);
+    }
+
+    /**
+     * Returns an iterator over the given items that adds every item it hands out to the identifier.
+     */
+    Iterator<InvoiceItem> track(final Iterator<InvoiceItem> items) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return items.hasNext();
+            }
+
+            @Override
+            public InvoiceItem next() {
+                final InvoiceItem item = items.next();
+                put(item.description());
+                put(item.quantity());
+                put(item.unit());
+                put(item.unitPriceEuro());
+                put(item.totalPrice());
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Returns the identifier as the value of a trailer {@code /ID}, with equal permanent and changing parts.
+     */
+    PdfObject toPdfObject() {
+        final byte[] id = Arrays.copyOf(digest.digest(), LENGTH);
+        return PdfEncryption.createInfoId(id, id);
+    }
+
+    private void put(final BigDecimal value) {
+        put(value == null ? null : value.stripTrailingZeros().toPlainString());
+    }
+
+    private void put(final String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,73 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.MessageSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds one {@link InvoiceLabels} snapshot per supported locale ({@code invoice.pdf.supported-locales}),
+ * resolved once at startup, so rendering reads plain fields instead of querying the {@link MessageSource}.
+ *
+ * <p>The snapshots are rebuilt every {@code invoice.pdf.labels-reload-interval} and swapped atomically if a label
+ * changed. For edited bundles to become visible, the message source itself must re-read them, which Spring Boot's
+ * message source does when {@code spring.messages.cache-duration} is set.</p>
+ */
+@Component
+public class InvoiceLabelRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceLabelRegistry.class);
+
+    private final MessageSource messageSource;
+    private final List<Locale> supportedLocales;
+
+    private volatile Map<String, InvoiceLabels> labelsByLanguage;
+    private volatile long version;
+
+    public InvoiceLabelRegistry(final MessageSource messageSource, final InvoicePdfProperties properties) {
+        this.messageSource = messageSource;
+        this.supportedLocales = List.copyOf(properties.getSupportedLocales());
+        this.labelsByLanguage = resolveAll();
+    }
+
+    /**
+     * Returns the labels for the language of the given locale, falling back to the first supported locale.
+     */
+    public InvoiceLabels labels(final Locale locale) {
+        final InvoiceLabels labels = labelsByLanguage.get(locale.getLanguage());
+        return labels != null ? labels : labelsByLanguage.get(supportedLocales.getFirst().getLanguage());
+    }
+
+    /**
+     * Returns a number that changes whenever the labels are swapped.
+     */
+    long version() {
+        return version;
+    }
+
+    @Scheduled(
+            initialDelayString = "${invoice.pdf.labels-reload-interval:60s}",
+            fixedDelayString = "${invoice.pdf.labels-reload-interval:60s}")
+    public void reload() {
+        final Map<String, InvoiceLabels> reloaded = resolveAll();
+        if (!reloaded.equals(labelsByLanguage)) {
+            labelsByLanguage = reloaded;
+            version++;
+            log.info("Reloaded invoice PDF labels for {}", supportedLocales);
+        }
+    }
+
+    private Map<String, InvoiceLabels> resolveAll() {
+        return supportedLocales.stream()
+                .map(locale -> InvoiceLabels.resolve(messageSource, locale))
+                .collect(Collectors.toUnmodifiableMap(labels -> labels.locale().getLanguage(), Function.identity()));
+    }
+}
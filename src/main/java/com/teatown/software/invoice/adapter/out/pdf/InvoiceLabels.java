@@ -0,0 +1,117 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import org.springframework.context.MessageSource;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of all invoice PDF labels for one locale, resolved once from the {@code messages} bundles.
+ *
+ * <p>The parameterised VAT label ({@code invoice.pdf.vat}) is precompiled into the text before and after its
+ * placeholder, so rendering it is a plain concatenation instead of a {@link MessageFormat} run.</p>
+ */
+public record InvoiceLabels(
+        Locale locale,
+        String invoiceNo,
+        String invoiceDate,
+        String deliveryDate,
+        String dueDate,
+        String yourCustomerNo,
+        String yourVatId,
+        String yourContact,
+        String reverseCharge,
+        String positionDescription,
+        String pos,
+        String description,
+        String qty,
+        String unit,
+        String unitPrice,
+        String total,
+        String netTotal,
+        String vatPrefix,
+        String vatSuffix,
+        String totalGross,
+        String broughtForward,
+        String carriedForward,
+        String phone,
+        String email,
+        String placeOfJurisdiction,
+        String companyId,
+        String ceoDirector,
+        String vatId,
+        String bank,
+        String accountOwner,
+        String iban,
+        String bic,
+        String finalNotes
+) {
+
+    private static final String PLACEHOLDER = "\u0000";
+
+    /**
+     * Resolves all labels for the given locale.
+     */
+    public static InvoiceLabels resolve(final MessageSource messageSource, final Locale locale) {
+        final String[] vat = splitAtPlaceholder(msg(messageSource, "invoice.pdf.vat", locale), locale);
+        return new InvoiceLabels(
+                locale,
+                msg(messageSource, "invoice.pdf.invoiceNo", locale),
+                msg(messageSource, "invoice.pdf.invoiceDate", locale),
+                msg(messageSource, "invoice.pdf.deliveryDate", locale),
+                msg(messageSource, "invoice.pdf.dueDate", locale),
+                msg(messageSource, "invoice.pdf.yourCustomerNo", locale),
+                msg(messageSource, "invoice.pdf.yourVatId", locale),
+                msg(messageSource, "invoice.pdf.yourContact", locale),
+                msg(messageSource, "invoice.pdf.reverseCharge", locale),
+                msg(messageSource, "invoice.pdf.positionDescription", locale),
+                msg(messageSource, "invoice.pdf.pos", locale),
+                msg(messageSource, "invoice.pdf.description", locale),
+                msg(messageSource, "invoice.pdf.qty", locale),
+                msg(messageSource, "invoice.pdf.unit", locale),
+                msg(messageSource, "invoice.pdf.unitPrice", locale),
+                msg(messageSource, "invoice.pdf.total", locale),
+                msg(messageSource, "invoice.pdf.netTotal", locale),
+                vat[0],
+                vat[1],
+                msg(messageSource, "invoice.pdf.totalGross", locale),
+                msg(messageSource, "invoice.pdf.broughtForward", locale),
+                msg(messageSource, "invoice.pdf.carriedForward", locale),
+                msg(messageSource, "invoice.pdf.phone", locale),
+                msg(messageSource, "invoice.pdf.email", locale),
+                msg(messageSource, "invoice.pdf.placeOfJurisdiction", locale),
+                msg(messageSource, "invoice.pdf.companyId", locale),
+                msg(messageSource, "invoice.pdf.ceoDirector", locale),
+                msg(messageSource, "invoice.pdf.vatId", locale),
+                msg(messageSource, "invoice.pdf.bank", locale),
+                msg(messageSource, "invoice.pdf.accountOwner", locale),
+                msg(messageSource, "invoice.pdf.iban", locale),
+                msg(messageSource, "invoice.pdf.bic", locale),
+                msg(messageSource, "invoice.pdf.finalNotes", locale)
+        );
+    }
+
+    /**
+     * Returns the VAT label for the given, already formatted rate (e.g. {@code "VAT (19%):"}).
+     */
+    public String vat(final String rate) {
+        return vatPrefix + rate + vatSuffix;
+    }
+
+    private static String msg(final MessageSource messageSource, final String code, final Locale locale) {
+        return messageSource.getMessage(code, null, locale);
+    }
+
+    /**
+     * Formats the pattern once with a sentinel argument, which applies the quoting rules of {@link MessageFormat},
+     * and splits the result around the sentinel.
+     */
+    private static String[] splitAtPlaceholder(final String pattern, final Locale locale) {
+        final String formatted = new MessageFormat(pattern, locale).format(new Object[]{PLACEHOLDER});
+        final int at = formatted.indexOf(PLACEHOLDER);
+        if (at < 0) {
+            return new String[]{formatted, ""};
+        }
+        return new String[]{formatted.substring(0, at), formatted.substring(at + PLACEHOLDER.length())};
+    }
+}
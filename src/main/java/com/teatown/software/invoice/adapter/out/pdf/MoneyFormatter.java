@@ -0,0 +1,154 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Formats money amounts and decimals for the invoice PDF with the grouping and decimal separators of a locale
+ * (e.g. {@code 1,234.50 €} in English, {@code 1.234,50 €} in Spanish).
+ *
+ * <p>Digits are taken from the value as a {@code long}, without the {@link java.math.BigInteger} that
+ * {@link BigDecimal#unscaledValue()} would build, and written into a small local buffer. Besides the resulting
+ * {@link String}, formatting allocates the buffer and at most two compact {@link BigDecimal}s (the value rounded to
+ * cents and shifted to an integer), which escape analysis can usually remove; {@code String.format} creates a
+ * {@code Formatter} and parses its format string on every call. Values with more than 18 digits take a slower
+ * {@link BigDecimal#toPlainString()} path.</p>
+ *
+ * <p>Money amounts are rounded to cents with the rounding mode of the configured
+ * {@link com.teatown.software.invoice.domain.RoundingPolicy}, so printed amounts match the computed totals. Instances
+ * are immutable, cached per locale and rounding mode, and safe for concurrent use.</p>
+ */
+public final class MoneyFormatter {
+
+    private static final String CURRENCY_SUFFIX = " €";
+    private static final int MONEY_SCALE = 2;
+    /** Longest output of {@link #appendDigits}: 18 digits, 5 grouping separators, a sign and a decimal separator. */
+    private static final int BUFFER_SIZE = 32;
+    private static final int MONEY_END = BUFFER_SIZE - CURRENCY_SUFFIX.length();
+
+    private static final Map<Key, MoneyFormatter> INSTANCES = new ConcurrentHashMap<>();
+
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final char minusSign;
+    private final RoundingMode roundingMode;
+
+    private MoneyFormatter(final Key key) {
+        final var symbols = DecimalFormatSymbols.getInstance(key.locale());
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        this.minusSign = symbols.getMinusSign();
+        this.roundingMode = key.roundingMode();
+    }
+
+    /**
+     * Returns the formatter for the given locale that rounds money amounts with the given mode.
+     */
+    public static MoneyFormatter of(final Locale locale, final RoundingMode roundingMode) {
+        return INSTANCES.computeIfAbsent(new Key(locale, roundingMode), MoneyFormatter::new);
+    }
+
+    /**
+     * Formats the amount rounded to cents, followed by the currency (e.g. {@code 1,234.50 €}). Returns an empty
+     * string for {@code null}.
+     */
+    public String money(final BigDecimal amount) {
+        if (amount == null) {
+            return "";
+        }
+        final BigDecimal rounded = amount.setScale(MONEY_SCALE, roundingMode);
+        if (rounded.precision() > 18) {
+            return slowFormat(rounded) + CURRENCY_SUFFIX;
+        }
+        final char[] buffer = new char[BUFFER_SIZE];
+        CURRENCY_SUFFIX.getChars(0, CURRENCY_SUFFIX.length(), buffer, MONEY_END);
+        final int start = appendDigits(buffer, MONEY_END, unscaled(rounded), MONEY_SCALE);
+        return new String(buffer, start, BUFFER_SIZE - start);
+    }
+
+    /**
+     * Formats the value without trailing zeros in the fraction (e.g. {@code 2}, {@code 1.5}, {@code 0.19}). Returns
+     * an empty string for {@code null}.
+     */
+    public String decimal(final BigDecimal value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.precision() > 18 || value.scale() < 0 || value.scale() > 18) {
+            return slowFormat(value.stripTrailingZeros());
+        }
+        long unscaled = unscaled(value);
+        int scale = value.scale();
+        while (scale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        final char[] buffer = new char[BUFFER_SIZE];
+        final int start = appendDigits(buffer, BUFFER_SIZE, unscaled, scale);
+        return new String(buffer, start, BUFFER_SIZE - start);
+    }
+
+    private static long unscaled(final BigDecimal value) {
+        // longValue() of an integral BigDecimal does not allocate; scaleByPowerOfTen() only copies the compact value,
+        // where unscaledValue() would build a BigInteger
+        return value.scale() == 0 ? value.longValue() : value.scaleByPowerOfTen(value.scale()).longValue();
+    }
+
+    /**
+     * Writes {@code unscaled / 10^scale} into the buffer, ending before {@code end}, and returns the index of the first
+     * character.
+     */
+    private int appendDigits(final char[] buffer, final int end, final long unscaled, final int scale) {
+        // work on the negative value, which also covers Long.MIN_VALUE
+        long remaining = unscaled > 0 ? -unscaled : unscaled;
+        int pos = end;
+        for (int i = 0; i < scale; i++) {
+            buffer[--pos] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (scale > 0) {
+            buffer[--pos] = decimalSeparator;
+        }
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) {
+                buffer[--pos] = groupingSeparator;
+            }
+            buffer[--pos] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+            digits++;
+        } while (remaining != 0);
+        if (unscaled < 0) {
+            buffer[--pos] = minusSign;
+        }
+        return pos;
+    }
+
+    private String slowFormat(final BigDecimal value) {
+        final String plain = value.toPlainString();
+        final boolean negative = plain.startsWith("-");
+        final int point = plain.indexOf('.');
+        final String integer = plain.substring(negative ? 1 : 0, point < 0 ? plain.length() : point);
+        final var result = new StringBuilder(plain.length() + integer.length() / 3 + 1);
+        if (negative) {
+            result.append(minusSign);
+        }
+        for (int i = 0; i < integer.length(); i++) {
+            if (i > 0 && (integer.length() - i) % 3 == 0) {
+                result.append(groupingSeparator);
+            }
+            result.append(integer.charAt(i));
+        }
+        if (point >= 0) {
+            result.append(decimalSeparator).append(plain, point + 1, plain.length());
+        }
+        return result.toString();
+    }
+
+    private record Key(Locale locale, RoundingMode roundingMode) {
+    }
+}
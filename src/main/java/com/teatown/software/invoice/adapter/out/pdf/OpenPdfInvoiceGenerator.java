@@ -2,171 +2,375 @@ package com.teatown.software.invoice.adapter.out.pdf;
 
 import com.teatown.software.invoice.application.exception.InvoicePdfException;
 import com.teatown.software.invoice.application.port.PdfGenerationPort;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
 import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
 import com.lowagie.text.*;
 import com.lowagie.text.alignment.HorizontalAlignment;
 import com.lowagie.text.alignment.VerticalAlignment;
+import com.lowagie.text.pdf.PdfDate;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfObject;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfString;
 import com.lowagie.text.pdf.PdfWriter;
 import com.teatown.software.invoice.domain.CompanyDetails;
 import com.teatown.software.invoice.domain.Customer;
 import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceContentHash;
 import com.teatown.software.invoice.domain.InvoiceItem;
+import com.teatown.software.invoice.domain.RoundingPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.MessageSource;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.EnumMap;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Outbound adapter: generates invoice PDF using OpenPDF.
+ *
+ * <p>The regions that only depend on the issuing company (logo, header line, footer) are rendered once per company,
+ * labels and logo into a cached {@link Stationery} and stamped under every page; only the customer, meta data, items
+ * and totals are laid out per invoice.</p>
+ *
+ * <p>Labels, formatter, rounding policy, country name and final notes are resolved once per render into a
+ * {@link RenderContext}, which is bound as a scoped value while the document is laid out. The stationery helpers take
+ * their data from the stationery cache key instead, since the cached result may only depend on the key.</p>
+ *
+ * <p>Every render stage is observed by a {@link PdfRenderObserver} (latency, allocated bytes, span).</p>
+ *
+ * <p>In deterministic mode ({@code invoice.pdf.deterministic}, the default) the same invoice always renders to the same
+ * bytes: creation and modification date are the invoice date instead of the current time, and the file identifier
+ * is a {@link DocumentId} derived from the content instead of a random one.</p>
+ *
+ * <p>Each render uses a {@link PdfOutputProfile} (the configured {@code invoice.pdf.output-profile} unless the caller
+ * picks one): it sets the compression level of the content streams, whether objects and the cross-reference table
+ * are written as compressed streams, and the resolution of the logo in the stationery. The fonts are the standard
+ * Helvetica fonts, which are never embedded, so there is nothing to subset.</p>
  */
 @Component
 public class OpenPdfInvoiceGenerator implements PdfGenerationPort {
 
     private static final Logger log = LoggerFactory.getLogger(OpenPdfInvoiceGenerator.class);
 
-    private final MessageSource messageSource;
+    /** Distance of the footer from the bottom edge of the page. */
+    private static final float FOOTER_BOTTOM = 28f;
+    /** Minimum distance between the content and the footer. */
+    private static final float FOOTER_GAP = 21f;
+    /** Relative widths of the position, description, quantity, unit, unit price and total columns. */
+    private static final float[] ITEM_COLUMN_WIDTHS = {8, 40, 8, 10, 12, 12};
+    /** Number of item rows buffered in the items table before they are laid out. */
+    private static final int ITEM_ROWS_PER_FLUSH = 100;
+
+    private final InvoiceLabelRegistry labelRegistry;
+    private final CompanyLogoCache logoCache;
     private final DateTimeFormatter dateFormat;
     private final float margin;
     private final Font titleFont;
     private final Font headingFont;
     private final Font normalFont;
     private final Font smallFont;
+    private final String settingsFingerprint;
+    private final boolean deterministic;
+    private final PdfOutputProfile defaultProfile;
+    private final Map<PdfOutputProfile, OutputSettings> outputSettings = new EnumMap<>(PdfOutputProfile.class);
+    private final CountryNames countryNames;
+    private final StationeryCache stationeryCache;
+    private final PdfRenderObserver observer;
+    private final RoundingPolicy rounding;
+
+    private final CellStyle headingLeft;
+    private final CellStyle headingRight;
+    private final CellStyle headingLeftBottomBorder;
+    private final CellStyle headingRightBottomBorder;
+    private final CellStyle textLeft;
+    private final CellStyle textRight;
+    private final CellStyle textLeftTopBorder;
+    private final CellStyle textRightTopBorder;
+
+    @Autowired
+    public OpenPdfInvoiceGenerator(final InvoicePdfProperties properties, final InvoiceTotalsProperties totals,
+                                   final InvoiceLabelRegistry labelRegistry, final CompanyLogoCache logoCache,
+                                   final ObservationRegistry observationRegistry, final MeterRegistry meterRegistry) {
+        this(properties, totals, labelRegistry, logoCache,
+                new PdfRenderObserver(observationRegistry, meterRegistry));
+    }
+
+    /**
+     * Creates a generator without instrumentation that rounds printed amounts with the default rounding policy.
+     */
+    public OpenPdfInvoiceGenerator(final InvoicePdfProperties properties, final InvoiceLabelRegistry labelRegistry,
+                                   final CompanyLogoCache logoCache) {
+        this(properties, new InvoiceTotalsProperties(), labelRegistry, logoCache, PdfRenderObserver.disabled());
+    }
 
-    public OpenPdfInvoiceGenerator(final InvoicePdfProperties properties, final MessageSource messageSource) {
-        this.messageSource = messageSource;
+    OpenPdfInvoiceGenerator(final InvoicePdfProperties properties, final InvoiceTotalsProperties totals,
+                            final InvoiceLabelRegistry labelRegistry, final CompanyLogoCache logoCache,
+                            final PdfRenderObserver observer) {
+        this.observer = observer;
+        this.rounding = totals.roundingPolicy();
+        this.labelRegistry = labelRegistry;
+        this.logoCache = logoCache;
         this.dateFormat = DateTimeFormatter.ofPattern(properties.getDateFormat());
         this.margin = properties.getMarginMm();
         this.titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, properties.getTitleFontSize());
         this.headingFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, properties.getHeadingFontSize());
         this.normalFont = FontFactory.getFont(FontFactory.HELVETICA, properties.getNormalFontSize());
         this.smallFont = FontFactory.getFont(FontFactory.HELVETICA, properties.getSmallFontSize());
+        this.headingLeft = CellStyle.left(headingFont, CellStyle.Border.NONE);
+        this.headingRight = CellStyle.right(headingFont, CellStyle.Border.NONE);
+        this.headingLeftBottomBorder = CellStyle.left(headingFont, CellStyle.Border.BOTTOM);
+        this.headingRightBottomBorder = CellStyle.right(headingFont, CellStyle.Border.BOTTOM);
+        this.textLeft = CellStyle.left(normalFont, CellStyle.Border.NONE);
+        this.textRight = CellStyle.right(normalFont, CellStyle.Border.NONE);
+        this.textLeftTopBorder = CellStyle.left(normalFont, CellStyle.Border.TOP);
+        this.textRightTopBorder = CellStyle.right(normalFont, CellStyle.Border.TOP);
+        this.countryNames = new CountryNames(properties.getSupportedLocales());
+        this.stationeryCache = new StationeryCache(properties.getStationeryCacheSize());
+        this.deterministic = properties.isDeterministic();
+        this.defaultProfile = properties.getOutputProfile();
+        for (final PdfOutputProfile profile : PdfOutputProfile.values()) {
+            outputSettings.put(profile, OutputSettings.of(properties.getOutputProfiles().get(profile)));
+        }
+        this.settingsFingerprint = String.join("|",
+                properties.getDateFormat(),
+                String.valueOf(properties.getMarginMm()),
+                String.valueOf(properties.getTitleFontSize()),
+                String.valueOf(properties.getHeadingFontSize()),
+                String.valueOf(properties.getNormalFontSize()),
+                String.valueOf(properties.getSmallFontSize()),
+                properties.getLogoLocation(),
+                String.valueOf(deterministic),
+                // printed amounts are rounded with it
+                String.valueOf(rounding.mode()));
     }
 
     @Override
-    public byte[] generate(final Invoice invoice, final Locale locale) {
-
-        try (final var baos = new ByteArrayOutputStream()) {
-            final var document = new Document(PageSize.A4, margin, margin, margin, margin);
-            PdfWriter.getInstance(document, baos);
-
-            writeCompanyFooterTable(document, invoice.companyDetails(), locale);
+    public String layoutFingerprint(final PdfOutputProfile profile) {
+        final PdfOutputProfile resolved = profile != null ? profile : defaultProfile;
+        return settingsFingerprint + "|" + resolved + ":" + outputSettings.get(resolved)
+                + "|labels:" + labelRegistry.version() + "|logo:" + logoCache.version();
+    }
 
-            document.open();
+    @Override
+    public void generate(final Invoice invoice, final Iterator<InvoiceItem> items, final Locale locale,
+                         final PdfOutputProfile profile, final OutputStream out) {
 
-            float y = writeCompanyLogo(document);
-            y = writeCompanyHeader(document, invoice.companyDetails(), y, locale);
-            y = writeInvoiceDetails(document, invoice, y, locale);
-            y = writeItemsTable(document, invoice.items(), y, locale);
-            y = writeTotals(document, invoice, y, locale);
-            writeFinalNotes(document, invoice.finalNotes(), locale);
+        final RenderContext context = renderContext(invoice, locale, profile != null ? profile : defaultProfile);
 
-            document.close();
-            return baos.toByteArray();
-        } catch (DocumentException | IOException e) {
+        try {
+            ScopedValue.where(RenderContext.CURRENT, context).run(() ->
+                    observer.document(invoice.invoiceNumber(), context.profile(), () -> render(items, out)));
+        } catch (DocumentException | ExceptionConverter e) {
+            // OpenPDF wraps I/O failures of the target stream (e.g. a disconnected client) in ExceptionConverter
             log.error("Failed to generate invoice PDF for invoice {}", invoice.invoiceNumber(), e);
             throw new InvoicePdfException("Failed to generate invoice PDF", e);
         }
 
     }
 
-    private float writeCompanyLogo(Document document) {
-        Jpeg jpeg;
-        try (final var in = new FileInputStream("./src/main/resources/2026-02-14_Teatown-Software_T-Logo.jpg")) {
-            jpeg = new Jpeg(in.readAllBytes());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private RenderContext renderContext(final Invoice invoice, final Locale locale, final PdfOutputProfile profile) {
+        final InvoiceLabels labels = labelRegistry.labels(locale);
+        final Locale documentLocale = labels.locale();
+        final String finalNotes = invoice.finalNotes() != null && !invoice.finalNotes().isBlank()
+                ? invoice.finalNotes()
+                : labels.finalNotes();
+        return new RenderContext(invoice, labels, MoneyFormatter.of(documentLocale, rounding.mode()), rounding,
+                profile, countryNames.name(invoice.customer().address().countryCode(), documentLocale), finalNotes);
+    }
+
+    private PdfRenderObserver.Result render(final Iterator<InvoiceItem> items, final OutputStream out) {
+        final RenderContext context = RenderContext.current();
+        final Invoice invoice = context.invoice();
+        final OutputSettings settings = outputSettings.get(context.profile());
+        final Stationery stationery = observer.stage(PdfRenderObserver.Stage.STATIONERY, () -> stationeryCache.get(
+                new StationeryCache.Key(invoice.companyDetails(), context.labels(), logoCache.version(), settings.logoDpi(),
+                        settings.logoQuality()),
+                this::renderStationery));
+
+        final var document = new Document(PageSize.A4, margin, margin, margin, stationery.footerTop() + FOOTER_GAP);
+        final var counter = new CountingOutputStream(out);
+        final var writer = PdfWriter.getInstance(document, counter);
+        writer.setCloseStream(false);
+        writer.setCompressionLevel(settings.compressionLevel());
+        if (settings.fullCompression()) {
+            writer.setFullCompression();
         }
 
-        final var indentRight = 40f;
+        try (Stationery.StampEvent stamp = stationery.stampEvent()) {
+            writer.setPageEvent(stamp);
 
-        // todo add proper rounding
-        final var downScaledWidth = 110;
-        jpeg.scaleToFit(downScaledWidth, 100.64f);
+            document.open();
+            writeMetadata(writer, invoice);
+            final DocumentId documentId = deterministic
+                    ? new DocumentId(InvoiceContentHash.of(invoice, context.locale(),
+                            layoutFingerprint(context.profile())))
+                    : null;
+
+            writeSpacer(document, stationery.headerHeight());
+            observer.stage(PdfRenderObserver.Stage.INVOICE_DETAILS, () -> writeInvoiceDetails(document));
+            final int itemCount = observer.stage(PdfRenderObserver.Stage.ITEMS_TABLE,
+                    () -> writeItemsTable(document, documentId != null ? documentId.track(items) : items));
+            observer.stage(PdfRenderObserver.Stage.TOTALS, () -> writeTotals(document));
+            observer.stage(PdfRenderObserver.Stage.FINAL_NOTES, () -> writeFinalNotes(document));
+
+            final int pages = writer.getPageNumber();
+            if (documentId != null) {
+                // PdfWriter takes the trailer /ID from the info dictionary if it has one (and also writes it there)
+                writer.getInfo().put(PdfName.FILEID, documentId.toPdfObject());
+            }
+            observer.stage(PdfRenderObserver.Stage.CLOSE, document::close);
+            return new PdfRenderObserver.Result(itemCount, pages, counter.count);
+        }
+    }
+
+    /**
+     * Sets the document title to the invoice number and, in deterministic mode, creation and modification date to the
+     * invoice date (midnight UTC) instead of the current time.
+     */
+    private void writeMetadata(final PdfWriter writer, final Invoice invoice) {
+        final PdfDictionary info = writer.getInfo();
+        info.put(PdfName.TITLE, new PdfString(invoice.invoiceNumber(), PdfObject.TEXT_UNICODE));
+        if (deterministic && invoice.invoiceDate() != null) {
+            final var date = new PdfDate(GregorianCalendar.from(invoice.invoiceDate().atStartOfDay(ZoneOffset.UTC)));
+            info.put(PdfName.CREATIONDATE, date);
+            info.put(PdfName.MODDATE, date);
+        }
+    }
+
+    long stationeryRenderCount() {
+        return stationeryCache.renderCount();
+    }
+
+    /**
+     * Renders the regions that only depend on the company, the labels and the logo: logo, header line and footer on
+     * the first page, the footer alone on the second.
+     */
+    private Stationery renderStationery(final StationeryCache.Key key) {
+        try {
+            final var out = new ByteArrayOutputStream();
+            final var document = new Document(PageSize.A4, margin, margin, margin, margin);
+            final var writer = PdfWriter.getInstance(document, out);
+
+            document.open();
+
+            observer.stage(PdfRenderObserver.Stage.LOGO, () -> writeCompanyLogo(document, key));
+            observer.stage(PdfRenderObserver.Stage.HEADER, () -> writeCompanyHeader(document, key.company(), key.labels()));
+            final float headerHeight = document.top() - writer.getVerticalPosition(false);
+            final float footerTop = observer.stage(PdfRenderObserver.Stage.FOOTER, () -> {
+                final PdfPTable footer = companyFooterTable(key.company(), key.labels());
+                footer.setTotalWidth(document.right() - document.left());
+                final float top = FOOTER_BOTTOM + footer.getTotalHeight();
+                footer.writeSelectedRows(0, -1, document.left(), top, writer.getDirectContent());
+
+                document.newPage();
+                footer.writeSelectedRows(0, -1, document.left(), top, writer.getDirectContent());
+                writer.setPageEmpty(false);
+                return top;
+            });
+
+            document.close();
+            return new Stationery(out.toByteArray(), headerHeight, footerTop);
+        } catch (DocumentException e) {
+            throw new InvoicePdfException("Failed to render invoice stationery", e);
+        }
+    }
+
+    /**
+     * Reserves the space the stationery occupies at the top of the first page.
+     */
+    private void writeSpacer(final Document document, final float height) throws DocumentException {
+        final var spacer = new PdfPCell();
+        spacer.setFixedHeight(height);
+        spacer.setBorderWidth(0f);
+        final var table = new PdfPTable(1);
+        table.setWidthPercentage(100);
+        table.addCell(spacer);
+        document.add(table);
+    }
+
+    private void writeCompanyLogo(Document document, final StationeryCache.Key key) {
+        final Image logo = logoCache.logo(key.logoDpi(), key.logoQuality());
 
         final Rectangle pageSize = document.getPageSize();
-        float indentLeft = pageSize.getWidth() - document.leftMargin() - jpeg.getScaledWidth() - 50;
+        float indentLeft = pageSize.getWidth() - document.leftMargin() - logo.getScaledWidth() - 50;
 
         final var p = new Paragraph();
-        p.add(jpeg);
+        p.add(logo);
         p.setIndentationLeft(indentLeft);
         p.setSpacingAfter(34);
 
         document.add(p);
-
-        return 0;
     }
 
-    private float writeCompanyHeader(final Document document, final CompanyDetails company, final float fromY, final Locale locale) throws DocumentException {
+    private void writeCompanyHeader(final Document document, final CompanyDetails company, final InvoiceLabels labels) throws DocumentException {
         final var addr = company.address();
 
         final var topLine = String.join(" - ",
                 company.name(),
                 addr.streetAndNumber(),
                 addr.postalCode() + " " + addr.city(),
-                addr.countryName(locale)
+                countryNames.name(addr.countryCode(), labels.locale())
         );
         final var p = new Paragraph(topLine, smallFont);
         p.setSpacingAfter(34);
         document.add(p);
-
-        return 0;
-    }
-
-    private String msg(final String code, final Locale locale) {
-        return messageSource.getMessage(code, null, locale);
-    }
-
-    private String msg(final String code, final Object[] args, final Locale locale) {
-        return messageSource.getMessage(code, args, locale);
     }
 
-    private float writeInvoiceDetails(final Document document, final Invoice invoice, final float fromY, final Locale locale) throws DocumentException {
+    private void writeInvoiceDetails(final Document document) throws DocumentException {
+        final RenderContext context = RenderContext.current();
         final var t = new PdfPTable(2);
         t.setWidthPercentage(100);
         t.setSpacingAfter(13);
 
-        t.addCell(customerAddressCellWithoutBorder(invoice.customer(), locale));
-        t.addCell(invoiceMetaCell(invoice, locale));
+        t.addCell(customerAddressCellWithoutBorder(context));
+        t.addCell(invoiceMetaCell(context));
 
         document.add(t);
 
         document.add(new Paragraph(" ", normalFont));
 
-        if (Boolean.TRUE.equals(invoice.reverseCharge())) {
-            final var p = new Paragraph(msg("invoice.pdf.reverseCharge", locale), headingFont);
+        if (Boolean.TRUE.equals(context.invoice().reverseCharge())) {
+            final var p = new Paragraph(context.labels().reverseCharge(), headingFont);
             p.setSpacingAfter(21);
             document.add(p);
             document.add(new Paragraph(" ", normalFont));
         }
-
-        return 0;
     }
 
-    private PdfPCell customerAddressCellWithoutBorder(final Customer c, final Locale locale) {
+    private PdfPCell customerAddressCellWithoutBorder(final RenderContext context) {
         final var nestedTable1 = new PdfPTable(1);
 
+        final Customer c = context.invoice().customer();
         final var addr = c.address();
 
         final var customerDetails = String.join("\n",
                 c.companyName(),
                 addr.streetAndNumber(),
                 addr.postalCode() + " " + addr.city(),
-                addr.countryName(locale)
+                context.customerCountry()
         );
 
-        final PdfPCell cell = cell(customerDetails);
+        final var cell = new PdfPCell(new Phrase(customerDetails, normalFont));
         cell.setVerticalAlignment(VerticalAlignment.CENTER.getId());
         cell.setBorderWidth(0f);
+        cell.setPadding(4);
 
         nestedTable1.addCell(cell);
 
@@ -176,32 +380,33 @@ public class OpenPdfInvoiceGenerator implements PdfGenerationPort {
         return result;
     }
 
-    private PdfPCell invoiceMetaCell(final Invoice inv, final Locale locale) {
+    private PdfPCell invoiceMetaCell(final RenderContext context) {
+        final Invoice inv = context.invoice();
+        final InvoiceLabels labels = context.labels();
 
         final var invoiceMeta = new PdfPTable(2);
 
-        invoiceMeta.addCell(headerCellWithoutBorder(msg("invoice.pdf.invoiceNo", locale)));
-        invoiceMeta.addCell(headerCellRightWithoutBorder(inv.invoiceNumber()));
-        invoiceMeta.addCell(cellWithoutBorder(msg("invoice.pdf.invoiceDate", locale)));
-        invoiceMeta.addCell(cellRightWithoutBorder(inv.invoiceDate().format(dateFormat)));
-        invoiceMeta.addCell(cellWithoutBorder(msg("invoice.pdf.deliveryDate", locale)));
-        invoiceMeta.addCell(cellRightWithoutBorder(inv.deliveryDate().format(dateFormat)));
-        invoiceMeta.addCell(cellWithoutBorder(msg("invoice.pdf.dueDate", locale)));
-        invoiceMeta.addCell(cellRightWithoutBorder(inv.dueDate().format(dateFormat)));
-        invoiceMeta.addCell(cellWithoutBorder(" "));
-        invoiceMeta.addCell(cellWithoutBorder(" "));
+        headingLeft.add(invoiceMeta, labels.invoiceNo());
+        headingRight.add(invoiceMeta, inv.invoiceNumber());
+        textLeft.add(invoiceMeta, labels.invoiceDate());
+        textRight.add(invoiceMeta, inv.invoiceDate().format(dateFormat));
+        textLeft.add(invoiceMeta, labels.deliveryDate());
+        textRight.add(invoiceMeta, inv.deliveryDate().format(dateFormat));
+        textLeft.add(invoiceMeta, labels.dueDate());
+        textRight.add(invoiceMeta, inv.dueDate().format(dateFormat));
+        textLeft.addBlank(invoiceMeta);
+        textLeft.addBlank(invoiceMeta);
 
         final var c = inv.customer();
 
-        invoiceMeta.addCell(cellWithoutBorder(msg("invoice.pdf.yourCustomerNo", locale)));
-        invoiceMeta.addCell(cellRightWithoutBorder(c.customerNumber()));
+        textLeft.add(invoiceMeta, labels.yourCustomerNo());
+        textRight.add(invoiceMeta, c.customerNumber());
         if (c.vatId() != null && !c.vatId().isBlank()) {
-            invoiceMeta.addCell(cellWithoutBorder(msg("invoice.pdf.yourVatId", locale)));
-            invoiceMeta.addCell(cellRightWithoutBorder(c.vatId()));
+            textLeft.add(invoiceMeta, labels.yourVatId());
+            textRight.add(invoiceMeta, c.vatId());
         }
-        invoiceMeta.addCell(cellWithoutBorder(msg("invoice.pdf.yourContact", locale)));
-        invoiceMeta.addCell(cellRightWithoutBorder(c.contact()));
-        invoiceMeta.addCell(" ");
+        textLeft.add(invoiceMeta, labels.yourContact());
+        textRight.add(invoiceMeta, c.contact());
 
         final var result = new PdfPCell(invoiceMeta);
         result.setBorderWidth(0f);
@@ -209,93 +414,102 @@ public class OpenPdfInvoiceGenerator implements PdfGenerationPort {
         return result;
     }
 
-    private float writeItemsTable(final Document document, final List<InvoiceItem> items, final float fromY, final Locale locale) throws DocumentException {
-        document.add(new Paragraph(msg("invoice.pdf.positionDescription", locale), headingFont));
-
-        final float[] widths = {8, 40, 8, 10, 12, 12};
-        final var table = new PdfPTable(widths);
-
+    /**
+     * Lays out the items table while pulling the items from the iterator. Completed rows are handed to the document
+     * every {@value #ITEM_ROWS_PER_FLUSH} rows, which lays them out (finishing pages on the way) and drops them from the
+     * table, so the table never holds more than that many rows. On every page break the table repeats its column
+     * labels and the running subtotal ("carried forward" at the bottom, "brought forward" at the top).
+     *
+     * @return the number of items
+     */
+    private int writeItemsTable(final Document document, final Iterator<InvoiceItem> items) throws DocumentException {
+        final RenderContext context = RenderContext.current();
+        final InvoiceLabels labels = context.labels();
+        final MoneyFormatter format = context.format();
+        final var subtotal = new RunningSubtotal(format, normalFont);
+        document.add(new Paragraph(labels.positionDescription(), headingFont));
+
+        final var table = new PdfPTable(ITEM_COLUMN_WIDTHS);
         table.setSpacingBefore(10);
-
         table.setWidthPercentage(100);
-        table.setHeaderRows(1);
-        table.addCell(headerCellWithBottomBorder(msg("invoice.pdf.pos", locale)));
-        table.addCell(headerCellWithBottomBorder(msg("invoice.pdf.description", locale)));
-        table.addCell(headerCellRightWithBottomBorder(msg("invoice.pdf.qty", locale)));
-        table.addCell(headerCellRightWithBottomBorder(msg("invoice.pdf.unit", locale)));
-        table.addCell(headerCellRightWithBottomBorder(msg("invoice.pdf.unitPrice", locale)));
-        table.addCell(headerCellRightWithBottomBorder(msg("invoice.pdf.total", locale)));
-
-        int pos = 1;
-        for (final InvoiceItem item : items) {
-            table.addCell(cellWithoutBorder(String.valueOf(pos++)));
-            table.addCell(cellWithoutBorder(item.description()));
-            table.addCell(cellRightWithoutBorder(formatDecimal(item.quantity())));
-            table.addCell(cellRightWithoutBorder(item.unit()));
-            table.addCell(cellRightWithoutBorder(formatMoney(item.unitPriceEuro())));
-            table.addCell(cellRightWithoutBorder(formatMoney(item.totalPrice())));
+        table.setComplete(false);
+
+        // repeated on every page break: column labels and brought forward on top, carried forward (footer) below
+        table.setHeaderRows(3);
+        table.setFooterRows(1);
+        writeItemColumnLabels(table, labels);
+        writeSubtotalRow(table, labels.broughtForward(), subtotal);
+        writeSubtotalRow(table, labels.carriedForward(), subtotal);
+        // the first page shows the column labels only, as a regular row
+        table.setSkipFirstHeader(true);
+        table.setSkipLastFooter(true);
+        writeItemColumnLabels(table, labels);
+
+        int pos = 0;
+        while (items.hasNext()) {
+            final InvoiceItem item = items.next();
+            textLeft.add(table, String.valueOf(++pos));
+            textLeft.add(table, item.description());
+            textRight.add(table, format.decimal(item.quantity()));
+            textRight.add(table, item.unit());
+            textRight.add(table, format.money(item.unitPriceEuro()));
+            textRight.add(table, format.money(item.totalPrice()), subtotal.adding(item.totalPrice()));
+            if (pos % ITEM_ROWS_PER_FLUSH == 0) {
+                document.add(table);
+                table.setSpacingBefore(0);
+            }
         }
+        table.setComplete(true);
         document.add(table);
         document.add(new Paragraph(" ", normalFont));
-        return 0;
+        return pos;
     }
 
-    private float writeTotals(final Document document, final Invoice invoice, final float fromY, final Locale locale) throws DocumentException {
-        final float[] widths = {8, 40, 8, 10, 12, 12};
-        final var table = new PdfPTable(widths);
+    private void writeItemColumnLabels(final PdfPTable table, final InvoiceLabels labels) {
+        headingLeftBottomBorder.add(table, labels.pos());
+        headingLeftBottomBorder.add(table, labels.description());
+        headingRightBottomBorder.add(table, labels.qty());
+        headingRightBottomBorder.add(table, labels.unit());
+        headingRightBottomBorder.add(table, labels.unitPrice());
+        headingRightBottomBorder.add(table, labels.total());
+    }
+
+    private void writeSubtotalRow(final PdfPTable table, final String label, final RunningSubtotal subtotal) {
+        textLeft.addBlank(table);
+        textLeft.add(table, label, 4);
+        textRight.add(table, " ", subtotal.printing());
+    }
+
+    private void writeTotals(final Document document) throws DocumentException {
+        final RenderContext context = RenderContext.current();
+        final Invoice invoice = context.invoice();
+        final InvoiceLabels labels = context.labels();
+        final MoneyFormatter format = context.format();
+        final var table = new PdfPTable(ITEM_COLUMN_WIDTHS);
 
         table.setWidthPercentage(100);
 
-        table.addCell(cellWithTopBorder(" "));
-        table.addCell(cellWithTopBorder(msg("invoice.pdf.netTotal", locale)));
-        table.addCell(cellWithTopBorder(" "));
-        table.addCell(cellWithTopBorder(" "));
-        table.addCell(cellWithTopBorder(" "));
-        table.addCell(cellRightWithTopBorder(formatMoney(invoice.totalNetPrice())));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(cellWithoutBorder(msg("invoice.pdf.vat", new Object[]{formatDecimal(invoice.vatRate())}, locale)));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(cellRightWithoutBorder(formatMoney(invoice.vatAbsolute())));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(headerCellWithoutBorder(msg("invoice.pdf.totalGross", locale)));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(cellWithoutBorder(" "));
-        table.addCell(headerCellRightWithoutBorder(formatMoney(invoice.totalGrossPrice())));
-        table.addCell(cellWithoutBorder(" "));
+        // the label spans the quantity, unit and unit price columns, which stay empty in the totals
+        textLeftTopBorder.addBlank(table);
+        textLeftTopBorder.add(table, labels.netTotal(), 4);
+        textRightTopBorder.add(table, format.money(invoice.totalNetPrice()));
+        textLeft.addBlank(table);
+        textLeft.add(table, labels.vat(format.decimal(percent(invoice.vatRate()))), 4);
+        textRight.add(table, format.money(invoice.vatAbsolute()));
+        textLeft.addBlank(table);
+        headingLeft.add(table, labels.totalGross(), 4);
+        headingRight.add(table, format.money(invoice.totalGrossPrice()));
 
         document.add(table);
         document.add(new Paragraph(" ", normalFont));
-        return 0;
     }
 
-    private void writeFinalNotes(final Document document, final String finalNotes, final Locale locale) throws DocumentException {
-        if (finalNotes != null && !finalNotes.isBlank()) {
-            document.add(new Paragraph(finalNotes, normalFont));
-            document.add(new Paragraph(" "));
-
-            return;
-        }
-
-        document.add(new Paragraph(getFinalNotes(locale), normalFont));
+    private void writeFinalNotes(final Document document) throws DocumentException {
+        document.add(new Paragraph(RenderContext.current().finalNotes(), normalFont));
         document.add(new Paragraph(" "));
     }
 
-    private String getFinalNotes(Locale l) {
-        if (Locale.ENGLISH.getLanguage().equals(l.getLanguage())) {
-            return "Terms of payment: Payment is due 30 days after receipt of invoice.\nPlease transfer the invoice amount to the account specified below, stating the invoice number.\n\nThank you for your order and the trust you have placed in us.\n\nBest regards,\nLucas Christian Müllner";
-        }
-
-        if ("es".equals(l.getLanguage())) {
-            return "Condiciones de pago: El pago deberá efectuarse en un plazo de 30 días tras la recepción de la factura.\nLe rogamos que transfiera el importe de la factura a la cuenta que se indica a continuación, indicando el número de factura.\n\nGracias por su pedido y por la confianza depositada en nosotros.\n\nUn cordial saludo,\nLucas Christian Müllner";
-        }
-
-        throw new IllegalStateException("Unexpected value: " + l.getLanguage());
-    }
-
-    private void writeCompanyFooterTable(final Document document, final CompanyDetails company, final Locale locale) throws DocumentException {
+    private PdfPTable companyFooterTable(final CompanyDetails company, final InvoiceLabels labels) {
 
         final float[] widths = {20, 20, 20, 20};
         final var table = new PdfPTable(widths);
@@ -307,23 +521,23 @@ public class OpenPdfInvoiceGenerator implements PdfGenerationPort {
         nestedT1.addCell(nestedFooterCell(company.name()));
         nestedT1.addCell(nestedFooterCell(company.address().streetAndNumber()));
         nestedT1.addCell(nestedFooterCell(company.address().postalCode() + " " + company.address().city()));
-        nestedT1.addCell(nestedFooterCell(company.address().countryName(locale)));
+        nestedT1.addCell(nestedFooterCell(countryNames.name(company.address().countryCode(), labels.locale())));
         final var c1 = new PdfPCell(nestedT1);
         c1.setBorderWidth(0);
         table.addCell(c1);
 
         final var nestedT2 = new PdfPTable(1);
-        nestedT2.addCell(nestedFooterCell(msg("invoice.pdf.phone", locale) + " " + company.phone()));
-        nestedT2.addCell(nestedFooterCell(msg("invoice.pdf.email", locale) + " " + company.email()));
+        nestedT2.addCell(nestedFooterCell(labels.phone() + " " + company.phone()));
+        nestedT2.addCell(nestedFooterCell(labels.email() + " " + company.email()));
         final var c2 = new PdfPCell(nestedT2);
         c2.setBorderWidth(0);
         table.addCell(c2);
 
         final var nestedT3 = new PdfPTable(1);
-        nestedT3.addCell(nestedFooterCell(msg("invoice.pdf.placeOfJurisdiction", locale) + "\n" + company.placeOfJurisdiction()));
-        nestedT3.addCell(nestedFooterCell(msg("invoice.pdf.companyId", locale) + " " + company.companyId()));
-        nestedT3.addCell(nestedFooterCell(msg("invoice.pdf.ceoDirector", locale) + "\n" + company.ceoOrDirector()));
-        nestedT3.addCell(nestedFooterCell(msg("invoice.pdf.vatId", locale) + " " + company.vatId()));
+        nestedT3.addCell(nestedFooterCell(labels.placeOfJurisdiction() + "\n" + company.placeOfJurisdiction()));
+        nestedT3.addCell(nestedFooterCell(labels.companyId() + " " + company.companyId()));
+        nestedT3.addCell(nestedFooterCell(labels.ceoDirector() + "\n" + company.ceoOrDirector()));
+        nestedT3.addCell(nestedFooterCell(labels.vatId() + " " + company.vatId()));
         final var c3 = new PdfPCell(nestedT3);
         c3.setBorderWidth(0);
         table.addCell(c3);
@@ -331,131 +545,67 @@ public class OpenPdfInvoiceGenerator implements PdfGenerationPort {
         final var bank = company.bankAccount();
 
         final var nestedT4 = new PdfPTable(1);
-        nestedT4.addCell(nestedFooterCell(msg("invoice.pdf.bank", locale) + "\n" + bank.bankName()));
-        nestedT4.addCell(nestedFooterCell(msg("invoice.pdf.accountOwner", locale) + "\n" + bank.accountOwner()));
-        nestedT4.addCell(nestedFooterCell(msg("invoice.pdf.iban", locale) + "\n" + bank.iban()));
-//        nestedT4.addCell(nestedFooterCell(msg("invoice.pdf.bic", locale) + "\n" + bank.bic()));
+        nestedT4.addCell(nestedFooterCell(labels.bank() + "\n" + bank.bankName()));
+        nestedT4.addCell(nestedFooterCell(labels.accountOwner() + "\n" + bank.accountOwner()));
+        nestedT4.addCell(nestedFooterCell(labels.iban() + "\n" + bank.iban()));
+//        nestedT4.addCell(nestedFooterCell(labels.bic() + "\n" + bank.bic()));
         nestedT4.addCell(nestedFooterCell(" "));
 
         final var c4 = new PdfPCell(nestedT4);
         c4.setBorderWidth(0);
         table.addCell(c4);
 
-        table.addCell(cell(" "));
-
-        final var footerParagraph = new Paragraph();
-        footerParagraph.add(table);
-
-        final var footer = new HeaderFooter(footerParagraph, false);
-        footer.setBorderWidth(0);
-
-        document.setFooter(footer);
-    }
-
-    private PdfPCell headerCell(final String text) {
-        final var cell = new PdfPCell(new Phrase(text, headingFont));
-        cell.setBorderWidth(0.5f);
-        cell.setPadding(4);
-        return cell;
-    }
-
-    private PdfPCell headerCellWithoutBorder(final String text) {
-        final var c = headerCell(text);
-        c.setBorderWidth(0f);
-        c.setPadding(2);
-        return c;
-    }
-
-    private PdfPCell headerCellWithBottomBorder(final String text) {
-        final var c = headerCell(text);
-        c.setBorderWidth(0f);
-        c.setBorderWidthBottom(.5f);
-        c.setPadding(2);
-        return c;
-    }
-
-    private PdfPCell headerCellRight(final String text) {
-        final var cell = new PdfPCell(new Phrase(text, headingFont));
-        cell.setBorderWidth(0.5f);
-        cell.setPadding(4);
-        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        return cell;
-    }
-
-    private PdfPCell headerCellRightWithoutBorder(final String text) {
-        final var c = headerCellRight(text);
-        c.setBorderWidth(0f);
-        c.setPadding(2);
-        return c;
-    }
-
-    private PdfPCell headerCellRightWithBottomBorder(final String text) {
-        final var c = headerCellRight(text);
-        c.setBorderWidth(0f);
-        c.setBorderWidthBottom(.5f);
-        c.setPadding(2);
-        return c;
+        return table;
     }
 
-    private PdfPCell cell(final String text) {
-        final var cell = new PdfPCell(new Phrase(text, normalFont));
-        cell.setBorderWidth(0.5f);
-        cell.setPadding(4);
+    private PdfPCell nestedFooterCell(final String text) {
+        final var cell = new PdfPCell(new Phrase(text, smallFont));
+        cell.setHorizontalAlignment(HorizontalAlignment.LEFT.getId());
+        cell.setBorderWidth(0);
+        cell.setPadding(2);
+        cell.setSpaceCharRatio(0);
         return cell;
     }
 
-    private PdfPCell cellWithoutBorder(final String text) {
-        final var c = cell(text);
-        c.setBorderWidth(0f);
-        c.setPadding(2);
-        return c;
+    /**
+     * The VAT rate, a fraction such as {@code 0.19}, as the percentage printed in the VAT label.
+     */
+    private static BigDecimal percent(final BigDecimal vatRate) {
+        return vatRate == null ? null : vatRate.movePointRight(2);
     }
 
-    private PdfPCell cellWithTopBorder(final String text) {
-        final var c = cell(text);
-        c.setBorderWidth(0f);
-        c.setBorderWidthTop(0.5f);
-        c.setPadding(2);
-        return c;
-    }
+    /**
+     * The settings of one {@link PdfOutputProfile}, copied from the configuration.
+     */
+    private record OutputSettings(int compressionLevel, boolean fullCompression, int logoDpi, float logoQuality) {
 
-    private PdfPCell cellRight(final String text) {
-        final var cell = new PdfPCell(new Phrase(text, normalFont));
-        cell.setBorderWidth(0.5f);
-        cell.setPadding(4);
-        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        return cell;
+        static OutputSettings of(final InvoicePdfProperties.OutputProfile profile) {
+            return new OutputSettings(profile.getCompressionLevel(), profile.isFullCompression(),
+                    profile.getLogoResolutionDpi(), profile.getLogoJpegQuality());
+        }
     }
 
-    private PdfPCell cellRightWithoutBorder(final String text) {
-        final var c = cellRight(text);
-        c.setBorderWidth(0f);
-        c.setPadding(2);
-        return c;
-    }
+    /**
+     * Counts the bytes written to the target stream, to report the size of the rendered PDF.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
 
-    private PdfPCell cellRightWithTopBorder(final String text) {
-        final var c = cellRight(text);
-        c.setBorderWidth(0f);
-        c.setBorderWidthTop(0.5f);
-        c.setPadding(2);
-        return c;
-    }
+        private long count;
 
-    private PdfPCell nestedFooterCell(final String text) {
-        final var cell = new PdfPCell(new Phrase(text, smallFont));
-        cell.setHorizontalAlignment(HorizontalAlignment.LEFT.getId());
-        cell.setBorderWidth(0);
-        cell.setPadding(2);
-        cell.setSpaceCharRatio(0);
-        return cell;
-    }
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
 
-    private static String formatDecimal(final BigDecimal value) {
-        return value == null ? "" : value.stripTrailingZeros().toPlainString();
-    }
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
 
-    private static String formatMoney(final BigDecimal value) {
-        return value == null ? "" : String.format("%.2f €", value);
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
     }
 }
@@ -0,0 +1,188 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Instruments a single PDF render: one {@code invoice.pdf.render} observation per document and one
+ * {@code invoice.pdf.render.stage} observation per render stage, exported as timers and as (child) spans.
+ *
+ * <p>Besides latency, every stage records the bytes the rendering thread allocated while it ran
+ * ({@code invoice.pdf.render.stage.allocated}, measured with {@link com.sun.management.ThreadMXBean}), and every
+ * document records its size ({@code invoice.pdf.render.output.size}). Item and page counts are attached to the
+ * document observation as bucketed low-cardinality tags and as exact span attributes, next to the output profile.</p>
+ */
+final class PdfRenderObserver {
+
+    static final String RENDER = "invoice.pdf.render";
+    static final String STAGE = "invoice.pdf.render.stage";
+    static final String STAGE_ALLOCATED = "invoice.pdf.render.stage.allocated";
+    static final String OUTPUT_SIZE = "invoice.pdf.render.output.size";
+
+    private static final String[] BUCKETS = {"1", "2-10", "11-100", "101-1000", ">1000"};
+    private static final PdfRenderObserver DISABLED = new PdfRenderObserver(ObservationRegistry.NOOP, null);
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threads;
+    private final Map<Stage, DistributionSummary> allocated = new EnumMap<>(Stage.class);
+    // one per (profile, items bucket, pages bucket), registered on first use
+    private final AtomicReferenceArray<DistributionSummary> outputSizes =
+            new AtomicReferenceArray<>(PdfOutputProfile.values().length * BUCKETS.length * BUCKETS.length);
+
+    PdfRenderObserver(final ObservationRegistry observationRegistry, final MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.threads = meterRegistry == null ? null : allocationTrackingThreadBean();
+        if (threads != null) {
+            for (final Stage stage : Stage.values()) {
+                allocated.put(stage, DistributionSummary.builder(STAGE_ALLOCATED)
+                        .tag("stage", stage.tagValue)
+                        .description("Bytes allocated by the rendering thread during a render stage")
+                        .baseUnit("bytes")
+                        .register(meterRegistry));
+            }
+        }
+    }
+
+    /**
+     * Returns an observer that records nothing, for renders outside a Spring context (tests, benchmarks).
+     */
+    static PdfRenderObserver disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Observes the rendering of a whole document. The given render returns the facts only known once the document
+     * is closed (items may be streamed, so even their number is only known then).
+     */
+    void document(final String invoiceNumber, final PdfOutputProfile profile, final Supplier<Result> render) {
+        final String profileTag = profile.name().toLowerCase(Locale.ROOT);
+        final Observation observation = Observation.createNotStarted(RENDER, observationRegistry)
+                .contextualName("invoice-pdf-render")
+                .lowCardinalityKeyValue("profile", profileTag)
+                .highCardinalityKeyValue("invoice.number", invoiceNumber);
+        observation.observe(() -> {
+            final Result result = render.get();
+            observation.lowCardinalityKeyValue("items", bucket(result.items()))
+                    .lowCardinalityKeyValue("pages", bucket(result.pages()))
+                    .highCardinalityKeyValue("invoice.items", String.valueOf(result.items()))
+                    .highCardinalityKeyValue("invoice.pages", String.valueOf(result.pages()))
+                    .highCardinalityKeyValue("invoice.pdf.bytes", String.valueOf(result.bytes()));
+            if (meterRegistry != null) {
+                outputSize(profile, profileTag, result).record(result.bytes());
+            }
+        });
+    }
+
+    private DistributionSummary outputSize(final PdfOutputProfile profile, final String profileTag,
+                                           final Result result) {
+        final int items = bucketIndex(result.items());
+        final int pages = bucketIndex(result.pages());
+        final int slot = (profile.ordinal() * BUCKETS.length + items) * BUCKETS.length + pages;
+        final DistributionSummary cached = outputSizes.get(slot);
+        if (cached != null) {
+            return cached;
+        }
+        // register() returns the meter registered first, so a race only looks it up twice
+        final DistributionSummary summary = DistributionSummary.builder(OUTPUT_SIZE)
+                .tags("items", BUCKETS[items], "pages", BUCKETS[pages], "profile", profileTag)
+                .description("Size of rendered invoice PDFs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        outputSizes.set(slot, summary);
+        return summary;
+    }
+
+    void stage(final Stage stage, final Runnable work) {
+        stage(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    <T> T stage(final Stage stage, final Supplier<T> work) {
+        final long allocatedBefore = threads == null ? -1 : threads.getCurrentThreadAllocatedBytes();
+        try {
+            return Observation.createNotStarted(STAGE, observationRegistry)
+                    .contextualName("invoice-pdf-" + stage.tagValue)
+                    .lowCardinalityKeyValue("stage", stage.tagValue)
+                    .observe(work);
+        } finally {
+            if (allocatedBefore >= 0) {
+                final long allocatedAfter = threads.getCurrentThreadAllocatedBytes();
+                // -1 if tracking was switched off meanwhile
+                if (allocatedAfter >= allocatedBefore) {
+                    allocated.get(stage).record(allocatedAfter - allocatedBefore);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a count to a bounded tag value, so the tag stays low-cardinality.
+     */
+    static String bucket(final int count) {
+        return BUCKETS[bucketIndex(count)];
+    }
+
+    private static int bucketIndex(final int count) {
+        if (count <= 1) {
+            return 0;
+        }
+        if (count <= 10) {
+            return 1;
+        }
+        if (count <= 100) {
+            return 2;
+        }
+        if (count <= 1000) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationTrackingThreadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * Facts about a rendered document.
+     */
+    record Result(int items, int pages, long bytes) {
+    }
+
+    enum Stage {
+        /** Looking up (and on a miss rendering) the cached logo, header line and footer. */
+        STATIONERY("stationery"),
+        LOGO("logo"),
+        HEADER("header"),
+        FOOTER("footer"),
+        INVOICE_DETAILS("invoice-details"),
+        ITEMS_TABLE("items-table"),
+        TOTALS("totals"),
+        FINAL_NOTES("final-notes"),
+        /** Writing the remaining pages and the cross-reference table to the output. */
+        CLOSE("close");
+
+        private final String tagValue;
+
+        Stage(final String tagValue) {
+            this.tagValue = tagValue;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.RoundingPolicy;
+
+import java.util.Locale;
+
+/**
+ * Everything one render derives from the invoice, the locale, the rounding policy and the output profile, resolved
+ * once before the layout starts: labels, money formatter, the customer's country name and the final notes. The generator binds it to
+ * {@link #CURRENT} for the duration of the render, so the layout helpers read it instead of taking the locale and
+ * resolving the same data again.
+ *
+ * <p>A {@link ScopedValue} is bound for exactly one render and cannot leak into the next task of a pooled or virtual
+ * thread the way a forgotten {@link ThreadLocal} can.</p>
+ *
+ * @param invoice         the invoice being rendered; its item list is not used, items are streamed
+ * @param labels          the labels of the document's locale
+ * @param format          the money and quantity formatter of the document's locale, rounding with {@code rounding}
+ * @param rounding        the rounding policy the invoice totals are computed with
+ * @param profile         the resolved output profile
+ * @param customerCountry the customer's country name in the document's locale
+ * @param finalNotes      the invoice's final notes, or the default ones of the locale
+ */
+record RenderContext(Invoice invoice, InvoiceLabels labels, MoneyFormatter format, RoundingPolicy rounding,
+                     PdfOutputProfile profile, String customerCountry, String finalNotes) {
+
+    static final ScopedValue<RenderContext> CURRENT = ScopedValue.newInstance();
+
+    /**
+     * Returns the context of the render running on this thread.
+     *
+     * @throws java.util.NoSuchElementException outside a render
+     */
+    static RenderContext current() {
+        return CURRENT.get();
+    }
+
+    Locale locale() {
+        return labels.locale();
+    }
+}
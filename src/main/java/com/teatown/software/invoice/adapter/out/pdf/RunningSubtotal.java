@@ -0,0 +1,57 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfPCellEvent;
+import com.lowagie.text.pdf.PdfPTable;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of the line totals laid out so far, for the "carried forward" and "brought forward" rows of a multi-page items
+ * table.
+ *
+ * <p>Which rows end up on which page is only known while the table is laid out, so the sum is kept by cell events:
+ * the total cell of every item row adds its amount when it is drawn, and the subtotal rows, which the table repeats
+ * at each page break, print the sum when they are drawn. Rows are drawn in order (header rows, the rows of the page,
+ * footer row), so the footer shows the sum up to and including its page, and the header on the next page the same
+ * sum.</p>
+ */
+final class RunningSubtotal {
+
+    private final MoneyFormatter format;
+    private final Font font;
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    RunningSubtotal(final MoneyFormatter format, final Font font) {
+        this.format = format;
+        this.font = font;
+    }
+
+    /**
+     * Returns the event adding the given line total once its row is laid out.
+     */
+    PdfPCellEvent adding(final BigDecimal amount) {
+        return (cell, position, canvases) -> {
+            if (amount != null) {
+                sum = sum.add(amount);
+            }
+        };
+    }
+
+    /**
+     * Returns the event printing the current sum right-aligned into the (otherwise empty) cell it is attached to.
+     */
+    PdfPCellEvent printing() {
+        return (cell, position, canvases) -> ColumnText.showTextAligned(canvases[PdfPTable.TEXTCANVAS],
+                Element.ALIGN_RIGHT, new Phrase(format.money(sum), font),
+                position.getRight() - cell.getPaddingRight(),
+                position.getTop() - cell.getPaddingTop() - font.getCalculatedSize(), 0);
+    }
+
+    BigDecimal sum() {
+        return sum;
+    }
+}
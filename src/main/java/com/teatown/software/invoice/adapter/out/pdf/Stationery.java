@@ -0,0 +1,76 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.ExceptionConverter;
+import com.lowagie.text.pdf.PdfImportedPage;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.io.IOException;
+
+/**
+ * The static regions of an invoice for one company and locale, pre-rendered as a two-page PDF: page 1 holds the logo,
+ * the company header line and the footer, page 2 the footer alone (for follow-up pages).
+ *
+ * @param pdf          the pre-rendered pages
+ * @param headerHeight vertical space the logo and header take at the top of the first page
+ * @param footerTop    y coordinate of the upper edge of the footer
+ */
+record Stationery(byte[] pdf, float headerHeight, float footerTop) {
+
+    static final int FIRST_PAGE = 1;
+    static final int FOLLOWING_PAGES = 2;
+
+    /**
+     * Returns a page event that stamps the stationery under the content of every page of one document. Imported pages
+     * are bound to a writer, so every document needs its own event; {@link StampEvent#close()} releases the parsed
+     * stationery once the document is closed.
+     */
+    StampEvent stampEvent() {
+        return new StampEvent(pdf);
+    }
+
+    static final class StampEvent extends PdfPageEventHelper implements AutoCloseable {
+
+        private final byte[] pdf;
+        private PdfReader reader;
+        private PdfImportedPage firstPage;
+        private PdfImportedPage followingPages;
+
+        private StampEvent(final byte[] pdf) {
+            this.pdf = pdf;
+        }
+
+        @Override
+        public void onEndPage(final PdfWriter writer, final Document document) {
+            if (reader == null) {
+                try {
+                    reader = new PdfReader(pdf);
+                } catch (IOException e) {
+                    throw new ExceptionConverter(e);
+                }
+            }
+            final PdfImportedPage page;
+            if (writer.getPageNumber() == 1) {
+                if (firstPage == null) {
+                    firstPage = writer.getImportedPage(reader, FIRST_PAGE);
+                }
+                page = firstPage;
+            } else {
+                if (followingPages == null) {
+                    followingPages = writer.getImportedPage(reader, FOLLOWING_PAGES);
+                }
+                page = followingPages;
+            }
+            writer.getDirectContentUnder().addTemplate(page, 0, 0);
+        }
+
+        @Override
+        public void close() {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+}
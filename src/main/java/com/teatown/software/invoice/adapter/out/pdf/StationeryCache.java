@@ -0,0 +1,67 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.teatown.software.invoice.domain.CompanyDetails;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded least-recently-used cache of {@link Stationery}, keyed by everything the static regions are rendered from.
+ * A change of the company details, the labels or the logo yields a new key, so stale stationery is never reused and
+ * simply ages out.
+ */
+final class StationeryCache {
+
+    /**
+     * @param company     the issuing company
+     * @param labels      the labels (and locale) of the document
+     * @param logoVersion version of the company logo, see {@link CompanyLogoCache#version()}
+     * @param logoDpi     resolution the logo is re-encoded at, 0 for the logo as supplied
+     * @param logoQuality JPEG quality the logo is re-encoded with
+     */
+    record Key(CompanyDetails company, InvoiceLabels labels, long logoVersion, int logoDpi, float logoQuality) {
+    }
+
+    private final Map<Key, Stationery> entries;
+    private final LongAdder renders = new LongAdder();
+
+    StationeryCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Stationery> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached stationery for the given key, rendering it first if needed. Rendering happens outside the
+     * lock; if two threads miss the same key at once, both render and the later result wins.
+     */
+    Stationery get(final Key key, final Function<Key, Stationery> renderer) {
+        synchronized (entries) {
+            final Stationery stationery = entries.get(key);
+            if (stationery != null) {
+                return stationery;
+            }
+        }
+        final Stationery rendered = renderer.apply(key);
+        renders.increment();
+        synchronized (entries) {
+            entries.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long renderCount() {
+        return renders.sum();
+    }
+}
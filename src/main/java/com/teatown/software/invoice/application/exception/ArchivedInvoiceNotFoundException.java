@@ -0,0 +1,11 @@
+package com.teatown.software.invoice.application.exception;
+
+/**
+ * Thrown when no PDF is archived under an invoice number.
+ */
+public class ArchivedInvoiceNotFoundException extends RuntimeException {
+
+    public ArchivedInvoiceNotFoundException(String invoiceNumber) {
+        super("Invoice " + invoiceNumber + " is not archived");
+    }
+}
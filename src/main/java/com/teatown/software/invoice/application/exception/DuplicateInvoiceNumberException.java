@@ -0,0 +1,11 @@
+package com.teatown.software.invoice.application.exception;
+
+/**
+ * Thrown when an invoice number that was issued recently is submitted again with different content.
+ */
+public class DuplicateInvoiceNumberException extends RuntimeException {
+
+    public DuplicateInvoiceNumberException(String invoiceNumber) {
+        super("Invoice number " + invoiceNumber + " was already issued for a different invoice");
+    }
+}
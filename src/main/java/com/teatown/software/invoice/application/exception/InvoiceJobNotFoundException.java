@@ -0,0 +1,11 @@
+package com.teatown.software.invoice.application.exception;
+
+/**
+ * Thrown when an invoice job is unknown, e.g. because its result already expired.
+ */
+public class InvoiceJobNotFoundException extends RuntimeException {
+
+    public InvoiceJobNotFoundException(String jobId) {
+        super("Invoice job " + jobId + " not found");
+    }
+}
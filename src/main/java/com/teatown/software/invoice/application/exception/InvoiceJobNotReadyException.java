@@ -0,0 +1,13 @@
+package com.teatown.software.invoice.application.exception;
+
+import com.teatown.software.invoice.domain.InvoiceJobStatus;
+
+/**
+ * Thrown when the PDF of an invoice job is requested before the job finished successfully.
+ */
+public class InvoiceJobNotReadyException extends RuntimeException {
+
+    public InvoiceJobNotReadyException(String jobId, InvoiceJobStatus status) {
+        super("Invoice job " + jobId + " has no PDF (status " + status + ")");
+    }
+}
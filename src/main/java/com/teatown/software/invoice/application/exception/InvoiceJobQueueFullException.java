@@ -0,0 +1,23 @@
+package com.teatown.software.invoice.application.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a new invoice job is rejected because the job queue is full.
+ */
+public class InvoiceJobQueueFullException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public InvoiceJobQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * How long the client should wait before retrying.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
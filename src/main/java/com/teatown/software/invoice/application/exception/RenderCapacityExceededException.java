@@ -0,0 +1,23 @@
+package com.teatown.software.invoice.application.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a render is not admitted because all render slots are busy and the wait limit was reached.
+ */
+public class RenderCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RenderCapacityExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * How long the client should wait before retrying.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,6 +1,14 @@
 package com.teatown.software.invoice.application.opentelemetry;
 
+import com.teatown.software.invoice.application.service.InvoiceRenderCache;
+import com.teatown.software.invoice.application.service.RenderAdmissionLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
 import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
 import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
 import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
@@ -14,6 +22,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.observation.OpenTelemetryServerRequestObservationConvention;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link <a href="https://spring.io/blog/2025/11/18/opentelemetry-with-spring-boot#exporting-metrics">Spring - Exporting Metrics</a>}
@@ -72,4 +81,81 @@ public class ObservationConventionsConfig {
         return new ClassLoaderMetrics(new OpenTelemetryJvmClassLoadingMeterConventions());
     }
 
-}
\ No newline at end of file
+    /**
+     * Exposes the standard cache meters ({@code cache.gets} with {@code result=hit|miss}, {@code cache.puts},
+     * {@code cache.evictions}, {@code cache.size}) for the rendered invoice PDF cache, tagged {@code cache=invoice-pdf}.
+     */
+    @Bean
+    public MeterBinder invoiceRenderCacheMetrics(final InvoiceRenderCache invoiceRenderCache) {
+        return new CacheMeterBinder<>(invoiceRenderCache, "invoice-pdf", Tags.empty()) {
+            @Override
+            protected Long size() {
+                return invoiceRenderCache.size();
+            }
+
+            @Override
+            protected long hitCount() {
+                return invoiceRenderCache.hitCount();
+            }
+
+            @Override
+            protected Long missCount() {
+                return invoiceRenderCache.missCount();
+            }
+
+            @Override
+            protected Long evictionCount() {
+                return invoiceRenderCache.evictionCount();
+            }
+
+            @Override
+            protected long putCount() {
+                return invoiceRenderCache.putCount();
+            }
+
+            @Override
+            protected void bindImplementationSpecificMetrics(final MeterRegistry registry) {
+                Gauge.builder("cache.bytes", invoiceRenderCache, InvoiceRenderCache::bytes)
+                        .tags("cache", "invoice-pdf")
+                        .description("Bytes of rendered PDFs held in memory")
+                        .baseUnit("bytes")
+                        .register(registry);
+                Gauge.builder("cache.spilled.size", invoiceRenderCache, InvoiceRenderCache::spilledSize)
+                        .tags("cache", "invoice-pdf")
+                        .description("Number of rendered PDFs spilled to disk")
+                        .register(registry);
+                Gauge.builder("cache.spilled.bytes", invoiceRenderCache, InvoiceRenderCache::spilledBytes)
+                        .tags("cache", "invoice-pdf")
+                        .description("Bytes of rendered PDFs spilled to disk")
+                        .baseUnit("bytes")
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Exposes the render admission limiter: renders waiting for and holding a slot, the time admitted renders waited,
+     * and the number of rejected renders.
+     */
+    @Bean
+    public MeterBinder renderAdmissionMetrics(final RenderAdmissionLimiter renderAdmissionLimiter) {
+        return registry -> {
+            Gauge.builder("invoice.render.queue.depth", renderAdmissionLimiter, RenderAdmissionLimiter::queueDepth)
+                    .description("Number of renders waiting for a render slot")
+                    .register(registry);
+            Gauge.builder("invoice.render.active", renderAdmissionLimiter, RenderAdmissionLimiter::activeRenders)
+                    .description("Number of renders holding a render slot")
+                    .register(registry);
+            FunctionTimer.builder("invoice.render.admission.wait", renderAdmissionLimiter,
+                            RenderAdmissionLimiter::admittedCount,
+                            limiter -> limiter.totalWaitTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                    .description("Time admitted renders waited for a render slot")
+                    .register(registry);
+            FunctionCounter.builder("invoice.render.rejections", renderAdmissionLimiter,
+                            RenderAdmissionLimiter::rejectionCount)
+                    .description("Number of renders rejected because all render slots were busy")
+                    .register(registry);
+        };
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.teatown.software.invoice.application.port;
+
+import com.teatown.software.invoice.domain.Invoice;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outbound port: keeps every issued invoice PDF together with its invoice, so it can be served again without
+ * re-rendering. Archived PDFs are never replaced: an invoice number maps to every PDF rendered for it (one per
+ * language, output profile and layout, told apart by content hash), the first of which is the original.
+ */
+public interface InvoiceArchivePort {
+
+    /**
+     * Archives the PDF rendered for the given invoice under its invoice number and content hash. The PDF is durable
+     * once the call returns. Archiving a content hash that is already archived under the invoice number is a no-op.
+     *
+     * @param invoice     the invoice the PDF was rendered from
+     * @param contentHash the lowercase hex SHA-256 content hash of the PDF, see {@code InvoiceContentHash}
+     * @param pdf         the rendered PDF
+     */
+    void archive(Invoice invoice, String contentHash, byte[] pdf);
+
+    /**
+     * Archives the PDF in the given file like {@link #archive(Invoice, String, byte[])}, without reading it into the
+     * heap. The file is not changed.
+     */
+    void archive(Invoice invoice, String contentHash, Path pdf);
+
+    /**
+     * Opens the original PDF archived under the given invoice number, or returns an empty optional if there is none.
+     * The caller must close the returned PDF.
+     */
+    Optional<ArchivedPdf> open(String invoiceNumber);
+
+    /**
+     * Opens the PDF archived under the given invoice number with the given content hash, or returns an empty optional
+     * if there is none. The caller must close the returned PDF.
+     */
+    Optional<ArchivedPdf> open(String invoiceNumber, String contentHash);
+
+    /**
+     * Returns whether any PDF is archived under the given invoice number. Answered from memory.
+     */
+    boolean contains(String invoiceNumber);
+
+    /**
+     * Returns the invoice of the original PDF archived under the given invoice number, or an empty optional if there
+     * is none. Only numbers that are archived are read from storage.
+     */
+    Optional<Invoice> invoice(String invoiceNumber);
+
+    /**
+     * Returns one page of the archived invoices matching the given query, ordered by invoice date. Every invoice
+     * number is listed once, with the invoice of its original PDF.
+     */
+    InvoicePage find(InvoiceQuery query);
+
+    /**
+     * An archived PDF, readable until it is closed.
+     */
+    interface ArchivedPdf extends AutoCloseable {
+
+        String invoiceNumber();
+
+        String contentHash();
+
+        Instant archivedAt();
+
+        long size();
+
+        /**
+         * Writes the PDF to the given stream, which is not closed.
+         */
+        void transferTo(OutputStream out);
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Which archived invoices to list. Every condition that is {@code null} is not applied; date ranges are
+     * inclusive.
+     *
+     * @param after the {@link InvoicePage#next() cursor} of the previous page, or {@code null} for the first page
+     * @param limit the maximum number of invoices on the page
+     */
+    record InvoiceQuery(
+            String customerNumber,
+            LocalDate invoiceDateFrom,
+            LocalDate invoiceDateTo,
+            LocalDate dueDateFrom,
+            LocalDate dueDateTo,
+            Boolean reverseCharge,
+            Long after,
+            int limit
+    ) {
+    }
+
+    /**
+     * An archived invoice as listed by {@link #find(InvoiceQuery)}.
+     */
+    record ArchivedInvoice(
+            String invoiceNumber,
+            LocalDate invoiceDate,
+            LocalDate dueDate,
+            String customerNumber,
+            boolean reverseCharge
+    ) {
+    }
+
+    /**
+     * One page of a query.
+     *
+     * @param next the cursor to pass as {@link InvoiceQuery#after()} for the next page, or {@code null} if this is
+     *             the last page
+     */
+    record InvoicePage(List<ArchivedInvoice> invoices, Long next) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.teatown.software.invoice.application.port;
+
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceJob;
+
+import java.util.List;
+
+/**
+ * Outbound port: durable record of asynchronous invoice jobs, so queued work survives a restart.
+ */
+public interface InvoiceJobJournalPort {
+
+    /**
+     * Durably records a newly accepted job together with the invoice to render. Returns only once the entry is
+     * persisted.
+     */
+    void submitted(InvoiceJob job, Invoice invoice);
+
+    /**
+     * Records a status change of a known job.
+     */
+    void updated(InvoiceJob job);
+
+    /**
+     * Forgets a job, e.g. after its result expired.
+     */
+    void removed(String jobId);
+
+    /**
+     * Returns all jobs recorded and not removed, in submission order. The invoice is included for jobs that have not
+     * finished yet, so they can be queued again.
+     */
+    List<JournaledJob> replay();
+
+    /**
+     * A job as found in the journal.
+     *
+     * @param job     the last recorded state of the job
+     * @param invoice the invoice to render, or {@code null} if the job has finished
+     */
+    record JournaledJob(InvoiceJob job, Invoice invoice) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.teatown.software.invoice.application.port;
+
+/**
+ * Outbound port: durable high-water marks of the invoice number sequences, so a restart never issues a number twice.
+ * Numbers are reserved in blocks; only the end of a block is persisted.
+ */
+public interface InvoiceNumberReservationPort {
+
+    /**
+     * Returns the first number of the given sequence that has not been reserved, or 1 for a new sequence.
+     */
+    long next(String sequence);
+
+    /**
+     * Durably records that all numbers of the given sequence below {@code next} may have been issued. Returns only
+     * once the mark is persisted.
+     */
+    void reserve(String sequence, long next);
+}
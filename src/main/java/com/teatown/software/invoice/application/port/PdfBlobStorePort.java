@@ -0,0 +1,28 @@
+package com.teatown.software.invoice.application.port;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Outbound port: stores rendered PDFs by id until they are fetched or expire.
+ */
+public interface PdfBlobStorePort {
+
+    /**
+     * Stores the content written by {@code content} under the given id. The blob becomes visible atomically once
+     * {@code content} returns; if it throws, nothing is stored.
+     */
+    void write(String id, Consumer<OutputStream> content);
+
+    /**
+     * Opens the blob stored under the given id, or returns an empty optional if there is none.
+     */
+    Optional<InputStream> open(String id);
+
+    /**
+     * Deletes the blob stored under the given id, if any.
+     */
+    void delete(String id);
+}
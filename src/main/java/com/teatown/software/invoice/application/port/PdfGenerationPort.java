@@ -1,7 +1,11 @@
 package com.teatown.software.invoice.application.port;
 
 import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.Locale;
 
 /**
@@ -11,10 +15,87 @@ public interface PdfGenerationPort {
 
     /**
      * Generates a PDF byte array for the given invoice in the given locale.
+     * Convenient for small documents; large documents should be streamed via
+     * {@link #generate(Invoice, Locale, OutputStream)} instead.
      *
      * @param invoice the invoice domain object
      * @param locale  the locale for labels (e.g. en, es)
      * @return PDF content as bytes
      */
-    byte[] generate(Invoice invoice, Locale locale);
+    default byte[] generate(final Invoice invoice, final Locale locale) {
+        return generate(invoice, locale, (PdfOutputProfile) null);
+    }
+
+    /**
+     * Generates a PDF byte array like {@link #generate(Invoice, Locale)} with the given output profile.
+     *
+     * @param invoice the invoice domain object
+     * @param locale  the locale for labels (e.g. en, es)
+     * @param profile the output profile, or {@code null} for the configured default
+     * @return PDF content as bytes
+     */
+    default byte[] generate(final Invoice invoice, final Locale locale, final PdfOutputProfile profile) {
+        final var out = new ByteArrayOutputStream();
+        generate(invoice, invoice.items().iterator(), locale, profile, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the PDF for the given invoice in the given locale straight to the given stream.
+     * The stream is flushed but not closed; closing it remains the caller's responsibility.
+     *
+     * @param invoice the invoice domain object
+     * @param locale  the locale for labels (e.g. en, es)
+     * @param out     the stream receiving the PDF content
+     */
+    default void generate(final Invoice invoice, final Locale locale, final OutputStream out) {
+        generate(invoice, invoice.items().iterator(), locale, null, out);
+    }
+
+    /**
+     * Writes the PDF for the given invoice like {@link #generate(Invoice, Locale, OutputStream)}, but takes the line
+     * items from the given iterator instead of {@link Invoice#items()}. Items are laid out as they are pulled, so the
+     * memory needed does not grow with the number of items.
+     *
+     * @param invoice the invoice domain object; its item list is ignored
+     * @param items   the line items, in order
+     * @param locale  the locale for labels (e.g. en, es)
+     * @param out     the stream receiving the PDF content
+     */
+    default void generate(final Invoice invoice, final Iterator<InvoiceItem> items, final Locale locale,
+                          final OutputStream out) {
+        generate(invoice, items, locale, null, out);
+    }
+
+    /**
+     * Writes the PDF like {@link #generate(Invoice, Iterator, Locale, OutputStream)} with the given output profile.
+     *
+     * @param invoice the invoice domain object; its item list is ignored
+     * @param items   the line items, in order
+     * @param locale  the locale for labels (e.g. en, es)
+     * @param profile the output profile, or {@code null} for the configured default
+     * @param out     the stream receiving the PDF content
+     */
+    void generate(Invoice invoice, Iterator<InvoiceItem> items, Locale locale, PdfOutputProfile profile,
+                  OutputStream out);
+
+    /**
+     * Identifies everything besides the invoice and the locale that affects the rendered document (layout settings,
+     * labels, logo) with the default output profile. It changes whenever the same invoice would render differently,
+     * so it can be part of a cache key.
+     *
+     * @return an opaque fingerprint of the current layout
+     */
+    default String layoutFingerprint() {
+        return layoutFingerprint(null);
+    }
+
+    /**
+     * Like {@link #layoutFingerprint()}, for documents rendered with the given output profile. The fingerprint of the
+     * default profile is the same whether it is passed explicitly or as {@code null}.
+     *
+     * @param profile the output profile, or {@code null} for the configured default
+     * @return an opaque fingerprint of the current layout
+     */
+    String layoutFingerprint(PdfOutputProfile profile);
 }
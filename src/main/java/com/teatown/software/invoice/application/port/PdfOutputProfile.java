@@ -0,0 +1,26 @@
+package com.teatown.software.invoice.application.port;
+
+import java.util.Locale;
+
+/**
+ * Trade-off between render time and size of the generated PDF. What each profile does exactly (compression level,
+ * cross-reference streams, logo resolution) is configured per profile in {@code invoice.pdf.output-profiles}.
+ */
+public enum PdfOutputProfile {
+
+    /** Cheapest to render: light compression, classic cross-reference table, logo as supplied. */
+    FAST,
+    /** Default compression with compressed object and cross-reference streams, logo as supplied. */
+    BALANCED,
+    /** Smallest output: best compression, compressed object streams and a logo re-encoded at print resolution. */
+    SMALLEST;
+
+    /**
+     * Returns the profile with the given name, ignoring case.
+     *
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    public static PdfOutputProfile of(final String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,181 @@
+package com.teatown.software.invoice.application.security;
+
+import com.teatown.software.invoice.configuration.InvoiceSecurityProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache in front of the principal store (the {@link UserDetailsService}), keyed by the value of the
+ * {@code user} header, so an authenticated request does not build a new user and authority list every time.
+ *
+ * <p>Cached users are immutable copies without credentials: Spring Security erases the credentials of the
+ * authenticated principal after every authentication, which must not reach a shared instance. Entries are resolved
+ * again after {@code invoice.security.principal-cache-ttl}, so changes in the store take effect. Unknown principals
+ * are not cached. Beyond {@code principal-cache-size} entries, the principals cached first are evicted first: they are
+ * kept in a queue in the order they were added, and as every entry lives equally long, that is roughly the order in
+ * which they expire.</p>
+ */
+public class PrincipalCache implements MeterBinder {
+
+    private final UserDetailsService store;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PrincipalCache(final UserDetailsService store, final InvoiceSecurityProperties properties) {
+        this(store, properties, System::nanoTime);
+    }
+
+    PrincipalCache(final UserDetailsService store, final InvoiceSecurityProperties properties,
+                   final LongSupplier nanoTime) {
+        this.store = store;
+        this.maxEntries = properties.getPrincipalCacheSize();
+        this.ttlNanos = properties.getPrincipalCacheTtl().toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Returns the user for the given principal, from the cache or resolved by the store.
+     *
+     * @throws UsernameNotFoundException if the store does not know the principal
+     */
+    public UserDetails load(final String principal) {
+        final long now = nanoTime.getAsLong();
+        final Entry cached = entries.get(principal);
+        if (cached != null && now - cached.expiresAt < 0) {
+            hits.increment();
+            return cached.user;
+        }
+        misses.increment();
+        final UserDetails user = CachedUser.of(store.loadUserByUsername(principal));
+        if (entries.put(principal, new Entry(user, now + ttlNanos)) == null) {
+            insertionOrder.add(principal);
+            evict();
+        }
+        return user;
+    }
+
+    /**
+     * Drops the principals cached first while there are too many.
+     */
+    private void evict() {
+        String eldest;
+        while (entries.size() > maxEntries && (eldest = insertionOrder.poll()) != null) {
+            entries.remove(eldest);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("invoice.security.principals.hits", hits, LongAdder::sum)
+                .description("Number of authentications served from the principal cache")
+                .register(registry);
+        FunctionCounter.builder("invoice.security.principals.misses", misses, LongAdder::sum)
+                .description("Number of authentications that resolved the principal from the store")
+                .register(registry);
+        Gauge.builder("invoice.security.principals.cached", entries, Map::size)
+                .description("Number of principals in the cache")
+                .register(registry);
+    }
+
+    private record Entry(UserDetails user, long expiresAt) {
+    }
+
+    /**
+     * Immutable user without credentials; deliberately not a {@code CredentialsContainer}.
+     */
+    private static final class CachedUser implements UserDetails {
+
+        private final String username;
+        private final List<GrantedAuthority> authorities;
+        private final boolean accountNonExpired;
+        private final boolean accountNonLocked;
+        private final boolean credentialsNonExpired;
+        private final boolean enabled;
+
+        private CachedUser(final UserDetails user) {
+            this.username = user.getUsername();
+            this.authorities = List.copyOf(user.getAuthorities());
+            this.accountNonExpired = user.isAccountNonExpired();
+            this.accountNonLocked = user.isAccountNonLocked();
+            this.credentialsNonExpired = user.isCredentialsNonExpired();
+            this.enabled = user.isEnabled();
+        }
+
+        static CachedUser of(final UserDetails user) {
+            return user instanceof CachedUser cachedUser ? cachedUser : new CachedUser(user);
+        }
+
+        @Override
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        @Override
+        public String getPassword() {
+            return null;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public boolean isAccountNonExpired() {
+            return accountNonExpired;
+        }
+
+        @Override
+        public boolean isAccountNonLocked() {
+            return accountNonLocked;
+        }
+
+        @Override
+        public boolean isCredentialsNonExpired() {
+            return credentialsNonExpired;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof CachedUser user && username.equals(user.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return username.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "CachedUser[username=" + username + ", authorities=" + authorities + "]";
+        }
+    }
+}
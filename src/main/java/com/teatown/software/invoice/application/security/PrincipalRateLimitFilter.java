@@ -0,0 +1,60 @@
+package com.teatown.software.invoice.application.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers requests of a principal that exceeded its {@link PrincipalRateLimiter} budget with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header, before they reach rendering. Runs after
+ * authorization, so only authenticated requests are counted; anonymous ones (health probes) pass. Not a bean on purpose: as a bean it would also be
+ * registered as a servlet filter outside the security chain.
+ */
+public class PrincipalRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(PrincipalRateLimitFilter.class);
+
+    private final PrincipalRateLimiter rateLimiter;
+    private final byte[] problem;
+
+    public PrincipalRateLimitFilter(final PrincipalRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.problem = ("{\"type\":\"about:blank\",\"title\":\"Too Many Requests\",\"status\":429,"
+                + "\"detail\":\"Request rate limit exceeded, retry after " + rateLimiter.retryAfterSeconds()
+                + " seconds\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain chain) throws ServletException, IOException {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken
+                || rateLimiter.tryAcquire(authentication.getName())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Rate limit exceeded by {} on {} {}", authentication.getName(), request.getMethod(),
+                    request.getRequestURI());
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(rateLimiter.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        response.setContentLength(problem.length);
+        response.getOutputStream().write(problem);
+    }
+}
@@ -0,0 +1,153 @@
+package com.teatown.software.invoice.application.security;
+
+import com.teatown.software.invoice.configuration.InvoiceSecurityProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per principal: a bucket holds up to {@code invoice.security.rate-limit-burst} tokens and is refilled at
+ * {@code rate-limit-per-second}; every request takes one token.
+ *
+ * <p>The buckets live in a striped map: the principal's hash picks one of {@value #STRIPES} plain hash maps, each
+ * guarded by its own lock, so requests of different principals rarely contend and a request only holds a lock for
+ * a few arithmetic operations. A stripe holds at most its share of {@code rate-limit-max-principals} buckets, in
+ * the order they were last used. When it is full, the least recently used bucket is dropped if it has refilled
+ * completely, which loses nothing because a missing bucket starts full; otherwise the new principal is rejected like
+ * one with an empty bucket. So principals cannot push out each other's buckets by sending requests under made-up
+ * names.</p>
+ */
+public class PrincipalRateLimiter implements MeterBinder {
+
+    private static final int STRIPES = 64;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxPerStripe;
+    private final LongSupplier nanoTime;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PrincipalRateLimiter(final InvoiceSecurityProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    PrincipalRateLimiter(final InvoiceSecurityProperties properties, final LongSupplier nanoTime) {
+        if (properties.getRateLimitPerSecond() <= 0 || properties.getRateLimitBurst() < 1) {
+            throw new IllegalArgumentException(
+                    "invoice.security.rate-limit-per-second and rate-limit-burst must be positive");
+        }
+        this.capacity = properties.getRateLimitBurst();
+        this.tokensPerNano = properties.getRateLimitPerSecond() / NANOS_PER_SECOND;
+        this.maxPerStripe = Math.max(1, properties.getRateLimitMaxPrincipals() / STRIPES);
+        this.nanoTime = nanoTime;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes a token from the principal's bucket. Returns {@code false} if the bucket is empty, or if the principal has
+     * none and there is no room for one.
+     */
+    public boolean tryAcquire(final String principal) {
+        final int hash = principal.hashCode();
+        final Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        final long now = nanoTime.getAsLong();
+        final boolean acquired;
+        synchronized (stripe) {
+            acquired = stripe.tryAcquire(principal, now);
+        }
+        (acquired ? allowed : rejected).increment();
+        return acquired;
+    }
+
+    /**
+     * Returns the number of seconds after which an empty bucket has a token again, for {@code Retry-After}.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(1 / (tokensPerNano * NANOS_PER_SECOND)));
+    }
+
+    int principalCount() {
+        int count = 0;
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.buckets.size();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("invoice.security.rate-limit.allowed", allowed, LongAdder::sum)
+                .description("Number of requests within their principal's rate limit")
+                .register(registry);
+        FunctionCounter.builder("invoice.security.rate-limit.rejected", rejected, LongAdder::sum)
+                .description("Number of requests rejected with 429 because their principal exceeded its rate limit "
+                        + "or no bucket was free for it")
+                .register(registry);
+    }
+
+    private final class Stripe {
+
+        // access order: the eldest bucket is the least recently used one
+        private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+        boolean tryAcquire(final String principal, final long now) {
+            Bucket bucket = buckets.get(principal);
+            if (bucket == null) {
+                if (buckets.size() >= maxPerStripe && !evict(now)) {
+                    return false;
+                }
+                bucket = new Bucket(capacity, now);
+                buckets.put(principal, bucket);
+            } else {
+                bucket.refill(now);
+            }
+            if (bucket.tokens < 1) {
+                return false;
+            }
+            bucket.tokens -= 1;
+            return true;
+        }
+
+        /**
+         * Drops the least recently used bucket if it has refilled completely. Returns {@code false} if it has not.
+         */
+        private boolean evict(final long now) {
+            final Iterator<Bucket> eldest = buckets.values().iterator();
+            final Bucket bucket = eldest.next();
+            bucket.refill(now);
+            if (bucket.tokens < capacity) {
+                return false;
+            }
+            eldest.remove();
+            return true;
+        }
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(final double tokens, final long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        void refill(final long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.teatown.software.invoice.application.security;
 
+import com.teatown.software.invoice.configuration.InvoiceSecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -8,12 +10,16 @@ import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationProvider;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.security.web.authentication.preauth.RequestHeaderAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 
 import java.util.Collections;
 import java.util.List;
@@ -22,39 +28,83 @@ import java.util.List;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final InvoiceSecurityProperties properties;
+
+    public SecurityConfig(final InvoiceSecurityProperties properties) {
+        this.properties = properties;
+    }
+
     @Bean
     public RequestHeaderAuthenticationFilter authenticationFilter() {
+        return authenticationFilter(principalCache());
+    }
+
+    /**
+     * The filter runs inside the security filter chain; keeps the servlet container from running it a second time.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestHeaderAuthenticationFilter> authenticationFilterRegistration(
+            final RequestHeaderAuthenticationFilter authenticationFilter) {
+        final var registration = new FilterRegistrationBean<>(authenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * Builds the filter that authenticates the principal named in the {@code user} header, resolving it through the
+     * given cache.
+     */
+    public static RequestHeaderAuthenticationFilter authenticationFilter(final PrincipalCache principalCache) {
         final var filter = new RequestHeaderAuthenticationFilter();
 
-        filter.setAuthenticationManager(authenticationManagerProviderList());
+        filter.setAuthenticationManager(authenticationManagerProviderList(principalCache));
 
         // this commands SpringSecurity which http request header to look for during authentication
         filter.setPrincipalRequestHeader("user");
         filter.setExceptionIfHeaderMissing(false);
+        // the principal is resolved from the header on every request; keep the context out of the HTTP session
+        filter.setSecurityContextRepository(new RequestAttributeSecurityContextRepository());
 
         return filter;
     }
 
-    private AuthenticationManager authenticationManagerProviderList() {
-        return new ProviderManager(Collections.singletonList(userProvider()));
+    private static AuthenticationManager authenticationManagerProviderList(final PrincipalCache principalCache) {
+        return new ProviderManager(Collections.singletonList(userProvider(principalCache)));
     }
 
-    private PreAuthenticatedAuthenticationProvider userProvider() {
+    private static PreAuthenticatedAuthenticationProvider userProvider(final PrincipalCache principalCache) {
         final var provider = new PreAuthenticatedAuthenticationProvider();
 
         provider.setThrowExceptionWhenTokenRejected(true);
-        provider.setPreAuthenticatedUserDetailsService(authenticationUserDetailService());
+        provider.setPreAuthenticatedUserDetailsService(authenticationUserDetailService(principalCache));
 
         return provider;
     }
 
-    private AuthenticationUserDetailsService<PreAuthenticatedAuthenticationToken> authenticationUserDetailService() {
-        return new UserDetailsByNameServiceWrapper<>(userDetailsService());
+    private static AuthenticationUserDetailsService<PreAuthenticatedAuthenticationToken> authenticationUserDetailService(
+            final PrincipalCache principalCache) {
+        return new UserDetailsByNameServiceWrapper<>(principalCache::load);
     }
 
+    /**
+     * The principal store. Every principal named in the header is a user with {@code ROLE_USER}; replace this bean
+     * to resolve principals from a real directory. Lookups go through the {@link PrincipalCache}.
+     */
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> new User("testuser", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return username -> new User(username, "", USER_AUTHORITIES);
+    }
+
+    @Bean
+    public PrincipalCache principalCache() {
+        return new PrincipalCache(userDetailsService(), properties);
+    }
+
+    @Bean
+    public PrincipalRateLimiter principalRateLimiter() {
+        return new PrincipalRateLimiter(properties);
     }
 
     @Bean
@@ -62,6 +112,8 @@ public class SecurityConfig {
 
         http.authorizeHttpRequests(authorizeRequests -> authorizeRequests
                                 .requestMatchers(HttpMethod.GET, "/isAlive" ).permitAll()
+                                .requestMatchers(HttpMethod.GET, "/actuator/health/liveness", "/actuator/health/readiness")
+                                        .permitAll()
                                 // to become authorized, a principal (e.g. user, device, system)
                                 // must have the authority ROLE_USER assigned
                                 .requestMatchers(HttpMethod.GET, "/api/hello-world/greetings").hasAuthority("ROLE_USER")
@@ -71,9 +123,15 @@ public class SecurityConfig {
                 )
                 // see https://docs.spring.io/spring-security/site/docs/3.2.x/reference/htmlsingle/html5/#csrf
                 .csrf(AbstractHttpConfigurer::disable)
+                // every request carries its principal, so neither a session nor a stored security context is needed
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 // make sure the authentication filter is applied before Spring Security tries
                 // to authorize the request with the lambda passed into authorizeRequests()
                 .addFilter(authenticationFilter());
+        if (properties.isRateLimitEnabled()) {
+            // authorized requests only, so unauthenticated floods do not fill the buckets
+            http.addFilterAfter(new PrincipalRateLimitFilter(principalRateLimiter()), AuthorizationFilter.class);
+        }
 
         return http.build();
     }
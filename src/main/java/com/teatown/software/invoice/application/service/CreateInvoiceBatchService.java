@@ -0,0 +1,142 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.configuration.InvoiceBatchProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Application service: renders many invoices concurrently.
+ *
+ * <p>Every invoice gets its own virtual thread, while a semaphore shared by all batches bounds how many of them
+ * render at the same time ({@code invoice.batch.max-concurrency}, defaults to the number of cores). Rendering is
+ * CPU-bound, so throughput scales with cores rather than with the number of client connections.</p>
+ *
+ * <p>A batch also has at most {@code max-concurrency} items in flight: the next item is only started once the result
+ * of an earlier one has been consumed. So when the results are written to a slow client, rendering waits instead of
+ * piling finished PDFs up on the heap.</p>
+ */
+@Service
+public class CreateInvoiceBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CreateInvoiceBatchService.class);
+
+    private final CreateInvoiceService createInvoiceService;
+    private final TaskDecorator taskDecorator;
+    private final Semaphore renderPermits;
+    private final int maxInFlight;
+
+    public CreateInvoiceBatchService(final CreateInvoiceService createInvoiceService,
+                                     final TaskDecorator taskDecorator,
+                                     final InvoiceBatchProperties properties) {
+        this.createInvoiceService = createInvoiceService;
+        this.taskDecorator = taskDecorator;
+        this.renderPermits = new Semaphore(properties.getMaxConcurrency());
+        this.maxInFlight = properties.getMaxConcurrency();
+    }
+
+    /**
+     * Outcome of a single batch item: either the rendered PDF or an error message.
+     *
+     * @param index         position of the item in the batch (0-based)
+     * @param invoiceNumber the invoice number, or {@code null} if the item could not be turned into an invoice
+     * @param pdf           the rendered PDF, or {@code null} on failure
+     * @param error         the failure reason, or {@code null} on success
+     */
+    public record Result(int index, String invoiceNumber, byte[] pdf, String error) {
+
+        static Result succeeded(final int index, final String invoiceNumber, final byte[] pdf) {
+            return new Result(index, invoiceNumber, pdf, null);
+        }
+
+        /**
+         * A failure result; the reason is the exception's message, or its type if it has none (e.g. a
+         * {@link NullPointerException}), so a failed item never looks like a successful one.
+         */
+        static Result failed(final int index, final String invoiceNumber, final Exception cause) {
+            final String message = cause.getMessage();
+            return new Result(index, invoiceNumber, null,
+                    message == null || message.isBlank() ? cause.getClass().getSimpleName() : message);
+        }
+
+        public boolean success() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Renders all given invoices and hands every result to {@code resultConsumer} on the calling thread, in
+     * completion order. A failing item (e.g. a supplier rejecting invalid input or an
+     * {@link com.teatown.software.invoice.application.exception.InvoicePdfException}) yields a failure result and does
+     * not abort the batch. If the consumer itself throws, the remaining renders are cancelled.
+     *
+     * @param invoices       suppliers of the invoices to render; evaluated on the rendering thread
+     * @param locale         the locale for PDF labels (e.g. en, es)
+     * @param resultConsumer receives one result per item
+     */
+    public void createInvoicePdfs(final List<Supplier<Invoice>> invoices, final Locale locale,
+                                  final Consumer<Result> resultConsumer) {
+        try (final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("invoice-batch-", 0).factory())) {
+            final CompletionService<Result> completion =
+                    new ExecutorCompletionService<>(task -> executor.execute(taskDecorator.decorate(task)));
+
+            try {
+                int submitted = 0;
+                int consumed = 0;
+                while (consumed < invoices.size()) {
+                    if (submitted < invoices.size() && submitted - consumed < maxInFlight) {
+                        final int index = submitted++;
+                        final Supplier<Invoice> invoice = invoices.get(index);
+                        completion.submit(() -> render(index, invoice, locale));
+                    } else {
+                        resultConsumer.accept(completion.take().get());
+                        consumed++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for batch results", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unexpected failure in batch rendering", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private Result render(final int index, final Supplier<Invoice> supplier, final Locale locale) throws InterruptedException {
+        final Invoice invoice;
+        try {
+            invoice = supplier.get();
+        } catch (RuntimeException e) {
+            return Result.failed(index, null, e);
+        }
+
+        renderPermits.acquire();
+        try {
+            // an invoice without a number gets one only once it is rendered, so a failed item uses none up
+            final RenderedInvoice rendered = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice,
+                    locale).withPriority(RenderPriority.BACKGROUND));
+            return Result.succeeded(index, rendered.invoice().invoiceNumber(), rendered.pdf());
+        } catch (RuntimeException e) {
+            log.warn("Batch item {} (invoice {}) failed", index, invoice.invoiceNumber(), e);
+            return Result.failed(index, invoice.invoiceNumber(), e);
+        } finally {
+            renderPermits.release();
+        }
+    }
+}
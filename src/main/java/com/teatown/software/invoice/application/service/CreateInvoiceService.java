@@ -1,31 +1,190 @@
 package com.teatown.software.invoice.application.service;
 
+import com.teatown.software.invoice.application.exception.DuplicateInvoiceNumberException;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort;
 import com.teatown.software.invoice.application.port.PdfGenerationPort;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
 import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceContentHash;
 import org.springframework.stereotype.Service;
 
-import java.util.Locale;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Application service: orchestrates invoice creation and PDF generation.
+ *
+ * <p>PDFs of invoices with a number the client chose are cached by their {@link InvoiceContentHash}, so
+ * re-downloading the same invoice does not render it again. An invoice numbered by the server gets a new number on
+ * every request and could never be served from the cache, so its PDF is not cached. Renders are admitted by the {@link RenderAdmissionLimiter} with the
+ * {@link RenderPriority} of the {@link InvoiceRenderRequest}, and written with its {@link PdfOutputProfile}.</p>
+ *
+ * <p>An invoice without a number is numbered by the {@link InvoiceNumberService} only once it is admitted for
+ * rendering, and the number is given back if rendering or archiving fails, so a request that is turned away or fails
+ * does not use one up. A number the client chose is claimed before the render waits for a slot, and the claim is
+ * undone if the render is not admitted or rendering or archiving fails, so a corrected retry can still use it.</p>
+ *
+ * <p>Every PDF is archived in the {@link InvoiceArchivePort} before it is returned, so it can be served again by
+ * invoice number, unless the request was made {@link InvoiceRenderRequest#withoutArchiving() without archiving}.
+ * PDFs too large to hold as a whole are spooled to a temporary file instead, which is archived from the file after the
+ * render slot was released and which callers send on afterwards, so a slow client cannot hold a slot.</p>
  */
 @Service
 public class CreateInvoiceService {
 
     private final PdfGenerationPort pdfGenerationPort;
+    private final InvoiceRenderCache renderCache;
+    private final RenderAdmissionLimiter renderLimiter;
+    private final InvoiceArchivePort archive;
+    private final InvoiceNumberService invoiceNumberService;
 
-    public CreateInvoiceService(final PdfGenerationPort pdfGenerationPort) {
+    public CreateInvoiceService(final PdfGenerationPort pdfGenerationPort, final InvoiceRenderCache renderCache,
+                                final RenderAdmissionLimiter renderLimiter, final InvoiceArchivePort archive,
+                                final InvoiceNumberService invoiceNumberService) {
         this.pdfGenerationPort = pdfGenerationPort;
+        this.renderCache = renderCache;
+        this.renderLimiter = renderLimiter;
+        this.archive = archive;
+        this.invoiceNumberService = invoiceNumberService;
     }
 
     /**
-     * Creates an invoice PDF from the given domain invoice in the given locale.
+     * Returns the content hash of the PDF the given request renders to with the current layout. Equal hashes mean
+     * equal documents, so the hash can serve as a strong HTTP entity tag.
      *
-     * @param invoice the invoice to render
-     * @param locale  the locale for PDF labels (e.g. en, es)
-     * @return PDF bytes
+     * @param request what to render; its items must not be streamed
+     * @return lowercase hex SHA-256 hash
+     * @throws IllegalArgumentException if the request streams its items, whose hash is only known once rendered
      */
-    public byte[] createInvoicePdf(final Invoice invoice, final Locale locale) {
-        return pdfGenerationPort.generate(invoice, locale);
+    public String contentHash(final InvoiceRenderRequest request) {
+        if (request.streamsItems()) {
+            throw new IllegalArgumentException("The content hash of streamed items is only known once they are rendered");
+        }
+        return InvoiceContentHash.of(request.invoice(), request.locale(), layoutFingerprint(request));
+    }
+
+    /**
+     * Creates an invoice PDF and returns it as a whole, together with its content hash and the invoice it was
+     * rendered from, which has an invoice number. For an invoice with a number the client chose, returns the cached PDF
+     * if there is one, otherwise renders and caches it. An invoice without a number is always rendered and not cached,
+     * since the number it gets is new; so is a request that streams its items, since its content hash is only known
+     * afterwards.
+     *
+     * @param request what to render
+     * @return the PDF and its content hash
+     * @throws DuplicateInvoiceNumberException if the invoice's own number was issued for another invoice
+     */
+    public RenderedInvoice createInvoicePdf(final InvoiceRenderRequest request) {
+        final boolean cacheable = !request.streamsItems() && request.invoice().invoiceNumber() != null;
+        if (cacheable) {
+            final String contentHash = contentHash(request);
+            final byte[] cached = renderCache.get(contentHash);
+            if (cached != null) {
+                // decided in memory without a lock when the PDF is archived already, as it usually is
+                if (request.archived()) {
+                    archive.archive(request.invoice(), contentHash, cached);
+                }
+                return new RenderedInvoice(request.invoice(), contentHash, cached);
+            }
+        }
+
+        final RenderedInvoice rendered = render(request, numbered -> {
+            final Invoice invoice = numbered.invoice();
+            if (!numbered.streamsItems()) {
+                return new RenderedInvoice(invoice, contentHash(numbered),
+                        pdfGenerationPort.generate(invoice, numbered.locale(), numbered.profile()));
+            }
+            final var hash = InvoiceContentHash.streamed(invoice, numbered.locale(), layoutFingerprint(numbered));
+            final var out = new ByteArrayOutputStream();
+            pdfGenerationPort.generate(invoice, hash.items(numbered.items()), numbered.locale(), numbered.profile(),
+                    out);
+            return new RenderedInvoice(invoice, hash.finish(), out.toByteArray());
+        }, pdf -> archive.archive(pdf.invoice(), pdf.contentHash(), pdf.pdf()));
+        if (cacheable) {
+            renderCache.put(rendered.contentHash(), rendered.pdf());
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders an invoice PDF into a temporary file without holding the whole document in memory, and releases the
+     * render slot before returning. Streamed items are rendered as they are pulled, so neither the items nor the
+     * document need to fit into memory. The PDF is archived from the file once the slot is released, and not cached.
+     *
+     * @param request what to render
+     * @return the spooled PDF, which the caller must close
+     * @throws DuplicateInvoiceNumberException if the invoice's own number was issued for another invoice
+     */
+    public SpooledInvoicePdf spoolInvoicePdf(final InvoiceRenderRequest request) {
+        final Path file = SpooledInvoicePdf.createFile();
+        try {
+            final SpooledInvoicePdf pdf = render(request, numbered -> {
+                final Invoice invoice = numbered.invoice();
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    if (!numbered.streamsItems()) {
+                        pdfGenerationPort.generate(invoice, invoice.items().iterator(), numbered.locale(),
+                                numbered.profile(), out);
+                        return new SpooledInvoicePdf(invoice, contentHash(numbered), file);
+                    }
+                    final var hash = InvoiceContentHash.streamed(invoice, numbered.locale(),
+                            layoutFingerprint(numbered));
+                    pdfGenerationPort.generate(invoice, hash.items(numbered.items()), numbered.locale(),
+                            numbered.profile(), out);
+                    return new SpooledInvoicePdf(invoice, hash.finish(), file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot spool the PDF of invoice " + invoice.invoiceNumber(), e);
+                }
+            }, spooled -> archive.archive(spooled.invoice(), spooled.contentHash(), file));
+            return pdf;
+        } catch (RuntimeException e) {
+            SpooledInvoicePdf.delete(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Renders the given request in a render slot, numbering its invoice once the slot is taken, and archives the
+     * result after the slot was released. If the render is not admitted, or rendering or archiving fails, the number
+     * is given back: an allocated one is released, a claim of the client's own number undone. A request without
+     * archiving issues no invoice and is rendered as it is.
+     */
+    private <T> T render(final InvoiceRenderRequest request, final Function<InvoiceRenderRequest, T> render,
+                         final Consumer<T> archiveResult) {
+        if (!request.archived()) {
+            return renderLimiter.call(request.priority(), () -> render.apply(request));
+        }
+        final Invoice invoice = request.invoice();
+        final boolean claimed = invoiceNumberService.claim(invoice);
+        final var issued = new AtomicReference<Invoice>();
+        try {
+            final T result = renderLimiter.call(request.priority(), () -> {
+                if (invoice.invoiceNumber() != null) {
+                    return render.apply(request);
+                }
+                issued.set(invoiceNumberService.issue(invoice));
+                return render.apply(request.withInvoice(issued.get()));
+            });
+            archiveResult.accept(result);
+            return result;
+        } catch (RuntimeException e) {
+            if (issued.get() != null) {
+                invoiceNumberService.release(issued.get());
+            } else if (claimed) {
+                invoiceNumberService.unclaim(invoice);
+            }
+            throw e;
+        }
+    }
+
+    private String layoutFingerprint(final InvoiceRenderRequest request) {
+        return pdfGenerationPort.layoutFingerprint(request.profile());
     }
 }
@@ -0,0 +1,40 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.application.exception.ArchivedInvoiceNotFoundException;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedPdf;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoicePage;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoiceQuery;
+import org.springframework.stereotype.Service;
+
+/**
+ * Application service: serves issued invoices from the {@link InvoiceArchivePort} instead of rendering them again.
+ * Invoices are archived by the {@link CreateInvoiceService} when they are rendered.
+ */
+@Service
+public class InvoiceArchiveService {
+
+    private final InvoiceArchivePort archive;
+
+    public InvoiceArchiveService(final InvoiceArchivePort archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Opens the PDF archived under the given invoice number with the given content hash, or its original PDF if the
+     * content hash is {@code null}. The caller must close the returned PDF.
+     *
+     * @throws ArchivedInvoiceNotFoundException if no such PDF is archived under the invoice number
+     */
+    public ArchivedPdf open(final String invoiceNumber, final String contentHash) {
+        return (contentHash == null ? archive.open(invoiceNumber) : archive.open(invoiceNumber, contentHash))
+                .orElseThrow(() -> new ArchivedInvoiceNotFoundException(invoiceNumber));
+    }
+
+    /**
+     * Returns one page of the archived invoices matching the given query, ordered by invoice date.
+     */
+    public InvoicePage find(final InvoiceQuery query) {
+        return archive.find(query);
+    }
+}
@@ -0,0 +1,236 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.application.exception.InvoiceJobNotFoundException;
+import com.teatown.software.invoice.application.exception.InvoiceJobNotReadyException;
+import com.teatown.software.invoice.application.exception.InvoiceJobQueueFullException;
+import com.teatown.software.invoice.application.port.InvoiceJobJournalPort;
+import com.teatown.software.invoice.application.port.PdfBlobStorePort;
+import com.teatown.software.invoice.configuration.InvoiceJobProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceJob;
+import com.teatown.software.invoice.domain.InvoiceJobStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application service: renders invoices asynchronously, decoupling request latency from render cost.
+ *
+ * <p>Accepted jobs are recorded in the {@link InvoiceJobJournalPort} before they are queued, so jobs that were queued
+ * or running when the application stopped are queued again on startup. A fixed pool of workers
+ * ({@code invoice.jobs.workers}) renders the queued jobs into the {@link PdfBlobStorePort}; an invoice without a
+ * number gets one when its job is rendered, not when it is accepted. Each job runs with the trace context of the
+ * request that submitted it, via the {@link TaskDecorator}. Finished jobs and their PDFs are purged after
+ * {@code invoice.jobs.result-ttl}.</p>
+ */
+@Service
+public class InvoiceJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceJobService.class);
+
+    private final CreateInvoiceService createInvoiceService;
+    private final InvoiceJobJournalPort journal;
+    private final PdfBlobStorePort blobStore;
+    private final TaskDecorator taskDecorator;
+    private final Clock clock;
+    private final int maxQueued;
+    private final Duration resultTtl;
+    private final Duration retryAfter;
+
+    private final Map<String, InvoiceJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ExecutorService workers;
+
+    @Autowired
+    public InvoiceJobService(final CreateInvoiceService createInvoiceService,
+                             final InvoiceJobJournalPort journal,
+                             final PdfBlobStorePort blobStore,
+                             final TaskDecorator taskDecorator,
+                             final InvoiceJobProperties properties) {
+        this(createInvoiceService, journal, blobStore, taskDecorator, properties, Clock.systemUTC());
+    }
+
+    InvoiceJobService(final CreateInvoiceService createInvoiceService,
+                      final InvoiceJobJournalPort journal,
+                      final PdfBlobStorePort blobStore,
+                      final TaskDecorator taskDecorator,
+                      final InvoiceJobProperties properties,
+                      final Clock clock) {
+        this.createInvoiceService = createInvoiceService;
+        this.journal = journal;
+        this.blobStore = blobStore;
+        this.taskDecorator = taskDecorator;
+        this.clock = clock;
+        this.maxQueued = properties.getMaxQueued();
+        this.resultTtl = properties.getResultTtl();
+        this.retryAfter = properties.getRetryAfter();
+        this.workers = Executors.newFixedThreadPool(properties.getWorkers(),
+                Thread.ofPlatform().name("invoice-job-", 0).daemon().factory());
+        recover();
+    }
+
+    /**
+     * Accepts an invoice for asynchronous rendering and returns the queued job.
+     *
+     * @throws InvoiceJobQueueFullException if {@code invoice.jobs.max-queued} jobs are already waiting
+     */
+    public InvoiceJob submit(final Invoice invoice, final Locale locale) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new InvoiceJobQueueFullException("Too many queued invoice jobs, try again later", retryAfter);
+        }
+        final var job = InvoiceJob.queued(UUID.randomUUID().toString(), invoice.invoiceNumber(),
+                locale.toLanguageTag(), clock.instant());
+        try {
+            journal.submitted(job, invoice);
+        } catch (RuntimeException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+        jobs.put(job.id(), job);
+        enqueue(job, invoice);
+        return job;
+    }
+
+    /**
+     * Returns the current state of the given job.
+     *
+     * @throws InvoiceJobNotFoundException if the job is unknown or expired
+     */
+    public InvoiceJob job(final String jobId) {
+        final InvoiceJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new InvoiceJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Opens the PDF of the given job. The caller must close the returned stream.
+     *
+     * @throws InvoiceJobNotFoundException if the job is unknown or expired
+     * @throws InvoiceJobNotReadyException if the job has not finished successfully
+     */
+    public InputStream openPdf(final String jobId) {
+        final InvoiceJob job = job(jobId);
+        if (job.status() != InvoiceJobStatus.DONE) {
+            throw new InvoiceJobNotReadyException(jobId, job.status());
+        }
+        return blobStore.open(jobId).orElseThrow(() -> new InvoiceJobNotFoundException(jobId));
+    }
+
+    int queuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Forgets finished jobs older than {@code invoice.jobs.result-ttl} and deletes their PDFs.
+     */
+    @Scheduled(
+            initialDelayString = "${invoice.jobs.purge-interval:1m}",
+            fixedDelayString = "${invoice.jobs.purge-interval:1m}")
+    public void purgeExpired() {
+        final Instant expiredBefore = clock.instant().minus(resultTtl);
+        for (final InvoiceJob job : jobs.values()) {
+            if (job.status().finished() && job.finishedAt().isBefore(expiredBefore)) {
+                try {
+                    blobStore.delete(job.id());
+                    journal.removed(job.id());
+                    jobs.remove(job.id());
+                } catch (RuntimeException e) {
+                    log.warn("Failed to purge invoice job {}", job.id(), e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // running jobs stay RUNNING in the journal and are queued again on the next start
+        workers.shutdownNow();
+    }
+
+    private void recover() {
+        int requeued = 0;
+        for (final InvoiceJobJournalPort.JournaledJob journaled : journal.replay()) {
+            final InvoiceJob job = journaled.job();
+            if (job.status().finished()) {
+                jobs.put(job.id(), job);
+                continue;
+            }
+            final InvoiceJob queuedJob = InvoiceJob.queued(job.id(), job.invoiceNumber(), job.languageTag(),
+                    job.submittedAt());
+            jobs.put(job.id(), queuedJob);
+            queued.incrementAndGet();
+            enqueue(queuedJob, journaled.invoice());
+            requeued++;
+        }
+        if (requeued > 0) {
+            log.info("Queued {} unfinished invoice jobs again", requeued);
+        }
+    }
+
+    private void enqueue(final InvoiceJob job, final Invoice invoice) {
+        workers.execute(taskDecorator.decorate(() -> run(job, invoice)));
+    }
+
+    private void run(final InvoiceJob job, final Invoice invoice) {
+        queued.decrementAndGet();
+        final Locale locale = Locale.forLanguageTag(job.languageTag());
+        try {
+            update(job.running());
+            final String invoiceNumber;
+            try (SpooledInvoicePdf pdf = createInvoiceService.spoolInvoicePdf(
+                    InvoiceRenderRequest.of(invoice, locale).withPriority(RenderPriority.BACKGROUND))) {
+                blobStore.write(job.id(), out -> {
+                    try {
+                        pdf.transferTo(out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot store the PDF of invoice job " + job.id(), e);
+                    }
+                });
+                invoiceNumber = pdf.invoice().invoiceNumber();
+            }
+            update(job.done(clock.instant(), invoiceNumber));
+        } catch (RuntimeException e) {
+            log.warn("Invoice job {} (invoice {}) failed", job.id(), job.invoiceNumber(), e);
+            fail(job.failed(clock.instant(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Records a failed job. It is marked failed in memory even if the journal cannot record it, so it never stays
+     * queued or running; the journal then still has it unfinished, and it is rendered again after the next start.
+     */
+    private void fail(final InvoiceJob job) {
+        jobs.put(job.id(), job);
+        try {
+            journal.updated(job);
+        } catch (RuntimeException e) {
+            log.error("Cannot record the failure of invoice job {} in the journal", job.id(), e);
+        }
+    }
+
+    private void update(final InvoiceJob job) {
+        journal.updated(job);
+        jobs.put(job.id(), job);
+    }
+}
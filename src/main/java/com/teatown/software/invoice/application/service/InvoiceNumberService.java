@@ -0,0 +1,247 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.application.exception.DuplicateInvoiceNumberException;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort;
+import com.teatown.software.invoice.application.port.InvoiceNumberReservationPort;
+import com.teatown.software.invoice.configuration.InvoiceNumberingProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceContentHash;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application service: issues invoice numbers on the server. Numbers look like {@code <prefix>-<year>-<sequence>},
+ * e.g. {@code INV-2025-000042}, with one sequence per prefix and invoice year. The prefix is configured per company
+ * ({@code invoice.numbering.prefixes}, keyed by company id).
+ *
+ * <p>Allocation is lock-free: each sequence is an {@link AtomicLong}. Numbers are reserved in blocks of
+ * {@code invoice.numbering.block-size} through the {@link InvoiceNumberReservationPort}, which persists the end of
+ * the block before a number of it is handed out, so a restart never issues a number twice. Only crossing a block
+ * boundary takes the sequence's lock. A clean shutdown gives the unused rest of the block back; a crash loses at most
+ * one block per sequence.</p>
+ *
+ * <p>Callers allocate a number only once the invoice is admitted for rendering, and {@link #release(Invoice) give it
+ * back} if the render fails, so a rejected or failed request does not leave a gap in the sequence. A number can only
+ * be given back while no later one was allocated; otherwise it stays unused.</p>
+ *
+ * <p>Issued numbers are remembered in a bounded lock-free set. A number that the client chose itself is rejected
+ * with {@link DuplicateInvoiceNumberException} if it was issued recently, or archived in the
+ * {@link InvoiceArchivePort}, for different content, while submitting the same invoice again (e.g. to render it in
+ * another language) is allowed. Allocation skips numbers that are in either.</p>
+ */
+@Service
+public class InvoiceNumberService implements MeterBinder {
+
+    private final InvoiceNumberReservationPort reservations;
+    private final InvoiceArchivePort archive;
+    private final String defaultPrefix;
+    private final Map<String, String> prefixes;
+    private final int digits;
+    private final int blockSize;
+    private final ConcurrentHashMap<String, Sequence> sequences = new ConcurrentHashMap<>();
+    private final RecentInvoiceNumbers recent;
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public InvoiceNumberService(final InvoiceNumberReservationPort reservations, final InvoiceArchivePort archive,
+                                final InvoiceNumberingProperties properties) {
+        if (properties.getBlockSize() < 1) {
+            throw new IllegalArgumentException("invoice.numbering.block-size must be positive");
+        }
+        this.reservations = reservations;
+        this.archive = archive;
+        this.defaultPrefix = properties.getDefaultPrefix();
+        this.prefixes = Map.copyOf(properties.getPrefixes());
+        this.digits = properties.getDigits();
+        this.blockSize = properties.getBlockSize();
+        this.recent = new RecentInvoiceNumbers(properties.getRecentCapacity());
+    }
+
+    /**
+     * Returns the invoice with an invoice number: a new one if it has none, otherwise its own, which is
+     * {@link #claim(Invoice) claimed}. Allocate a number only once the invoice is about to be rendered.
+     *
+     * @throws DuplicateInvoiceNumberException if the invoice's own number was issued for another invoice
+     */
+    public Invoice issue(final Invoice invoice) {
+        if (invoice.invoiceNumber() != null) {
+            claim(invoice);
+            return invoice;
+        }
+        final String key = sequenceKey(invoice);
+        final Sequence sequence = sequences.computeIfAbsent(key, k -> new Sequence(k, Math.max(1, reservations.next(k))));
+        while (true) {
+            final Invoice numbered = invoice.withInvoiceNumber(format(key, sequence.next()));
+            allocated.increment();
+            // skips numbers that a client already chose itself
+            if (!archive.contains(numbered.invoiceNumber())
+                    && recent.claim(numbered.invoiceNumber(), fingerprint(numbered))) {
+                return numbered;
+            }
+        }
+    }
+
+    /**
+     * Claims the invoice's own number. Does nothing for an invoice without a number, which gets one when it is
+     * rendered.
+     *
+     * @return whether this call claimed the number; {@code false} if it was claimed for the same invoice before, or
+     *         the invoice has none
+     * @throws DuplicateInvoiceNumberException if the number was issued recently or archived for another invoice
+     */
+    public boolean claim(final Invoice invoice) {
+        final String invoiceNumber = invoice.invoiceNumber();
+        if (invoiceNumber == null) {
+            return false;
+        }
+        final long fingerprint = fingerprint(invoice);
+        // recent numbers were checked against the archive when they were claimed
+        final boolean wasRecent = recent.contains(invoiceNumber);
+        final boolean archivedForOther = !wasRecent && archive.invoice(invoiceNumber)
+                .filter(archived -> fingerprint(archived) != fingerprint)
+                .isPresent();
+        if (archivedForOther || !recent.claim(invoiceNumber, fingerprint)) {
+            duplicates.increment();
+            throw new DuplicateInvoiceNumberException(invoiceNumber);
+        }
+        return !wasRecent;
+    }
+
+    /**
+     * Undoes a {@link #claim(Invoice) claim} of the invoice's own number, because no PDF was issued for it: the render
+     * was not admitted or failed. The number can then be claimed for another invoice.
+     */
+    public void unclaim(final Invoice invoice) {
+        recent.forget(invoice.invoiceNumber());
+    }
+
+    /**
+     * Gives back a number that {@link #issue(Invoice)} allocated for the given invoice, because its render failed.
+     * The number is handed out again if no later number of its sequence was allocated in the meantime.
+     */
+    public void release(final Invoice numbered) {
+        final Sequence sequence = sequences.get(sequenceKey(numbered));
+        if (sequence != null && sequence.giveBack(numbered.invoiceNumber())) {
+            released.increment();
+        }
+    }
+
+    /**
+     * Gives the unused rest of every reserved block back, so the next start continues without a gap.
+     */
+    @PreDestroy
+    public void close() {
+        sequences.values().forEach(Sequence::release);
+    }
+
+    private String sequenceKey(final Invoice invoice) {
+        final String companyId = invoice.companyDetails() == null ? null : invoice.companyDetails().companyId();
+        final String prefix = companyId == null ? defaultPrefix : prefixes.getOrDefault(companyId, defaultPrefix);
+        return prefix + '-' + invoice.invoiceDate().getYear();
+    }
+
+    private String format(final String key, final long number) {
+        final String digitsOfNumber = Long.toString(number);
+        final var invoiceNumber = new StringBuilder(key.length() + 1 + Math.max(digits, digitsOfNumber.length()))
+                .append(key).append('-');
+        for (int i = digitsOfNumber.length(); i < digits; i++) {
+            invoiceNumber.append('0');
+        }
+        return invoiceNumber.append(digitsOfNumber).toString();
+    }
+
+    private static long fingerprint(final Invoice invoice) {
+        return HexFormat.fromHexDigitsToLong(InvoiceContentHash.of(invoice, Locale.ROOT, ""), 0, 16);
+    }
+
+    boolean isRecent(final String invoiceNumber) {
+        return recent.contains(invoiceNumber);
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionCounter.builder("invoice.numbers.allocated", allocated, LongAdder::sum)
+                .description("Number of invoice numbers allocated by the server")
+                .register(registry);
+        FunctionCounter.builder("invoice.numbers.released", released, LongAdder::sum)
+                .description("Number of allocated invoice numbers given back after a failed render")
+                .register(registry);
+        FunctionCounter.builder("invoice.numbers.reservations", reserved, LongAdder::sum)
+                .description("Number of invoice number blocks reserved durably")
+                .register(registry);
+        FunctionCounter.builder("invoice.numbers.duplicates", duplicates, LongAdder::sum)
+                .description("Number of invoices rejected because their number was already issued")
+                .register(registry);
+        Gauge.builder("invoice.numbers.recent", recent, RecentInvoiceNumbers::size)
+                .description("Number of recently issued invoice numbers kept for duplicate detection")
+                .register(registry);
+    }
+
+    /**
+     * One number sequence. {@code limit} is the first number that is not reserved durably yet; it is only raised
+     * after the reservation is persisted, so a number below it is safe to hand out.
+     */
+    private final class Sequence {
+
+        private final String key;
+        private final AtomicLong next;
+        private volatile long limit;
+
+        Sequence(final String key, final long start) {
+            this.key = key;
+            this.next = new AtomicLong(start);
+            this.limit = start;
+        }
+
+        long next() {
+            final long number = next.getAndIncrement();
+            if (number >= limit) {
+                reserve(number);
+            }
+            return number;
+        }
+
+        private synchronized void reserve(final long number) {
+            if (number >= limit) {
+                final long upTo = number + blockSize;
+                reservations.reserve(key, upTo);
+                limit = upTo;
+                reserved.increment();
+            }
+        }
+
+        /**
+         * Steps the sequence back over the given number if it is the last one allocated.
+         */
+        boolean giveBack(final String invoiceNumber) {
+            final long number = next.get() - 1;
+            if (number < 1 || !format(key, number).equals(invoiceNumber)) {
+                return false;
+            }
+            // forgotten first, so that it can be claimed again as soon as it is handed out again
+            recent.forget(invoiceNumber);
+            return next.compareAndSet(number + 1, number);
+        }
+
+        synchronized void release() {
+            // forces concurrent allocations into reserve() before the unused numbers are given back
+            limit = 0;
+            final long unused = next.get();
+            reservations.reserve(key, unused);
+            limit = unused;
+        }
+    }
+}
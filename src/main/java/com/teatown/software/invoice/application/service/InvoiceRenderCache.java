@@ -0,0 +1,225 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.configuration.InvoiceCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed cache of rendered invoice PDFs, keyed by
+ * {@link com.teatown.software.invoice.domain.InvoiceContentHash}.
+ *
+ * <p>Entries are kept in memory in least-recently-used order, bounded by {@code invoice.cache.max-entries} and
+ * {@code invoice.cache.max-bytes}. If {@code invoice.cache.spill-directory} is set, entries evicted from memory are
+ * written there (bounded by {@code invoice.cache.spill-max-bytes}) and promoted back to memory on their next hit.
+ * Disk I/O happens outside the lock, so a slow disk never blocks lookups of other entries.</p>
+ */
+@Component
+public class InvoiceRenderCache {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceRenderCache.class);
+
+    private static final String SPILL_SUFFIX = ".pdf";
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Path spillDirectory;
+    private final long spillMaxBytes;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> spilled = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long spilledBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public InvoiceRenderCache(final InvoiceCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.maxEntries = properties.getMaxEntries();
+        this.maxBytes = properties.getMaxBytes().toBytes();
+        this.spillDirectory = enabled ? properties.getSpillDirectory() : null;
+        this.spillMaxBytes = properties.getSpillMaxBytes().toBytes();
+        if (spillDirectory != null) {
+            prepareSpillDirectory();
+        }
+    }
+
+    /**
+     * Returns the cached PDF for the given content hash, or {@code null} if it is not cached.
+     */
+    public byte[] get(final String key) {
+        if (!enabled) {
+            return null;
+        }
+        final boolean onDisk;
+        synchronized (this) {
+            final byte[] pdf = entries.get(key);
+            if (pdf != null) {
+                hits.increment();
+                return pdf;
+            }
+            // claim the spilled file, so a concurrent eviction cannot delete it while it is being read
+            onDisk = spilled.containsKey(key);
+            if (onDisk) {
+                spilledBytes -= spilled.remove(key);
+            }
+        }
+        final byte[] pdf = onDisk ? readSpilled(key) : null;
+        if (pdf == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        store(key, pdf);
+        return pdf;
+    }
+
+    /**
+     * Caches the PDF rendered for the given content hash. PDFs larger than {@code invoice.cache.max-bytes} are not
+     * cached.
+     */
+    public void put(final String key, final byte[] pdf) {
+        if (!enabled || pdf.length > maxBytes) {
+            return;
+        }
+        puts.increment();
+        store(key, pdf);
+    }
+
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized long spilledSize() {
+        return spilled.size();
+    }
+
+    public synchronized long spilledBytes() {
+        return spilledBytes;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    /**
+     * Number of entries evicted from memory (whether or not they were spilled to disk).
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void store(final String key, final byte[] pdf) {
+        final List<Map.Entry<String, byte[]>> evicted = new ArrayList<>();
+        synchronized (this) {
+            final byte[] previous = entries.put(key, pdf);
+            bytes += pdf.length - (previous == null ? 0 : previous.length);
+            final Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                final Map.Entry<String, byte[]> entry = eldest.next();
+                eldest.remove();
+                bytes -= entry.getValue().length;
+                evicted.add(entry);
+            }
+        }
+        evictions.add(evicted.size());
+        if (spillDirectory != null) {
+            evicted.forEach(entry -> spill(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void spill(final String key, final byte[] pdf) {
+        if (pdf.length > spillMaxBytes) {
+            return;
+        }
+        try {
+            final Path temp = Files.createTempFile(spillDirectory, key, ".tmp");
+            Files.write(temp, pdf);
+            Files.move(temp, spillFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to spill cached invoice PDF {} to {}", key, spillDirectory, e);
+            return;
+        }
+
+        final List<String> dropped = new ArrayList<>();
+        synchronized (this) {
+            final Long previous = spilled.put(key, (long) pdf.length);
+            spilledBytes += pdf.length - (previous == null ? 0 : previous);
+            final Iterator<Map.Entry<String, Long>> eldest = spilled.entrySet().iterator();
+            while (spilledBytes > spillMaxBytes && eldest.hasNext()) {
+                final Map.Entry<String, Long> entry = eldest.next();
+                eldest.remove();
+                spilledBytes -= entry.getValue();
+                dropped.add(entry.getKey());
+            }
+        }
+        dropped.forEach(this::deleteSpilled);
+    }
+
+    private byte[] readSpilled(final String key) {
+        try {
+            return Files.readAllBytes(spillFile(key));
+        } catch (IOException e) {
+            log.warn("Failed to read spilled invoice PDF {} from {}", key, spillDirectory, e);
+            return null;
+        } finally {
+            deleteSpilled(key);
+        }
+    }
+
+    private void deleteSpilled(final String key) {
+        try {
+            Files.deleteIfExists(spillFile(key));
+        } catch (IOException e) {
+            log.warn("Failed to delete spilled invoice PDF {} from {}", key, spillDirectory, e);
+        }
+    }
+
+    private Path spillFile(final String key) {
+        return spillDirectory.resolve(key + SPILL_SUFFIX);
+    }
+
+    /**
+     * Creates the spill directory and removes files left over by a previous run, which are not indexed.
+     */
+    private void prepareSpillDirectory() {
+        try {
+            Files.createDirectories(spillDirectory);
+            try (var files = Files.newDirectoryStream(spillDirectory, "*{" + SPILL_SUFFIX + ",.tmp}")) {
+                for (final Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare invoice cache spill directory " + spillDirectory, e);
+        }
+    }
+}
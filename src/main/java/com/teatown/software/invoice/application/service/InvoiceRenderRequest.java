@@ -0,0 +1,88 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * What to render for {@link CreateInvoiceService}: the invoice, its language and how to render it. Every option is
+ * honoured whether the PDF is returned as a whole or streamed.
+ *
+ * @param invoice  the invoice to render
+ * @param items    the line items to render instead of {@link Invoice#items()}, pulled one at a time, or {@code null}
+ *                 to render the invoice's own items
+ * @param locale   the locale for PDF labels (e.g. en, es)
+ * @param profile  the output profile, or {@code null} for the configured default
+ * @param priority how to wait for a render slot
+ * @param archived whether the PDF is kept in the archive; {@code false} only for renders that issue no invoice
+ */
+public record InvoiceRenderRequest(
+        Invoice invoice,
+        Iterator<InvoiceItem> items,
+        Locale locale,
+        PdfOutputProfile profile,
+        RenderPriority priority,
+        boolean archived
+) {
+
+    public InvoiceRenderRequest {
+        Objects.requireNonNull(invoice, "invoice");
+        Objects.requireNonNull(locale, "locale");
+        Objects.requireNonNull(priority, "priority");
+    }
+
+    /**
+     * Returns an interactive, archived request for the given invoice with its own items and the default output
+     * profile.
+     */
+    public static InvoiceRenderRequest of(final Invoice invoice, final Locale locale) {
+        return new InvoiceRenderRequest(invoice, null, locale, null, RenderPriority.INTERACTIVE, true);
+    }
+
+    /**
+     * Returns a copy of this request for the given invoice, e.g. the same one with an invoice number.
+     */
+    public InvoiceRenderRequest withInvoice(final Invoice invoice) {
+        return new InvoiceRenderRequest(invoice, items, locale, profile, priority, archived);
+    }
+
+    /**
+     * Returns a copy of this request that renders the given items instead of the invoice's own.
+     */
+    public InvoiceRenderRequest withItems(final Iterator<InvoiceItem> items) {
+        return new InvoiceRenderRequest(invoice, items, locale, profile, priority, archived);
+    }
+
+    /**
+     * Returns a copy of this request with the given output profile, {@code null} for the default.
+     */
+    public InvoiceRenderRequest withProfile(final PdfOutputProfile profile) {
+        return new InvoiceRenderRequest(invoice, items, locale, profile, priority, archived);
+    }
+
+    /**
+     * Returns a copy of this request with the given render priority.
+     */
+    public InvoiceRenderRequest withPriority(final RenderPriority priority) {
+        return new InvoiceRenderRequest(invoice, items, locale, profile, priority, archived);
+    }
+
+    /**
+     * Returns a copy of this request whose PDF is not archived, for renders that issue no invoice.
+     */
+    public InvoiceRenderRequest withoutArchiving() {
+        return new InvoiceRenderRequest(invoice, items, locale, profile, priority, false);
+    }
+
+    /**
+     * Returns whether the items are streamed instead of taken from the invoice. The content hash of such a request is
+     * only known once the items have been pulled.
+     */
+    public boolean streamsItems() {
+        return items != null;
+    }
+}
@@ -0,0 +1,73 @@
+package com.teatown.software.invoice.application.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free set of the most recently issued invoice numbers, each with a fingerprint of the invoice it was issued
+ * for. Numbers are remembered in a {@link ConcurrentHashMap}; a ring of the same capacity records the insertion order
+ * and evicts the oldest claim once the ring wraps around. A number that was forgotten and claimed again sits in the
+ * ring twice, so a slot only evicts the claim it recorded, never a newer claim of the same number.
+ */
+final class RecentInvoiceNumbers {
+
+    private final ConcurrentHashMap<String, Claim> claims;
+    private final AtomicReferenceArray<Claim> ring;
+    private final AtomicLong cursor = new AtomicLong();
+
+    RecentInvoiceNumbers(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.claims = new ConcurrentHashMap<>(capacity);
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Claims the given number for an invoice with the given fingerprint. Returns {@code false} if the number was
+     * claimed recently for an invoice with a different fingerprint; claiming it again for the same invoice succeeds.
+     */
+    boolean claim(final String invoiceNumber, final long fingerprint) {
+        final var claim = new Claim(invoiceNumber, fingerprint);
+        final Claim claimed = claims.putIfAbsent(invoiceNumber, claim);
+        if (claimed != null) {
+            return claimed.fingerprint == fingerprint;
+        }
+        final int slot = (int) (cursor.getAndIncrement() % ring.length());
+        final Claim evicted = ring.getAndSet(slot, claim);
+        if (evicted != null) {
+            claims.remove(evicted.invoiceNumber, evicted);
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the given number; its slot in the ring is freed when the ring wraps around.
+     */
+    void forget(final String invoiceNumber) {
+        claims.remove(invoiceNumber);
+    }
+
+    boolean contains(final String invoiceNumber) {
+        return claims.containsKey(invoiceNumber);
+    }
+
+    int size() {
+        return claims.size();
+    }
+
+    /**
+     * A claim as recorded in the ring; compared by identity, so evicting it cannot remove a newer claim.
+     */
+    private static final class Claim {
+
+        private final String invoiceNumber;
+        private final long fingerprint;
+
+        Claim(final String invoiceNumber, final long fingerprint) {
+            this.invoiceNumber = invoiceNumber;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.application.exception.RenderCapacityExceededException;
+import com.teatown.software.invoice.configuration.InvoiceRenderProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of PDF renders running at the same time ({@code invoice.render.max-concurrent}, defaults to the
+ * number of cores). Rendering is CPU-bound, so running more renders than cores only adds latency to all of them.
+ *
+ * <p>Interactive renders that find all slots busy wait at most {@code invoice.render.max-wait}, and are rejected right
+ * away if {@code invoice.render.max-queued} renders are already waiting. A rejected client gets a fast error with a
+ * retry hint instead of an ever-growing queueing delay.</p>
+ */
+@Component
+public class RenderAdmissionLimiter {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public RenderAdmissionLimiter(final InvoiceRenderProperties properties) {
+        this.maxConcurrent = properties.getMaxConcurrent();
+        this.maxQueued = properties.getMaxQueued();
+        this.maxWait = properties.getMaxWait();
+        this.retryAfter = properties.getRetryAfter();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Runs the given render once a slot is free.
+     *
+     * @throws RenderCapacityExceededException if an interactive render is not admitted in time
+     */
+    public <T> T call(final RenderPriority priority, final Supplier<T> render) {
+        acquire(priority);
+        try {
+            return render.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Number of renders currently waiting for a slot.
+     */
+    public int queueDepth() {
+        return waiting.get();
+    }
+
+    /**
+     * Number of renders currently running.
+     */
+    public int activeRenders() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public long admittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * Total time admitted renders spent waiting for a slot.
+     */
+    public double totalWaitTime(final TimeUnit unit) {
+        return (double) waitNanos.sum() / unit.toNanos(1);
+    }
+
+    public long rejectionCount() {
+        return rejections.sum();
+    }
+
+    private void acquire(final RenderPriority priority) {
+        if (permits.tryAcquire()) {
+            admitted.increment();
+            return;
+        }
+        if (priority == RenderPriority.INTERACTIVE && waiting.get() >= maxQueued) {
+            throw reject("Too many renders waiting");
+        }
+
+        final long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (priority == RenderPriority.BACKGROUND) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw reject("No render slot became free within " + maxWait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted while waiting for a render slot");
+        } finally {
+            waiting.decrementAndGet();
+        }
+        admitted.increment();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    private RenderCapacityExceededException reject(final String reason) {
+        rejections.increment();
+        return new RenderCapacityExceededException(reason, retryAfter);
+    }
+}
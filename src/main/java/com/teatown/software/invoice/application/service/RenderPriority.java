@@ -0,0 +1,19 @@
+package com.teatown.software.invoice.application.service;
+
+/**
+ * How a render waits for a free render slot, see {@link RenderAdmissionLimiter}.
+ */
+public enum RenderPriority {
+
+    /**
+     * A client is waiting for the result: the render is rejected if no slot frees up within
+     * {@code invoice.render.max-wait} or too many renders are already waiting.
+     */
+    INTERACTIVE,
+
+    /**
+     * Queued work (batches, asynchronous jobs) that is already bounded by its own pool: the render waits for a slot
+     * as long as it takes.
+     */
+    BACKGROUND
+}
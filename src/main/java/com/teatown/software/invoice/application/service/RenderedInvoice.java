@@ -0,0 +1,14 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.domain.Invoice;
+
+/**
+ * An invoice PDF returned as a whole by {@link CreateInvoiceService}.
+ *
+ * @param invoice     the invoice the PDF was rendered from
+ * @param contentHash the lowercase hex SHA-256 content hash, see
+ *                    {@link com.teatown.software.invoice.domain.InvoiceContentHash}
+ * @param pdf         the PDF bytes
+ */
+public record RenderedInvoice(Invoice invoice, String contentHash, byte[] pdf) {
+}
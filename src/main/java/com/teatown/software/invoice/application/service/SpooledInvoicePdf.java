@@ -0,0 +1,88 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.domain.Invoice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An invoice PDF rendered by {@link CreateInvoiceService} into a temporary file, so it can be sent to a client after
+ * the render slot was released. Closing it deletes the file.
+ */
+public final class SpooledInvoicePdf implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpooledInvoicePdf.class);
+
+    private final Invoice invoice;
+    private final String contentHash;
+    private final Path file;
+
+    SpooledInvoicePdf(final Invoice invoice, final String contentHash, final Path file) {
+        this.invoice = invoice;
+        this.contentHash = contentHash;
+        this.file = file;
+    }
+
+    /**
+     * Returns the invoice the PDF was rendered from.
+     */
+    public Invoice invoice() {
+        return invoice;
+    }
+
+    /**
+     * Returns the lowercase hex SHA-256 content hash, see
+     * {@link com.teatown.software.invoice.domain.InvoiceContentHash}.
+     */
+    public String contentHash() {
+        return contentHash;
+    }
+
+    public long size() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the size of spooled PDF " + file, e);
+        }
+    }
+
+    /**
+     * Writes the PDF to the given stream, which is not closed.
+     */
+    public void transferTo(final OutputStream out) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            in.transferTo(out);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        delete(file);
+    }
+
+    static Path createFile() {
+        try {
+            return Files.createTempFile("invoice-", ".pdf");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create spool file for an invoice PDF", e);
+        }
+    }
+
+    static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete spooled PDF {}", file, e);
+        }
+    }
+}
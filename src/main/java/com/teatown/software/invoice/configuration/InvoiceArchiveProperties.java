@@ -0,0 +1,42 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for the archive of issued invoice PDFs.
+ */
+@ConfigurationProperties(prefix = "invoice.archive")
+public class InvoiceArchiveProperties {
+
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "invoice-archive");
+    private DataSize segmentSize = DataSize.ofMegabytes(256);
+    private Duration maintenanceInterval = Duration.ofMinutes(10);
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Duration getMaintenanceInterval() {
+        return maintenanceInterval;
+    }
+
+    public void setMaintenanceInterval(Duration maintenanceInterval) {
+        this.maintenanceInterval = maintenanceInterval;
+    }
+}
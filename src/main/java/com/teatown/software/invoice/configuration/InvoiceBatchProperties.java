@@ -0,0 +1,29 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration for bulk invoice generation.
+ */
+@ConfigurationProperties(prefix = "invoice.batch")
+public class InvoiceBatchProperties {
+
+    private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+    private int maxSize = 1000;
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+}
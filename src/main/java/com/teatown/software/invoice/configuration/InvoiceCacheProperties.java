@@ -0,0 +1,59 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for the cache of rendered invoice PDFs.
+ */
+@ConfigurationProperties(prefix = "invoice.cache")
+public class InvoiceCacheProperties {
+
+    private boolean enabled = true;
+    private int maxEntries = 1000;
+    private DataSize maxBytes = DataSize.ofMegabytes(64);
+    private Path spillDirectory;
+    private DataSize spillMaxBytes = DataSize.ofMegabytes(512);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public DataSize getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(DataSize maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public void setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public DataSize getSpillMaxBytes() {
+        return spillMaxBytes;
+    }
+
+    public void setSpillMaxBytes(DataSize spillMaxBytes) {
+        this.spillMaxBytes = spillMaxBytes;
+    }
+}
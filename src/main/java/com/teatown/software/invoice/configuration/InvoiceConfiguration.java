@@ -2,8 +2,14 @@ package com.teatown.software.invoice.configuration;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
-@EnableConfigurationProperties(InvoicePdfProperties.class)
+@EnableScheduling
+@EnableConfigurationProperties({InvoicePdfProperties.class, InvoiceArchiveProperties.class,
+        InvoiceBatchProperties.class, InvoiceCacheProperties.class, InvoiceIdempotencyProperties.class,
+        InvoiceJobProperties.class, InvoiceLargeRequestProperties.class, InvoiceNumberingProperties.class,
+        InvoiceRenderProperties.class,
+        InvoiceSecurityProperties.class, InvoiceTotalsProperties.class, InvoiceWarmUpProperties.class})
 public class InvoiceConfiguration {
 }
@@ -0,0 +1,50 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration for responses stored under an {@code Idempotency-Key}.
+ */
+@ConfigurationProperties(prefix = "invoice.idempotency")
+public class InvoiceIdempotencyProperties {
+
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofHours(24);
+    private int maxEntries = 10_000;
+    private DataSize maxBytes = DataSize.ofMegabytes(128);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public DataSize getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(DataSize maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+}
@@ -0,0 +1,68 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for asynchronous invoice jobs.
+ */
+@ConfigurationProperties(prefix = "invoice.jobs")
+public class InvoiceJobProperties {
+
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "invoice-jobs");
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int maxQueued = 10_000;
+    private Duration resultTtl = Duration.ofHours(1);
+    private Duration purgeInterval = Duration.ofMinutes(1);
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public Duration getResultTtl() {
+        return resultTtl;
+    }
+
+    public void setResultTtl(Duration resultTtl) {
+        this.resultTtl = resultTtl;
+    }
+
+    public Duration getPurgeInterval() {
+        return purgeInterval;
+    }
+
+    public void setPurgeInterval(Duration purgeInterval) {
+        this.purgeInterval = purgeInterval;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,30 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration for invoice requests read with the streaming parser ({@code POST /api/v1/invoices/large}).
+ */
+@ConfigurationProperties(prefix = "invoice.large-requests")
+public class InvoiceLargeRequestProperties {
+
+    private int maxItems = 1_000_000;
+    private DataSize maxSpoolSize = DataSize.ofMegabytes(512);
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    public DataSize getMaxSpoolSize() {
+        return maxSpoolSize;
+    }
+
+    public void setMaxSpoolSize(DataSize maxSpoolSize) {
+        this.maxSpoolSize = maxSpoolSize;
+    }
+}
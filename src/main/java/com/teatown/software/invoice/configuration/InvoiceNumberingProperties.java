@@ -0,0 +1,72 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for invoice numbers issued by the server.
+ */
+@ConfigurationProperties(prefix = "invoice.numbering")
+public class InvoiceNumberingProperties {
+
+    private Path file = Path.of(System.getProperty("java.io.tmpdir"), "invoice-numbers.properties");
+    private String defaultPrefix = "INV";
+    private Map<String, String> prefixes = new HashMap<>();
+    private int digits = 6;
+    private int blockSize = 100;
+    private int recentCapacity = 100_000;
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public String getDefaultPrefix() {
+        return defaultPrefix;
+    }
+
+    public void setDefaultPrefix(String defaultPrefix) {
+        this.defaultPrefix = defaultPrefix;
+    }
+
+    /**
+     * Prefix per company, keyed by {@code companyDetails.companyId}.
+     */
+    public Map<String, String> getPrefixes() {
+        return prefixes;
+    }
+
+    public void setPrefixes(Map<String, String> prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    public int getDigits() {
+        return digits;
+    }
+
+    public void setDigits(int digits) {
+        this.digits = digits;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public int getRecentCapacity() {
+        return recentCapacity;
+    }
+
+    public void setRecentCapacity(int recentCapacity) {
+        this.recentCapacity = recentCapacity;
+    }
+}
@@ -1,7 +1,12 @@
 package com.teatown.software.invoice.configuration;
 
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * Configuration for invoice PDF generation.
  */
@@ -14,6 +19,14 @@ public class InvoicePdfProperties {
     private int headingFontSize = 10;
     private int normalFontSize = 10;
     private int smallFontSize = 8;
+    private String logoLocation = "classpath:2026-02-14_Teatown-Software_T-Logo.jpg";
+    private Duration logoReloadInterval = Duration.ofSeconds(30);
+    private List<Locale> supportedLocales = List.of(Locale.ENGLISH, Locale.of("es"));
+    private Duration labelsReloadInterval = Duration.ofSeconds(60);
+    private int stationeryCacheSize = 16;
+    private boolean deterministic = true;
+    private PdfOutputProfile outputProfile = PdfOutputProfile.BALANCED;
+    private OutputProfiles outputProfiles = new OutputProfiles();
 
     public String getDateFormat() {
         return dateFormat;
@@ -62,4 +75,164 @@ public class InvoicePdfProperties {
     public void setSmallFontSize(int smallFontSize) {
         this.smallFontSize = smallFontSize;
     }
+
+    public String getLogoLocation() {
+        return logoLocation;
+    }
+
+    public void setLogoLocation(String logoLocation) {
+        this.logoLocation = logoLocation;
+    }
+
+    public Duration getLogoReloadInterval() {
+        return logoReloadInterval;
+    }
+
+    public void setLogoReloadInterval(Duration logoReloadInterval) {
+        this.logoReloadInterval = logoReloadInterval;
+    }
+
+    public List<Locale> getSupportedLocales() {
+        return supportedLocales;
+    }
+
+    public void setSupportedLocales(List<Locale> supportedLocales) {
+        this.supportedLocales = supportedLocales;
+    }
+
+    public Duration getLabelsReloadInterval() {
+        return labelsReloadInterval;
+    }
+
+    public void setLabelsReloadInterval(Duration labelsReloadInterval) {
+        this.labelsReloadInterval = labelsReloadInterval;
+    }
+
+    public int getStationeryCacheSize() {
+        return stationeryCacheSize;
+    }
+
+    public void setStationeryCacheSize(int stationeryCacheSize) {
+        this.stationeryCacheSize = stationeryCacheSize;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    public PdfOutputProfile getOutputProfile() {
+        return outputProfile;
+    }
+
+    public void setOutputProfile(PdfOutputProfile outputProfile) {
+        this.outputProfile = outputProfile;
+    }
+
+    public OutputProfiles getOutputProfiles() {
+        return outputProfiles;
+    }
+
+    public void setOutputProfiles(OutputProfiles outputProfiles) {
+        this.outputProfiles = outputProfiles;
+    }
+
+    /**
+     * Settings of every {@link PdfOutputProfile}.
+     */
+    public static class OutputProfiles {
+
+        private OutputProfile fast = new OutputProfile(1, false, 0);
+        private OutputProfile balanced = new OutputProfile(6, true, 0);
+        private OutputProfile smallest = new OutputProfile(9, true, 150);
+
+        public OutputProfile get(PdfOutputProfile profile) {
+            return switch (profile) {
+                case FAST -> fast;
+                case BALANCED -> balanced;
+                case SMALLEST -> smallest;
+            };
+        }
+
+        public OutputProfile getFast() {
+            return fast;
+        }
+
+        public void setFast(OutputProfile fast) {
+            this.fast = fast;
+        }
+
+        public OutputProfile getBalanced() {
+            return balanced;
+        }
+
+        public void setBalanced(OutputProfile balanced) {
+            this.balanced = balanced;
+        }
+
+        public OutputProfile getSmallest() {
+            return smallest;
+        }
+
+        public void setSmallest(OutputProfile smallest) {
+            this.smallest = smallest;
+        }
+    }
+
+    /**
+     * How a PDF is written: zlib level of the content streams (0-9), whether objects and the cross-reference table
+     * are written as compressed streams (PDF 1.5), and the resolution the logo is re-encoded at (0 keeps the supplied
+     * image).
+     */
+    public static class OutputProfile {
+
+        private int compressionLevel;
+        private boolean fullCompression;
+        private int logoResolutionDpi;
+        private float logoJpegQuality = 0.75f;
+
+        public OutputProfile() {
+        }
+
+        OutputProfile(int compressionLevel, boolean fullCompression, int logoResolutionDpi) {
+            this.compressionLevel = compressionLevel;
+            this.fullCompression = fullCompression;
+            this.logoResolutionDpi = logoResolutionDpi;
+        }
+
+        public int getCompressionLevel() {
+            return compressionLevel;
+        }
+
+        public void setCompressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+        }
+
+        public boolean isFullCompression() {
+            return fullCompression;
+        }
+
+        public void setFullCompression(boolean fullCompression) {
+            this.fullCompression = fullCompression;
+        }
+
+        public int getLogoResolutionDpi() {
+            return logoResolutionDpi;
+        }
+
+        public void setLogoResolutionDpi(int logoResolutionDpi) {
+            this.logoResolutionDpi = logoResolutionDpi;
+        }
+
+        public float getLogoJpegQuality() {
+            return logoJpegQuality;
+        }
+
+        public void setLogoJpegQuality(float logoJpegQuality) {
+            this.logoJpegQuality = logoJpegQuality;
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for admission control of PDF renders.
+ */
+@ConfigurationProperties(prefix = "invoice.render")
+public class InvoiceRenderProperties {
+
+    private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+    private int maxQueued = 4 * Runtime.getRuntime().availableProcessors();
+    private Duration maxWait = Duration.ofSeconds(2);
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,67 @@
+package com.teatown.software.invoice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration for resolving and rate limiting the principals named in the {@code user} request header.
+ */
+@ConfigurationProperties(prefix = "invoice.security")
+public class InvoiceSecurityProperties {
+
+    private int principalCacheSize = 10_000;
+    private Duration principalCacheTtl = Duration.ofMinutes(5);
+    private boolean rateLimitEnabled = true;
+    private double rateLimitPerSecond = 50;
+    private int rateLimitBurst = 100;
+    private int rateLimitMaxPrincipals = 100_000;
+
+    public int getPrincipalCacheSize() {
+        return principalCacheSize;
+    }
+
+    public void setPrincipalCacheSize(int principalCacheSize) {
+        this.principalCacheSize = principalCacheSize;
+    }
+
+    public Duration getPrincipalCacheTtl() {
+        return principalCacheTtl;
+    }
+
+    public void setPrincipalCacheTtl(Duration principalCacheTtl) {
+        this.principalCacheTtl = principalCacheTtl;
+    }
+
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    public void setRateLimitEnabled(boolean rateLimitEnabled) {
+        this.rateLimitEnabled = rateLimitEnabled;
+    }
+
+    public double getRateLimitPerSecond() {
+        return rateLimitPerSecond;
+    }
+
+    public void setRateLimitPerSecond(double rateLimitPerSecond) {
+        this.rateLimitPerSecond = rateLimitPerSecond;
+    }
+
+    public int getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(int rateLimitBurst) {
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    public int getRateLimitMaxPrincipals() {
+        return rateLimitMaxPrincipals;
+    }
+
+    public void setRateLimitMaxPrincipals(int rateLimitMaxPrincipals) {
+        this.rateLimitMaxPrincipals = rateLimitMaxPrincipals;
+    }
+}
@@ -0,0 +1,55 @@
+package com.teatown.software.invoice.configuration;
+
+import com.teatown.software.invoice.domain.RoundingPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.RoundingMode;
+
+/**
+ * Configuration for computing invoice totals from the line items.
+ */
+@ConfigurationProperties(prefix = "invoice.totals")
+public class InvoiceTotalsProperties {
+
+    private RoundingPolicy.Granularity rounding = RoundingPolicy.DEFAULT.granularity();
+    private RoundingMode roundingMode = RoundingPolicy.DEFAULT.mode();
+    private Mismatch onMismatch = Mismatch.CORRECT;
+
+    public RoundingPolicy.Granularity getRounding() {
+        return rounding;
+    }
+
+    public void setRounding(RoundingPolicy.Granularity rounding) {
+        this.rounding = rounding;
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
+    public void setRoundingMode(RoundingMode roundingMode) {
+        this.roundingMode = roundingMode;
+    }
+
+    public Mismatch getOnMismatch() {
+        return onMismatch;
+    }
+
+    public void setOnMismatch(Mismatch onMismatch) {
+        this.onMismatch = onMismatch;
+    }
+
+    public RoundingPolicy roundingPolicy() {
+        return new RoundingPolicy(rounding, roundingMode);
+    }
+
+    /**
+     * What to do when totals supplied by a client differ from the computed ones.
+     */
+    public enum Mismatch {
+        /** Reject the request; opt-in, since clients used to have their totals accepted as sent. */
+        REJECT,
+        /** Use the computed totals and log the difference. The default. */
+        CORRECT
+    }
+}
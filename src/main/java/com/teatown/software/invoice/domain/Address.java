@@ -1,7 +1,5 @@
 package com.teatown.software.invoice.domain;
 
-import java.util.Locale;
-
 /**
  * Value object representing an address (company or customer).
  */
@@ -12,26 +10,6 @@ public record Address(
         String countryCode
 ) {
 
-    public String countryName(final Locale locale) {
-        if (Locale.ENGLISH.getLanguage().equals(locale.getLanguage())) {
-            return switch (countryCode) {
-                case "AT" -> "Austria";
-                case "ES" -> "Spain";
-                default -> countryCode;
-            };
-        }
-
-        if ("es".equals(locale.getLanguage())) {
-            return switch (countryCode) {
-                case "AT" -> "Austria";
-                case "ES" -> "España";
-                default -> countryCode;
-            };
-        }
-
-        throw new IllegalStateException("Unexpected value: " + countryCode);
-    }
-
     public static Builder builder() {
         return new Builder();
     }
@@ -28,6 +28,14 @@ public record Invoice(
         return new Builder();
     }
 
+    /**
+     * Returns a copy of this invoice with the given invoice number.
+     */
+    public Invoice withInvoiceNumber(final String invoiceNumber) {
+        return new Invoice(invoiceDate, invoiceNumber, deliveryDate, dueDate, items, totalNetPrice, vatRate,
+                vatAbsolute, totalGrossPrice, finalNotes, companyDetails, customer, reverseCharge);
+    }
+
     public static final class Builder {
         private LocalDate invoiceDate;
         private String invoiceNumber;
@@ -0,0 +1,213 @@
+package com.teatown.software.invoice.domain;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Stable SHA-256 hash of everything that determines the rendered PDF: the invoice content, the locale and a
+ * fingerprint of the layout it is rendered with. It depends on nothing but the invoice, so the services and the PDF
+ * adapter compute the same hash.
+ *
+ * <p>Fields are fed in a fixed order, each prefixed with its length, so different invoices cannot produce the same
+ * byte sequence. Numbers are normalised ({@code 100} and {@code 100.00} hash alike) because they render alike.</p>
+ *
+ * <p>Streamed items are hashed as they are pulled, see {@link #streamed(Invoice, Locale, String)}. Their number is
+ * only known afterwards, so such hashes differ from the hash of the same invoice with an item list.</p>
+ */
+public final class InvoiceContentHash {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final MessageDigest digest;
+
+    private InvoiceContentHash() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the lowercase hex SHA-256 hash for the given invoice rendered in the given locale and layout.
+     */
+    public static String of(final Invoice invoice, final Locale locale, final String layoutFingerprint) {
+        final var hash = new InvoiceContentHash();
+        hash.put(locale.toLanguageTag());
+        hash.put(layoutFingerprint);
+        hash.putHead(invoice);
+        hash.put(invoice.items().size());
+        for (final InvoiceItem item : invoice.items()) {
+            hash.put(item);
+        }
+        hash.putTail(invoice);
+        return HEX.formatHex(hash.digest.digest());
+    }
+
+    /**
+     * Starts the hash of the given invoice rendered in the given locale and layout, whose items are taken from an
+     * iterator instead of {@link Invoice#items()}. The items are hashed as the returned hash's
+     * {@link Streamed#items(Iterator) iterator} hands them out.
+     */
+    public static Streamed streamed(final Invoice invoice, final Locale locale, final String layoutFingerprint) {
+        return new Streamed(invoice, locale, layoutFingerprint);
+    }
+
+    private void putHead(final Invoice invoice) {
+        put(invoice.invoiceDate());
+        put(invoice.invoiceNumber());
+        put(invoice.deliveryDate());
+        put(invoice.dueDate());
+    }
+
+    private void put(final InvoiceItem item) {
+        put(item.description());
+        put(item.quantity());
+        put(item.unit());
+        put(item.unitPriceEuro());
+        put(item.totalPrice());
+    }
+
+    private void putTail(final Invoice invoice) {
+        put(invoice.totalNetPrice());
+        put(invoice.vatRate());
+        put(invoice.vatAbsolute());
+        put(invoice.totalGrossPrice());
+        put(invoice.finalNotes());
+        put(invoice.companyDetails());
+        put(invoice.customer());
+        put(invoice.reverseCharge() == null ? null : invoice.reverseCharge().toString());
+    }
+
+    private void put(final CompanyDetails company) {
+        if (company == null) {
+            put((String) null);
+            return;
+        }
+        put(company.name());
+        put(company.address());
+        put(company.phone());
+        put(company.email());
+        put(company.placeOfJurisdiction());
+        put(company.companyId());
+        put(company.ceoOrDirector());
+        put(company.bankAccount());
+        put(company.vatId());
+    }
+
+    private void put(final Customer customer) {
+        if (customer == null) {
+            put((String) null);
+            return;
+        }
+        put(customer.companyName());
+        put(customer.customerNumber());
+        put(customer.vatId());
+        put(customer.contact());
+        put(customer.address());
+    }
+
+    private void put(final Address address) {
+        if (address == null) {
+            put((String) null);
+            return;
+        }
+        put(address.streetAndNumber());
+        put(address.postalCode());
+        put(address.city());
+        put(address.countryCode());
+    }
+
+    private void put(final BankAccount bankAccount) {
+        if (bankAccount == null) {
+            put((String) null);
+            return;
+        }
+        put(bankAccount.bankName());
+        put(bankAccount.accountOwner());
+        put(bankAccount.iban());
+        put(bankAccount.bic());
+    }
+
+    private void put(final LocalDate date) {
+        put(date == null ? null : date.toString());
+    }
+
+    private void put(final BigDecimal value) {
+        put(value == null ? null : value.stripTrailingZeros().toPlainString());
+    }
+
+    private void put(final int value) {
+        put(Integer.toString(value));
+    }
+
+    private void put(final String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * The hash of an invoice whose items are streamed, complete once all items have been pulled.
+     */
+    public static final class Streamed {
+
+        // a count cannot be negative, so the marker keeps these hashes apart from those of item lists
+        private static final int STREAMED_ITEMS = -1;
+
+        private final InvoiceContentHash hash = new InvoiceContentHash();
+        private final Invoice invoice;
+        private int count;
+
+        private Streamed(final Invoice invoice, final Locale locale, final String layoutFingerprint) {
+            this.invoice = invoice;
+            hash.put(locale.toLanguageTag());
+            hash.put(layoutFingerprint);
+            hash.putHead(invoice);
+            hash.put(STREAMED_ITEMS);
+        }
+
+        /**
+         * Returns an iterator over the given items that adds every item to the hash as it is handed out.
+         */
+        public Iterator<InvoiceItem> items(final Iterator<InvoiceItem> items) {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return items.hasNext();
+                }
+
+                @Override
+                public InvoiceItem next() {
+                    final InvoiceItem item = items.next();
+                    hash.put(item);
+                    count++;
+                    return item;
+                }
+            };
+        }
+
+        /**
+         * Returns the lowercase hex SHA-256 hash. Call once, after the last item was pulled.
+         */
+        public String finish() {
+            hash.put(count);
+            hash.putTail(invoice);
+            return HEX.formatHex(hash.digest.digest());
+        }
+    }
+}
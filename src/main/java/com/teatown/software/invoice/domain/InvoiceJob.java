@@ -0,0 +1,43 @@
+package com.teatown.software.invoice.domain;
+
+import java.time.Instant;
+
+/**
+ * An asynchronous request to render an invoice PDF.
+ *
+ * @param id            unique job id
+ * @param status        current status
+ * @param invoiceNumber number of the invoice being rendered, or {@code null} until the job has run if the server
+ *                      allocates it
+ * @param languageTag   language of the PDF labels (BCP 47, e.g. {@code en})
+ * @param submittedAt   when the job was accepted
+ * @param finishedAt    when the job finished, or {@code null} while it is queued or running
+ * @param error         the failure reason, or {@code null} unless the job failed
+ */
+public record InvoiceJob(
+        String id,
+        InvoiceJobStatus status,
+        String invoiceNumber,
+        String languageTag,
+        Instant submittedAt,
+        Instant finishedAt,
+        String error
+) {
+
+    public static InvoiceJob queued(final String id, final String invoiceNumber, final String languageTag,
+                                    final Instant submittedAt) {
+        return new InvoiceJob(id, InvoiceJobStatus.QUEUED, invoiceNumber, languageTag, submittedAt, null, null);
+    }
+
+    public InvoiceJob running() {
+        return new InvoiceJob(id, InvoiceJobStatus.RUNNING, invoiceNumber, languageTag, submittedAt, null, null);
+    }
+
+    public InvoiceJob done(final Instant at, final String invoiceNumber) {
+        return new InvoiceJob(id, InvoiceJobStatus.DONE, invoiceNumber, languageTag, submittedAt, at, null);
+    }
+
+    public InvoiceJob failed(final Instant at, final String reason) {
+        return new InvoiceJob(id, InvoiceJobStatus.FAILED, invoiceNumber, languageTag, submittedAt, at, reason);
+    }
+}
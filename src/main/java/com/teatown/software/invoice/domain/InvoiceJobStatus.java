@@ -0,0 +1,15 @@
+package com.teatown.software.invoice.domain;
+
+/**
+ * Lifecycle of an asynchronous invoice job.
+ */
+public enum InvoiceJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED;
+
+    public boolean finished() {
+        return this == DONE || this == FAILED;
+    }
+}
@@ -0,0 +1,35 @@
+package com.teatown.software.invoice.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Value object holding the computed totals of an invoice, in cents (scale 2).
+ */
+public record InvoiceTotals(
+        BigDecimal net,
+        BigDecimal vat,
+        BigDecimal gross
+) {
+
+    /**
+     * Compares totals supplied by a client against these (see {@link TotalsDiscrepancy#differs}).
+     *
+     * @return the differing totals, in the order net, VAT, gross; empty if all supplied totals match
+     */
+    public List<TotalsDiscrepancy> reconcile(final BigDecimal suppliedNet, final BigDecimal suppliedVat,
+                                             final BigDecimal suppliedGross) {
+        final List<TotalsDiscrepancy> discrepancies = new ArrayList<>(3);
+        if (TotalsDiscrepancy.differs(suppliedNet, net)) {
+            discrepancies.add(new TotalsDiscrepancy(TotalsDiscrepancy.Total.NET, -1, suppliedNet, net));
+        }
+        if (TotalsDiscrepancy.differs(suppliedVat, vat)) {
+            discrepancies.add(new TotalsDiscrepancy(TotalsDiscrepancy.Total.VAT, -1, suppliedVat, vat));
+        }
+        if (TotalsDiscrepancy.differs(suppliedGross, gross)) {
+            discrepancies.add(new TotalsDiscrepancy(TotalsDiscrepancy.Total.GROSS, -1, suppliedGross, gross));
+        }
+        return discrepancies;
+    }
+}
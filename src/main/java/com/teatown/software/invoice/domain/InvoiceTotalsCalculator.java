@@ -0,0 +1,259 @@
+package com.teatown.software.invoice.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the totals of an invoice from its line items: line totals (quantity × unit price), net, VAT and gross,
+ * in one pass over the items and rounded to cents as the {@link RoundingPolicy} prescribes. VAT is computed from the
+ * rounded net and rounded to cents; gross is net plus VAT.
+ *
+ * <p>Amounts are computed on {@code long}s scaled to the decimals needed, which is exact as long as they fit. A
+ * computation that would overflow (or involves values with more than 18 digits) is done with {@link BigDecimal}
+ * instead; both give the same result. The calculator is immutable and thread-safe, a {@link Sum} is meant for one
+ * invoice on one thread.</p>
+ */
+public final class InvoiceTotalsCalculator {
+
+    /** Scale of amounts in cents. */
+    public static final int CENTS = 2;
+    /** Number of line discrepancies a {@link Sum} keeps, so a huge invoice with wrong totals stays small. */
+    static final int MAX_LINE_DISCREPANCIES = 10;
+
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+    /** Returned by the {@code long} computations when the result does not fit; the value itself is never used. */
+    private static final long OVERFLOW = Long.MIN_VALUE;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final RoundingPolicy policy;
+
+    public InvoiceTotalsCalculator(final RoundingPolicy policy) {
+        this.policy = policy;
+    }
+
+    public RoundingPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Starts summing the lines of an invoice.
+     */
+    public Sum sum() {
+        return new Sum();
+    }
+
+    /**
+     * Returns the total of a line: quantity × unit price, rounded to cents if the policy rounds per line.
+     */
+    public BigDecimal lineTotal(final BigDecimal quantity, final BigDecimal unitPrice) {
+        final int scale = lineScale(quantity, unitPrice);
+        final long units = multiply(quantity, unitPrice, scale);
+        return units != OVERFLOW ? BigDecimal.valueOf(units, scale) : exactLineTotal(quantity, unitPrice);
+    }
+
+    private int lineScale(final BigDecimal quantity, final BigDecimal unitPrice) {
+        return policy.granularity() == RoundingPolicy.Granularity.PER_LINE
+                ? CENTS
+                : quantity.scale() + unitPrice.scale();
+    }
+
+    private BigDecimal exactLineTotal(final BigDecimal quantity, final BigDecimal unitPrice) {
+        final BigDecimal product = quantity.multiply(unitPrice);
+        return policy.granularity() == RoundingPolicy.Granularity.PER_LINE
+                ? product.setScale(CENTS, policy.mode())
+                : product;
+    }
+
+    /**
+     * Returns {@code a × b} as units of {@code 10^-scale}, rounded as the policy prescribes, or {@link #OVERFLOW}.
+     */
+    private long multiply(final BigDecimal a, final BigDecimal b, final int scale) {
+        if (a.precision() > MAX_LONG_DIGITS || a.scale() < 0) {
+            return OVERFLOW;
+        }
+        return multiply(unscaled(a), a.scale(), b, scale);
+    }
+
+    private long multiply(final long a, final int aScale, final BigDecimal b, final int scale) {
+        if (b.precision() > MAX_LONG_DIGITS || b.scale() < 0) {
+            return OVERFLOW;
+        }
+        final long product;
+        try {
+            product = Math.multiplyExact(a, unscaled(b));
+        } catch (ArithmeticException e) {
+            return OVERFLOW;
+        }
+        return rescale(product, aScale + b.scale(), scale);
+    }
+
+    /**
+     * Converts units of {@code 10^-from} to units of {@code 10^-to}, rounding as the policy prescribes, or returns
+     * {@link #OVERFLOW}.
+     */
+    private long rescale(final long units, final int from, final int to) {
+        if (units == OVERFLOW || from < 0 || to < 0 || Math.abs(to - from) > MAX_LONG_DIGITS) {
+            return OVERFLOW;
+        }
+        if (to >= from) {
+            try {
+                return Math.multiplyExact(units, POWERS_OF_TEN[to - from]);
+            } catch (ArithmeticException e) {
+                return OVERFLOW;
+            }
+        }
+        return divide(units, POWERS_OF_TEN[from - to], policy.mode());
+    }
+
+    /**
+     * Divides, rounding ties up (away from zero) or to the even neighbour, like
+     * {@link BigDecimal#setScale(int, RoundingMode)} with {@link RoundingMode#HALF_UP} or
+     * {@link RoundingMode#HALF_EVEN}.
+     */
+    static long divide(final long dividend, final long divisor, final RoundingMode mode) {
+        final long quotient = dividend / divisor;
+        final long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // |remainder| < divisor <= 10^18, so doubling it does not overflow
+        final int half = Long.compare(2 * Math.abs(remainder), divisor);
+        final boolean up = half > 0
+                || half == 0 && (mode == RoundingMode.HALF_UP || (quotient & 1) != 0);
+        return up ? quotient + Long.signum(dividend) : quotient;
+    }
+
+    private static long unscaled(final BigDecimal value) {
+        // longValue() of an integral BigDecimal does not allocate; scaleByPowerOfTen() only copies the compact value,
+        // where unscaledValue() would build a BigInteger
+        return value.scale() == 0 ? value.longValue() : value.scaleByPowerOfTen(value.scale()).longValue();
+    }
+
+    /**
+     * Running sum of the lines of one invoice. Add every line with {@link #add}, then compute the
+     * {@link #totals(BigDecimal) totals}.
+     */
+    public final class Sum {
+
+        private long units;
+        private int scale = CENTS;
+        /** Set instead of {@link #units} once the sum no longer fits a {@code long}. */
+        private BigDecimal exact;
+        private int lines;
+        private int lineDiscrepancyCount;
+        private final List<TotalsDiscrepancy> lineDiscrepancies = new ArrayList<>();
+
+        private Sum() {
+        }
+
+        /**
+         * Adds a line and returns its total. A supplied line total other than {@code null} or zero is compared to
+         * the computed one, rounded to cents; a difference is kept as a {@link TotalsDiscrepancy} of
+         * {@link TotalsDiscrepancy.Total#LINE}.
+         */
+        public BigDecimal add(final BigDecimal quantity, final BigDecimal unitPrice, final BigDecimal suppliedTotal) {
+            final int line = lines++;
+            final int lineScale = lineScale(quantity, unitPrice);
+            final long lineUnits = multiply(quantity, unitPrice, lineScale);
+            final BigDecimal total;
+            if (lineUnits != OVERFLOW) {
+                total = BigDecimal.valueOf(lineUnits, lineScale);
+                add(lineUnits, lineScale);
+            } else {
+                total = exactLineTotal(quantity, unitPrice);
+                addExact(total);
+            }
+            if (suppliedTotal != null && suppliedTotal.signum() != 0) {
+                final BigDecimal printed = lineScale == CENTS ? total : total.setScale(CENTS, policy.mode());
+                if (TotalsDiscrepancy.differs(suppliedTotal, printed)
+                        && lineDiscrepancyCount++ < MAX_LINE_DISCREPANCIES) {
+                    lineDiscrepancies.add(
+                            new TotalsDiscrepancy(TotalsDiscrepancy.Total.LINE, line, suppliedTotal, printed));
+                }
+            }
+            return total;
+        }
+
+        private void add(final long lineUnits, final int lineScale) {
+            if (exact == null && lineScale > scale) {
+                final long rescaled = rescale(units, scale, lineScale);
+                if (rescaled != OVERFLOW) {
+                    units = rescaled;
+                    scale = lineScale;
+                } else {
+                    exact = BigDecimal.valueOf(units, scale);
+                }
+            }
+            if (exact == null) {
+                final long aligned = rescale(lineUnits, lineScale, scale);
+                if (aligned != OVERFLOW) {
+                    final long sum = units + aligned;
+                    // overflow iff both operands have the same sign and the sum's sign differs
+                    if (((units ^ sum) & (aligned ^ sum)) >= 0) {
+                        units = sum;
+                        return;
+                    }
+                }
+                exact = BigDecimal.valueOf(units, scale);
+            }
+            exact = exact.add(BigDecimal.valueOf(lineUnits, lineScale));
+        }
+
+        private void addExact(final BigDecimal lineTotal) {
+            if (exact == null) {
+                exact = BigDecimal.valueOf(units, scale);
+            }
+            exact = exact.add(lineTotal);
+        }
+
+        /**
+         * Returns net (the sum of the lines, rounded to cents), VAT (net × rate, rounded to cents) and gross.
+         *
+         * @param vatRate the VAT rate as a fraction, e.g. {@code 0.19}
+         */
+        public InvoiceTotals totals(final BigDecimal vatRate) {
+            final long netCents = exact == null ? rescale(units, scale, CENTS) : OVERFLOW;
+            if (netCents != OVERFLOW) {
+                final long vatCents = multiply(netCents, CENTS, vatRate, CENTS);
+                if (vatCents != OVERFLOW) {
+                    final long grossCents = netCents + vatCents;
+                    if (((netCents ^ grossCents) & (vatCents ^ grossCents)) >= 0) {
+                        return new InvoiceTotals(BigDecimal.valueOf(netCents, CENTS), BigDecimal.valueOf(vatCents, CENTS),
+                                BigDecimal.valueOf(grossCents, CENTS));
+                    }
+                }
+            }
+            final BigDecimal net = (exact != null ? exact : BigDecimal.valueOf(units, scale))
+                    .setScale(CENTS, policy.mode());
+            final BigDecimal vat = net.multiply(vatRate).setScale(CENTS, policy.mode());
+            return new InvoiceTotals(net, vat, net.add(vat));
+        }
+
+        /**
+         * Returns the first {@value InvoiceTotalsCalculator#MAX_LINE_DISCREPANCIES} line discrepancies found so far, in line order.
+         */
+        public List<TotalsDiscrepancy> lineDiscrepancies() {
+            return List.copyOf(lineDiscrepancies);
+        }
+
+        /**
+         * Returns the number of line discrepancies found so far, including those not kept.
+         */
+        public int lineDiscrepancyCount() {
+            return lineDiscrepancyCount;
+        }
+
+        public int lines() {
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.teatown.software.invoice.domain;
+
+import java.math.RoundingMode;
+
+/**
+ * How invoice amounts are rounded to cents.
+ *
+ * @param granularity whether each line total is rounded, or only the invoice totals
+ * @param mode        {@link RoundingMode#HALF_UP} (commercial rounding) or {@link RoundingMode#HALF_EVEN}
+ *                    (banker's rounding)
+ */
+public record RoundingPolicy(Granularity granularity, RoundingMode mode) {
+
+    /** Line totals rounded half-up to cents, as printed on the invoice. */
+    public static final RoundingPolicy DEFAULT = new RoundingPolicy(Granularity.PER_LINE, RoundingMode.HALF_UP);
+
+    public RoundingPolicy {
+        if (granularity == null) {
+            throw new IllegalArgumentException("Rounding granularity is required");
+        }
+        if (mode != RoundingMode.HALF_UP && mode != RoundingMode.HALF_EVEN) {
+            throw new IllegalArgumentException("Rounding mode must be HALF_UP or HALF_EVEN, got: " + mode);
+        }
+    }
+
+    public enum Granularity {
+        /** Every line total is rounded to cents; net is the sum of the rounded line totals. */
+        PER_LINE,
+        /** Line totals are kept exact; net is rounded to cents once, after summing them. */
+        PER_INVOICE
+    }
+}
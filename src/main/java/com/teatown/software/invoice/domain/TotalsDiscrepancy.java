@@ -0,0 +1,34 @@
+package com.teatown.software.invoice.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * A total supplied by a client that differs from the one computed from the line items.
+ *
+ * @param total    which total differs
+ * @param line     the zero-based line index for {@link Total#LINE}, otherwise {@code -1}
+ * @param supplied the supplied value
+ * @param computed the computed value
+ */
+public record TotalsDiscrepancy(
+        Total total,
+        int line,
+        BigDecimal supplied,
+        BigDecimal computed
+) {
+
+    public enum Total {
+        LINE,
+        NET,
+        VAT,
+        GROSS
+    }
+
+    /**
+     * Returns whether a supplied total differs from the computed one. {@code null} or zero means the client left the
+     * total to be computed, which never differs. Values are compared numerically ({@code 1200} equals {@code 1200.00}).
+     */
+    static boolean differs(final BigDecimal supplied, final BigDecimal computed) {
+        return supplied != null && supplied.signum() != 0 && supplied.compareTo(computed) != 0;
+    }
+}
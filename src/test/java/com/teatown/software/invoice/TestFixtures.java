@@ -58,7 +58,7 @@ public final class TestFixtures {
                 LocalDate.of(2025, 3, 14),
                 List.of(invoiceItemDto()),
                 new BigDecimal("1200"),
-                new BigDecimal("19"),
+                new BigDecimal("0.19"),
                 new BigDecimal("228"),
                 new BigDecimal("1428"),
                 "Thank you.",
@@ -103,7 +103,7 @@ public final class TestFixtures {
                 .dueDate(LocalDate.of(2025, 2, 1))
                 .items(List.of(item))
                 .totalNetPrice(new BigDecimal("100"))
-                .vatRate(new BigDecimal("19"))
+                .vatRate(new BigDecimal("0.19"))
                 .vatAbsolute(new BigDecimal("19"))
                 .totalGrossPrice(new BigDecimal("119"))
                 .companyDetails(company)
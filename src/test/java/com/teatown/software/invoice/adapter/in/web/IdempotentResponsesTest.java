@@ -0,0 +1,138 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.adapter.in.web.IdempotentResponses.StoredResponse;
+import com.teatown.software.invoice.configuration.InvoiceIdempotencyProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotentResponsesTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Test
+    void execute_coalescesConcurrentRequestsOntoTheFirstOne() throws Exception {
+        final var responses = new IdempotentResponses(new InvoiceIdempotencyProperties(), clock);
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var first = CompletableFuture.supplyAsync(() -> responses.execute("key", "abc", () -> {
+            started.countDown();
+            await(release);
+            return response("INV-1", 100);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        final var second = new CompletableFuture<StoredResponse>();
+        final var waiting = Thread.ofPlatform().start(
+                () -> second.complete(responses.execute("key", "abc", () -> response("INV-2", 100))));
+        while (waiting.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).invoiceNumber()).isEqualTo("INV-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+        assertThat(responses.execute("key", "abc", () -> response("INV-3", 100))).isSameAs(first.get());
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void execute_rejectsAKeyReusedForAnotherRequest() {
+        final var responses = new IdempotentResponses(new InvoiceIdempotencyProperties(), clock);
+        responses.execute("key", "abc", () -> response("INV-1", 100));
+
+        assertThatThrownBy(() -> responses.execute("key", "def", () -> response("INV-2", 100)))
+                .isInstanceOf(IdempotencyKeyReusedException.class)
+                .hasMessageContaining("different request");
+    }
+
+    @Test
+    void execute_storesNothingForAFailedRequest() {
+        final var responses = new IdempotentResponses(new InvoiceIdempotencyProperties(), clock);
+
+        assertThatThrownBy(() -> responses.execute("key", "abc", () -> {
+            throw new IllegalStateException("render failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(responses.execute("key", "abc", () -> response("INV-1", 100)).invoiceNumber()).isEqualTo("INV-1");
+        assertThat(responses.size()).isEqualTo(1);
+    }
+
+    @Test
+    void execute_dropsExpiredResponsesAndEvictsTheOldestBeyondTheBounds() {
+        final var properties = new InvoiceIdempotencyProperties();
+        properties.setTtl(Duration.ofMinutes(10));
+        properties.setMaxBytes(DataSize.ofKilobytes(10));
+        final var responses = new IdempotentResponses(properties, clock);
+        responses.execute("a", "abc", () -> response("INV-A", 4000));
+        clock.advance(Duration.ofMinutes(6));
+        responses.execute("b", "abc", () -> response("INV-B", 4000));
+        // does not fit next to a and b, so a is evicted
+        responses.execute("c", "abc", () -> response("INV-C", 4000));
+
+        assertThat(responses.size()).isEqualTo(2);
+        assertThat(responses.bytes()).isLessThanOrEqualTo(10 * 1024);
+        assertThat(responses.execute("a", "abc", () -> response("INV-A2", 10)).invoiceNumber()).isEqualTo("INV-A2");
+
+        assertThat(responses.execute("c", "abc", () -> response("INV-C2", 10)).invoiceNumber()).isEqualTo("INV-C");
+
+        clock.advance(Duration.ofMinutes(10));
+        assertThat(responses.execute("b", "abc", () -> response("INV-B2", 10)).invoiceNumber()).isEqualTo("INV-B2");
+        assertThat(responses.size()).isEqualTo(1);
+        assertThat(renders).hasValue(5);
+    }
+
+    private StoredResponse response(final String invoiceNumber, final int size) {
+        renders.incrementAndGet();
+        return new StoredResponse(invoiceNumber, "\"" + invoiceNumber + "\"", new byte[size]);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.application.service.CreateInvoiceBatchService;
+import com.teatown.software.invoice.application.service.CreateInvoiceService;
+import com.teatown.software.invoice.application.service.InvoiceRenderRequest;
+import com.teatown.software.invoice.application.service.RenderPriority;
+import com.teatown.software.invoice.application.service.RenderedInvoice;
+import com.teatown.software.invoice.configuration.InvoiceBatchProperties;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvoiceBatchControllerTest {
+
+    private InvoiceBatchController controller;
+
+    @BeforeEach
+    void setUp() {
+        final var createInvoiceService = mock(CreateInvoiceService.class);
+        when(createInvoiceService.createInvoicePdf(argThat(request -> request.priority() == RenderPriority.BACKGROUND)))
+                .thenAnswer(invocation -> new RenderedInvoice(invocation.<InvoiceRenderRequest>getArgument(0).invoice(),
+                        "abc", new byte[]{1, 2, 3}));
+        final var properties = new InvoiceBatchProperties();
+        properties.setMaxSize(3);
+        final var batchService = new CreateInvoiceBatchService(createInvoiceService, task -> task, properties);
+        final var validator = Validation.buildDefaultValidatorFactory().getValidator();
+        controller = new InvoiceBatchController(batchService, new InvoiceRequestMapper(new InvoiceTotalsProperties()), validator,
+                new InvoiceLocaleResolver(new InvoicePdfProperties()), properties);
+    }
+
+    @Test
+    void createInvoices_returnsZipWithPdfsErrorsAndManifest() throws IOException {
+        final CreateInvoiceRequestDto valid = TestFixtures.createInvoiceRequestDto();
+        final CreateInvoiceRequestDto invalid = new CreateInvoiceRequestDto(
+                valid.invoiceDate(), "", valid.deliveryDate(), valid.dueDate(), valid.invoiceItems(),
+                valid.totalNetPrice(), valid.vatRate(), valid.vatAbsolute(), valid.totalGrossPrice(),
+                valid.finalNotes(), valid.companyDetails(), valid.customer(), valid.reverseCharge());
+
+        final var response = controller.createInvoices(List.of(valid, invalid), null, null);
+        final var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        final Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries).containsKeys("000-invoice-INV-2025-001.pdf", "001-error.txt", InvoiceBatchController.MANIFEST_ENTRY);
+        assertThat(entries.get("001-error.txt")).contains("invoiceNumber");
+        assertThat(entries.get(InvoiceBatchController.MANIFEST_ENTRY))
+                .contains("0,\"INV-2025-001\",OK")
+                .contains("1,,FAILED");
+    }
+
+    @Test
+    void createInvoices_rejectsOversizedBatch() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+
+        assertThatThrownBy(() -> controller.createInvoices(List.of(request, request, request, request), null, null))
+                .isInstanceOf(InvalidBatchRequestException.class);
+    }
+
+    private static Map<String, String> unzip(final byte[] zip) throws IOException {
+        final Map<String, String> entries = new HashMap<>();
+        try (final var in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (var entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
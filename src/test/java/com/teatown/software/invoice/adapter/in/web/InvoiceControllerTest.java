@@ -2,19 +2,40 @@ package com.teatown.software.invoice.adapter.in.web;
 
 import com.teatown.software.invoice.TestFixtures;
 import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
 import com.teatown.software.invoice.application.service.CreateInvoiceService;
+import com.teatown.software.invoice.application.service.InvoiceRenderRequest;
+import com.teatown.software.invoice.application.service.RenderedInvoice;
+import com.teatown.software.invoice.application.service.SpooledInvoicePdf;
+import com.teatown.software.invoice.configuration.InvoiceIdempotencyProperties;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
 import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Principal;
+
+import java.util.Iterator;
 import java.util.Locale;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -22,13 +43,17 @@ class InvoiceControllerTest {
 
     private CreateInvoiceService createInvoiceService;
     private InvoiceRequestMapper requestMapper;
+    private StreamingInvoiceRequestReader requestReader;
     private InvoiceController controller;
 
     @BeforeEach
     void setUp() {
         createInvoiceService = mock(CreateInvoiceService.class);
         requestMapper = mock(InvoiceRequestMapper.class);
-        controller = new InvoiceController(createInvoiceService, requestMapper);
+        requestReader = mock(StreamingInvoiceRequestReader.class);
+        controller = new InvoiceController(createInvoiceService, requestMapper, requestReader,
+                new InvoiceLocaleResolver(new InvoicePdfProperties()),
+                new IdempotentResponses(new InvoiceIdempotencyProperties()));
     }
 
     @Test
@@ -37,16 +62,63 @@ class InvoiceControllerTest {
         final Invoice invoice = TestFixtures.minimalInvoice(); // invoice number "INV-1"
         final byte[] pdfBytes = new byte[]{1, 2, 3};
         when(requestMapper.toDomain(request)).thenReturn(invoice);
-        when(createInvoiceService.createInvoicePdf(eq(invoice), any(Locale.class))).thenReturn(pdfBytes);
+        when(createInvoiceService.createInvoicePdf(any(InvoiceRenderRequest.class)))
+                .thenReturn(new RenderedInvoice(invoice, "abc", pdfBytes));
 
-        final ResponseEntity<byte[]> response = controller.createInvoice(request, null, null);
+        final ResponseEntity<byte[]> response = controller.createInvoice(request, null, null, null, null, null, null);
 
         assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
         assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
                 .contains("invoice-INV-1.pdf");
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
         assertThat(response.getBody()).isEqualTo(pdfBytes);
         verify(requestMapper).toDomain(request);
-        verify(createInvoiceService).createInvoicePdf(invoice, Locale.ENGLISH);
+        verify(createInvoiceService).createInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH));
+        verify(createInvoiceService, never()).contentHash(any());
+    }
+
+    @Test
+    void createInvoice_withMatchingIfNoneMatch_returnsNotModifiedWithoutRendering() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(requestMapper.toDomain(request)).thenReturn(invoice);
+        when(createInvoiceService.contentHash(InvoiceRenderRequest.of(invoice, Locale.ENGLISH))).thenReturn("abc");
+
+        final ResponseEntity<byte[]> response = controller.createInvoice(request, null, null, null,
+                "\"xyz\", W/\"abc\"", null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(response.getBody()).isNull();
+        verify(createInvoiceService, never()).createInvoicePdf(any(InvoiceRenderRequest.class));
+    }
+
+    @Test
+    void createInvoice_withoutInvoiceNumber_rendersDespiteIfNoneMatchAndAnswersWithTheAllocatedNumber() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+        final Invoice invoice = TestFixtures.minimalInvoice().withInvoiceNumber(null);
+        when(requestMapper.toDomain(request)).thenReturn(invoice);
+        when(createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH)))
+                .thenReturn(new RenderedInvoice(invoice.withInvoiceNumber("INV-2025-000007"), "abc", new byte[]{1}));
+
+        final ResponseEntity<byte[]> response = controller.createInvoice(request, null, null, null, "\"abc\"", null,
+                null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .contains("invoice-INV-2025-000007.pdf");
+        verify(createInvoiceService, never()).contentHash(any());
+    }
+
+    @Test
+    void createInvoice_withIfNoneMatchAny_failsPreconditionWithoutIssuingANumber() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+
+        final ResponseEntity<byte[]> response = controller.createInvoice(request, null, null, null, "*", null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        verify(requestMapper, never()).toDomain(any());
+        verify(createInvoiceService, never()).createInvoicePdf(any(InvoiceRenderRequest.class));
     }
 
     @Test
@@ -55,10 +127,121 @@ class InvoiceControllerTest {
         final Invoice invoice = TestFixtures.minimalInvoice();
         final byte[] pdfBytes = new byte[]{1, 2, 3};
         when(requestMapper.toDomain(request)).thenReturn(invoice);
-        when(createInvoiceService.createInvoicePdf(eq(invoice), any(Locale.class))).thenReturn(pdfBytes);
+        when(createInvoiceService.createInvoicePdf(any(InvoiceRenderRequest.class)))
+                .thenReturn(new RenderedInvoice(invoice, "abc", pdfBytes));
+
+        controller.createInvoice(request, "es", null, null, null, null, null);
+
+        verify(createInvoiceService).createInvoicePdf(InvoiceRenderRequest.of(invoice, new Locale("es")));
+    }
+
+    @Test
+    void createInvoice_withProfileParam_rendersWithThatProfile() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(requestMapper.toDomain(request)).thenReturn(invoice);
+        final var renderRequest = InvoiceRenderRequest.of(invoice, Locale.ENGLISH)
+                .withProfile(PdfOutputProfile.SMALLEST);
+        when(createInvoiceService.createInvoicePdf(renderRequest))
+                .thenReturn(new RenderedInvoice(invoice, "abc", new byte[]{1, 2, 3}));
+
+        controller.createInvoice(request, null, "Smallest", null, null, null, null);
+
+        verify(createInvoiceService).createInvoicePdf(renderRequest);
+    }
+
+    @Test
+    void createInvoice_withUnknownProfile_isRejected() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+
+        assertThatThrownBy(() -> controller.createInvoice(request, null, "tiny", null, null, null, null))
+                .isInstanceOf(InvalidInvoiceRequestException.class)
+                .hasMessageContaining("tiny");
+        verify(createInvoiceService, never()).createInvoicePdf(any(InvoiceRenderRequest.class));
+    }
+
+    @Test
+    void createInvoice_withIdempotencyKey_replaysTheFirstResponsePerCaller() {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(requestMapper.toDomain(request)).thenReturn(invoice);
+        final var renderRequest = InvoiceRenderRequest.of(invoice, Locale.ENGLISH);
+        when(createInvoiceService.createInvoicePdf(renderRequest))
+                .thenReturn(new RenderedInvoice(invoice, "abc", new byte[]{1, 2, 3}));
+        final Principal billing = () -> "billing";
+
+        final ResponseEntity<byte[]> first = controller.createInvoice(request, null, null, null, null, "key-1", billing);
+        final ResponseEntity<byte[]> retry = controller.createInvoice(request, null, null, null, null, "key-1", billing);
+        final ResponseEntity<byte[]> revalidated = controller.createInvoice(request, null, null, null, "\"abc\"",
+                "key-1", billing);
+
+        assertThat(retry.getBody()).isEqualTo(first.getBody()).containsExactly(1, 2, 3);
+        assertThat(retry.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(retry.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("invoice-INV-1.pdf");
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(createInvoiceService, times(1)).createInvoicePdf(renderRequest);
+
+        controller.createInvoice(request, null, null, null, null, "key-1", () -> "other");
+        verify(createInvoiceService, times(2)).createInvoicePdf(renderRequest);
+        assertThatThrownBy(() -> controller.createInvoice(request, "es", null, null, null, "key-1", billing))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        verify(createInvoiceService, never()).contentHash(any());
+    }
+
+    @Test
+    void streamInvoice_writesPdfToResponseStream() throws IOException {
+        final CreateInvoiceRequestDto request = TestFixtures.createInvoiceRequestDto();
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(requestMapper.toDomain(request)).thenReturn(invoice);
+        final SpooledInvoicePdf pdf = spooled(invoice);
+        when(createInvoiceService.spoolInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH))).thenReturn(pdf);
+
+        final ResponseEntity<StreamingResponseBody> response = controller.streamInvoice(request, null, null, null);
+        final var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
+                .contains("invoice-INV-1.pdf");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(3);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(out.toByteArray()).containsExactly(1, 2, 3);
+        verify(pdf).close();
+    }
+
+    @Test
+    void createLargeInvoice_rendersStreamedItemsAndReleasesTheRequest() throws IOException {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final InputStream requestBody = new ByteArrayInputStream(new byte[0]);
+        final StreamedInvoiceRequest request = mock(StreamedInvoiceRequest.class);
+        final Iterator<InvoiceItem> items = invoice.items().iterator();
+        when(requestReader.read(requestBody)).thenReturn(request);
+        when(request.invoice()).thenReturn(invoice);
+        when(request.items()).thenReturn(items);
+        final SpooledInvoicePdf pdf = spooled(invoice);
+        when(createInvoiceService.spoolInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH).withItems(items)))
+                .thenReturn(pdf);
 
-        controller.createInvoice(request, "es", null);
+        final ResponseEntity<StreamingResponseBody> response = controller.createLargeInvoice(requestBody, null, null,
+                null);
+        verify(request).close();
+        final var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("invoice-INV-1.pdf");
+        assertThat(out.toByteArray()).containsExactly(1, 2, 3);
+        verify(pdf).close();
+    }
 
-        verify(createInvoiceService).createInvoicePdf(invoice, new Locale("es"));
+    private static SpooledInvoicePdf spooled(final Invoice invoice) throws IOException {
+        final SpooledInvoicePdf pdf = mock(SpooledInvoicePdf.class);
+        when(pdf.invoice()).thenReturn(invoice);
+        when(pdf.size()).thenReturn(3L);
+        when(pdf.contentHash()).thenReturn("abc");
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(pdf).transferTo(any(OutputStream.class));
+        return pdf;
     }
 }
@@ -0,0 +1,67 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceLocaleResolverTest {
+
+    private static final Locale SPANISH = Locale.of("es");
+
+    private final InvoiceLocaleResolver resolver = new InvoiceLocaleResolver(properties());
+
+    @Test
+    void resolve_langParameterTakesPrecedenceOverTheHeader() {
+        assertThat(resolver.resolve("es", "en")).isEqualTo(SPANISH);
+        assertThat(resolver.resolve("ES-mx", null)).isEqualTo(SPANISH);
+        assertThat(resolver.resolve("de", "es")).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test
+    void resolve_picksTheSupportedLanguageWithTheHighestWeight() {
+        assertThat(resolver.resolve(null, "de-DE, en;q=0.5, es;q=0.8")).isEqualTo(SPANISH);
+        assertThat(resolver.resolve(null, "es-ES;q=0.9,en-US;q=0.9")).isEqualTo(SPANISH);
+        assertThat(resolver.resolve(null, "fr, es ; Q=0.1")).isEqualTo(SPANISH);
+    }
+
+    @Test
+    void resolve_ignoresUnacceptableAndMalformedRanges() {
+        assertThat(resolver.resolve(null, "es;q=0, en;q=0.1")).isEqualTo(Locale.ENGLISH);
+        assertThat(resolver.resolve(null, "es;q=abc")).isEqualTo(Locale.ENGLISH);
+        assertThat(resolver.resolve(null, "es;q=2")).isEqualTo(Locale.ENGLISH);
+        assertThat(resolver.resolve(null, ",,;")).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test
+    void resolve_wildcardAndMissingHeaderMeanTheDefault() {
+        assertThat(resolver.resolve(null, "*, es;q=0.5")).isEqualTo(Locale.ENGLISH);
+        assertThat(resolver.resolve(null, "de, *;q=0.1")).isEqualTo(Locale.ENGLISH);
+        assertThat(resolver.resolve(null, null)).isEqualTo(Locale.ENGLISH);
+        assertThat(resolver.resolve(" ", " ")).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test
+    void resolve_cachesABoundedNumberOfShortHeaders() {
+        resolver.resolve(null, "es");
+        resolver.resolve(null, "es");
+        assertThat(resolver.cachedHeaders()).isEqualTo(1);
+
+        resolver.resolve(null, "es," + "x".repeat(InvoiceLocaleResolver.MAX_CACHED_HEADER_LENGTH));
+        assertThat(resolver.cachedHeaders()).isEqualTo(1);
+
+        for (int i = 0; i < InvoiceLocaleResolver.MAX_CACHED_HEADERS * 2; i++) {
+            assertThat(resolver.resolve(null, "x" + i + ", es")).isEqualTo(SPANISH);
+        }
+        assertThat(resolver.cachedHeaders()).isEqualTo(InvoiceLocaleResolver.MAX_CACHED_HEADERS);
+    }
+
+    private static InvoicePdfProperties properties() {
+        final var properties = new InvoicePdfProperties();
+        properties.setSupportedLocales(List.of(Locale.ENGLISH, SPANISH));
+        return properties;
+    }
+}
@@ -2,14 +2,20 @@ package com.teatown.software.invoice.adapter.in.web;
 
 import com.teatown.software.invoice.TestFixtures;
 import com.teatown.software.invoice.adapter.in.web.dto.CreateInvoiceRequestDto;
+import com.teatown.software.invoice.adapter.in.web.dto.InvoiceItemDto;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
 import com.teatown.software.invoice.domain.Invoice;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class InvoiceRequestMapperTest {
 
-    private final InvoiceRequestMapper mapper = new InvoiceRequestMapper();
+    private final InvoiceRequestMapper mapper = new InvoiceRequestMapper(new InvoiceTotalsProperties());
 
     @Test
     void toDomain_mapsAllFields() {
@@ -27,4 +33,57 @@ class InvoiceRequestMapperTest {
         assertThat(invoice.companyDetails().name()).isEqualTo("Test Company GmbH");
         assertThat(invoice.customer().companyName()).isEqualTo("Client AG");
     }
+
+    @Test
+    void toDomain_withoutSuppliedTotals_computesThem() {
+        final CreateInvoiceRequestDto dto = withTotals(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        final Invoice invoice = mapper.toDomain(dto);
+
+        assertThat(invoice.items().get(0).totalPrice()).isEqualTo("1200.00");
+        assertThat(invoice.totalNetPrice()).isEqualTo("1200.00");
+        assertThat(invoice.vatAbsolute()).isEqualTo("228.00");
+        assertThat(invoice.totalGrossPrice()).isEqualTo("1428.00");
+    }
+
+    @Test
+    void toDomain_withMismatchingTotals_rejectsTheRequestIfConfigured() {
+        final var properties = new InvoiceTotalsProperties();
+        properties.setOnMismatch(InvoiceTotalsProperties.Mismatch.REJECT);
+        final CreateInvoiceRequestDto dto = withTotals(new BigDecimal("1200"), new BigDecimal("228.01"),
+                new BigDecimal("1428.01"));
+
+        assertThatThrownBy(() -> new InvoiceRequestMapper(properties).toDomain(dto))
+                .isInstanceOf(InvalidInvoiceRequestException.class)
+                .hasMessage("Totals do not match the items: vatAbsolute: supplied 228.01, computed 228.00; "
+                        + "totalGrossPrice: supplied 1428.01, computed 1428.00");
+    }
+
+    @Test
+    void toDomain_withMismatchingTotals_correctsThemByDefault() {
+        final var item = TestFixtures.invoiceItemDto();
+        final CreateInvoiceRequestDto dto = withItems(List.of(new InvoiceItemDto(item.description(), item.quantity(),
+                item.unit(), item.unitPriceEuro(), new BigDecimal("1000"))));
+
+        final Invoice invoice = mapper.toDomain(dto);
+
+        assertThat(invoice.items().get(0).totalPrice()).isEqualTo("1200.00");
+        assertThat(invoice.totalNetPrice()).isEqualTo("1200.00");
+        assertThat(invoice.totalGrossPrice()).isEqualTo("1428.00");
+    }
+
+    private static CreateInvoiceRequestDto withTotals(final BigDecimal net, final BigDecimal vat,
+                                                      final BigDecimal gross) {
+        final CreateInvoiceRequestDto dto = TestFixtures.createInvoiceRequestDto();
+        return new CreateInvoiceRequestDto(dto.invoiceDate(), dto.invoiceNumber(), dto.deliveryDate(), dto.dueDate(),
+                dto.invoiceItems(), net, dto.vatRate(), vat, gross, dto.finalNotes(), dto.companyDetails(),
+                dto.customer(), dto.reverseCharge());
+    }
+
+    private static CreateInvoiceRequestDto withItems(final List<InvoiceItemDto> items) {
+        final CreateInvoiceRequestDto dto = TestFixtures.createInvoiceRequestDto();
+        return new CreateInvoiceRequestDto(dto.invoiceDate(), dto.invoiceNumber(), dto.deliveryDate(), dto.dueDate(),
+                items, dto.totalNetPrice(), dto.vatRate(), dto.vatAbsolute(), dto.totalGrossPrice(), dto.finalNotes(),
+                dto.companyDetails(), dto.customer(), dto.reverseCharge());
+    }
 }
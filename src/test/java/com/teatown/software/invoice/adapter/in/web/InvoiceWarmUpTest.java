@@ -0,0 +1,84 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.application.service.CreateInvoiceService;
+import com.teatown.software.invoice.application.service.InvoiceRenderRequest;
+import com.teatown.software.invoice.application.service.RenderPriority;
+import com.teatown.software.invoice.application.service.SpooledInvoicePdf;
+import com.teatown.software.invoice.configuration.InvoiceLargeRequestProperties;
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
+import com.teatown.software.invoice.configuration.InvoiceWarmUpProperties;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceWarmUpTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final InvoiceRequestMapper requestMapper = new InvoiceRequestMapper(new InvoiceTotalsProperties());
+    private final InvoiceWarmUpProperties properties = new InvoiceWarmUpProperties();
+    private CreateInvoiceService createInvoiceService;
+    private InvoiceWarmUp warmUp;
+
+    @BeforeEach
+    void setUp() {
+        createInvoiceService = mock(CreateInvoiceService.class);
+        properties.setIterations(3);
+        warmUp = new InvoiceWarmUp(jsonMapper, validator, requestMapper,
+                new StreamingInvoiceRequestReader(jsonMapper, validator, requestMapper,
+                        new InvoiceLargeRequestProperties()), createInvoiceService,
+                properties, new InvoicePdfProperties(), mock(ApplicationContext.class));
+    }
+
+    @Test
+    void request_isValid() {
+        assertThat(validator.validate(InvoiceWarmUp.request(properties.getItemCount()))).isEmpty();
+    }
+
+    @Test
+    void warmUp_rendersEverySupportedLocaleInEveryIteration() {
+        final SpooledInvoicePdf pdf = mock(SpooledInvoicePdf.class);
+        when(createInvoiceService.spoolInvoicePdf(any(InvoiceRenderRequest.class))).thenAnswer(invocation -> {
+            final InvoiceRenderRequest request = invocation.getArgument(0);
+            if (request.streamsItems()) {
+                // pull the items, like the renderer does
+                request.items().forEachRemaining(item -> { });
+            }
+            return pdf;
+        });
+
+        warmUp.warmUp();
+
+        for (final Locale locale : new InvoicePdfProperties().getSupportedLocales()) {
+            verify(createInvoiceService, times(3)).spoolInvoicePdf(argThat(request -> !request.streamsItems()
+                    && request.locale().equals(locale) && request.priority() == RenderPriority.BACKGROUND));
+            verify(createInvoiceService).spoolInvoicePdf(argThat(request -> request.streamsItems()
+                    && request.locale().equals(locale) && request.priority() == RenderPriority.BACKGROUND));
+        }
+        verify(pdf, times(4 * new InvoicePdfProperties().getSupportedLocales().size())).close();
+        assertThat(warmUp.durationNanos()).isPositive();
+    }
+
+    @Test
+    void warmUp_renderFailure_doesNotPreventStartup() {
+        when(createInvoiceService.spoolInvoicePdf(any(InvoiceRenderRequest.class)))
+                .thenThrow(new IllegalStateException("boom"));
+
+        assertThatCode(warmUp::warmUp).doesNotThrowAnyException();
+    }
+}
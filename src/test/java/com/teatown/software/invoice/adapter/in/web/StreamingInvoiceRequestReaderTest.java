@@ -0,0 +1,141 @@
+package com.teatown.software.invoice.adapter.in.web;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.adapter.in.web.dto.InvoiceItemDto;
+import com.teatown.software.invoice.configuration.InvoiceLargeRequestProperties;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
+import com.teatown.software.invoice.domain.InvoiceItem;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingInvoiceRequestReaderTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private StreamingInvoiceRequestReader reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = reader(new InvoiceLargeRequestProperties());
+    }
+
+    private StreamingInvoiceRequestReader reader(final InvoiceLargeRequestProperties properties) {
+        return new StreamingInvoiceRequestReader(jsonMapper, Validation.buildDefaultValidatorFactory().getValidator(),
+                new InvoiceRequestMapper(new InvoiceTotalsProperties()), properties);
+    }
+
+    @Test
+    void read_itemsBeforeHeaderFields_mapsInvoiceAndStreamsItems() {
+        final ObjectNode request = request(3);
+        // send the items first, so the totals and reverse charge only arrive after them
+        final ObjectNode reordered = jsonMapper.createObjectNode();
+        reordered.set("invoiceItems", request.remove("invoiceItems"));
+        reordered.setAll(request);
+        reordered.put("totalNetPrice", 0);
+        reordered.put("vatAbsolute", 0);
+        reordered.put("totalGrossPrice", 0);
+
+        final Path spool;
+        try (StreamedInvoiceRequest streamed = reader.read(body(reordered))) {
+            assertThat(streamed.invoice().invoiceNumber()).isEqualTo("INV-2025-001");
+            assertThat(streamed.invoice().items()).isEmpty();
+            assertThat(streamed.invoice().totalNetPrice()).isEqualByComparingTo("3600");
+            assertThat(streamed.invoice().totalGrossPrice()).isEqualByComparingTo("4284");
+            assertThat(streamed.itemCount()).isEqualTo(3);
+
+            final List<InvoiceItem> items = new ArrayList<>();
+            streamed.items().forEachRemaining(items::add);
+            assertThat(items).hasSize(3).allSatisfy(item -> {
+                assertThat(item.description()).isEqualTo("Consulting");
+                assertThat(item.totalPrice()).isEqualByComparingTo("1200");
+            });
+            spool = streamed.spoolFile();
+            assertThat(spool).exists();
+        }
+        assertThat(spool).doesNotExist();
+    }
+
+    @Test
+    void read_invalidItem_reportsItemAndHeaderViolations() {
+        final ObjectNode request = request(3);
+        ((ObjectNode) request.withArray("invoiceItems").get(1)).put("quantity", 0);
+        ((ObjectNode) request.withArray("invoiceItems").get(2)).put("unit", "kg");
+        request.put("reverseCharge", true);
+
+        assertThatThrownBy(() -> reader.read(body(request)))
+                .isInstanceOf(InvalidInvoiceRequestException.class)
+                .hasMessage("Validation failed: reverseCharge: VAT rate and VAT absolute must be 0 when it is a "
+                        + "reverse charge invoice; invoiceItems[1].quantity: Quantity must be positive");
+    }
+
+    @Test
+    void read_withoutItems_requiresAtLeastOne() {
+        final ObjectNode request = request(0);
+
+        assertThatThrownBy(() -> reader.read(body(request)))
+                .isInstanceOf(InvalidInvoiceRequestException.class)
+                .hasMessage("Validation failed: invoiceItems: At least one invoice item is required");
+    }
+
+    @Test
+    void read_malformedBody_isRejected() {
+        final InputStream truncated = new ByteArrayInputStream(
+                "{\"invoiceNumber\":\"INV-1\",\"invoiceItems\":[{\"description\":".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> reader.read(truncated))
+                .isInstanceOf(InvalidInvoiceRequestException.class)
+                .hasMessageStartingWith("Malformed request body");
+    }
+
+    @Test
+    void read_tooManyItems_isRejected() {
+        final var properties = new InvoiceLargeRequestProperties();
+        properties.setMaxItems(2);
+
+        assertThatThrownBy(() -> reader(properties).read(body(request(3))))
+                .isInstanceOf(InvoiceRequestTooLargeException.class)
+                .hasMessage("An invoice must not have more than 2 items");
+    }
+
+    @Test
+    void read_itemsExceedingTheSpoolSize_areRejected() {
+        final var properties = new InvoiceLargeRequestProperties();
+        properties.setMaxSpoolSize(DataSize.ofKilobytes(16));
+
+        assertThatThrownBy(() -> reader(properties).read(body(request(1000))))
+                .isInstanceOf(InvoiceRequestTooLargeException.class);
+        try (StreamedInvoiceRequest request = reader(properties).read(body(request(1)))) {
+            assertThat(request.itemCount()).isEqualTo(1);
+        }
+    }
+
+    private ObjectNode request(final int itemCount) {
+        final ObjectNode request = jsonMapper.valueToTree(TestFixtures.createInvoiceRequestDto());
+        final ArrayNode items = request.putArray("invoiceItems");
+        final InvoiceItemDto item = TestFixtures.invoiceItemDto();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(jsonMapper.<ObjectNode>valueToTree(item));
+        }
+        request.put("totalNetPrice", new BigDecimal("1200").multiply(BigDecimal.valueOf(itemCount)));
+        return request;
+    }
+
+    private InputStream body(final ObjectNode request) {
+        return new ByteArrayInputStream(jsonMapper.writeValueAsBytes(request));
+    }
+}
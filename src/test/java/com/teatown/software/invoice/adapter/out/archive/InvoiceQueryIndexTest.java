@@ -0,0 +1,129 @@
+package com.teatown.software.invoice.adapter.out.archive;
+
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedInvoice;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoicePage;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoiceQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceQueryIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void query_pagesThroughTheSameInvoicesAsAFullScan() {
+        // merges run on the adding thread, so the rows below are split predictably
+        final var index = new InvoiceQueryIndex(Runnable::run);
+        final var random = new Random(42);
+        final List<InvoiceQueryIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            entries.add(entry(random, i));
+        }
+        index.addAll(entries);
+        // sorted, merged and still unsorted rows
+        for (int i = 2000; i < 2000 + InvoiceQueryIndex.MIN_UNSORTED + 500; i++) {
+            final var entry = entry(random, i);
+            entries.add(entry);
+            index.add(entry);
+        }
+        assertThat(index.unsortedRows()).isBetween(1, InvoiceQueryIndex.MIN_UNSORTED);
+        for (int row = 0; row < entries.size(); row += 7) {
+            index.remove(row);
+        }
+
+        final var march = START.plusMonths(2);
+        assertPagesMatch(index, entries, query("C-7", null, null, null, null, null),
+                entry -> entry.customerNumber().equals("C-7"));
+        assertPagesMatch(index, entries, query(null, march, march.plusDays(30), null, null, null),
+                entry -> !entry.invoiceDate().isBefore(march) && !entry.invoiceDate().isAfter(march.plusDays(30)));
+        assertPagesMatch(index, entries, query(null, null, null, march, march.plusDays(3), true),
+                entry -> !entry.dueDate().isBefore(march) && !entry.dueDate().isAfter(march.plusDays(3))
+                        && entry.reverseCharge());
+        assertPagesMatch(index, entries, query("C-3", START, march, march, null, false),
+                entry -> entry.customerNumber().equals("C-3") && !entry.invoiceDate().isAfter(march)
+                        && !entry.dueDate().isBefore(march) && !entry.reverseCharge());
+        assertPagesMatch(index, entries, query(null, null, null, null, null, null), entry -> true);
+        assertThat(index.query(query("unknown", null, null, null, null, null)).invoices()).isEmpty();
+    }
+
+    @Test
+    void load_restoresTheSavedRows() throws IOException {
+        final var index = new InvoiceQueryIndex();
+        final var random = new Random(7);
+        final List<InvoiceQueryIndex.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            entries.add(entry(random, i));
+            index.add(entries.getLast());
+        }
+        index.remove(5);
+        final Path file = directory.resolve("invoices.idx");
+        index.save(file);
+
+        final var loaded = InvoiceQueryIndex.load(file);
+
+        assertThat(loaded.rowCount()).isEqualTo(300);
+        assertThat(loaded.size()).isEqualTo(299);
+        assertThat(loaded.isRemoved(5)).isTrue();
+        assertThat(loaded.invoiceNumber(42)).isEqualTo(entries.get(42).invoiceNumber());
+        assertThat(loaded.version(42)).isEqualTo(42);
+        assertThat(loaded.unsortedRows()).isZero();
+        final var all = query(null, null, null, null, null, null);
+        assertThat(loaded.query(all)).isEqualTo(index.query(all));
+    }
+
+    private static void assertPagesMatch(final InvoiceQueryIndex index, final List<InvoiceQueryIndex.Entry> entries,
+                                         final InvoiceQuery query, final Predicate<InvoiceQueryIndex.Entry> filter) {
+        final List<String> expected = new ArrayList<>();
+        for (int row = 0; row < entries.size(); row++) {
+            if (!index.isRemoved(row) && filter.test(entries.get(row))) {
+                expected.add(entries.get(row).invoiceNumber());
+            }
+        }
+        expected.sort(Comparator.comparing((String number) -> entries.get(row(number)).invoiceDate())
+                .thenComparingInt(InvoiceQueryIndexTest::row));
+
+        final List<String> paged = new ArrayList<>();
+        Long after = null;
+        do {
+            final InvoicePage page = index.query(new InvoiceQuery(query.customerNumber(), query.invoiceDateFrom(),
+                    query.invoiceDateTo(), query.dueDateFrom(), query.dueDateTo(), query.reverseCharge(), after, 50));
+            assertThat(page.invoices()).hasSizeLessThanOrEqualTo(50);
+            page.invoices().stream().map(ArchivedInvoice::invoiceNumber).forEach(paged::add);
+            after = page.next();
+        } while (after != null);
+
+        assertThat(expected).isNotEmpty();
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+
+    private static InvoiceQuery query(final String customerNumber, final LocalDate invoiceDateFrom,
+                                      final LocalDate invoiceDateTo, final LocalDate dueDateFrom,
+                                      final LocalDate dueDateTo, final Boolean reverseCharge) {
+        return new InvoiceQuery(customerNumber, invoiceDateFrom, invoiceDateTo, dueDateFrom, dueDateTo, reverseCharge,
+                null, 50);
+    }
+
+    private static InvoiceQueryIndex.Entry entry(final Random random, final int i) {
+        final LocalDate invoiceDate = START.plusDays(random.nextInt(365));
+        return new InvoiceQueryIndex.Entry("INV-" + i, i, invoiceDate, invoiceDate.plusDays(14 + random.nextInt(30)),
+                "C-" + random.nextInt(20), random.nextInt(4) == 0);
+    }
+
+    private static int row(final String invoiceNumber) {
+        return Integer.parseInt(invoiceNumber.substring(4));
+    }
+}
@@ -0,0 +1,215 @@
+package com.teatown.software.invoice.adapter.out.archive;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedInvoice;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.ArchivedPdf;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort.InvoiceQuery;
+import com.teatown.software.invoice.configuration.InvoiceArchiveProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedInvoiceArchiveTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+    private static final String HASH_A = "aa".repeat(32);
+    private static final String HASH_B = "bb".repeat(32);
+    private static final String HASH_C = "cc".repeat(32);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_afterRestart_returnsTheOriginalAndEveryOtherRenderingPerInvoiceNumber() throws IOException {
+        final var archive = archive(DataSize.ofMegabytes(1));
+        archive.archive(invoice("INV-1"), HASH_A, pdf('a', 1000));
+        archive.archive(invoice("INV-2"), HASH_B, pdf('b', 2000));
+        archive.archive(invoice("INV-1"), HASH_C, pdf('c', 3000));
+        archive.archive(invoice("INV-1"), HASH_C, pdf('c', 3000));
+        final long bytes = archive.bytes();
+        archive.archive(invoice("INV-1"), HASH_A, pdf('a', 1000));
+        assertThat(archive.bytes()).isEqualTo(bytes);
+        archive.close();
+
+        final var reopened = archive(DataSize.ofMegabytes(1));
+
+        assertThat(reopened.invoiceCount()).isEqualTo(2);
+        assertThat(reopened.segmentCount()).isEqualTo(1);
+        try (ArchivedPdf pdf = reopened.open("INV-1").orElseThrow()) {
+            assertThat(pdf.invoiceNumber()).isEqualTo("INV-1");
+            assertThat(pdf.contentHash()).isEqualTo(HASH_A);
+            assertThat(pdf.archivedAt()).isEqualTo(NOW);
+            assertThat(pdf.size()).isEqualTo(1000);
+            assertThat(read(pdf)).isEqualTo(pdf('a', 1000));
+        }
+        try (ArchivedPdf pdf = reopened.open("INV-1", HASH_C).orElseThrow()) {
+            assertThat(pdf.contentHash()).isEqualTo(HASH_C);
+            assertThat(read(pdf)).isEqualTo(pdf('c', 3000));
+        }
+        try (ArchivedPdf pdf = reopened.open("INV-2").orElseThrow()) {
+            assertThat(read(pdf)).isEqualTo(pdf('b', 2000));
+        }
+        assertThat(reopened.invoice("INV-1")).contains(invoice("INV-1"));
+        assertThat(reopened.contains("INV-2")).isTrue();
+        assertThat(reopened.contains("INV-3")).isFalse();
+        assertThat(reopened.invoice("INV-3")).isEmpty();
+        assertThat(reopened.open("INV-2", HASH_A)).isEmpty();
+        assertThat(reopened.open("INV-1", "not-a-hash")).isEmpty();
+        assertThat(reopened.open("INV-3")).isEmpty();
+    }
+
+    @Test
+    void archive_fromFile_appendsThePdfWithoutChangingTheFile() throws IOException {
+        final var archive = archive(DataSize.ofBytes(1));
+        archive.archive(invoice("INV-1"), HASH_A, pdf('a', 100));
+        final Path file = Files.write(directory.resolve("spooled.pdf"), pdf('b', 200_000));
+
+        archive.archive(invoice("INV-1"), HASH_B, file);
+        archive.archive(invoice("INV-1"), HASH_B, file);
+
+        assertThat(Files.readAllBytes(file)).isEqualTo(pdf('b', 200_000));
+        assertThat(archive.segmentCount()).isEqualTo(2);
+        archive.maintain();
+        assertThat(archive.corruptRecordCount()).isZero();
+        archive.close();
+
+        final var reopened = archive(DataSize.ofBytes(1));
+        try (ArchivedPdf pdf = reopened.open("INV-1", HASH_B).orElseThrow()) {
+            assertThat(pdf.size()).isEqualTo(200_000);
+            assertThat(read(pdf)).isEqualTo(pdf('b', 200_000));
+        }
+        try (ArchivedPdf pdf = reopened.open("INV-1").orElseThrow()) {
+            assertThat(pdf.contentHash()).isEqualTo(HASH_A);
+        }
+    }
+
+    @Test
+    void recover_cutsOffTornLastRecord() throws IOException {
+        final var archive = archive(DataSize.ofMegabytes(1));
+        archive.archive(invoice("INV-1"), HASH_A, pdf('a', 1000));
+        archive.close();
+        final Path segment = directory.resolve(ArchiveSegment.fileName(1));
+        final long complete = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            // header of a record whose PDF never made it to disk
+            channel.write(ArchiveSegment.record(0, new byte[ArchiveSegment.HASH_LENGTH], "INV-2".getBytes(),
+                    new byte[0], new byte[500])[0]);
+        }
+
+        final var reopened = archive(DataSize.ofMegabytes(1));
+        reopened.archive(invoice("INV-3"), HASH_C, pdf('c', 100));
+
+        assertThat(reopened.open("INV-2")).isEmpty();
+        try (ArchivedPdf pdf = reopened.open("INV-1").orElseThrow()) {
+            assertThat(read(pdf)).isEqualTo(pdf('a', 1000));
+        }
+        try (ArchivedPdf pdf = reopened.open("INV-3").orElseThrow()) {
+            assertThat(read(pdf)).isEqualTo(pdf('c', 100));
+        }
+        assertThat(Files.size(segment)).isGreaterThan(complete);
+    }
+
+    @Test
+    void maintain_detectsCorruptRecordsInSealedSegments() throws IOException {
+        final var archive = archive(DataSize.ofBytes(1));
+        archive.archive(invoice("INV-1"), HASH_A, pdf('a', 1000));
+        archive.archive(invoice("INV-2"), HASH_B, pdf('b', 1000));
+        try (FileChannel channel = FileChannel.open(directory.resolve(ArchiveSegment.fileName(1)),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), channel.size() - 1);
+        }
+
+        archive.maintain();
+
+        assertThat(archive.corruptRecordCount()).isEqualTo(1);
+        assertThat(archive.open("INV-1")).isPresent();
+    }
+
+    @Test
+    void find_listsTheOriginalRecordPerInvoiceNumberAcrossRestarts() throws IOException {
+        final var archive = archive(DataSize.ofMegabytes(1));
+        archive.archive(invoice("INV-1"), HASH_A, pdf('a', 100));
+        archive.archive(invoice("INV-2"), HASH_B, pdf('b', 100));
+        archive.maintain();
+        final Path queryIndex = directory.resolve(SegmentedInvoiceArchive.QUERY_INDEX_FILE);
+        final byte[] saved = Files.readAllBytes(queryIndex);
+        archive.archive(invoice("INV-1"), HASH_C, pdf('c', 100));
+        archive.close();
+        // as if the process had died before saving the query index again
+        Files.write(queryIndex, saved);
+
+        final var reopened = archive(DataSize.ofMegabytes(1));
+
+        // the other rendering of INV-1 does not change its row, so the saved rows are all kept
+        assertThat(numbers(reopened.find(all()).invoices())).containsExactly("INV-1", "INV-2");
+        assertThat(reopened.queryIndex().rowCount()).isEqualTo(2);
+        assertThat(reopened.find(new InvoiceQuery("C-1", null, null, null, null, false, null, 1)).next())
+                .isNotNull();
+        assertThat(reopened.find(new InvoiceQuery("C-2", null, null, null, null, null, null, 10)).invoices())
+                .isEmpty();
+        reopened.close();
+
+        Files.delete(queryIndex);
+        final var rebuilt = archive(DataSize.ofMegabytes(1));
+
+        assertThat(rebuilt.queryIndex().rowCount()).isEqualTo(2);
+        final List<ArchivedInvoice> invoices = rebuilt.find(all()).invoices();
+        assertThat(numbers(invoices)).containsExactlyInAnyOrder("INV-1", "INV-2");
+        final ArchivedInvoice invoice = invoices.getFirst();
+        assertThat(invoice.customerNumber()).isEqualTo("C-1");
+        assertThat(invoice.invoiceDate()).isEqualTo(TestFixtures.minimalInvoice().invoiceDate());
+        assertThat(invoice.dueDate()).isEqualTo(TestFixtures.minimalInvoice().dueDate());
+    }
+
+    private static InvoiceQuery all() {
+        return new InvoiceQuery(null, null, null, null, null, null, null, 10);
+    }
+
+    private static List<String> numbers(final List<ArchivedInvoice> invoices) {
+        return invoices.stream().map(ArchivedInvoice::invoiceNumber).toList();
+    }
+
+    private SegmentedInvoiceArchive archive(final DataSize segmentSize) {
+        final var properties = new InvoiceArchiveProperties();
+        properties.setDirectory(directory);
+        properties.setSegmentSize(segmentSize);
+        return new SegmentedInvoiceArchive(JsonMapper.builder().build(), properties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static Invoice invoice(final String invoiceNumber) {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        return new Invoice(invoice.invoiceDate(), invoiceNumber, invoice.deliveryDate(), invoice.dueDate(),
+                invoice.items(), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), invoice.finalNotes(), invoice.companyDetails(), invoice.customer(),
+                invoice.reverseCharge());
+    }
+
+    private static byte[] pdf(final char fill, final int length) {
+        final byte[] pdf = new byte[length];
+        Arrays.fill(pdf, (byte) fill);
+        return pdf;
+    }
+
+    private static byte[] read(final ArchivedPdf pdf) {
+        final var out = new ByteArrayOutputStream();
+        pdf.transferTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,75 @@
+package com.teatown.software.invoice.adapter.out.job;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.application.port.InvoiceJobJournalPort.JournaledJob;
+import com.teatown.software.invoice.configuration.InvoiceJobProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceJob;
+import com.teatown.software.invoice.domain.InvoiceJobStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileInvoiceJobJournalTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_afterRestart_returnsLatestStatePerJob() throws IOException {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final InvoiceJob pending = InvoiceJob.queued("job-1", "INV-1", "en", NOW);
+        final InvoiceJob finished = InvoiceJob.queued("job-2", "INV-2", "es", NOW);
+        final InvoiceJob removed = InvoiceJob.queued("job-3", "INV-3", "en", NOW);
+
+        final var journal = new FileInvoiceJobJournal(JsonMapper.builder().build(), properties());
+        journal.submitted(pending, invoice);
+        journal.submitted(finished, invoice);
+        journal.submitted(removed, invoice);
+        journal.updated(pending.running());
+        journal.updated(finished.running());
+        journal.updated(finished.done(NOW.plusSeconds(1), finished.invoiceNumber()));
+        journal.removed(removed.id());
+        journal.close();
+
+        final List<JournaledJob> replayed = new FileInvoiceJobJournal(JsonMapper.builder().build(), properties()).replay();
+
+        assertThat(replayed).extracting(j -> j.job().id()).containsExactly("job-1", "job-2");
+        assertThat(replayed.get(0).job().status()).isEqualTo(InvoiceJobStatus.RUNNING);
+        assertThat(replayed.get(0).invoice()).isEqualTo(invoice);
+        assertThat(replayed.get(1).job()).isEqualTo(finished.done(NOW.plusSeconds(1), finished.invoiceNumber()));
+        assertThat(replayed.get(1).invoice()).isNull();
+        // compacted to one line per live job
+        assertThat(Files.readAllLines(directory.resolve(FileInvoiceJobJournal.JOURNAL_FILE))).hasSize(2);
+    }
+
+    @Test
+    void replay_skipsTornLastLine() throws IOException {
+        final var journal = new FileInvoiceJobJournal(JsonMapper.builder().build(), properties());
+        journal.submitted(InvoiceJob.queued("job-1", "INV-1", "en", NOW), TestFixtures.minimalInvoice());
+        journal.close();
+        Files.writeString(directory.resolve(FileInvoiceJobJournal.JOURNAL_FILE), "{\"op\":\"UPDA",
+                StandardOpenOption.APPEND);
+
+        final List<JournaledJob> replayed = new FileInvoiceJobJournal(JsonMapper.builder().build(), properties()).replay();
+
+        assertThat(replayed).extracting(j -> j.job().status()).containsExactly(InvoiceJobStatus.QUEUED);
+    }
+
+    private InvoiceJobProperties properties() {
+        final var properties = new InvoiceJobProperties();
+        properties.setDirectory(directory);
+        return properties;
+    }
+}
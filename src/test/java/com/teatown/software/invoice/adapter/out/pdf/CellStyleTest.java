@@ -0,0 +1,69 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPCellEvent;
+import com.lowagie.text.pdf.PdfPTable;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CellStyleTest {
+
+    private final Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private final Font headingFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+
+    @Test
+    void add_customizedCellsDoNotChangeTheSharedStyle() {
+        final CellStyle topBorder = CellStyle.left(normalFont, CellStyle.Border.TOP);
+        final CellStyle heading = CellStyle.right(headingFont, CellStyle.Border.NONE);
+        final PdfPCellEvent event = (cell, position, canvases) -> {
+        };
+        final var table = new PdfPTable(3);
+
+        topBorder.add(table, "spanning", 2);
+        topBorder.add(table, "with event", event);
+        topBorder.add(table, "plain");
+        heading.add(table, "heading");
+        topBorder.addBlank(table);
+
+        final PdfPCell[] first = table.getRow(0).getCells();
+        final PdfPCell[] second = table.getRow(1).getCells();
+        assertThat(first[0].getColspan()).isEqualTo(2);
+        assertThat(first[2].getCellEvent()).isSameAs(event);
+        assertTopBorderStyle(first[0]);
+        assertTopBorderStyle(first[2]);
+        assertTopBorderStyle(second[0]);
+        assertThat(second[0].getColspan()).isEqualTo(1);
+        assertThat(second[0].getCellEvent()).isNull();
+        assertThat(second[1].getHorizontalAlignment()).isEqualTo(Element.ALIGN_RIGHT);
+        assertThat(second[1].getBorderWidthTop()).isZero();
+        assertThat(second[1].getPhrase().getFont()).isSameAs(headingFont);
+        assertTopBorderStyle(second[2]);
+        assertThat(second[2].getCellEvent()).isNull();
+    }
+
+    @Test
+    void add_leavesNoCustomizationOnTheTablesDefaultCell() {
+        final CellStyle style = CellStyle.left(normalFont, CellStyle.Border.BOTTOM);
+        final var table = new PdfPTable(2);
+
+        style.add(table, "spanning", 2);
+        style.add(table, "with event", (cell, position, canvases) -> {
+        });
+
+        assertThat(table.getDefaultCell().getColspan()).isEqualTo(1);
+        assertThat(table.getDefaultCell().getCellEvent()).isNull();
+    }
+
+    private void assertTopBorderStyle(final PdfPCell cell) {
+        assertThat(cell.getHorizontalAlignment()).isEqualTo(Element.ALIGN_LEFT);
+        assertThat(cell.getBorderWidthTop()).isEqualTo(0.5f);
+        assertThat(cell.getBorderWidthBottom()).isZero();
+        assertThat(cell.getPaddingLeft()).isEqualTo(2f);
+        assertThat(cell.getPaddingTop()).isEqualTo(2f);
+        assertThat(cell.getPhrase().getFont()).isSameAs(normalFont);
+    }
+}
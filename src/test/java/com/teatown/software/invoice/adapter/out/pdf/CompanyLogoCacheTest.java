@@ -0,0 +1,92 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CompanyLogoCacheTest {
+
+    private static final String LOGO = "2026-02-14_Teatown-Software_T-Logo.jpg";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void logo_isLoadedOnceFromClasspathAndServedFromMemory() {
+        final var cache = new CompanyLogoCache(new InvoicePdfProperties(), new DefaultResourceLoader());
+
+        final var first = cache.logo();
+        final var second = cache.logo();
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.getScaledWidth()).isLessThanOrEqualTo(CompanyLogoCache.MAX_WIDTH);
+        assertThat(first.getScaledHeight()).isLessThanOrEqualTo(CompanyLogoCache.MAX_HEIGHT);
+        assertThat(cache.loadCount()).isEqualTo(1);
+        assertThat(cache.renderCount()).isEqualTo(2);
+    }
+
+    @Test
+    void logo_atLowerResolution_isReencodedOnceAtTheSamePrintedSize() {
+        final var cache = new CompanyLogoCache(new InvoicePdfProperties(), new DefaultResourceLoader());
+        final var original = cache.logo();
+
+        final var resampled = cache.logo(150, 0.75f);
+
+        assertThat(resampled.getWidth()).isLessThan(original.getWidth());
+        assertThat(resampled.getRawData().length).isLessThan(original.getRawData().length);
+        assertThat(resampled.getScaledWidth()).isCloseTo(original.getScaledWidth(), within(1f));
+        assertThat(resampled.getScaledHeight()).isCloseTo(original.getScaledHeight(), within(1f));
+        assertThat(cache.logo(150, 0.75f).getRawData()).isSameAs(resampled.getRawData());
+        assertThat(cache.logo(0, 0.75f).getRawData()).isSameAs(original.getRawData());
+        assertThat(cache.loadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadIfModified_reloadsOnlyWhenTheFileChanged() throws IOException {
+        final Path logo = copyLogoTo(tempDir.resolve("logo.jpg"));
+        final var properties = new InvoicePdfProperties();
+        properties.setLogoLocation(logo.toUri().toString());
+        final var cache = new CompanyLogoCache(properties, new DefaultResourceLoader());
+
+        cache.reloadIfModified();
+        assertThat(cache.loadCount()).isEqualTo(1);
+
+        Files.setLastModifiedTime(logo, FileTime.from(Instant.now().plusSeconds(60)));
+        cache.reloadIfModified();
+        assertThat(cache.loadCount()).isEqualTo(2);
+    }
+
+    @Test
+    void reloadIfModified_keepsPreviousLogoWhenReplacementIsBroken() throws IOException {
+        final Path logo = copyLogoTo(tempDir.resolve("logo.jpg"));
+        final var properties = new InvoicePdfProperties();
+        properties.setLogoLocation(logo.toUri().toString());
+        final var cache = new CompanyLogoCache(properties, new DefaultResourceLoader());
+
+        Files.writeString(logo, "not a jpeg");
+        Files.setLastModifiedTime(logo, FileTime.from(Instant.now().plusSeconds(60)));
+        cache.reloadIfModified();
+
+        assertThat(cache.loadCount()).isEqualTo(1);
+        assertThat(cache.logo()).isNotNull();
+    }
+
+    private static Path copyLogoTo(final Path target) throws IOException {
+        try (final InputStream in = new ClassPathResource(LOGO).getInputStream()) {
+            Files.copy(in, target);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,27 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountryNamesTest {
+
+    private final CountryNames countryNames = new CountryNames(List.of(Locale.ENGLISH, Locale.of("es")));
+
+    @Test
+    void name_looksUpTheNameInTheLanguageOfTheLocale() {
+        assertThat(countryNames.name("ES", Locale.ENGLISH)).isEqualTo("Spain");
+        assertThat(countryNames.name("ES", Locale.of("es", "MX"))).isEqualTo("España");
+        assertThat(countryNames.name("at", Locale.of("es"))).isEqualTo("Austria");
+    }
+
+    @Test
+    void name_fallsBackToFirstSupportedLocaleAndToTheCode() {
+        assertThat(countryNames.name("DE", Locale.GERMAN)).isEqualTo("Germany");
+        assertThat(countryNames.name("XX", Locale.ENGLISH)).isEqualTo("XX");
+        assertThat(countryNames.name(null, Locale.ENGLISH)).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceLabelRegistryTest {
+
+    private static final Locale SPANISH = Locale.of("es");
+
+    @Test
+    void labels_resolvesLabelsAndPrecompiledVatPatternPerLocale() {
+        final var messageSource = new StaticMessageSource();
+        messageSource.addMessage("invoice.pdf.invoiceNo", Locale.ENGLISH, "Invoice No.:");
+        messageSource.addMessage("invoice.pdf.invoiceNo", SPANISH, "N.º de factura:");
+        messageSource.addMessage("invoice.pdf.vat", Locale.ENGLISH, "VAT ({0}%):");
+        messageSource.addMessage("invoice.pdf.vat", SPANISH, "IVA ''{0}'' %");
+        messageSource.setUseCodeAsDefaultMessage(true);
+
+        final var registry = new InvoiceLabelRegistry(messageSource, properties());
+
+        assertThat(registry.labels(Locale.ENGLISH).invoiceNo()).isEqualTo("Invoice No.:");
+        assertThat(registry.labels(Locale.ENGLISH).vat("19")).isEqualTo("VAT (19%):");
+        assertThat(registry.labels(Locale.of("es", "ES")).invoiceNo()).isEqualTo("N.º de factura:");
+        assertThat(registry.labels(SPANISH).vat("21")).isEqualTo("IVA '21' %");
+    }
+
+    @Test
+    void labels_fallsBackToFirstSupportedLocale() {
+        final var messageSource = new StaticMessageSource();
+        messageSource.setUseCodeAsDefaultMessage(true);
+
+        final var registry = new InvoiceLabelRegistry(messageSource, properties());
+
+        assertThat(registry.labels(Locale.GERMAN).locale()).isEqualTo(Locale.ENGLISH);
+    }
+
+    @Test
+    void reload_picksUpChangedMessages() {
+        final var messageSource = new StaticMessageSource();
+        messageSource.setUseCodeAsDefaultMessage(true);
+        messageSource.addMessage("invoice.pdf.total", Locale.ENGLISH, "Total");
+        final var registry = new InvoiceLabelRegistry(messageSource, properties());
+        final InvoiceLabels before = registry.labels(Locale.ENGLISH);
+
+        registry.reload();
+        assertThat(registry.labels(Locale.ENGLISH)).isSameAs(before);
+
+        messageSource.addMessage("invoice.pdf.total", Locale.ENGLISH, "Amount");
+        registry.reload();
+        assertThat(registry.labels(Locale.ENGLISH).total()).isEqualTo("Amount");
+    }
+
+    private static InvoicePdfProperties properties() {
+        final var properties = new InvoicePdfProperties();
+        properties.setSupportedLocales(List.of(Locale.ENGLISH, SPANISH));
+        return properties;
+    }
+}
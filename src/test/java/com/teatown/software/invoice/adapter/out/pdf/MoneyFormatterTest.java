@@ -0,0 +1,53 @@
+package com.teatown.software.invoice.adapter.out.pdf;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoneyFormatterTest {
+
+    private final MoneyFormatter en = MoneyFormatter.of(Locale.ENGLISH, RoundingMode.HALF_UP);
+    private final MoneyFormatter es = MoneyFormatter.of(Locale.of("es"), RoundingMode.HALF_UP);
+
+    @Test
+    void money_usesLocaleSeparatorsAndRoundsHalfUp() {
+        assertThat(en.money(new BigDecimal("1234.5"))).isEqualTo("1,234.50 €");
+        assertThat(es.money(new BigDecimal("1234.5"))).isEqualTo("1.234,50 €");
+        assertThat(en.money(new BigDecimal("2.345"))).isEqualTo("2.35 €");
+        assertThat(en.money(new BigDecimal("2.3449"))).isEqualTo("2.34 €");
+        assertThat(en.money(new BigDecimal("-1234567.895"))).isEqualTo("-1,234,567.90 €");
+        assertThat(en.money(new BigDecimal("0.004"))).isEqualTo("0.00 €");
+        assertThat(en.money(new BigDecimal("1E+3"))).isEqualTo("1,000.00 €");
+        assertThat(en.money(null)).isEmpty();
+    }
+
+    @Test
+    void money_roundsWithTheGivenMode() {
+        final MoneyFormatter halfEven = MoneyFormatter.of(Locale.ENGLISH, RoundingMode.HALF_EVEN);
+
+        assertThat(halfEven.money(new BigDecimal("2.345"))).isEqualTo("2.34 €");
+        assertThat(halfEven.money(new BigDecimal("2.355"))).isEqualTo("2.36 €");
+        assertThat(en.money(new BigDecimal("2.345"))).isEqualTo("2.35 €");
+    }
+
+    @Test
+    void money_beyondLongRange_takesSlowPathWithSameFormat() {
+        assertThat(en.money(new BigDecimal("12345678901234567890.125"))).isEqualTo("12,345,678,901,234,567,890.13 €");
+        assertThat(es.money(new BigDecimal("-12345678901234567890.125"))).isEqualTo("-12.345.678.901.234.567.890,13 €");
+    }
+
+    @Test
+    void decimal_stripsTrailingZeros() {
+        assertThat(en.decimal(new BigDecimal("2.000"))).isEqualTo("2");
+        assertThat(en.decimal(new BigDecimal("1.50"))).isEqualTo("1.5");
+        assertThat(es.decimal(new BigDecimal("1.50"))).isEqualTo("1,5");
+        assertThat(en.decimal(new BigDecimal("0.19"))).isEqualTo("0.19");
+        assertThat(en.decimal(new BigDecimal("1500"))).isEqualTo("1,500");
+        assertThat(en.decimal(new BigDecimal("1E+3"))).isEqualTo("1,000");
+        assertThat(en.decimal(null)).isEmpty();
+    }
+}
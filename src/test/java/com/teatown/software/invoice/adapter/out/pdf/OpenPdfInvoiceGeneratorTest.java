@@ -1,23 +1,51 @@
 package com.teatown.software.invoice.adapter.out.pdf;
 
 import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
 import com.teatown.software.invoice.configuration.InvoicePdfProperties;
+import com.teatown.software.invoice.configuration.InvoiceTotalsProperties;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import com.teatown.software.invoice.domain.CompanyDetails;
 import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.io.DefaultResourceLoader;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class OpenPdfInvoiceGeneratorTest {
 
+    private InvoicePdfProperties properties;
+    private InvoiceLabelRegistry labelRegistry;
+    private CompanyLogoCache logoCache;
     private OpenPdfInvoiceGenerator generator;
 
     @BeforeEach
     void setUp() {
-        final var properties = new InvoicePdfProperties();
+        properties = new InvoicePdfProperties();
+        properties.setStationeryCacheSize(1);
         properties.setDateFormat("dd.MM.yyyy");
         properties.setMarginMm(40f);
         properties.setTitleFontSize(18);
@@ -25,7 +53,9 @@ class OpenPdfInvoiceGeneratorTest {
         properties.setNormalFontSize(10);
         final var messageSource = new ResourceBundleMessageSource();
         messageSource.setBasenames("messages");
-        generator = new OpenPdfInvoiceGenerator(properties, messageSource);
+        labelRegistry = new InvoiceLabelRegistry(messageSource, properties);
+        logoCache = new CompanyLogoCache(properties, new DefaultResourceLoader());
+        generator = new OpenPdfInvoiceGenerator(properties, labelRegistry, logoCache);
     }
 
     @Test
@@ -47,4 +77,285 @@ class OpenPdfInvoiceGeneratorTest {
         assertThat(pdf).isNotEmpty();
         assertThat(new String(pdf, 0, Math.min(8, pdf.length))).startsWith("%PDF");
     }
+
+    @Test
+    void generate_toStream_writesSamePdfStructureWithoutClosingTheStream() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final var out = new ByteArrayOutputStream() {
+            boolean closed;
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+
+        generator.generate(invoice, Locale.ENGLISH, out);
+
+        assertThat(out.closed).isFalse();
+        assertThat(new String(out.toByteArray(), 0, 8)).startsWith("%PDF");
+    }
+
+    @Test
+    void generate_reusesStationeryPerCompanyAndLocale() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final Invoice otherCompany = new Invoice(invoice.invoiceDate(), invoice.invoiceNumber(), invoice.deliveryDate(),
+                invoice.dueDate(), invoice.items(), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), invoice.finalNotes(),
+                CompanyDetails.builder().name("Other GmbH").address(invoice.companyDetails().address())
+                        .bankAccount(invoice.companyDetails().bankAccount()).build(),
+                invoice.customer(), invoice.reverseCharge());
+
+        generator.generate(invoice, Locale.ENGLISH);
+        generator.generate(invoice, Locale.ENGLISH);
+        assertThat(generator.stationeryRenderCount()).isEqualTo(1);
+
+        generator.generate(invoice, new Locale("es"));
+        generator.generate(otherCompany, Locale.ENGLISH);
+        // the cache holds a single entry in this test, so switching back renders again
+        generator.generate(invoice, Locale.ENGLISH);
+        assertThat(generator.stationeryRenderCount()).isEqualTo(4);
+    }
+
+    @Test
+    void generate_stampsStationeryOnEveryPage() throws IOException {
+        final Invoice longInvoice = longInvoice(100);
+
+        final var reader = new PdfReader(generator.generate(longInvoice, Locale.ENGLISH));
+
+        assertThat(reader.getNumberOfPages()).isGreaterThan(1);
+        final var extractor = new PdfTextExtractor(reader);
+        for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+            assertThat(extractor.getTextFromPage(page)).contains("Company ID: HRB 1");
+        }
+        assertThat(extractor.getTextFromPage(1)).contains("Co GmbH - Main 1 - 10115 Berlin - Germany");
+        assertThat(extractor.getTextFromPage(2)).doesNotContain("Co GmbH - Main 1");
+    }
+
+    @Test
+    void generate_takesCountryNamesAndDefaultFinalNotesFromTheLocale() throws IOException {
+        final var reader = new PdfReader(generator.generate(TestFixtures.minimalInvoice(), Locale.of("es")));
+        final String text = new PdfTextExtractor(reader).getTextFromPage(1);
+
+        assertThat(text).contains("Co GmbH - Main 1 - 10115 Berlin - Alemania")
+                .contains("Condiciones de pago: El pago deber\u00e1 efectuarse en un plazo de 30 d\u00edas")
+                .contains("Lucas Christian M\u00fcllner");
+    }
+
+    @Test
+    void generate_printsTheVatRateAsAPercentage() throws IOException {
+        final var reader = new PdfReader(generator.generate(TestFixtures.minimalInvoice(), Locale.ENGLISH));
+
+        assertThat(new PdfTextExtractor(reader).getTextFromPage(1)).contains("VAT (19%)");
+    }
+
+    @Test
+    void generate_streamedItems_carriesRunningSubtotalOverEveryPageBreak() throws IOException {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final InvoiceItem item = invoice.items().getFirst();
+        final var items = Stream.generate(() -> item).limit(250).iterator();
+        final var out = new ByteArrayOutputStream();
+
+        generator.generate(invoice, items, Locale.ENGLISH, out);
+
+        assertThat(items.hasNext()).isFalse();
+        final var reader = new PdfReader(out.toByteArray());
+        final var extractor = new PdfTextExtractor(reader);
+        final int pages = reader.getNumberOfPages();
+        assertThat(pages).isGreaterThan(2);
+        assertThat(extractor.getTextFromPage(1)).doesNotContain("Brought forward:");
+        for (int page = 2; page <= pages; page++) {
+            final String carried = amountAfter("Carried forward:", extractor.getTextFromPage(page - 1));
+            assertThat(amountAfter("Brought forward:", extractor.getTextFromPage(page))).as("page %d", page)
+                    .isEqualTo(carried);
+        }
+        assertThat(extractor.getTextFromPage(pages)).doesNotContain("Carried forward:").contains("250");
+    }
+
+    @Test
+    void generate_singlePage_hasNoSubtotalRows() throws IOException {
+        final var extractor = new PdfTextExtractor(new PdfReader(generator.generate(TestFixtures.minimalInvoice(),
+                Locale.ENGLISH)));
+
+        assertThat(extractor.getTextFromPage(1)).doesNotContain("forward");
+    }
+
+    @Test
+    void generate_observesEveryRenderStage() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        final var instrumented = new OpenPdfInvoiceGenerator(properties, new InvoiceTotalsProperties(),
+                labelRegistry, logoCache, observationRegistry, meterRegistry);
+        final Invoice invoice = longInvoice(100);
+
+        final byte[] pdf = instrumented.generate(invoice, Locale.ENGLISH);
+
+        for (final String stage : List.of("stationery", "logo", "header", "footer", "invoice-details", "items-table",
+                "totals", "final-notes", "close")) {
+            assertThat(meterRegistry.get(PdfRenderObserver.STAGE).tag("stage", stage).timer().count())
+                    .as(stage).isEqualTo(1);
+        }
+        assertThat(meterRegistry.get(PdfRenderObserver.RENDER).tag("items", "11-100").tag("pages", "2-10").timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get(PdfRenderObserver.OUTPUT_SIZE).summary().totalAmount()).isEqualTo(pdf.length);
+        assertThat(meterRegistry.find(PdfRenderObserver.STAGE_ALLOCATED).tag("stage", "items-table").summary())
+                .satisfiesAnyOf(
+                        summary -> assertThat(summary).isNull(), // allocation tracking not supported by this JVM
+                        summary -> assertThat(summary.totalAmount()).isPositive());
+    }
+
+    @Test
+    void generate_deterministic_sameInvoiceRendersToSameBytesAcrossRunsAndThreads() throws Exception {
+        final Invoice invoice = longInvoice(100);
+        final byte[] expected = generator.generate(invoice, Locale.ENGLISH);
+        final var other = new OpenPdfInvoiceGenerator(properties, labelRegistry, logoCache);
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            final List<Future<byte[]>> renders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                renders.add(executor.submit(() -> other.generate(invoice, Locale.ENGLISH)));
+            }
+            for (final Future<byte[]> render : renders) {
+                assertThat(render.get()).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void generate_deterministic_derivesMetadataAndIdFromTheInvoice() throws IOException {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final var reader = new PdfReader(generator.generate(invoice, Locale.ENGLISH));
+        final var otherReader = new PdfReader(generator.generate(longInvoice(2), Locale.ENGLISH));
+
+        assertThat(reader.getInfo()).containsEntry("Title", invoice.invoiceNumber())
+                .containsEntry("CreationDate", "D:20250101000000Z")
+                .containsEntry("ModDate", "D:20250101000000Z");
+        assertThat(documentId(reader)).isNotEqualTo(documentId(otherReader));
+    }
+
+    @Test
+    void generate_deterministic_streamedItemsAreCoveredByTheId() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final InvoiceItem item = invoice.items().getFirst();
+        final var few = new ByteArrayOutputStream();
+        final var many = new ByteArrayOutputStream();
+
+        generator.generate(invoice, Stream.generate(() -> item).limit(2).iterator(), Locale.ENGLISH, few);
+        generator.generate(invoice, Stream.generate(() -> item).limit(3).iterator(), Locale.ENGLISH, many);
+
+        assertThat(documentId(few.toByteArray())).isNotEqualTo(documentId(many.toByteArray()));
+    }
+
+    @Test
+    void generate_notDeterministic_usesRandomId() {
+        properties.setDeterministic(false);
+        final var random = new OpenPdfInvoiceGenerator(properties, labelRegistry, logoCache);
+        final Invoice invoice = TestFixtures.minimalInvoice();
+
+        assertThat(documentId(random.generate(invoice, Locale.ENGLISH)))
+                .isNotEqualTo(documentId(random.generate(invoice, Locale.ENGLISH)));
+    }
+
+    @Test
+    void generate_concurrentRendersOnVirtualThreads_eachSeeTheirOwnRenderContext() throws Exception {
+        final Invoice invoice = longInvoice(60);
+        final List<Future<byte[]>> renders = new ArrayList<>();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                final Locale locale = i % 2 == 0 ? Locale.ENGLISH : Locale.of("es");
+                renders.add(executor.submit(() -> generator.generate(invoice, locale)));
+            }
+            for (int i = 0; i < renders.size(); i++) {
+                final var reader = new PdfReader(renders.get(i).get());
+                final var extractor = new PdfTextExtractor(reader);
+                final var text = new StringBuilder();
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    text.append(extractor.getTextFromPage(page));
+                }
+                assertThat(text).as("render %d", i).contains(i % 2 == 0 ? "Net total:" : "Total neto:");
+            }
+        }
+        assertThat(RenderContext.CURRENT.isBound()).isFalse();
+    }
+
+    @Test
+    void generate_outputProfiles_tradeSizeForRenderTime() throws IOException {
+        final Invoice invoice = longInvoice(100);
+
+        final byte[] fast = generator.generate(invoice, Locale.ENGLISH, PdfOutputProfile.FAST);
+        final byte[] balanced = generator.generate(invoice, Locale.ENGLISH, PdfOutputProfile.BALANCED);
+        final byte[] smallest = generator.generate(invoice, Locale.ENGLISH, PdfOutputProfile.SMALLEST);
+
+        assertThat(balanced.length).isLessThan(fast.length);
+        assertThat(smallest.length).isLessThan(balanced.length);
+        assertThat(new PdfReader(fast).isNewXrefType()).isFalse();
+        for (final byte[] pdf : List.of(balanced, smallest)) {
+            final var reader = new PdfReader(pdf);
+            assertThat(reader.isNewXrefType()).isTrue();
+            assertThat(new PdfTextExtractor(reader).getTextFromPage(1)).contains("Co GmbH - Main 1");
+        }
+    }
+
+    @Test
+    void generate_roundsPrintedAmountsWithTheConfiguredRoundingMode() throws IOException {
+        final var totals = new InvoiceTotalsProperties();
+        totals.setRoundingMode(RoundingMode.HALF_EVEN);
+        final var halfEven = new OpenPdfInvoiceGenerator(properties, totals, labelRegistry, logoCache,
+                PdfRenderObserver.disabled());
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final InvoiceItem item = InvoiceItem.builder().description("Work").quantity(BigDecimal.ONE).unit("h")
+                .unitPriceEuro(new BigDecimal("2.345")).totalPrice(new BigDecimal("2.345")).build();
+        final Invoice halfCent = new Invoice(invoice.invoiceDate(), invoice.invoiceNumber(), invoice.deliveryDate(),
+                invoice.dueDate(), List.of(item), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), invoice.finalNotes(), invoice.companyDetails(), invoice.customer(),
+                invoice.reverseCharge());
+
+        final String printed = new PdfTextExtractor(new PdfReader(halfEven.generate(halfCent, Locale.ENGLISH)))
+                .getTextFromPage(1);
+
+        assertThat(printed).contains("2.34 €").doesNotContain("2.35 €");
+        assertThat(halfEven.layoutFingerprint()).isNotEqualTo(generator.layoutFingerprint());
+    }
+
+    @Test
+    void layoutFingerprint_dependsOnTheProfile() {
+        properties.setOutputProfile(PdfOutputProfile.SMALLEST);
+        final var smallestByDefault = new OpenPdfInvoiceGenerator(properties, labelRegistry, logoCache);
+
+        assertThat(generator.layoutFingerprint()).isEqualTo(generator.layoutFingerprint(PdfOutputProfile.BALANCED))
+                .isNotEqualTo(generator.layoutFingerprint(PdfOutputProfile.SMALLEST));
+        assertThat(smallestByDefault.layoutFingerprint())
+                .isEqualTo(smallestByDefault.layoutFingerprint(PdfOutputProfile.SMALLEST));
+        assertThat(smallestByDefault.generate(TestFixtures.minimalInvoice(), Locale.ENGLISH))
+                .isEqualTo(generator.generate(TestFixtures.minimalInvoice(), Locale.ENGLISH, PdfOutputProfile.SMALLEST));
+    }
+
+    private static String documentId(final byte[] pdf) {
+        try {
+            return documentId(new PdfReader(pdf));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String documentId(final PdfReader reader) {
+        return reader.getTrailer().get(PdfName.ID).toString();
+    }
+
+    private static String amountAfter(final String label, final String text) {
+        final Matcher matcher = Pattern.compile(Pattern.quote(label) + "\\s*([\\d.,]+)").matcher(text);
+        assertThat(matcher.find()).as(label).isTrue();
+        return matcher.group(1);
+    }
+
+    private static Invoice longInvoice(final int itemCount) {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final List<InvoiceItem> items = Collections.nCopies(itemCount, invoice.items().getFirst());
+        return new Invoice(invoice.invoiceDate(), invoice.invoiceNumber(), invoice.deliveryDate(),
+                invoice.dueDate(), items, invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), invoice.finalNotes(), invoice.companyDetails(), invoice.customer(),
+                invoice.reverseCharge());
+    }
 }
@@ -0,0 +1,74 @@
+package com.teatown.software.invoice.application.security;
+
+import com.teatown.software.invoice.configuration.InvoiceSecurityProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PrincipalCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final UserDetailsService store = username -> {
+        lookups.incrementAndGet();
+        if (username.equals("unknown")) {
+            throw new UsernameNotFoundException(username);
+        }
+        return new User(username, "secret", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    };
+
+    @Test
+    void load_resolvesEachPrincipalOnceUntilItExpires() {
+        final var properties = new InvoiceSecurityProperties();
+        properties.setPrincipalCacheTtl(Duration.ofSeconds(10));
+        final var cache = new PrincipalCache(store, properties, now::get);
+
+        final UserDetails first = cache.load("alice");
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        final UserDetails second = cache.load("alice");
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        cache.load("alice");
+
+        assertThat(second).isSameAs(first);
+        assertThat(lookups).hasValue(2);
+        assertThat(first.getUsername()).isEqualTo("alice");
+        assertThat(first.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(first.getPassword()).isNull();
+    }
+
+    @Test
+    void load_doesNotCacheUnknownPrincipals() {
+        final var cache = new PrincipalCache(store, new InvoiceSecurityProperties(), now::get);
+
+        assertThatThrownBy(() -> cache.load("unknown")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> cache.load("unknown")).isInstanceOf(UsernameNotFoundException.class);
+
+        assertThat(lookups).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void load_staysWithinItsSize() {
+        final var properties = new InvoiceSecurityProperties();
+        properties.setPrincipalCacheSize(100);
+        final var cache = new PrincipalCache(store, properties, now::get);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.load("user-" + i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.load("user-999").getUsername()).isEqualTo("user-999");
+    }
+}
@@ -0,0 +1,82 @@
+package com.teatown.software.invoice.application.security;
+
+import com.teatown.software.invoice.configuration.InvoiceSecurityProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void tryAcquire_allowsTheBurstThenTheRatePerPrincipal() {
+        final var limiter = new PrincipalRateLimiter(properties(2, 3, 1000), now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("alice")).isTrue();
+        }
+        assertThat(limiter.tryAcquire("alice")).isFalse();
+        assertThat(limiter.tryAcquire("bob")).isTrue();
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.tryAcquire("alice")).isFalse();
+
+        // refills up to the burst only
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("alice")).isTrue();
+        }
+        assertThat(limiter.tryAcquire("alice")).isFalse();
+        assertThat(limiter.retryAfterSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    void tryAcquire_dropsRefilledBucketsBeyondTheMaximumNumberOfPrincipals() {
+        final var limiter = new PrincipalRateLimiter(properties(1, 1, 640), now::get);
+        for (int i = 0; i < 640; i++) {
+            limiter.tryAcquire("user-" + i);
+        }
+        assertThat(limiter.principalCount()).isLessThanOrEqualTo(640);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        for (int i = 640; i < 5000; i++) {
+            limiter.tryAcquire("user-" + i);
+        }
+
+        assertThat(limiter.principalCount()).isLessThanOrEqualTo(640);
+    }
+
+    @Test
+    void tryAcquire_rejectsNewPrincipalsWhileTheBucketsInUseHaveNotRefilled() {
+        final var limiter = new PrincipalRateLimiter(properties(1, 1, 64), now::get);
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        // one bucket per stripe, so among 65 principals at least one finds its stripe taken
+        String turnedAway = null;
+        for (int i = 0; i < 64 && turnedAway == null; i++) {
+            if (!limiter.tryAcquire("user-" + i)) {
+                turnedAway = "user-" + i;
+            }
+        }
+        assertThat(turnedAway).isNotNull();
+        assertThat(limiter.principalCount()).isLessThanOrEqualTo(64);
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(limiter.tryAcquire(turnedAway)).isTrue();
+        assertThat(limiter.principalCount()).isLessThanOrEqualTo(64);
+    }
+
+    private static InvoiceSecurityProperties properties(final double perSecond, final int burst,
+                                                        final int maxPrincipals) {
+        final var properties = new InvoiceSecurityProperties();
+        properties.setRateLimitPerSecond(perSecond);
+        properties.setRateLimitBurst(burst);
+        properties.setRateLimitMaxPrincipals(maxPrincipals);
+        return properties;
+    }
+}
@@ -0,0 +1,137 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.application.exception.InvoicePdfException;
+import com.teatown.software.invoice.configuration.InvoiceBatchProperties;
+import com.teatown.software.invoice.domain.Invoice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreateInvoiceBatchServiceTest {
+
+    private CreateInvoiceService createInvoiceService;
+    private CreateInvoiceBatchService batchService;
+
+    @BeforeEach
+    void setUp() {
+        createInvoiceService = mock(CreateInvoiceService.class);
+        final var properties = new InvoiceBatchProperties();
+        properties.setMaxConcurrency(2);
+        batchService = new CreateInvoiceBatchService(createInvoiceService, task -> task, properties);
+    }
+
+    @Test
+    void createInvoicePdfs_reportsFailuresPerItemWithoutAbortingTheBatch() {
+        final Invoice ok = TestFixtures.minimalInvoice();
+        final Invoice broken = Invoice.builder().invoiceNumber("INV-BROKEN").build();
+        when(createInvoiceService.createInvoicePdf(background(ok)))
+                .thenReturn(new RenderedInvoice(ok, "abc", new byte[]{1}));
+        when(createInvoiceService.createInvoicePdf(background(broken)))
+                .thenThrow(new InvoicePdfException("Failed to generate invoice PDF", new RuntimeException()));
+        final List<Supplier<Invoice>> invoices = List.of(
+                () -> ok,
+                () -> broken,
+                () -> {
+                    throw new IllegalArgumentException("Validation failed: invoiceNumber: required");
+                },
+                () -> ok);
+
+        final List<CreateInvoiceBatchService.Result> results = Collections.synchronizedList(new ArrayList<>());
+        batchService.createInvoicePdfs(invoices, Locale.ENGLISH, results::add);
+
+        results.sort(Comparator.comparingInt(CreateInvoiceBatchService.Result::index));
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0).success()).isTrue();
+        assertThat(results.get(0).pdf()).containsExactly(1);
+        assertThat(results.get(1).success()).isFalse();
+        assertThat(results.get(1).invoiceNumber()).isEqualTo("INV-BROKEN");
+        assertThat(results.get(2).error()).contains("invoiceNumber: required");
+        assertThat(results.get(3).success()).isTrue();
+    }
+
+    @Test
+    void createInvoicePdfs_reportsExceptionsWithoutMessageAsFailures() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(createInvoiceService.createInvoicePdf(background(invoice))).thenThrow(new NullPointerException());
+        final List<Supplier<Invoice>> invoices = List.of(
+                () -> invoice,
+                () -> {
+                    throw new IllegalStateException();
+                });
+
+        final List<CreateInvoiceBatchService.Result> results = Collections.synchronizedList(new ArrayList<>());
+        batchService.createInvoicePdfs(invoices, Locale.ENGLISH, results::add);
+
+        results.sort(Comparator.comparingInt(CreateInvoiceBatchService.Result::index));
+        assertThat(results).extracting(CreateInvoiceBatchService.Result::success).containsExactly(false, false);
+        assertThat(results).extracting(CreateInvoiceBatchService.Result::error)
+                .containsExactly("NullPointerException", "IllegalStateException");
+    }
+
+    @Test
+    void createInvoicePdfs_neverRendersMoreThanMaxConcurrencyAtOnce() {
+        final var inFlight = new AtomicInteger();
+        final var maxInFlight = new AtomicInteger();
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(createInvoiceService.createInvoicePdf(background(invoice)))
+                .thenAnswer(invocation -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return new RenderedInvoice(invoice, "abc", new byte[]{1});
+                });
+        final List<Supplier<Invoice>> invoices = Collections.nCopies(20, () -> invoice);
+
+        final var completed = new AtomicInteger();
+        batchService.createInvoicePdfs(invoices, Locale.ENGLISH, result -> completed.incrementAndGet());
+
+        assertThat(completed).hasValue(20);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void createInvoicePdfs_keepsAtMostMaxConcurrencyResultsInFlightForASlowConsumer() {
+        final var rendered = new AtomicInteger();
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(createInvoiceService.createInvoicePdf(background(invoice)))
+                .thenAnswer(invocation -> {
+                    rendered.incrementAndGet();
+                    return new RenderedInvoice(invoice, "abc", new byte[]{1});
+                });
+        final List<Supplier<Invoice>> invoices = Collections.nCopies(20, () -> invoice);
+
+        final var consumed = new AtomicInteger();
+        final var maxUnconsumed = new AtomicInteger();
+        batchService.createInvoicePdfs(invoices, Locale.ENGLISH, result -> {
+            try {
+                // a slow client: renders would finish long before their results are written
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            maxUnconsumed.accumulateAndGet(rendered.get() - consumed.get(), Math::max);
+            consumed.incrementAndGet();
+        });
+
+        assertThat(consumed).hasValue(20);
+        assertThat(maxUnconsumed.get()).isLessThanOrEqualTo(2);
+    }
+
+    private static InvoiceRenderRequest background(final Invoice invoice) {
+        return argThat(request -> request != null && request.invoice() == invoice
+                && request.priority() == RenderPriority.BACKGROUND);
+    }
+}
@@ -1,20 +1,44 @@
 package com.teatown.software.invoice.application.service;
 
 import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.application.exception.InvoicePdfException;
+import com.teatown.software.invoice.application.exception.RenderCapacityExceededException;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort;
+import com.teatown.software.invoice.application.port.InvoiceNumberReservationPort;
 import com.teatown.software.invoice.application.port.PdfGenerationPort;
+import com.teatown.software.invoice.application.port.PdfOutputProfile;
+import com.teatown.software.invoice.configuration.InvoiceCacheProperties;
+import com.teatown.software.invoice.configuration.InvoiceNumberingProperties;
+import com.teatown.software.invoice.configuration.InvoiceRenderProperties;
 import com.teatown.software.invoice.domain.Invoice;
+import com.teatown.software.invoice.domain.InvoiceItem;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,19 +47,221 @@ class CreateInvoiceServiceTest {
     @Mock
     private PdfGenerationPort pdfGenerationPort;
 
-    @InjectMocks
+    @Mock
+    private InvoiceArchivePort archive;
+
+    @Mock
+    private InvoiceNumberService invoiceNumberService;
+
     private CreateInvoiceService createInvoiceService;
 
+    @BeforeEach
+    void setUp() {
+        createInvoiceService = new CreateInvoiceService(pdfGenerationPort,
+                new InvoiceRenderCache(new InvoiceCacheProperties()),
+                new RenderAdmissionLimiter(new InvoiceRenderProperties()), archive, invoiceNumberService);
+    }
+
     @Test
     void createInvoicePdf_delegatesToPortAndReturnsBytes() {
         final Invoice invoice = TestFixtures.minimalInvoice();
         final Locale locale = Locale.ENGLISH;
         final byte[] expectedPdf = new byte[]{1, 2, 3};
-        when(pdfGenerationPort.generate(same(invoice), eq(locale))).thenReturn(expectedPdf);
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("layout");
+        when(pdfGenerationPort.generate(same(invoice), eq(locale), isNull(PdfOutputProfile.class))).thenReturn(expectedPdf);
+
+        final RenderedInvoice result = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice, locale));
+
+        assertThat(result.pdf()).isSameAs(expectedPdf);
+        assertThat(result.contentHash()).isEqualTo(createInvoiceService.contentHash(InvoiceRenderRequest.of(invoice,
+                locale)));
+        verify(pdfGenerationPort).generate(invoice, locale, (PdfOutputProfile) null);
+        verify(archive).archive(invoice, result.contentHash(), expectedPdf);
+    }
+
+    @Test
+    void createInvoicePdf_withoutInvoiceNumber_numbersItInTheSlotAndGivesTheNumberBackOnFailure() {
+        final var limiter = new RenderAdmissionLimiter(new InvoiceRenderProperties());
+        final var cache = new InvoiceRenderCache(new InvoiceCacheProperties());
+        createInvoiceService = new CreateInvoiceService(pdfGenerationPort, cache, limiter, archive,
+                invoiceNumberService);
+        final Invoice unnumbered = TestFixtures.minimalInvoice().withInvoiceNumber(null);
+        final Invoice numbered = unnumbered.withInvoiceNumber("INV-2025-000001");
+        when(invoiceNumberService.issue(unnumbered)).thenAnswer(invocation -> {
+            assertThat(limiter.activeRenders()).isEqualTo(1);
+            return numbered;
+        });
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("layout");
+        when(pdfGenerationPort.generate(same(numbered), eq(Locale.ENGLISH), isNull(PdfOutputProfile.class)))
+                .thenReturn(new byte[]{1, 2, 3})
+                .thenThrow(new InvoicePdfException("Cannot render", null));
+
+        final RenderedInvoice rendered = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(unnumbered,
+                Locale.ENGLISH));
+
+        assertThat(rendered.invoice()).isSameAs(numbered);
+        verify(archive).archive(numbered, rendered.contentHash(), rendered.pdf());
+        // the next request gets another number, so the PDF could never be served from the cache
+        assertThat(cache.size()).isZero();
+        assertThatThrownBy(() -> createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(unnumbered,
+                Locale.ENGLISH))).isInstanceOf(InvoicePdfException.class);
+        verify(invoiceNumberService).release(numbered);
+    }
+
+    @Test
+    void createInvoicePdf_notAdmitted_undoesTheClaimSoACorrectedRetryCanUseTheNumber() {
+        final var limiter = mock(RenderAdmissionLimiter.class);
+        final var numbers = new InvoiceNumberService(mock(InvoiceNumberReservationPort.class), archive,
+                new InvoiceNumberingProperties());
+        createInvoiceService = new CreateInvoiceService(pdfGenerationPort,
+                new InvoiceRenderCache(new InvoiceCacheProperties()), limiter, archive, numbers);
+        when(limiter.call(any(), any()))
+                .thenThrow(new RenderCapacityExceededException("No render slot", Duration.ofSeconds(1)))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final Invoice corrected = new Invoice(invoice.invoiceDate(), invoice.invoiceNumber(), invoice.deliveryDate(),
+                invoice.dueDate(), invoice.items(), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), "Corrected", invoice.companyDetails(), invoice.customer(),
+                invoice.reverseCharge());
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("layout");
+        when(pdfGenerationPort.generate(same(corrected), eq(Locale.ENGLISH), isNull(PdfOutputProfile.class)))
+                .thenReturn(new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice,
+                Locale.ENGLISH))).isInstanceOf(RenderCapacityExceededException.class);
+        final RenderedInvoice rendered = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(corrected,
+                Locale.ENGLISH));
+
+        assertThat(rendered.invoice()).isSameAs(corrected);
+        verify(archive).archive(corrected, rendered.contentHash(), rendered.pdf());
+    }
+
+    @Test
+    void createInvoicePdf_sameContentTwice_rendersOnce() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final byte[] expectedPdf = new byte[]{1, 2, 3};
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("layout");
+        when(pdfGenerationPort.generate(same(invoice), eq(Locale.ENGLISH), isNull(PdfOutputProfile.class)))
+                .thenReturn(expectedPdf);
+
+        createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH));
+        final RenderedInvoice result = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice,
+                Locale.ENGLISH));
+
+        assertThat(result.pdf()).isSameAs(expectedPdf);
+        verify(pdfGenerationPort, times(1)).generate(invoice, Locale.ENGLISH, (PdfOutputProfile) null);
+    }
+
+    @Test
+    void contentHash_dependsOnContentLocaleAndLayout() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final Invoice sameContent = TestFixtures.minimalInvoice();
+        final Invoice otherTotal = new Invoice(invoice.invoiceDate(), invoice.invoiceNumber(), invoice.deliveryDate(),
+                invoice.dueDate(), invoice.items(), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                new BigDecimal("999.99"), invoice.finalNotes(), invoice.companyDetails(), invoice.customer(),
+                invoice.reverseCharge());
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("layout");
+
+        final String hash = contentHash(invoice, Locale.ENGLISH);
+
+        assertThat(hash).hasSize(64).isEqualTo(contentHash(sameContent, Locale.ENGLISH));
+        assertThat(contentHash(invoice, Locale.of("es"))).isNotEqualTo(hash);
+        assertThat(contentHash(otherTotal, Locale.ENGLISH)).isNotEqualTo(hash);
+
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("other layout");
+        assertThat(contentHash(invoice, Locale.ENGLISH)).isNotEqualTo(hash);
+    }
+
+    @Test
+    void createInvoicePdf_withProfile_cachesPerProfile() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final byte[] smallest = new byte[]{1};
+        final byte[] fast = new byte[]{2};
+        when(pdfGenerationPort.layoutFingerprint(PdfOutputProfile.SMALLEST)).thenReturn("layout|smallest");
+        when(pdfGenerationPort.layoutFingerprint(PdfOutputProfile.FAST)).thenReturn("layout|fast");
+        when(pdfGenerationPort.generate(invoice, Locale.ENGLISH, PdfOutputProfile.SMALLEST)).thenReturn(smallest);
+        when(pdfGenerationPort.generate(invoice, Locale.ENGLISH, PdfOutputProfile.FAST)).thenReturn(fast);
+
+        final var smallestRequest = InvoiceRenderRequest.of(invoice, Locale.ENGLISH)
+                .withProfile(PdfOutputProfile.SMALLEST);
+        final var fastRequest = InvoiceRenderRequest.of(invoice, Locale.ENGLISH).withProfile(PdfOutputProfile.FAST);
+
+        assertThat(createInvoiceService.contentHash(smallestRequest))
+                .isNotEqualTo(createInvoiceService.contentHash(fastRequest));
+        assertThat(createInvoiceService.createInvoicePdf(smallestRequest).pdf()).isSameAs(smallest);
+        assertThat(createInvoiceService.createInvoicePdf(fastRequest).pdf()).isSameAs(fast);
+    }
+
+    @Test
+    void spoolInvoicePdf_honoursItemsAndProfileAndReleasesTheSlotBeforeTheCopy() throws IOException {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        final var limiter = new RenderAdmissionLimiter(new InvoiceRenderProperties());
+        createInvoiceService = new CreateInvoiceService(pdfGenerationPort,
+                new InvoiceRenderCache(new InvoiceCacheProperties()), limiter, archive, invoiceNumberService);
+        when(pdfGenerationPort.layoutFingerprint(PdfOutputProfile.SMALLEST)).thenReturn("layout|smallest");
+        doAnswer(invocation -> {
+            assertThat(limiter.activeRenders()).isEqualTo(1);
+            invocation.<Iterator<InvoiceItem>>getArgument(1).forEachRemaining(item -> { });
+            invocation.<OutputStream>getArgument(4).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(pdfGenerationPort).generate(same(invoice), any(), eq(Locale.ENGLISH), eq(PdfOutputProfile.SMALLEST),
+                any());
+
+        final Path file;
+        try (SpooledInvoicePdf pdf = createInvoiceService.spoolInvoicePdf(InvoiceRenderRequest.of(invoice,
+                        Locale.ENGLISH)
+                .withItems(invoice.items().iterator())
+                .withProfile(PdfOutputProfile.SMALLEST)
+                .withPriority(RenderPriority.BACKGROUND))) {
+            assertThat(limiter.activeRenders()).isZero();
+            final var out = new ByteArrayOutputStream();
+            pdf.transferTo(out);
+            assertThat(out.toByteArray()).containsExactly(1, 2, 3);
+            assertThat(pdf.size()).isEqualTo(3);
+            assertThat(pdf.contentHash()).hasSize(64);
+            file = pdf.file();
+            verify(archive).archive(invoice, pdf.contentHash(), file);
+        }
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void withoutArchiving_archivesNothing() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(pdfGenerationPort.generate(invoice, Locale.ENGLISH, (PdfOutputProfile) null)).thenReturn(new byte[]{1, 2, 3});
+
+        createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH).withoutArchiving());
+        createInvoiceService.spoolInvoicePdf(InvoiceRenderRequest.of(invoice, Locale.ENGLISH).withoutArchiving())
+                .close();
 
-        final byte[] result = createInvoiceService.createInvoicePdf(invoice, locale);
+        verifyNoInteractions(archive);
+    }
+
+    @Test
+    void createInvoicePdf_withStreamedItems_hashesTheItemsAsTheyAreRendered() {
+        final Invoice invoice = TestFixtures.minimalInvoice();
+        when(pdfGenerationPort.layoutFingerprint(null)).thenReturn("layout");
+        doAnswer(invocation -> {
+            invocation.<Iterator<InvoiceItem>>getArgument(1).forEachRemaining(item -> { });
+            invocation.<OutputStream>getArgument(4).write(new byte[]{1, 2, 3});
+            return null;
+        }).when(pdfGenerationPort).generate(same(invoice), any(), eq(Locale.ENGLISH), isNull(), any());
+
+        final RenderedInvoice first = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice,
+                Locale.ENGLISH).withItems(invoice.items().iterator()));
+        final RenderedInvoice second = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice,
+                Locale.ENGLISH).withItems(invoice.items().iterator()));
+        final RenderedInvoice fewer = createInvoiceService.createInvoicePdf(InvoiceRenderRequest.of(invoice,
+                Locale.ENGLISH).withItems(invoice.items().subList(1, invoice.items().size()).iterator()));
+
+        assertThat(first.pdf()).containsExactly(1, 2, 3);
+        assertThat(first.contentHash()).hasSize(64).isEqualTo(second.contentHash())
+                .isNotEqualTo(fewer.contentHash())
+                .isNotEqualTo(contentHash(invoice, Locale.ENGLISH));
+        verify(archive, times(2)).archive(invoice, first.contentHash(), first.pdf());
+    }
 
-        assertThat(result).isSameAs(expectedPdf);
-        verify(pdfGenerationPort).generate(invoice, locale);
+    private String contentHash(final Invoice invoice, final Locale locale) {
+        return createInvoiceService.contentHash(InvoiceRenderRequest.of(invoice, locale));
     }
 }
@@ -0,0 +1,175 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.adapter.out.blob.FileSystemPdfBlobStore;
+import com.teatown.software.invoice.adapter.out.job.FileInvoiceJobJournal;
+import com.teatown.software.invoice.application.exception.InvoiceJobNotFoundException;
+import com.teatown.software.invoice.application.port.InvoiceJobJournalPort;
+import com.teatown.software.invoice.configuration.InvoiceJobProperties;
+import com.teatown.software.invoice.domain.InvoiceJob;
+import com.teatown.software.invoice.domain.InvoiceJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvoiceJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+    private CreateInvoiceService createInvoiceService;
+    private InvoiceJobService service;
+
+    @BeforeEach
+    void setUp() {
+        createInvoiceService = mock(CreateInvoiceService.class);
+        when(createInvoiceService.spoolInvoicePdf(argThat(request -> request != null
+                && request.locale().equals(Locale.ENGLISH) && request.priority() == RenderPriority.BACKGROUND)))
+                .thenAnswer(invocation -> {
+                    final Path file = Files.createTempFile(directory, "spooled-", ".pdf");
+                    Files.write(file, new byte[]{1, 2, 3});
+                    return new SpooledInvoicePdf(invocation.<InvoiceRenderRequest>getArgument(0).invoice(), "abc",
+                            file);
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void submit_rendersJobInBackgroundAndStoresPdf() throws Exception {
+        service = newService();
+
+        final InvoiceJob job = service.submit(TestFixtures.minimalInvoice(), Locale.ENGLISH);
+
+        assertThat(job.status()).isEqualTo(InvoiceJobStatus.QUEUED);
+        assertThat(awaitFinished(job.id()).status()).isEqualTo(InvoiceJobStatus.DONE);
+        try (InputStream pdf = service.openPdf(job.id())) {
+            assertThat(pdf.readAllBytes()).containsExactly(1, 2, 3);
+        }
+    }
+
+    @Test
+    void unfinishedJobsAreQueuedAgainAfterRestart() throws Exception {
+        final var journal = new FileInvoiceJobJournal(JsonMapper.builder().build(), properties());
+        final var job = InvoiceJob.queued("job-1", "INV-1", "en", clock.instant());
+        journal.submitted(job, TestFixtures.minimalInvoice());
+        journal.updated(job.running());
+        journal.close();
+
+        service = newService();
+
+        assertThat(awaitFinished("job-1").status()).isEqualTo(InvoiceJobStatus.DONE);
+    }
+
+    @Test
+    void run_marksJobFailedWhenTheJournalCannotRecordIt() throws Exception {
+        final var properties = properties();
+        final var journal = mock(InvoiceJobJournalPort.class);
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(journal).updated(any());
+        service = new InvoiceJobService(createInvoiceService, journal, new FileSystemPdfBlobStore(properties),
+                runnable -> runnable, properties, clock);
+
+        final InvoiceJob job = service.submit(TestFixtures.minimalInvoice(), Locale.ENGLISH);
+
+        assertThat(awaitFinished(job.id()).status()).isEqualTo(InvoiceJobStatus.FAILED);
+    }
+
+    @Test
+    void purgeExpired_forgetsJobAndDeletesPdfAfterTtl() throws Exception {
+        service = newService();
+        final InvoiceJob job = service.submit(TestFixtures.minimalInvoice(), Locale.ENGLISH);
+        awaitFinished(job.id());
+
+        service.purgeExpired();
+        assertThat(service.job(job.id()).status()).isEqualTo(InvoiceJobStatus.DONE);
+
+        clock.advance(Duration.ofHours(2));
+        service.purgeExpired();
+
+        assertThatThrownBy(() -> service.job(job.id())).isInstanceOf(InvoiceJobNotFoundException.class);
+        assertThat(new FileSystemPdfBlobStore(properties()).open(job.id())).isEmpty();
+    }
+
+    private InvoiceJobService newService() {
+        final var properties = properties();
+        properties.setWorkers(1);
+        return new InvoiceJobService(createInvoiceService,
+                new FileInvoiceJobJournal(JsonMapper.builder().build(), properties),
+                new FileSystemPdfBlobStore(properties),
+                runnable -> runnable,
+                properties,
+                clock);
+    }
+
+    private InvoiceJobProperties properties() {
+        final var properties = new InvoiceJobProperties();
+        properties.setDirectory(directory);
+        return properties;
+    }
+
+    private InvoiceJob awaitFinished(final String jobId) throws InterruptedException {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        InvoiceJob job = service.job(jobId);
+        while (!job.status().finished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = service.job(jobId);
+        }
+        return job;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(final Instant now) {
+            this.now = now;
+        }
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
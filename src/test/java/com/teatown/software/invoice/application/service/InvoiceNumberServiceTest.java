@@ -0,0 +1,211 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.TestFixtures;
+import com.teatown.software.invoice.adapter.out.numbering.FileInvoiceNumberReservations;
+import com.teatown.software.invoice.application.exception.DuplicateInvoiceNumberException;
+import com.teatown.software.invoice.application.port.InvoiceArchivePort;
+import com.teatown.software.invoice.application.port.InvoiceNumberReservationPort;
+import com.teatown.software.invoice.configuration.InvoiceNumberingProperties;
+import com.teatown.software.invoice.domain.CompanyDetails;
+import com.teatown.software.invoice.domain.Invoice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvoiceNumberServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final InvoiceArchivePort archive = mock(InvoiceArchivePort.class);
+
+    @Test
+    void issue_allocatesNumbersPerCompanyAndYear() {
+        final var properties = properties(10);
+        properties.setPrefixes(Map.of("HRB 1", "TT"));
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        final Invoice invoice = unnumbered();
+
+        assertThat(service.issue(invoice).invoiceNumber()).isEqualTo("TT-2025-000001");
+        assertThat(service.issue(invoice).invoiceNumber()).isEqualTo("TT-2025-000002");
+        assertThat(service.issue(withCompanyId(invoice, "other")).invoiceNumber()).isEqualTo("INV-2025-000001");
+        assertThat(service.issue(withYear(invoice, 2026)).invoiceNumber()).isEqualTo("TT-2026-000001");
+    }
+
+    @Test
+    void issue_reservesBlocksAndResumesAfterRestartWithoutReuse() throws Exception {
+        final var properties = properties(10);
+        final InvoiceNumberReservationPort reservations = spy(new FileInvoiceNumberReservations(properties));
+        final var service = new InvoiceNumberService(reservations, archive, properties);
+        for (int i = 0; i < 25; i++) {
+            service.issue(unnumbered());
+        }
+        verify(reservations, times(3)).reserve(eq("INV-2025"), anyLong());
+        assertThat(Files.readString(properties.getFile())).isEqualTo("INV-2025=31\n");
+
+        // a crash loses the rest of the block
+        final var afterCrash = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        assertThat(afterCrash.issue(unnumbered()).invoiceNumber()).isEqualTo("INV-2025-000031");
+
+        // a clean shutdown gives it back
+        afterCrash.close();
+        final var afterShutdown = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        assertThat(afterShutdown.issue(unnumbered()).invoiceNumber()).isEqualTo("INV-2025-000032");
+    }
+
+    @Test
+    void issue_allocatesUniqueNumbersConcurrently() throws Exception {
+        final var properties = properties(7);
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        final Set<String> numbers = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        numbers.add(service.issue(unnumbered()).invoiceNumber());
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(numbers).hasSize(4000).contains("INV-2025-000001", "INV-2025-004000");
+        final var restarted = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        assertThat(restarted.issue(unnumbered()).invoiceNumber()).isGreaterThan("INV-2025-004000");
+    }
+
+    @Test
+    void issue_rejectsARecentNumberForDifferentContent() {
+        final var properties = properties(10);
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        final Invoice invoice = TestFixtures.minimalInvoice();
+
+        assertThat(service.issue(invoice)).isSameAs(invoice);
+        assertThat(service.issue(invoice)).isSameAs(invoice);
+        assertThatThrownBy(() -> service.issue(withYear(invoice, 2026)))
+                .isInstanceOf(DuplicateInvoiceNumberException.class)
+                .hasMessageContaining(invoice.invoiceNumber());
+
+        // a number the client chose itself is skipped by the allocation
+        service.issue(withCompanyId(withYear(invoice, 2024), "other").withInvoiceNumber("INV-2024-000001"));
+        assertThat(service.issue(withYear(unnumbered(), 2024)).invoiceNumber()).isEqualTo("INV-2024-000002");
+    }
+
+    @Test
+    void issue_checksNumbersAgainstTheArchive() {
+        final var properties = properties(10);
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        final Invoice archived = TestFixtures.minimalInvoice();
+        when(archive.invoice(archived.invoiceNumber())).thenReturn(Optional.of(archived));
+        when(archive.contains("INV-2025-000001")).thenReturn(true);
+
+        assertThatThrownBy(() -> service.issue(withYear(archived, 2026)))
+                .isInstanceOf(DuplicateInvoiceNumberException.class);
+        assertThat(service.issue(archived)).isSameAs(archived);
+        // a number the archive has is skipped by the allocation
+        assertThat(service.issue(unnumbered()).invoiceNumber()).isEqualTo("INV-2025-000002");
+    }
+
+    @Test
+    void release_givesTheLastNumberBack() {
+        final var properties = properties(10);
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+
+        final Invoice failed = service.issue(unnumbered());
+        service.release(failed);
+        final Invoice retried = service.issue(unnumbered());
+        final Invoice next = service.issue(unnumbered());
+        // a number with a later one allocated after it stays used
+        service.release(retried);
+
+        assertThat(retried.invoiceNumber()).isEqualTo(failed.invoiceNumber()).isEqualTo("INV-2025-000001");
+        assertThat(next.invoiceNumber()).isEqualTo("INV-2025-000002");
+        assertThat(service.issue(unnumbered()).invoiceNumber()).isEqualTo("INV-2025-000003");
+    }
+
+    @Test
+    void issue_forgetsTheOldestNumbersBeyondTheCapacity() {
+        final var properties = properties(10);
+        properties.setRecentCapacity(3);
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        for (int i = 0; i < 5; i++) {
+            service.issue(unnumbered());
+        }
+
+        assertThat(service.isRecent("INV-2025-000002")).isFalse();
+        assertThat(service.isRecent("INV-2025-000003")).isTrue();
+        assertThat(service.isRecent("INV-2025-000005")).isTrue();
+    }
+
+    @Test
+    void unclaim_thenClaimAgain_keepsTheNewClaimWhenTheOldSlotIsReused() {
+        final var properties = properties(10);
+        properties.setRecentCapacity(3);
+        final var service = new InvoiceNumberService(new FileInvoiceNumberReservations(properties), archive, properties);
+        final Invoice invoice = TestFixtures.minimalInvoice();
+
+        service.claim(invoice);
+        service.unclaim(invoice);
+        service.claim(invoice);
+        service.issue(unnumbered());
+        // wraps around onto the slot of the undone claim
+        service.issue(unnumbered());
+
+        assertThat(service.isRecent(invoice.invoiceNumber())).isTrue();
+    }
+
+    private InvoiceNumberingProperties properties(final int blockSize) {
+        final var properties = new InvoiceNumberingProperties();
+        properties.setFile(directory.resolve("invoice-numbers.properties"));
+        properties.setBlockSize(blockSize);
+        return properties;
+    }
+
+    private static Invoice unnumbered() {
+        return withYear(TestFixtures.minimalInvoice().withInvoiceNumber(null), 2025);
+    }
+
+    private static Invoice withYear(final Invoice invoice, final int year) {
+        return new Invoice(invoice.invoiceDate().withYear(year), invoice.invoiceNumber(), invoice.deliveryDate(),
+                invoice.dueDate(), invoice.items(), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), invoice.finalNotes(), invoice.companyDetails(), invoice.customer(),
+                invoice.reverseCharge());
+    }
+
+    private static Invoice withCompanyId(final Invoice invoice, final String companyId) {
+        final CompanyDetails company = invoice.companyDetails();
+        return new Invoice(invoice.invoiceDate(), invoice.invoiceNumber(), invoice.deliveryDate(), invoice.dueDate(),
+                invoice.items(), invoice.totalNetPrice(), invoice.vatRate(), invoice.vatAbsolute(),
+                invoice.totalGrossPrice(), invoice.finalNotes(), new CompanyDetails(company.name(),
+                company.address(), company.phone(), company.email(), company.placeOfJurisdiction(), companyId,
+                company.ceoOrDirector(), company.bankAccount(), company.vatId()), invoice.customer(),
+                invoice.reverseCharge());
+    }
+}
@@ -0,0 +1,81 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.configuration.InvoiceCacheProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceRenderCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntryBeyondMaxEntries() {
+        final var properties = new InvoiceCacheProperties();
+        properties.setMaxEntries(2);
+        final var cache = new InvoiceRenderCache(properties);
+
+        cache.put("a", new byte[]{1});
+        cache.put("b", new byte[]{2});
+        cache.get("a");
+        cache.put("c", new byte[]{3});
+
+        assertThat(cache.get("a")).containsExactly(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).containsExactly(3);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(3);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsBeyondMaxBytesAndSkipsOversizedPdfs() {
+        final var properties = new InvoiceCacheProperties();
+        properties.setMaxBytes(DataSize.ofBytes(10));
+        final var cache = new InvoiceRenderCache(properties);
+
+        cache.put("a", new byte[6]);
+        cache.put("b", new byte[6]);
+        cache.put("huge", new byte[11]);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).hasSize(6);
+        assertThat(cache.get("huge")).isNull();
+        assertThat(cache.bytes()).isEqualTo(6);
+        assertThat(cache.putCount()).isEqualTo(2);
+    }
+
+    @Test
+    void spillsEvictedEntriesToDiskAndPromotesThemOnHit(@TempDir final Path spillDirectory) {
+        final var properties = new InvoiceCacheProperties();
+        properties.setMaxEntries(1);
+        properties.setSpillDirectory(spillDirectory);
+        final var cache = new InvoiceRenderCache(properties);
+
+        cache.put("a", new byte[]{1});
+        cache.put("b", new byte[]{2});
+
+        assertThat(spillDirectory.resolve("a.pdf")).exists();
+        assertThat(cache.spilledSize()).isEqualTo(1);
+
+        assertThat(cache.get("a")).containsExactly(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(spillDirectory.resolve("a.pdf")).doesNotExist();
+        assertThat(spillDirectory.resolve("b.pdf")).exists();
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        final var properties = new InvoiceCacheProperties();
+        properties.setEnabled(false);
+        final var cache = new InvoiceRenderCache(properties);
+
+        cache.put("a", new byte[]{1});
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
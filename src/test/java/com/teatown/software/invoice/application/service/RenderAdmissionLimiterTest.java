@@ -0,0 +1,91 @@
+package com.teatown.software.invoice.application.service;
+
+import com.teatown.software.invoice.application.exception.RenderCapacityExceededException;
+import com.teatown.software.invoice.configuration.InvoiceRenderProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RenderAdmissionLimiterTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService executor;
+    private RenderAdmissionLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        final var properties = new InvoiceRenderProperties();
+        properties.setMaxConcurrent(1);
+        properties.setMaxQueued(1);
+        properties.setMaxWait(Duration.ofMillis(50));
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        limiter = new RenderAdmissionLimiter(properties);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.close();
+    }
+
+    @Test
+    void call_whileSlotIsFree_runsRender() {
+        assertThat(limiter.call(RenderPriority.INTERACTIVE, () -> "pdf")).isEqualTo("pdf");
+        assertThat(limiter.admittedCount()).isEqualTo(1);
+        assertThat(limiter.activeRenders()).isZero();
+    }
+
+    @Test
+    void call_interactiveWhileSaturated_isRejectedAfterMaxWait() throws Exception {
+        occupySlot();
+
+        assertThatThrownBy(() -> limiter.call(RenderPriority.INTERACTIVE, () -> "pdf"))
+                .isInstanceOf(RenderCapacityExceededException.class)
+                .extracting(e -> ((RenderCapacityExceededException) e).getRetryAfter())
+                .isEqualTo(Duration.ofSeconds(3));
+        assertThat(limiter.rejectionCount()).isEqualTo(1);
+        assertThat(limiter.queueDepth()).isZero();
+    }
+
+    @Test
+    void call_background_waitsForSlotInsteadOfBeingRejected() throws Exception {
+        occupySlot();
+        final Future<String> background = executor.submit(() -> limiter.call(RenderPriority.BACKGROUND, () -> "pdf"));
+        while (limiter.queueDepth() == 0) {
+            Thread.sleep(5);
+        }
+
+        // the queue is full, so an interactive render is rejected without waiting
+        assertThatThrownBy(() -> limiter.call(RenderPriority.INTERACTIVE, () -> "pdf"))
+                .isInstanceOf(RenderCapacityExceededException.class)
+                .hasMessageContaining("Too many renders waiting");
+
+        release.countDown();
+        assertThat(background.get()).isEqualTo("pdf");
+        assertThat(limiter.rejectionCount()).isEqualTo(1);
+    }
+
+    private void occupySlot() throws InterruptedException {
+        final var started = new CountDownLatch(1);
+        executor.submit(() -> limiter.call(RenderPriority.INTERACTIVE, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        started.await();
+    }
+}
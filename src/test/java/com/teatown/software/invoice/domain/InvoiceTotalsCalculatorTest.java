@@ -0,0 +1,109 @@
+package com.teatown.software.invoice.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvoiceTotalsCalculatorTest {
+
+    private static final BigDecimal VAT_RATE = new BigDecimal("0.19");
+
+    @Test
+    void totals_perLine_roundsEveryLineBeforeSumming() {
+        final var calculator = new InvoiceTotalsCalculator(
+                new RoundingPolicy(RoundingPolicy.Granularity.PER_LINE, RoundingMode.HALF_UP));
+        final InvoiceTotalsCalculator.Sum sum = calculator.sum();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(sum.add(new BigDecimal("0.5"), new BigDecimal("0.01"), null)).isEqualTo("0.01");
+        }
+
+        assertThat(sum.totals(VAT_RATE)).isEqualTo(new InvoiceTotals(
+                new BigDecimal("0.03"), new BigDecimal("0.01"), new BigDecimal("0.04")));
+    }
+
+    @Test
+    void totals_perInvoice_roundsOnlyTheSum() {
+        final var calculator = new InvoiceTotalsCalculator(
+                new RoundingPolicy(RoundingPolicy.Granularity.PER_INVOICE, RoundingMode.HALF_UP));
+        final InvoiceTotalsCalculator.Sum sum = calculator.sum();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(sum.add(new BigDecimal("0.5"), new BigDecimal("0.01"), null)).isEqualTo("0.005");
+        }
+
+        assertThat(sum.totals(VAT_RATE).net()).isEqualTo("0.02");
+    }
+
+    @Test
+    void lineTotal_roundsTiesAsTheModePrescribes() {
+        final var halfUp = new InvoiceTotalsCalculator(
+                new RoundingPolicy(RoundingPolicy.Granularity.PER_LINE, RoundingMode.HALF_UP));
+        final var halfEven = new InvoiceTotalsCalculator(
+                new RoundingPolicy(RoundingPolicy.Granularity.PER_LINE, RoundingMode.HALF_EVEN));
+
+        assertThat(halfUp.lineTotal(new BigDecimal("0.5"), new BigDecimal("0.25"))).isEqualTo("0.13");
+        assertThat(halfEven.lineTotal(new BigDecimal("0.5"), new BigDecimal("0.25"))).isEqualTo("0.12");
+        assertThat(halfUp.lineTotal(new BigDecimal("-0.5"), new BigDecimal("0.25"))).isEqualTo("-0.13");
+        assertThat(halfEven.lineTotal(new BigDecimal("-0.5"), new BigDecimal("0.35"))).isEqualTo("-0.18");
+    }
+
+    @Test
+    void totals_matchBigDecimalArithmetic_includingBeyondTheRangeOfLong() {
+        final var random = new Random(42);
+        for (final RoundingPolicy.Granularity granularity : RoundingPolicy.Granularity.values()) {
+            for (final RoundingMode mode : new RoundingMode[]{RoundingMode.HALF_UP, RoundingMode.HALF_EVEN}) {
+                final var calculator = new InvoiceTotalsCalculator(new RoundingPolicy(granularity, mode));
+                final InvoiceTotalsCalculator.Sum sum = calculator.sum();
+                BigDecimal expectedNet = BigDecimal.ZERO;
+                for (int i = 0; i < 500; i++) {
+                    // every 50th line is too large for a long, so the sum continues in BigDecimal
+                    final BigDecimal quantity = i % 50 == 49
+                            ? new BigDecimal("12345678901234567.891")
+                            : BigDecimal.valueOf(random.nextInt(2_000_001) - 1_000_000, random.nextInt(4));
+                    final BigDecimal unitPrice = BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(4));
+                    BigDecimal expectedLine = quantity.multiply(unitPrice);
+                    if (granularity == RoundingPolicy.Granularity.PER_LINE) {
+                        expectedLine = expectedLine.setScale(InvoiceTotalsCalculator.CENTS, mode);
+                    }
+
+                    assertThat(sum.add(quantity, unitPrice, null)).isEqualByComparingTo(expectedLine);
+                    expectedNet = expectedNet.add(expectedLine);
+                }
+                final BigDecimal net = expectedNet.setScale(InvoiceTotalsCalculator.CENTS, mode);
+                final BigDecimal vat = net.multiply(VAT_RATE).setScale(InvoiceTotalsCalculator.CENTS, mode);
+
+                assertThat(sum.totals(VAT_RATE)).isEqualTo(new InvoiceTotals(net, vat, net.add(vat)));
+            }
+        }
+    }
+
+    @Test
+    void add_keepsTheFirstLineDiscrepanciesAndCountsAll() {
+        final InvoiceTotalsCalculator.Sum sum = new InvoiceTotalsCalculator(RoundingPolicy.DEFAULT).sum();
+
+        sum.add(new BigDecimal("10"), new BigDecimal("120"), new BigDecimal("1200.00"));
+        sum.add(new BigDecimal("10"), new BigDecimal("120"), null);
+        for (int i = 0; i < 20; i++) {
+            sum.add(BigDecimal.ONE, new BigDecimal("1.005"), new BigDecimal("1.00"));
+        }
+
+        assertThat(sum.lines()).isEqualTo(22);
+        assertThat(sum.lineDiscrepancyCount()).isEqualTo(20);
+        assertThat(sum.lineDiscrepancies()).hasSize(InvoiceTotalsCalculator.MAX_LINE_DISCREPANCIES);
+        assertThat(sum.lineDiscrepancies().get(0)).isEqualTo(new TotalsDiscrepancy(
+                TotalsDiscrepancy.Total.LINE, 2, new BigDecimal("1.00"), new BigDecimal("1.01")));
+    }
+
+    @Test
+    void roundingPolicy_withUnsupportedMode_throws() {
+        assertThatThrownBy(() -> new RoundingPolicy(RoundingPolicy.Granularity.PER_LINE, RoundingMode.FLOOR))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("HALF_UP or HALF_EVEN");
+    }
+}